@@ -0,0 +1,194 @@
+/*
+ * Copyright 2026 Stackify
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stackify.log.log4j2;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.core.LogEvent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.stackify.api.LogMsg;
+import com.stackify.api.StackifyError;
+
+/**
+ * Appending from several threads through the reentrancy guard, converting events on the calling thread (sync) or on
+ * the async dispatcher (async), and handing the result to a sender that does nothing
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class AppendThroughputBenchmark {
+
+	/**
+	 * Where events are converted: "sync" or "async"
+	 */
+	@Param({"sync", "async"})
+	public String mode;
+
+	/**
+	 * Number of thread context entries of the appended event
+	 */
+	@Param({"5"})
+	public int mdcEntries;
+
+	/**
+	 * The appender
+	 */
+	private NoOpSenderAppender appender;
+
+	/**
+	 * The appended event
+	 */
+	private LogEvent event;
+
+	/**
+	 * Starts the appender
+	 */
+	@Setup
+	public void setup() {
+		appender = new NoOpSenderAppender(new LogEventAdapter(BenchmarkEvents.environment()), "async".equals(mode));
+		appender.start();
+		event = BenchmarkEvents.info(mdcEntries);
+	}
+
+	/**
+	 * Stops the appender
+	 */
+	@TearDown
+	public void tearDown() {
+		appender.stop();
+	}
+
+	/**
+	 * Appends the event
+	 */
+	@Benchmark
+	public void append() {
+		appender.append(event);
+	}
+
+	/**
+	 * Appender that converts events the way the Stackify appender does, then drops them
+	 */
+	static final class NoOpSenderAppender extends NonReentrantAppender {
+
+		/**
+		 * Serial version UID
+		 */
+		private static final long serialVersionUID = 1L;
+
+		/**
+		 * The adapter
+		 */
+		private final LogEventAdapter adapter;
+
+		/**
+		 * The async dispatcher (null in sync mode)
+		 */
+		private final AsyncEventDispatcher dispatcher;
+
+		/**
+		 * Constructor
+		 * @param adapter The adapter
+		 * @param async True to convert events on the async dispatcher
+		 */
+		NoOpSenderAppender(final LogEventAdapter adapter, final boolean async) {
+			super("NoOpSender", null, null);
+			this.adapter = adapter;
+
+			if (async) {
+				this.dispatcher = new AsyncEventDispatcher("Stackify_LogAsyncDispatcher-NoOpSender", 8192, 1,
+						WaitStrategy.SLEEP, OverflowPolicy.BLOCK, 100, org.apache.logging.log4j.Level.WARN, 60000,
+						32L * 1024 * 1024, new AsyncEventDispatcher.Handler() {
+							@Override
+							public void handle(final ConversionContext context) {
+								send(context);
+							}
+						});
+			} else {
+				this.dispatcher = null;
+			}
+		}
+
+		/**
+		 * @see org.apache.logging.log4j.core.AbstractLifeCycle#start()
+		 */
+		@Override
+		public void start() {
+			super.start();
+
+			if (dispatcher != null) {
+				dispatcher.start();
+			}
+		}
+
+		/**
+		 * @see org.apache.logging.log4j.core.AbstractLifeCycle#stop()
+		 */
+		@Override
+		public void stop() {
+			if (dispatcher != null) {
+				dispatcher.stop(5000);
+			}
+
+			super.stop();
+		}
+
+		/**
+		 * @see com.stackify.log.log4j2.NonReentrantAppender#subAppend(org.apache.logging.log4j.core.LogEvent)
+		 */
+		@Override
+		protected void subAppend(final LogEvent event) {
+			EventContext eventContext = EventContext.capture(event.getThrown() != null);
+
+			if (dispatcher != null) {
+				dispatcher.publish(event, eventContext);
+			} else {
+				send(new ConversionContext(event, eventContext));
+			}
+		}
+
+		/**
+		 * Converts an event and drops the result
+		 * @param context The conversion context
+		 */
+		private void send(final ConversionContext context) {
+			Throwable thrown = adapter.getThrowable(context.getEvent());
+			StackifyError error = (thrown != null) ? adapter.getStackifyError(context, thrown) : null;
+			LogMsg msg = adapter.getLogMsg(context, error);
+
+			if (msg == null) {
+				throw new IllegalStateException("Event was not converted");
+			}
+		}
+	}
+}
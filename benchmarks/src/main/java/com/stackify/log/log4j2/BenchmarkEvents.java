@@ -0,0 +1,172 @@
+/*
+ * Copyright 2026 Stackify
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stackify.log.log4j2;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.core.impl.Log4jLogEvent;
+import org.apache.logging.log4j.message.ParameterizedMessage;
+import org.apache.logging.log4j.util.SortedArrayStringMap;
+
+import com.stackify.api.EnvironmentDetail;
+import com.stackify.api.LogMsg;
+import com.stackify.api.LogMsgGroup;
+
+/**
+ * Builds the events shared by the benchmarks
+ */
+final class BenchmarkEvents {
+
+	/**
+	 * Logger name used for every event
+	 */
+	static final String LOGGER_NAME = "com.example.orders.OrderService";
+
+	/**
+	 * Stack frames below the throw site of each exception in a cause chain
+	 */
+	private static final int FRAMES_PER_CAUSE = 30;
+
+	/**
+	 * Hidden constructor
+	 */
+	private BenchmarkEvents() {
+	}
+
+	/**
+	 * @return Environment detail for benchmark adapters
+	 */
+	static EnvironmentDetail environment() {
+		return EnvironmentDetail.newBuilder()
+				.deviceName("benchmark-host")
+				.appName("benchmark")
+				.appLocation("/opt/benchmark")
+				.configuredAppName("benchmark")
+				.configuredEnvironmentName("bench")
+				.build();
+	}
+
+	/**
+	 * Creates an info event with a parameterized message
+	 * @param mdcEntries Number of thread context entries
+	 * @return The event
+	 */
+	static LogEvent info(final int mdcEntries) {
+		return Log4jLogEvent.newBuilder()
+				.setLoggerName(LOGGER_NAME)
+				.setLoggerFqcn(LOGGER_NAME)
+				.setLevel(Level.INFO)
+				.setMessage(new ParameterizedMessage("Order {} shipped to customer {} in {} ms", "A-10293", "c-4471", 187))
+				.setContextData(contextData(mdcEntries))
+				.setThreadName("http-nio-8080-exec-1")
+				.setTimeMillis(System.currentTimeMillis())
+				.build();
+	}
+
+	/**
+	 * Creates an error event whose throwable has a cause chain
+	 * @param causeDepth Number of throwables in the cause chain
+	 * @return The event
+	 */
+	static LogEvent error(final int causeDepth) {
+		return Log4jLogEvent.newBuilder()
+				.setLoggerName(LOGGER_NAME)
+				.setLoggerFqcn(LOGGER_NAME)
+				.setLevel(Level.ERROR)
+				.setMessage(new ParameterizedMessage("Unable to ship order {}", "A-10293"))
+				.setContextData(contextData(5))
+				.setThrown(causeChain(causeDepth))
+				.setThreadName("http-nio-8080-exec-1")
+				.setTimeMillis(System.currentTimeMillis())
+				.build();
+	}
+
+	/**
+	 * Converts a batch of events
+	 * @param corpus "info" (info events with 5 thread context entries), "errors" (error events with 3 causes), or
+	 * "mixed" (one error event in ten)
+	 * @param size Number of events
+	 * @return The batch
+	 */
+	static LogMsgGroup batch(final String corpus, final int size) {
+		LogEventAdapter adapter = new LogEventAdapter(environment());
+		List<LogMsg> msgs = new ArrayList<LogMsg>(size);
+
+		for (int i = 0; i < size; ++i) {
+			boolean error = "errors".equals(corpus) || ("mixed".equals(corpus) && (i % 10 == 9));
+			LogEvent event = error ? error(3) : info(5);
+			ConversionContext context = new ConversionContext(event, EventContext.EMPTY);
+			msgs.add(adapter.getLogMsg(context, error ? adapter.getStackifyError(context, event.getThrown()) : null));
+		}
+
+		return LogMsgGroup.newBuilder()
+				.logger("stackify-log-log4j2")
+				.platform("java")
+				.serverName("benchmark-host")
+				.appName("benchmark")
+				.env("bench")
+				.msgs(msgs)
+				.build();
+	}
+
+	/**
+	 * Creates thread context data
+	 * @param entries Number of entries
+	 * @return The context data
+	 */
+	static SortedArrayStringMap contextData(final int entries) {
+		SortedArrayStringMap contextData = new SortedArrayStringMap(Math.max(1, entries));
+
+		for (int i = 0; i < entries; ++i) {
+			contextData.putValue("mdcKey" + i, "value-" + i);
+		}
+
+		return contextData;
+	}
+
+	/**
+	 * Creates a chain of throwables, each thrown from a stack of its own
+	 * @param depth Number of throwables in the chain
+	 * @return The outermost throwable
+	 */
+	static Throwable causeChain(final int depth) {
+		Throwable cause = null;
+
+		for (int i = 0; i < depth; ++i) {
+			cause = throwFrom(FRAMES_PER_CAUSE, "Failure " + i, cause);
+		}
+
+		return cause;
+	}
+
+	/**
+	 * Creates a throwable after descending a number of frames
+	 * @param frames Frames left to descend
+	 * @param message The message
+	 * @param cause The cause
+	 * @return The throwable
+	 */
+	private static Throwable throwFrom(final int frames, final String message, final Throwable cause) {
+		if (0 < frames) {
+			return throwFrom(frames - 1, message, cause);
+		}
+
+		return new IllegalStateException(message, cause);
+	}
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2026 Stackify
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stackify.log.log4j2;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with the JMH command line options. The GC profiler (-prof gc) is added unless profilers are
+ * given, so allocation per operation is reported next to the timings.
+ */
+public final class BenchmarkRunner {
+
+	/**
+	 * Hidden constructor
+	 */
+	private BenchmarkRunner() {
+	}
+
+	/**
+	 * Runs the benchmarks
+	 * @param args JMH command line options
+	 * @throws Exception if the options are invalid or a benchmark fails to run
+	 */
+	public static void main(final String[] args) throws Exception {
+		CommandLineOptions commandLine = new CommandLineOptions(args);
+
+		if (commandLine.shouldHelp() || commandLine.shouldList() || commandLine.shouldListProfilers()) {
+			org.openjdk.jmh.Main.main(args);
+			return;
+		}
+
+		ChainedOptionsBuilder options = new OptionsBuilder().parent(commandLine);
+
+		if (commandLine.getProfilers().isEmpty()) {
+			options.addProfiler(GCProfiler.class);
+		}
+
+		new Runner(options.build()).run();
+	}
+}
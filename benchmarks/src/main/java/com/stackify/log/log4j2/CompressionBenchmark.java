@@ -0,0 +1,142 @@
+/*
+ * Copyright 2026 Stackify
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stackify.log.log4j2;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stackify.api.LogMsgGroup;
+
+/**
+ * Compressing a serialized batch of 100 converted events (the direct transport payload) with each built in codec.
+ * The "megabytes" counter is the uncompressed input compressed per second by one thread, so its inverse is the CPU
+ * cost per megabyte; the compression ratio of each corpus is printed once per fork.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CompressionBenchmark {
+
+	/**
+	 * Events in each batch
+	 */
+	private static final int BATCH_SIZE = 100;
+
+	/**
+	 * Corpus: "info" (info events with 5 thread context entries), "errors" (error events with 3 causes), or "mixed"
+	 * (one error event in ten)
+	 */
+	@Param({"info", "errors", "mixed"})
+	public String corpus;
+
+	/**
+	 * Codec
+	 */
+	@Param({"gzip", "deflate"})
+	public String codec;
+
+	/**
+	 * Compression level
+	 */
+	@Param({"1", "6"})
+	public int level;
+
+	/**
+	 * The compressor
+	 */
+	private PayloadCompressor compressor;
+
+	/**
+	 * The serialized batch
+	 */
+	private PayloadBuffer payload;
+
+	/**
+	 * Size of the serialized batch in megabytes
+	 */
+	private double payloadMegabytes;
+
+	/**
+	 * Builds the batch, serializes it and prints its compression ratio
+	 * @throws Exception
+	 */
+	@Setup
+	public void setup() throws Exception {
+		LogMsgGroup group = BenchmarkEvents.batch(corpus, BATCH_SIZE);
+
+		compressor = new PayloadCompressor(PayloadCompressor.codec(codec, level), 0);
+		payload = compressor.acquire();
+		new ObjectMapper().writeValue(payload, group);
+		payloadMegabytes = payload.size() / (1024.0 * 1024.0);
+
+		PayloadBuffer compressed = compressor.compress(payload);
+		System.out.printf("%n%s %s level %d: %d bytes -> %d bytes, ratio %.1f%n", corpus, codec, level, payload.size(), compressed.size(),
+				(double) payload.size() / compressed.size());
+		compressor.release(compressed);
+	}
+
+	/**
+	 * @param counters Input counter
+	 * @return Size of the compressed batch
+	 * @throws Exception
+	 */
+	@Benchmark
+	public int compress(final Counters counters) throws Exception {
+		PayloadBuffer compressed = compressor.compress(payload);
+		int size = compressed.size();
+		compressor.release(compressed);
+		counters.megabytes += payloadMegabytes;
+		return size;
+	}
+
+	/**
+	 * Uncompressed input, reported per second
+	 */
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.OPERATIONS)
+	public static class Counters {
+
+		/**
+		 * Megabytes of uncompressed input
+		 */
+		public double megabytes;
+
+		/**
+		 * Resets the counter
+		 */
+		@Setup(Level.Iteration)
+		public void reset() {
+			megabytes = 0;
+		}
+	}
+}
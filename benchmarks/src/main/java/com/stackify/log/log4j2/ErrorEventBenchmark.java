@@ -0,0 +1,102 @@
+/*
+ * Copyright 2026 Stackify
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stackify.log.log4j2;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.core.LogEvent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.stackify.api.LogMsg;
+import com.stackify.api.StackifyError;
+
+/**
+ * Converting error events whose throwable has a cause chain of growing depth, with and without the exception stack
+ * cache
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ErrorEventBenchmark {
+
+	/**
+	 * Number of throwables in the cause chain
+	 */
+	@Param({"1", "5", "20"})
+	public int causeDepth;
+
+	/**
+	 * Exception stack cache: "off" or "on"
+	 */
+	@Param({"off", "on"})
+	public String errorCache;
+
+	/**
+	 * The adapter
+	 */
+	private LogEventAdapter adapter;
+
+	/**
+	 * The event
+	 */
+	private LogEvent event;
+
+	/**
+	 * Request context of the event
+	 */
+	private EventContext eventContext;
+
+	/**
+	 * Builds the adapter and the event
+	 */
+	@Setup
+	public void setup() {
+		ErrorItemCache cache = "on".equals(errorCache) ? new ErrorItemCache(ErrorItemCache.DEFAULT_MAX_ENTRIES) : null;
+		adapter = new LogEventAdapter(BenchmarkEvents.environment(), new ServerVariables(), 0, 0, null, cache);
+		event = BenchmarkEvents.error(causeDepth);
+		eventContext = new EventContext("9a1c6f0e-5b7d-4a43-9f0c-2d1e8b6a7c55", "benchmark-user", null);
+	}
+
+	/**
+	 * @return The converted error
+	 */
+	@Benchmark
+	public StackifyError getStackifyError() {
+		return adapter.getStackifyError(new ConversionContext(event, eventContext), event.getThrown());
+	}
+
+	/**
+	 * @return The converted message, including its error
+	 */
+	@Benchmark
+	public LogMsg getLogMsg() {
+		ConversionContext context = new ConversionContext(event, eventContext);
+		return adapter.getLogMsg(context, adapter.getStackifyError(context, event.getThrown()));
+	}
+}
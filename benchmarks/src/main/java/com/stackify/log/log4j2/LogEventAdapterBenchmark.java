@@ -0,0 +1,87 @@
+/*
+ * Copyright 2026 Stackify
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stackify.log.log4j2;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.core.LogEvent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.stackify.api.LogMsg;
+
+/**
+ * Converting info events with a growing thread context (0 entries is the plain info event)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LogEventAdapterBenchmark {
+
+	/**
+	 * Number of thread context entries
+	 */
+	@Param({"0", "5", "20", "50"})
+	public int mdcEntries;
+
+	/**
+	 * The adapter
+	 */
+	private LogEventAdapter adapter;
+
+	/**
+	 * The event
+	 */
+	private LogEvent event;
+
+	/**
+	 * Builds the adapter and the event
+	 */
+	@Setup
+	public void setup() {
+		adapter = new LogEventAdapter(BenchmarkEvents.environment());
+		event = BenchmarkEvents.info(mdcEntries);
+	}
+
+	/**
+	 * @return The converted message
+	 */
+	@Benchmark
+	public LogMsg getLogMsg() {
+		return adapter.getLogMsg(new ConversionContext(event, EventContext.EMPTY), null);
+	}
+
+	/**
+	 * @return The converted thread context
+	 */
+	@Benchmark
+	public Map<String, String> getProperties() {
+		return adapter.getProperties(event);
+	}
+}
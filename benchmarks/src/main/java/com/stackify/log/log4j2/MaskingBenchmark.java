@@ -0,0 +1,140 @@
+/*
+ * Copyright 2026 Stackify
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stackify.log.log4j2;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.stackify.api.common.mask.Masker;
+
+/**
+ * Masking messages with the default masks (credit card and SSN) and with every built-in mask, comparing the Masker of
+ * the Stackify API (one regex pass per mask) with the CompiledMasker the appender uses
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MaskingBenchmark {
+
+	/**
+	 * Message with nothing to mask
+	 */
+	private static final String CLEAN = "Order A-10293 shipped to customer c-4471 in 187 ms from warehouse north-2";
+
+	/**
+	 * Message with a credit card number, an SSN, an IP address and an email address
+	 */
+	private static final String SENSITIVE = "Payment 4111-1111-1111-1111 declined for 078-05-1120 from 10.1.2.3, notify jane.doe@example.com";
+
+	/**
+	 * Approximate size of the payload message (characters)
+	 */
+	private static final int PAYLOAD_SIZE = 10 * 1024;
+
+	/**
+	 * Masking engine: "masker" or "compiled"
+	 */
+	@Param({"masker", "compiled"})
+	public String engine;
+
+	/**
+	 * Masks to enable: "default" or "all"
+	 */
+	@Param({"default", "all"})
+	public String masks;
+
+	/**
+	 * Message to mask: "clean", "sensitive", or "payload" (10 KB of JSON with numbers but nothing sensitive)
+	 */
+	@Param({"clean", "sensitive", "payload"})
+	public String message;
+
+	/**
+	 * The masker
+	 */
+	private Masker masker;
+
+	/**
+	 * The message
+	 */
+	private String text;
+
+	/**
+	 * Builds the masker
+	 */
+	@Setup
+	public void setup() {
+		masker = "compiled".equals(engine) ? new CompiledMasker() : new Masker();
+
+		if ("all".equals(masks)) {
+			for (String mask : Masker.MASKS) {
+				masker.addMask(mask);
+			}
+		} else {
+			masker.addMask(Masker.MASK_CREDITCARD);
+			masker.addMask(Masker.MASK_SSN);
+		}
+
+		if ("payload".equals(message)) {
+			text = payload();
+		} else {
+			text = "clean".equals(message) ? CLEAN : SENSITIVE;
+		}
+	}
+
+	/**
+	 * @return A JSON payload of about PAYLOAD_SIZE characters
+	 */
+	private static String payload() {
+		StringBuilder payload = new StringBuilder(PAYLOAD_SIZE + 256);
+		payload.append("Response payload: {\"items\":[");
+
+		for (int i = 0; payload.length() < PAYLOAD_SIZE; ++i) {
+			if (0 < i) {
+				payload.append(',');
+			}
+
+			payload.append("{\"id\":").append(100000 + i)
+					.append(",\"sku\":\"SKU-").append(i * 7)
+					.append("\",\"price\":").append(i % 100).append('.').append(i % 10).append('9')
+					.append(",\"updated\":\"2026-10-18T12:").append(10 + i % 50).append(":00Z\"}");
+		}
+
+		return payload.append("]}").toString();
+	}
+
+	/**
+	 * @return The masked message
+	 */
+	@Benchmark
+	public String mask() {
+		return masker.mask(text);
+	}
+}
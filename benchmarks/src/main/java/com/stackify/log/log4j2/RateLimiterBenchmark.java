@@ -0,0 +1,78 @@
+/*
+ * Copyright 2026 Stackify
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stackify.log.log4j2;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Rate limit checks from many threads on one shared limiter, with a limit that is rarely reached (every check takes a
+ * token) or always reached (every check is throttled). Run with -t to change the number of threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(8)
+@Fork(1)
+public class RateLimiterBenchmark {
+
+	/**
+	 * Limit: "open" (one billion events per second) or "throttled" (one event per second)
+	 */
+	@Param({"open", "throttled"})
+	public String limit;
+
+	/**
+	 * The limiter shared by the benchmark threads
+	 */
+	private RateLimiter limiter;
+
+	/**
+	 * Builds the limiter: a global limit, a package limit and the limit under test on the benchmarked class
+	 */
+	@Setup
+	public void setup() {
+		double rate = "open".equals(limit) ? 1e9 : 1;
+
+		limiter = new RateLimiter(new RateLimit[] {
+				RateLimit.create(null, 1e9, 1000000000L),
+				RateLimit.create("com.acme", 1e9, 1000000000L),
+				RateLimit.create("com.acme.orders.OrderService", rate, 1)
+		}, 60000);
+	}
+
+	/**
+	 * @return True if the event would be sent
+	 */
+	@Benchmark
+	public boolean tryAcquire() {
+		return limiter.tryAcquire("com.acme.orders.OrderService", System.nanoTime());
+	}
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright 2026 Stackify
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stackify.log.log4j2;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.core.appender.AbstractAppender;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Appending from a new platform or virtual thread through the reentrancy guard of NonReentrantAppender (slots) or
+ * through the former ThreadLocal guard, set and removed on every event (threadLocal), to an appender that does
+ * nothing. Virtual threads need Java 21.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReentrancyGuardBenchmark {
+
+	/**
+	 * The guard: "slots" or "threadLocal"
+	 */
+	@Param({"slots", "threadLocal"})
+	public String guard;
+
+	/**
+	 * Kind of thread appending: "platform" or "virtual"
+	 */
+	@Param({"platform", "virtual"})
+	public String threadKind;
+
+	/**
+	 * Number of events appended by each thread
+	 */
+	@Param({"1", "1000"})
+	public int eventsPerThread;
+
+	/**
+	 * The appender
+	 */
+	private AbstractAppender appender;
+
+	/**
+	 * Thread.startVirtualThread(Runnable), or null for platform threads
+	 */
+	private Method startVirtualThread;
+
+	/**
+	 * Appends the events
+	 */
+	private Runnable appendEvents;
+
+	/**
+	 * Creates the appender and finds how to start a virtual thread
+	 * @throws Exception if virtual threads are not available
+	 */
+	@Setup
+	public void setup() throws Exception {
+		appender = "threadLocal".equals(guard) ? new ThreadLocalGuardAppender() : new SlotGuardAppender();
+		startVirtualThread = "virtual".equals(threadKind) ? Thread.class.getMethod("startVirtualThread", Runnable.class) : null;
+
+		final LogEvent event = BenchmarkEvents.info(5);
+
+		appendEvents = new Runnable() {
+			@Override
+			public void run() {
+				for (int i = 0; i < eventsPerThread; ++i) {
+					appender.append(event);
+				}
+			}
+		};
+	}
+
+	/**
+	 * Starts a thread that appends the events and waits for it
+	 * @throws Exception if the thread fails to start
+	 */
+	@Benchmark
+	public void appendOnNewThread() throws Exception {
+		Thread thread;
+
+		if (startVirtualThread != null) {
+			thread = (Thread) startVirtualThread.invoke(null, appendEvents);
+		} else {
+			thread = new Thread(appendEvents);
+			thread.start();
+		}
+
+		thread.join();
+	}
+
+	/**
+	 * Appender behind the guard of NonReentrantAppender that drops the events
+	 */
+	static final class SlotGuardAppender extends NonReentrantAppender {
+
+		/**
+		 * Serial version UID
+		 */
+		private static final long serialVersionUID = 1L;
+
+		/**
+		 * Constructor
+		 */
+		SlotGuardAppender() {
+			super("SlotGuard", null, null);
+		}
+
+		/**
+		 * @see com.stackify.log.log4j2.NonReentrantAppender#subAppend(org.apache.logging.log4j.core.LogEvent)
+		 */
+		@Override
+		protected void subAppend(final LogEvent event) {
+			// dropped
+		}
+	}
+
+	/**
+	 * Appender behind the former ThreadLocal guard that drops the events
+	 */
+	static final class ThreadLocalGuardAppender extends AbstractAppender {
+
+		/**
+		 * Serial version UID
+		 */
+		private static final long serialVersionUID = 1L;
+
+		/**
+		 * Guard against re-entering the appender
+		 */
+		private final ThreadLocal<Boolean> guard = new ThreadLocal<Boolean>() {
+			@Override
+			protected Boolean initialValue() {
+				return Boolean.FALSE;
+			}
+		};
+
+		/**
+		 * Constructor
+		 */
+		ThreadLocalGuardAppender() {
+			super("ThreadLocalGuard", null, null);
+		}
+
+		/**
+		 * @see org.apache.logging.log4j.core.Appender#append(org.apache.logging.log4j.core.LogEvent)
+		 */
+		@Override
+		public void append(final LogEvent event) {
+			if (guard.get().equals(Boolean.TRUE)) {
+				return;
+			}
+
+			try {
+				guard.set(Boolean.TRUE);
+			} finally {
+				guard.remove();
+			}
+		}
+	}
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2026 Stackify
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stackify.log.log4j2;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.stackify.api.LogMsgGroup;
+
+/**
+ * Serializing a batch of 100 converted events in each agent batch format (the agent_socket_nio transport payload,
+ * before compression). The score is the time per batch; the bytes per event of each corpus and format are printed
+ * once per fork.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+
+	/**
+	 * Events in each batch
+	 */
+	private static final int BATCH_SIZE = 100;
+
+	/**
+	 * Corpus: "info" (info events with 5 thread context entries), "errors" (error events with 3 causes), or "mixed"
+	 * (one error event in ten)
+	 */
+	@Param({"info", "errors", "mixed"})
+	public String corpus;
+
+	/**
+	 * Batch format
+	 */
+	@Param({"protobuf", "json", "smile", "cbor"})
+	public String format;
+
+	/**
+	 * The batch format
+	 */
+	private BatchFormat batchFormat;
+
+	/**
+	 * The batch
+	 */
+	private LogMsgGroup group;
+
+	/**
+	 * Reused output buffer
+	 */
+	private PayloadBuffer payload;
+
+	/**
+	 * Builds the batch and prints its size in bytes per event
+	 * @throws Exception
+	 */
+	@Setup
+	public void setup() throws Exception {
+		batchFormat = BatchFormat.forName(format);
+		group = BenchmarkEvents.batch(corpus, BATCH_SIZE);
+		payload = new PayloadBuffer(64 * 1024);
+
+		batchFormat.write(group, payload);
+		System.out.printf("%n%s %s: %d bytes, %.0f bytes per event%n", corpus, format, payload.size(), (double) payload.size() / BATCH_SIZE);
+	}
+
+	/**
+	 * @return Size of the serialized batch
+	 * @throws Exception
+	 */
+	@Benchmark
+	public int serialize() throws Exception {
+		payload.reset();
+		batchFormat.write(group, payload);
+		return payload.size();
+	}
+}
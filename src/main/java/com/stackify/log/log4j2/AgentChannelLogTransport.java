@@ -0,0 +1,715 @@
+/*
+ * Copyright 2026 Stackify
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stackify.log.log4j2;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.ProtocolFamily;
+import java.net.SocketAddress;
+import java.net.SocketTimeoutException;
+import java.net.StandardProtocolFamily;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+
+import com.google.protobuf.CodedOutputStream;
+import com.stackify.api.LogMsgGroup;
+import com.stackify.api.common.log.LogTransport;
+import com.stackify.api.common.log.LogTransportPreProcessor;
+import com.stackify.api.common.mask.Masker;
+import com.stackify.api.common.proto.LogMsgGroupConverter;
+import com.stackify.api.common.proto.StackifyProto;
+
+/**
+ * Sends log batches to the Stackify agent over a local socket channel (agent_socket_nio transport).
+ * <p>
+ * Each batch is the request the agent_socket transport sends, a protobuf LogGroup posted to /log, but it is written
+ * straight to the channel without an HTTP client: the request head and the serialized batch are written from pooled
+ * direct buffers with one gathering write, the length of the batch being given by the Content-Length header. Batches
+ * can be encoded in another format instead of protobuf (JSON, Smile or CBOR). With a compression codec, batches at or
+ * above the compression threshold are compressed and sent with a Content-Encoding header. Connections are kept open and reused. All reads and writes are bounded by a timeout.
+ */
+final class AgentChannelLogTransport implements LogTransport, Closeable {
+
+	/**
+	 * Transport configuration name
+	 */
+	static final String TRANSPORT = "agent_socket_nio";
+
+	/**
+	 * Default bound on each exchange with the agent (milliseconds)
+	 */
+	static final long DEFAULT_TIMEOUT_MILLIS = 10000;
+
+	/**
+	 * Capacity of the pooled buffers holding serialized batches
+	 */
+	private static final int BODY_BUFFER_SIZE = 256 * 1024;
+
+	/**
+	 * Capacity of the pooled buffers holding request and response heads
+	 */
+	private static final int HEAD_BUFFER_SIZE = 1024;
+
+	/**
+	 * Most idle connections (and idle buffers of each kind) kept for reuse
+	 */
+	private static final int MAX_IDLE = 4;
+
+	/**
+	 * Request head, up to the Content-Type header
+	 */
+	private static final byte[] REQUEST_HEAD = ascii("POST /log HTTP/1.1\r\n"
+			+ "Host: localhost\r\n");
+
+	/**
+	 * Content-Length header, up to its value
+	 */
+	private static final byte[] CONTENT_LENGTH = ascii("Content-Length: ");
+
+	/**
+	 * End of the request head
+	 */
+	private static final byte[] REQUEST_HEAD_END = ascii("\r\n\r\n");
+
+	/**
+	 * Opens connections to the agent
+	 */
+	private final Connector connector;
+
+	/**
+	 * Masks messages and tags JSON messages before sending
+	 */
+	private final LogTransportPreProcessor preProcessor;
+
+	/**
+	 * Bound on each exchange with the agent (milliseconds)
+	 */
+	private final long timeoutMillis;
+
+	/**
+	 * Batch encoding
+	 */
+	private final BatchFormat format;
+
+	/**
+	 * Content-Type header of the batches
+	 */
+	private final byte[] contentType;
+
+	/**
+	 * Compresses batches, and pools the buffers batches not written straight to a direct buffer are encoded into
+	 */
+	private final PayloadCompressor compressor;
+
+	/**
+	 * Content-Encoding header of compressed batches (null for no compression)
+	 */
+	private final byte[] contentEncoding;
+
+	/**
+	 * Buffers holding serialized batches
+	 */
+	private final DirectBufferPool bodyBuffers = new DirectBufferPool(BODY_BUFFER_SIZE, MAX_IDLE);
+
+	/**
+	 * Buffers holding request and response heads
+	 */
+	private final DirectBufferPool headBuffers = new DirectBufferPool(HEAD_BUFFER_SIZE, 2 * MAX_IDLE);
+
+	/**
+	 * Open connections waiting to be reused
+	 */
+	private final ArrayBlockingQueue<Connection> idleConnections = new ArrayBlockingQueue<Connection>(MAX_IDLE);
+
+	/**
+	 * True once the transport is closed
+	 */
+	private volatile boolean closed;
+
+	/**
+	 * Constructor
+	 * @param connector Opens connections to the agent
+	 * @param masker Masker
+	 * @param skipJson Mark messages w/ JSON w/ #SKIPJSON
+	 * @param timeoutMillis Bound on each exchange with the agent (milliseconds)
+	 * @param format Batch encoding
+	 * @param compressor Compresses batches (null for no compression)
+	 */
+	AgentChannelLogTransport(final Connector connector, final Masker masker, final boolean skipJson, final long timeoutMillis,
+			final BatchFormat format, final PayloadCompressor compressor) {
+		this.connector = connector;
+		this.preProcessor = new LogTransportPreProcessor(masker, skipJson);
+		this.timeoutMillis = timeoutMillis;
+		this.format = format;
+		this.contentType = ascii("Content-Type: " + format.getContentType() + "\r\n");
+		this.compressor = (compressor != null) ? compressor : new PayloadCompressor(null, 0);
+		this.contentEncoding = (this.compressor.getCodec() != null) ? ascii("Content-Encoding: " + this.compressor.getCodec().getContentEncoding() + "\r\n")
+				: null;
+	}
+
+	/**
+	 * @return True if this JVM has Unix domain socket channels (Java 16 or later)
+	 */
+	static boolean isUnixSocketSupported() {
+		return UnixSocketConnector.OPEN != null;
+	}
+
+	/**
+	 * Creates a connector for a Unix domain socket
+	 * @param path Socket path
+	 * @return The connector
+	 * @throws IOException if this JVM has no Unix domain socket channels
+	 */
+	static Connector unixSocketConnector(final String path) throws IOException {
+		return new UnixSocketConnector(path);
+	}
+
+	/**
+	 * @see com.stackify.api.common.log.LogTransport#send(com.stackify.api.LogMsgGroup)
+	 */
+	@Override
+	public void send(final LogMsgGroup group) throws Exception {
+		if (closed) {
+			throw new IOException("Stackify agent transport is closed");
+		}
+
+		preProcessor.execute(group);
+
+		// protobuf batches sent uncompressed are serialized straight into the direct buffer
+
+		StackifyProto.LogGroup logGroup = null;
+		PayloadBuffer encoded = null;
+		PayloadBuffer compressed = null;
+		int length;
+
+		try {
+			if (format.isProtobuf() && (contentEncoding == null)) {
+				logGroup = LogMsgGroupConverter.convert(group);
+				length = logGroup.getSerializedSize();
+			} else {
+				encoded = compressor.acquire();
+				format.write(group, encoded);
+				compressed = compressor.compress(encoded);
+				length = (compressed != null) ? compressed.size() : encoded.size();
+			}
+
+			send(logGroup, (compressed != null) ? compressed : encoded, compressed != null, length);
+		} finally {
+			compressor.release(encoded);
+			compressor.release(compressed);
+		}
+	}
+
+	/**
+	 * Sends an encoded batch
+	 * @param logGroup The batch in protobuf, to be serialized (or null if it is encoded already)
+	 * @param encoded The encoded batch (or null if it is to be serialized)
+	 * @param compressed True if the encoded batch is compressed
+	 * @param length Length of the encoded batch
+	 * @throws IOException if the batch cannot be sent
+	 */
+	private void send(final StackifyProto.LogGroup logGroup, final PayloadBuffer encoded, final boolean compressed, final int length)
+			throws IOException {
+		ByteBuffer head = headBuffers.acquire(HEAD_BUFFER_SIZE);
+		ByteBuffer body = bodyBuffers.acquire(length);
+		ByteBuffer response = headBuffers.acquire(HEAD_BUFFER_SIZE);
+
+		try {
+			head.put(REQUEST_HEAD);
+			head.put(contentType);
+
+			if (compressed) {
+				head.put(contentEncoding);
+			}
+
+			head.put(CONTENT_LENGTH);
+			putDecimal(head, length);
+			head.put(REQUEST_HEAD_END);
+			head.flip();
+
+			if (logGroup != null) {
+				CodedOutputStream out = CodedOutputStream.newInstance(body);
+				logGroup.writeTo(out);
+				out.flush();
+			} else {
+				body.put(encoded.array(), 0, length);
+			}
+
+			body.limit(length);
+			body.position(0);
+
+			exchange(new ByteBuffer[] {head, body}, response);
+		} finally {
+			headBuffers.release(head);
+			bodyBuffers.release(body);
+			headBuffers.release(response);
+		}
+	}
+
+	/**
+	 * Sends a request and reads the response, retrying once on a new connection if a reused connection turns out to
+	 * have been closed by the agent
+	 * @param request Request buffers
+	 * @param response Buffer for the response head
+	 * @throws IOException if the exchange fails or the agent rejects the batch
+	 */
+	private void exchange(final ByteBuffer[] request, final ByteBuffer response) throws IOException {
+		Connection connection = idleConnections.poll();
+
+		if (connection != null) {
+			try {
+				finish(connection, connection.exchange(request, response, timeoutMillis));
+				return;
+			} catch (IOException e) {
+				connection.close();
+
+				if (connection.responded) {
+					throw e;
+				}
+			}
+
+			for (ByteBuffer buffer : request) {
+				buffer.position(0);
+			}
+
+			response.clear();
+		}
+
+		connection = new Connection(connector.connect());
+
+		try {
+			finish(connection, connection.exchange(request, response, timeoutMillis));
+		} catch (IOException e) {
+			connection.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Keeps or closes a connection after an exchange, and checks the response status
+	 * @param connection The connection
+	 * @param status The response status code
+	 * @throws IOException if the agent rejected the batch
+	 */
+	private void finish(final Connection connection, final int status) throws IOException {
+		if (!connection.reusable || closed || !idleConnections.offer(connection)) {
+			connection.close();
+		}
+
+		if ((status < 200) || (300 <= status)) {
+			throw new IOException("Stackify agent responded with status " + status);
+		}
+	}
+
+	/**
+	 * Closes the idle connections. Sends after closing fail.
+	 * @see java.io.Closeable#close()
+	 */
+	@Override
+	public void close() {
+		closed = true;
+
+		Connection connection;
+
+		while ((connection = idleConnections.poll()) != null) {
+			connection.close();
+		}
+	}
+
+	/**
+	 * @return Number of open connections waiting to be reused
+	 */
+	int getIdleConnectionCount() {
+		return idleConnections.size();
+	}
+
+	/**
+	 * Writes a non-negative number in decimal
+	 * @param buffer The buffer
+	 * @param value The number
+	 */
+	private static void putDecimal(final ByteBuffer buffer, final int value) {
+		int divisor = 1;
+
+		while (divisor <= value / 10) {
+			divisor *= 10;
+		}
+
+		for (; 0 < divisor; divisor /= 10) {
+			buffer.put((byte) ('0' + (value / divisor) % 10));
+		}
+	}
+
+	/**
+	 * @param text ASCII text
+	 * @return The text's bytes
+	 */
+	private static byte[] ascii(final String text) {
+		byte[] bytes = new byte[text.length()];
+
+		for (int i = 0; i < bytes.length; ++i) {
+			bytes[i] = (byte) text.charAt(i);
+		}
+
+		return bytes;
+	}
+
+	/**
+	 * Opens connections to the agent
+	 */
+	interface Connector {
+
+		/**
+		 * Opens a connected channel
+		 * @return The channel, in blocking mode
+		 * @throws IOException if the agent cannot be reached
+		 */
+		SocketChannel connect() throws IOException;
+	}
+
+	/**
+	 * Connects to a Unix domain socket. The channel API for these sockets was added in Java 16, so it is reached by
+	 * reflection to keep the appender loadable on Java 8.
+	 */
+	private static final class UnixSocketConnector implements Connector {
+
+		/**
+		 * SocketChannel.open(ProtocolFamily), or null if this JVM has no Unix domain socket channels
+		 */
+		static final Method OPEN;
+
+		/**
+		 * UnixDomainSocketAddress.of(String)
+		 */
+		static final Method ADDRESS_OF;
+
+		/**
+		 * StandardProtocolFamily.UNIX
+		 */
+		static final ProtocolFamily UNIX;
+
+		static {
+			Method open = null;
+			Method addressOf = null;
+			ProtocolFamily unix = null;
+
+			try {
+				unix = StandardProtocolFamily.valueOf("UNIX");
+				addressOf = Class.forName("java.net.UnixDomainSocketAddress").getMethod("of", String.class);
+				open = SocketChannel.class.getMethod("open", ProtocolFamily.class);
+			} catch (Exception e) {
+				open = null;
+			}
+
+			OPEN = open;
+			ADDRESS_OF = addressOf;
+			UNIX = unix;
+		}
+
+		/**
+		 * Socket address
+		 */
+		private final SocketAddress address;
+
+		/**
+		 * Constructor
+		 * @param path Socket path
+		 * @throws IOException if this JVM has no Unix domain socket channels
+		 */
+		UnixSocketConnector(final String path) throws IOException {
+			if (OPEN == null) {
+				throw new IOException("Unix domain socket channels need Java 16 or later");
+			}
+
+			this.address = (SocketAddress) invoke(ADDRESS_OF, path);
+		}
+
+		/**
+		 * @see com.stackify.log.log4j2.AgentChannelLogTransport.Connector#connect()
+		 */
+		@Override
+		public SocketChannel connect() throws IOException {
+			SocketChannel channel = (SocketChannel) invoke(OPEN, UNIX);
+
+			try {
+				channel.connect(address);
+				return channel;
+			} catch (IOException e) {
+				channel.close();
+				throw e;
+			}
+		}
+
+		/**
+		 * Invokes a static method
+		 * @param method The method
+		 * @param arg The argument
+		 * @return The result
+		 * @throws IOException if the method fails
+		 */
+		private static Object invoke(final Method method, final Object arg) throws IOException {
+			try {
+				return method.invoke(null, arg);
+			} catch (InvocationTargetException e) {
+				if (e.getCause() instanceof IOException) {
+					throw (IOException) e.getCause();
+				}
+
+				throw new IOException(e.getCause());
+			} catch (IllegalAccessException e) {
+				throw new IOException(e);
+			}
+		}
+	}
+
+	/**
+	 * An open connection to the agent
+	 */
+	private static final class Connection {
+
+		/**
+		 * The channel (non-blocking)
+		 */
+		private final SocketChannel channel;
+
+		/**
+		 * Selector waiting on the channel
+		 */
+		private final Selector selector;
+
+		/**
+		 * The channel's key with the selector
+		 */
+		private final SelectionKey key;
+
+		/**
+		 * True once part of a response has been read in the current exchange
+		 */
+		boolean responded;
+
+		/**
+		 * True if the connection can be reused after the current exchange
+		 */
+		boolean reusable;
+
+		/**
+		 * Constructor
+		 * @param channel A connected channel
+		 * @throws IOException if the channel cannot be registered with a selector
+		 */
+		Connection(final SocketChannel channel) throws IOException {
+			Selector opened = null;
+
+			try {
+				channel.configureBlocking(false);
+				opened = Selector.open();
+				this.key = channel.register(opened, 0);
+			} catch (IOException e) {
+				if (opened != null) {
+					opened.close();
+				}
+
+				channel.close();
+				throw e;
+			}
+
+			this.channel = channel;
+			this.selector = opened;
+		}
+
+		/**
+		 * Writes a request and reads the response
+		 * @param request Request buffers
+		 * @param buffer Buffer for the response head
+		 * @param timeoutMillis Bound on the exchange (milliseconds)
+		 * @return The response status code
+		 * @throws IOException if the exchange fails or times out
+		 */
+		int exchange(final ByteBuffer[] request, final ByteBuffer buffer, final long timeoutMillis) throws IOException {
+			long deadline = System.currentTimeMillis() + timeoutMillis;
+
+			responded = false;
+			reusable = false;
+
+			ByteBuffer last = request[request.length - 1];
+
+			while (last.hasRemaining()) {
+				if (channel.write(request) == 0) {
+					await(SelectionKey.OP_WRITE, deadline);
+				}
+			}
+
+			// read the response head
+
+			int headEnd;
+
+			while ((headEnd = headEnd(buffer)) < 0) {
+				if (!buffer.hasRemaining()) {
+					throw new IOException("Stackify agent response head is too large");
+				}
+
+				if (read(buffer, deadline) < 0) {
+					throw new IOException("Stackify agent closed the connection");
+				}
+
+				responded = true;
+			}
+
+			buffer.flip();
+
+			byte[] bytes = new byte[headEnd];
+			buffer.get(bytes);
+
+			String[] lines = new String(bytes, "ISO-8859-1").split("\r\n");
+			String[] statusLine = lines[0].split(" ", 3);
+
+			if ((statusLine.length < 2) || !statusLine[0].startsWith("HTTP/")) {
+				throw new IOException("Invalid Stackify agent response: " + lines[0]);
+			}
+
+			int status;
+
+			try {
+				status = Integer.parseInt(statusLine[1]);
+			} catch (NumberFormatException e) {
+				throw new IOException("Invalid Stackify agent response: " + lines[0]);
+			}
+
+			long contentLength = -1;
+			boolean keepAlive = !"HTTP/1.0".equals(statusLine[0]);
+
+			for (int i = 1; i < lines.length; ++i) {
+				int colon = lines[i].indexOf(':');
+
+				if (colon < 0) {
+					continue;
+				}
+
+				String name = lines[i].substring(0, colon).trim().toLowerCase(Locale.ENGLISH);
+				String value = lines[i].substring(colon + 1).trim();
+
+				if ("content-length".equals(name)) {
+					try {
+						contentLength = Long.parseLong(value);
+					} catch (NumberFormatException e) {
+						throw new IOException("Invalid Stackify agent response Content-Length: " + value);
+					}
+				} else if ("connection".equals(name)) {
+					keepAlive = !"close".equalsIgnoreCase(value);
+				}
+			}
+
+			// skip the response body, which is only read to reuse the connection
+
+			if (contentLength < 0) {
+				return status;
+			}
+
+			long remaining = contentLength - buffer.remaining();
+
+			while (0 < remaining) {
+				buffer.clear();
+				buffer.limit((int) Math.min(buffer.capacity(), remaining));
+
+				int read = read(buffer, deadline);
+
+				if (read < 0) {
+					return status;
+				}
+
+				remaining -= read;
+			}
+
+			reusable = keepAlive && (remaining == 0);
+			return status;
+		}
+
+		/**
+		 * Finds the end of the response head
+		 * @param buffer Bytes read so far, in write mode
+		 * @return Length of the head including the blank line, or -1 if it has not been read yet
+		 */
+		private static int headEnd(final ByteBuffer buffer) {
+			for (int i = 3; i < buffer.position(); ++i) {
+				if ((buffer.get(i) == '\n') && (buffer.get(i - 1) == '\r') && (buffer.get(i - 2) == '\n') && (buffer.get(i - 3) == '\r')) {
+					return i + 1;
+				}
+			}
+
+			return -1;
+		}
+
+		/**
+		 * Reads at least one byte
+		 * @param buffer The buffer
+		 * @param deadline Time by which the read must complete (epoch milliseconds)
+		 * @return Number of bytes read, or -1 at the end of the stream
+		 * @throws IOException if the read fails or times out
+		 */
+		private int read(final ByteBuffer buffer, final long deadline) throws IOException {
+			while (true) {
+				int read = channel.read(buffer);
+
+				if (read != 0) {
+					return read;
+				}
+
+				await(SelectionKey.OP_READ, deadline);
+			}
+		}
+
+		/**
+		 * Waits until the channel is ready
+		 * @param ops Operations waited for
+		 * @param deadline Time by which the channel must be ready (epoch milliseconds)
+		 * @throws IOException if the deadline passes
+		 */
+		private void await(final int ops, final long deadline) throws IOException {
+			long remaining = deadline - System.currentTimeMillis();
+
+			if (remaining <= 0) {
+				throw new SocketTimeoutException("Timed out waiting for the Stackify agent");
+			}
+
+			key.interestOps(ops);
+			selector.select(remaining);
+			selector.selectedKeys().clear();
+		}
+
+		/**
+		 * Closes the connection, ignoring failures
+		 */
+		void close() {
+			try {
+				selector.close();
+			} catch (IOException e) {
+				// ignore
+			}
+
+			try {
+				channel.close();
+			} catch (IOException e) {
+				// ignore
+			}
+		}
+	}
+}
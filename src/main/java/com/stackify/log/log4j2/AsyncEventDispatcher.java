@@ -0,0 +1,680 @@
+/*
+ * Copyright 2026 Stackify
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stackify.log.log4j2;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.status.StatusLogger;
+
+/**
+ * Moves event conversion off the application threads.
+ * <p>
+ * Appended events are copied, along with their captured request context, into preallocated ring buffer slots.
+ * Consumer threads take them from the ring and hand each one to the handler, which runs the LogEventAdapter and
+ * queues the result for the sender.
+ * <p>
+ * The ring is bounded both by its slot count and, optionally, by the estimated serialized size of the events it
+ * holds. Running out of either applies the overflow policy.
+ * <p>
+ * Errors (events with a throwable, or logged at error level or above) can be given a lane of their own: a separate
+ * ring with its own capacity and overflow policy, which consumers always drain first. Errors then neither wait behind
+ * a backlog of less severe events nor get dropped when that backlog overflows.
+ */
+final class AsyncEventDispatcher {
+
+	/**
+	 * Receives events on a consumer thread
+	 */
+	interface Handler {
+
+		/**
+		 * Converts and queues one event
+		 * @param context The event and its captured request context
+		 */
+		void handle(ConversionContext context);
+	}
+
+	/**
+	 * Spins before a consumer starts yielding or parking
+	 */
+	private static final int SPIN_TRIES = 100;
+
+	/**
+	 * Yields before a SLEEP consumer starts parking
+	 */
+	private static final int YIELD_TRIES = 100;
+
+	/**
+	 * Park interval for SLEEP consumers and for blocked producers
+	 */
+	private static final long PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+	/**
+	 * Upper bound on a BLOCK consumer's wait, so it notices shutdown
+	 */
+	private static final long BLOCK_TIMEOUT_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+	/**
+	 * Thread name
+	 */
+	private final String name;
+
+	/**
+	 * Lane of all events, or of the events that are not errors when there is an error lane
+	 */
+	private final Lane lane;
+
+	/**
+	 * Lane of the errors (null when errors share the lane of the other events)
+	 */
+	private final Lane errorLane;
+
+	/**
+	 * Consumer wait strategy
+	 */
+	private final WaitStrategy waitStrategy;
+
+	/**
+	 * How often dropped events are reported (milliseconds)
+	 */
+	private final long dropReportIntervalMillis;
+
+	/**
+	 * Event handler
+	 */
+	private final Handler handler;
+
+	/**
+	 * Consumer threads
+	 */
+	private final List<Thread> consumers;
+
+	/**
+	 * Lock for BLOCK consumers
+	 */
+	private final ReentrantLock lock = new ReentrantLock();
+
+	/**
+	 * Signalled when an event is published and a BLOCK consumer is waiting
+	 */
+	private final Condition notEmpty = lock.newCondition();
+
+	/**
+	 * Number of BLOCK consumers waiting
+	 */
+	private volatile int waiters;
+
+	/**
+	 * True while accepting events
+	 */
+	private volatile boolean running;
+
+	/**
+	 * Events dropped because the ring was full or the dispatcher was stopped
+	 */
+	private final DroppedEvents dropped = new DroppedEvents();
+
+	/**
+	 * When dropped events were last reported
+	 */
+	private volatile long lastDropReport = System.currentTimeMillis();
+
+	/**
+	 * Constructor
+	 * @param name Name used for the consumer threads
+	 * @param ringSize Number of ring slots (rounded up to a power of two)
+	 * @param threads Number of consumer threads
+	 * @param waitStrategy Consumer wait strategy
+	 * @param overflowPolicy What to do when the ring is full
+	 * @param overflowTimeoutMillis How long BLOCK_WITH_TIMEOUT waits for a free slot
+	 * @param overflowLevel Least severe level DROP_BELOW_LEVEL keeps when the ring is full
+	 * @param dropReportIntervalMillis How often dropped events are reported
+	 * @param maxQueueBytes Cap on the estimated size of queued events, or zero for no cap
+	 * @param handler Event handler
+	 */
+	AsyncEventDispatcher(final String name,
+						 final int ringSize,
+						 final int threads,
+						 final WaitStrategy waitStrategy,
+						 final OverflowPolicy overflowPolicy,
+						 final long overflowTimeoutMillis,
+						 final Level overflowLevel,
+						 final long dropReportIntervalMillis,
+						 final long maxQueueBytes,
+						 final Handler handler) {
+		this(name, ringSize, threads, waitStrategy, overflowPolicy, overflowTimeoutMillis, overflowLevel, dropReportIntervalMillis, maxQueueBytes, 0,
+				null, handler);
+	}
+
+	/**
+	 * Constructor
+	 * @param name Name used for the consumer threads
+	 * @param ringSize Number of ring slots (rounded up to a power of two)
+	 * @param threads Number of consumer threads
+	 * @param waitStrategy Consumer wait strategy
+	 * @param overflowPolicy What to do when the ring is full
+	 * @param overflowTimeoutMillis How long BLOCK_WITH_TIMEOUT waits for a free slot
+	 * @param overflowLevel Least severe level DROP_BELOW_LEVEL keeps when the ring is full
+	 * @param dropReportIntervalMillis How often dropped events are reported
+	 * @param maxQueueBytes Cap on the estimated size of queued events (other than errors), or zero for no cap
+	 * @param errorRingSize Number of error lane slots (rounded up to a power of two), or zero for no error lane
+	 * @param errorOverflowPolicy What to do when the error lane is full
+	 * @param handler Event handler
+	 */
+	AsyncEventDispatcher(final String name,
+						 final int ringSize,
+						 final int threads,
+						 final WaitStrategy waitStrategy,
+						 final OverflowPolicy overflowPolicy,
+						 final long overflowTimeoutMillis,
+						 final Level overflowLevel,
+						 final long dropReportIntervalMillis,
+						 final long maxQueueBytes,
+						 final int errorRingSize,
+						 final OverflowPolicy errorOverflowPolicy,
+						 final Handler handler) {
+		this.name = name;
+		this.lane = new Lane(ringSize, overflowPolicy, overflowTimeoutMillis, overflowLevel, maxQueueBytes);
+		this.errorLane = (errorRingSize > 0) ? new Lane(errorRingSize, errorOverflowPolicy, overflowTimeoutMillis, overflowLevel, 0) : null;
+		this.waitStrategy = waitStrategy;
+		this.dropReportIntervalMillis = dropReportIntervalMillis;
+		this.handler = handler;
+		this.consumers = new ArrayList<Thread>(Math.max(1, threads));
+
+		for (int i = 0; i < Math.max(1, threads); ++i) {
+			consumers.add(new ConsumerThread(name + "-" + i));
+		}
+	}
+
+	/**
+	 * Starts the consumer threads
+	 */
+	void start() {
+		running = true;
+
+		for (Thread consumer : consumers) {
+			consumer.start();
+		}
+	}
+
+	/**
+	 * Stops accepting events, waits for the consumers to drain the ring and stops them
+	 * @param timeoutMillis How long to wait for the ring to drain
+	 */
+	void stop(final long timeoutMillis) {
+		running = false;
+		signalConsumers();
+
+		long deadline = System.currentTimeMillis() + timeoutMillis;
+
+		for (Thread consumer : consumers) {
+			try {
+				consumer.join(Math.max(1, deadline - System.currentTimeMillis()));
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				break;
+			}
+		}
+
+		for (Thread consumer : consumers) {
+			if (consumer.isAlive()) {
+				StatusLogger.getLogger().warn("{} did not drain within {} ms, {} events left", name, timeoutMillis, getQueueSize());
+				consumer.interrupt();
+			}
+		}
+
+		reportDrops();
+	}
+
+	/**
+	 * Copies an event into the ring
+	 * @param event The event
+	 * @param eventContext Request context captured on the appending thread
+	 * @return True if the event was queued (or handled), false if it was dropped
+	 */
+	boolean publish(final LogEvent event, final EventContext eventContext) {
+		if (!running) {
+			dropped.increment(event.getLevel());
+			return false;
+		}
+
+		// a consumer thread that logs while converting must never wait on its own ring
+
+		if (Thread.currentThread() instanceof ConsumerThread) {
+			handler.handle(new ConversionContext(event, eventContext));
+			return true;
+		}
+
+		Lane target = ((errorLane != null) && LogEventAdapter.isError(event)) ? errorLane : lane;
+
+		int size = (target.maxQueueBytes > 0) ? EventSizeEstimator.estimate(event) : 0;
+
+		EventRingBuffer.Slot slot = target.tryClaim(size);
+
+		if (slot == null) {
+			slot = target.claimWhenFull(event, size);
+
+			if (slot == null) {
+				dropped.increment(event.getLevel());
+				return false;
+			}
+		}
+
+		try {
+			slot.set(event, eventContext);
+		} finally {
+			target.ring.publish(slot);
+		}
+
+		if (waiters > 0) {
+			signalConsumers();
+		}
+
+		return true;
+	}
+
+
+	/**
+	 * @return Number of events dropped
+	 */
+	long getDropped() {
+		return dropped.getTotal();
+	}
+
+	/**
+	 * Sends a report of the events dropped since the last report, if any
+	 */
+	void reportDrops() {
+		long now = System.currentTimeMillis();
+		LogEvent report = dropped.drainReport(now - lastDropReport);
+		lastDropReport = now;
+
+		if (report != null) {
+			try {
+				handler.handle(new ConversionContext(report, EventContext.EMPTY));
+			} catch (Throwable t) {
+				StatusLogger.getLogger().error("Exception reporting dropped events in {}", name, t);
+			}
+		}
+	}
+
+	/**
+	 * @return Approximate number of events waiting in the rings
+	 */
+	int getQueueSize() {
+		return lane.ring.size() + getErrorQueueSize();
+	}
+
+	/**
+	 * @return Approximate number of events waiting in the error lane
+	 */
+	int getErrorQueueSize() {
+		return (errorLane != null) ? errorLane.ring.size() : 0;
+	}
+
+	/**
+	 * @return Estimated size of the events in the ring (bytes), including those being converted
+	 */
+	long getQueuedBytes() {
+		return lane.queuedBytes.get();
+	}
+
+	/**
+	 * Wakes up BLOCK consumers
+	 */
+	private void signalConsumers() {
+		lock.lock();
+
+		try {
+			notEmpty.signalAll();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Takes and handles one event
+	 * @return True if an event was handled
+	 */
+	private boolean consumeOne() {
+		Lane source = errorLane;
+		EventRingBuffer.Slot slot = (source != null) ? source.ring.tryTake() : null;
+
+		if (slot == null) {
+			source = lane;
+			slot = source.ring.tryTake();
+
+			if (slot == null) {
+				return false;
+			}
+		}
+
+		try {
+			handler.handle(new ConversionContext(slot.event, slot.eventContext));
+		} catch (Throwable t) {
+			StatusLogger.getLogger().error("Exception handling event in {}", name, t);
+		} finally {
+			source.release(slot);
+		}
+
+		return true;
+	}
+
+	/**
+	 * Waits for an event to be published
+	 * @param idleCount Number of consecutive empty polls
+	 */
+	private void idle(final int idleCount) {
+		if (idleCount < SPIN_TRIES) {
+			return;
+		}
+
+		switch (waitStrategy) {
+			case YIELD:
+				Thread.yield();
+				break;
+			case BLOCK:
+				awaitNotEmpty();
+				break;
+			default:
+				if (idleCount < SPIN_TRIES + YIELD_TRIES) {
+					Thread.yield();
+				} else {
+					LockSupport.parkNanos(PARK_NANOS);
+				}
+				break;
+		}
+	}
+
+	/**
+	 * Blocks until an event is published, the dispatcher is stopped or the timeout passes
+	 */
+	private void awaitNotEmpty() {
+		lock.lock();
+
+		try {
+			++waiters;
+
+			if (lane.ring.isEmpty() && ((errorLane == null) || errorLane.ring.isEmpty()) && running) {
+				notEmpty.awaitNanos(BLOCK_TIMEOUT_NANOS);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			--waiters;
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * A ring with its own capacity and overflow policy
+	 */
+	private final class Lane {
+
+		/**
+		 * The ring buffer
+		 */
+		private final EventRingBuffer ring;
+
+		/**
+		 * What to do when the ring is full
+		 */
+		private final OverflowPolicy overflowPolicy;
+
+		/**
+		 * How long BLOCK_WITH_TIMEOUT waits for a free slot (nanoseconds)
+		 */
+		private final long overflowTimeoutNanos;
+
+		/**
+		 * Least severe level DROP_BELOW_LEVEL keeps when the ring is full
+		 */
+		private final Level overflowLevel;
+
+		/**
+		 * Cap on the estimated size of queued events (bytes), or zero for no cap
+		 */
+		private final long maxQueueBytes;
+
+		/**
+		 * Estimated size of the events in the ring (bytes)
+		 */
+		private final AtomicLong queuedBytes = new AtomicLong();
+
+		/**
+		 * Constructor
+		 * @param ringSize Number of ring slots (rounded up to a power of two)
+		 * @param overflowPolicy What to do when the ring is full
+		 * @param overflowTimeoutMillis How long BLOCK_WITH_TIMEOUT waits for a free slot
+		 * @param overflowLevel Least severe level DROP_BELOW_LEVEL keeps when the ring is full
+		 * @param maxQueueBytes Cap on the estimated size of queued events, or zero for no cap
+		 */
+		private Lane(final int ringSize,
+					 final OverflowPolicy overflowPolicy,
+					 final long overflowTimeoutMillis,
+					 final Level overflowLevel,
+					 final long maxQueueBytes) {
+			this.ring = new EventRingBuffer(ringSize);
+			this.overflowPolicy = (overflowPolicy != null) ? overflowPolicy : OverflowPolicy.BLOCK;
+			this.overflowTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(overflowTimeoutMillis);
+			this.overflowLevel = overflowLevel;
+			this.maxQueueBytes = maxQueueBytes;
+		}
+
+		/**
+		 * Reserves room for an event in the byte budget and claims a slot for it
+		 * @param size Estimated size of the event
+		 * @return The claimed slot, or null if either the budget or the ring is full
+		 */
+		private EventRingBuffer.Slot tryClaim(final int size) {
+			if (!reserveBytes(size)) {
+				return null;
+			}
+
+			EventRingBuffer.Slot slot = ring.tryClaim();
+
+			if (slot == null) {
+				queuedBytes.addAndGet(-size);
+				return null;
+			}
+
+			slot.size = size;
+			return slot;
+		}
+
+		/**
+		 * Adds an event to the byte budget. An event larger than the whole budget is still accepted into an empty
+		 * ring.
+		 * @param size Estimated size of the event
+		 * @return True if the event fits
+		 */
+		private boolean reserveBytes(final int size) {
+			if (maxQueueBytes <= 0) {
+				return true;
+			}
+
+			while (true) {
+				long current = queuedBytes.get();
+
+				if ((current > 0) && (current + size > maxQueueBytes)) {
+					return false;
+				}
+
+				if (queuedBytes.compareAndSet(current, current + size)) {
+					return true;
+				}
+			}
+		}
+
+		/**
+		 * Hands a taken slot back to producers and frees its share of the byte budget
+		 * @param slot The taken slot
+		 */
+		private void release(final EventRingBuffer.Slot slot) {
+			int size = slot.size;
+			ring.release(slot);
+			queuedBytes.addAndGet(-size);
+		}
+
+		/**
+		 * Applies the overflow policy to an event that found the ring full
+		 * @param event The event being appended
+		 * @param size Estimated size of the event
+		 * @return A claimed slot, or null if the event is to be dropped
+		 */
+		private EventRingBuffer.Slot claimWhenFull(final LogEvent event, final int size) {
+			switch (overflowPolicy) {
+				case DROP_NEWEST:
+					return null;
+				case DROP_OLDEST:
+					return claimDroppingOldest(size);
+				case BLOCK_WITH_TIMEOUT:
+					return claimBlocking(System.nanoTime() + overflowTimeoutNanos, size);
+				case DROP_BELOW_LEVEL:
+					Level level = event.getLevel();
+
+					if ((level == null) || !level.isMoreSpecificThan(overflowLevel)) {
+						return null;
+					}
+
+					return claimBlocking(Long.MAX_VALUE, size);
+				default:
+					return claimBlocking(Long.MAX_VALUE, size);
+			}
+		}
+
+		/**
+		 * Waits for a free slot
+		 * @param deadline System.nanoTime() to give up at, or Long.MAX_VALUE to wait until the dispatcher is stopped
+		 * @param size Estimated size of the event
+		 * @return The claimed slot, or null on timeout or stop
+		 */
+		private EventRingBuffer.Slot claimBlocking(final long deadline, final int size) {
+			while (running) {
+				LockSupport.parkNanos(PARK_NANOS);
+
+				EventRingBuffer.Slot slot = tryClaim(size);
+
+				if (slot != null) {
+					return slot;
+				}
+
+				if ((deadline != Long.MAX_VALUE) && (System.nanoTime() - deadline >= 0)) {
+					return null;
+				}
+			}
+
+			return null;
+		}
+
+		/**
+		 * Makes room by discarding the oldest queued events. If the slot the claim needs is still held by a consumer,
+		 * waits for it up to the overflow timeout and then drops the event being appended.
+		 * @param size Estimated size of the event
+		 * @return The claimed slot, or null on timeout or stop
+		 */
+		private EventRingBuffer.Slot claimDroppingOldest(final int size) {
+			long deadline = System.nanoTime() + overflowTimeoutNanos;
+
+			while (running) {
+
+				// when the byte budget is what is full, any queued event can go; otherwise only the one in the needed slot
+
+				boolean overBudget = (maxQueueBytes > 0) && (queuedBytes.get() > 0) && (queuedBytes.get() + size > maxQueueBytes);
+				EventRingBuffer.Slot oldest = overBudget ? ring.tryTake() : ring.tryEvict();
+
+				if (oldest != null) {
+					dropped.increment(oldest.event.getLevel());
+					release(oldest);
+				}
+
+				EventRingBuffer.Slot slot = tryClaim(size);
+
+				if (slot != null) {
+					return slot;
+				}
+
+				if (oldest == null) {
+					if (System.nanoTime() - deadline >= 0) {
+						return null;
+					}
+
+					LockSupport.parkNanos(PARK_NANOS);
+				}
+			}
+
+			return null;
+		}
+	}
+
+	/**
+	 * Consumer thread
+	 */
+	private final class ConsumerThread extends Thread {
+
+		/**
+		 * Constructor
+		 * @param threadName Thread name
+		 */
+		private ConsumerThread(final String threadName) {
+			super(threadName);
+			setDaemon(true);
+		}
+
+		/**
+		 * @see java.lang.Thread#run()
+		 */
+		@Override
+		public void run() {
+			boolean reporter = (this == consumers.get(0));
+			int idleCount = 0;
+			int iterations = 0;
+
+			while (!isInterrupted()) {
+
+				// the first consumer reports drops, checking the clock when idle or every 1024 events
+
+				if (reporter && ((idleCount > 0) || ((++iterations & 1023) == 0))
+						&& (System.currentTimeMillis() - lastDropReport >= dropReportIntervalMillis)) {
+					reportDrops();
+				}
+
+				if (consumeOne()) {
+					idleCount = 0;
+				} else if (!running) {
+
+					// look again once the stop is seen, for events published before it
+
+					if (!consumeOne()) {
+						break;
+					}
+
+					idleCount = 0;
+				} else {
+					idle(idleCount++);
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,194 @@
+/*
+ * Copyright 2026 Stackify
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stackify.log.log4j2;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tunes the batch size and linger time of the batching transport from the outcome of each send (additive increase,
+ * multiplicative decrease).
+ * <p>
+ * The batch size grows by the floor size after each full batch sent within the target latency, and is halved when a
+ * send is slower than the target or fails. The linger time (how long a partial batch waits for more messages) grows
+ * while batches stay partial but more messages arrived during the send, up to the smoothed round trip latency since
+ * waiting longer does not save any round trip. It drops back to the floor when a partial batch leaves the queue
+ * empty, so a lightly loaded application gets no added latency, and is halved as soon as a batch fills up, since then
+ * the batches fill without waiting. Each value stays within
+ * its floor and ceiling; a value whose floor and ceiling are equal is pinned.
+ * <p>
+ * The controller is used by the single sender thread only.
+ */
+final class BatchController {
+
+	/**
+	 * Default smallest batch size
+	 */
+	static final int DEFAULT_MIN_SIZE = 100;
+
+	/**
+	 * Default largest batch size
+	 */
+	static final int DEFAULT_MAX_SIZE = 500;
+
+	/**
+	 * Default shortest linger time (milliseconds)
+	 */
+	static final long DEFAULT_MIN_LINGER = 0;
+
+	/**
+	 * Default longest linger time (milliseconds)
+	 */
+	static final long DEFAULT_MAX_LINGER = 1000;
+
+	/**
+	 * Default target send latency (milliseconds)
+	 */
+	static final long DEFAULT_TARGET_LATENCY = 1000;
+
+	/**
+	 * Weight of the latest send in the smoothed latency
+	 */
+	private static final double LATENCY_WEIGHT = 0.2;
+
+	/**
+	 * Number of additive steps between the linger floor and ceiling
+	 */
+	private static final int LINGER_STEPS = 10;
+
+	/**
+	 * Smallest batch size
+	 */
+	private final int minSize;
+
+	/**
+	 * Largest batch size
+	 */
+	private final int maxSize;
+
+	/**
+	 * Shortest linger time (nanoseconds)
+	 */
+	private final long minLingerNanos;
+
+	/**
+	 * Longest linger time (nanoseconds)
+	 */
+	private final long maxLingerNanos;
+
+	/**
+	 * Sends slower than this shrink the batch size (nanoseconds)
+	 */
+	private final long targetLatencyNanos;
+
+	/**
+	 * Linger time added after a partial batch (nanoseconds)
+	 */
+	private final long lingerStepNanos;
+
+	/**
+	 * Current batch size
+	 */
+	private int batchSize;
+
+	/**
+	 * Current linger time (nanoseconds)
+	 */
+	private long lingerNanos;
+
+	/**
+	 * Smoothed send latency (nanoseconds), or -1 before the first send
+	 */
+	private double latencyNanos = -1;
+
+	/**
+	 * Constructor
+	 * @param minSize Smallest batch size
+	 * @param maxSize Largest batch size
+	 * @param minLingerMillis Shortest linger time (milliseconds)
+	 * @param maxLingerMillis Longest linger time (milliseconds)
+	 * @param targetLatencyMillis Sends slower than this shrink the batch size (milliseconds)
+	 */
+	BatchController(final int minSize, final int maxSize, final long minLingerMillis, final long maxLingerMillis, final long targetLatencyMillis) {
+		if ((minSize <= 0) || (maxSize < minSize) || (minLingerMillis < 0) || (maxLingerMillis < minLingerMillis) || (targetLatencyMillis <= 0)) {
+			throw new IllegalArgumentException("Invalid batch bounds: size " + minSize + "-" + maxSize + ", linger " + minLingerMillis + "-"
+					+ maxLingerMillis + " ms, target latency " + targetLatencyMillis + " ms");
+		}
+
+		this.minSize = minSize;
+		this.maxSize = maxSize;
+		this.minLingerNanos = TimeUnit.MILLISECONDS.toNanos(minLingerMillis);
+		this.maxLingerNanos = TimeUnit.MILLISECONDS.toNanos(maxLingerMillis);
+		this.targetLatencyNanos = TimeUnit.MILLISECONDS.toNanos(targetLatencyMillis);
+		this.lingerStepNanos = Math.max(TimeUnit.MILLISECONDS.toNanos(1), (maxLingerNanos - minLingerNanos) / LINGER_STEPS);
+		this.batchSize = minSize;
+		this.lingerNanos = minLingerNanos;
+	}
+
+	/**
+	 * @return Current batch size
+	 */
+	int getBatchSize() {
+		return batchSize;
+	}
+
+	/**
+	 * @return Current linger time (nanoseconds)
+	 */
+	long getLingerNanos() {
+		return lingerNanos;
+	}
+
+	/**
+	 * @return Longest linger time (nanoseconds)
+	 */
+	long getMaxLingerNanos() {
+		return maxLingerNanos;
+	}
+
+	/**
+	 * Adapts to a batch that was sent
+	 * @param count Number of messages in the batch
+	 * @param sendNanos How long the send took (nanoseconds)
+	 * @param backlog True if more messages were waiting once the batch was sent
+	 */
+	void onSent(final int count, final long sendNanos, final boolean backlog) {
+		latencyNanos = (latencyNanos < 0) ? sendNanos : (1 - LATENCY_WEIGHT) * latencyNanos + LATENCY_WEIGHT * sendNanos;
+
+		boolean full = (batchSize <= count);
+
+		if (targetLatencyNanos < sendNanos) {
+			batchSize = Math.max(minSize, batchSize / 2);
+		} else if (full) {
+			batchSize = Math.min(maxSize, batchSize + minSize);
+		}
+
+		if (full) {
+			lingerNanos = Math.max(minLingerNanos, lingerNanos / 2);
+		} else if (!backlog) {
+			lingerNanos = minLingerNanos;
+		} else {
+			long ceiling = Math.max(minLingerNanos, Math.min(maxLingerNanos, (long) latencyNanos));
+			lingerNanos = Math.min(ceiling, lingerNanos + lingerStepNanos);
+		}
+	}
+
+	/**
+	 * Adapts to a batch that failed to send
+	 */
+	void onFailed() {
+		batchSize = Math.max(minSize, batchSize / 2);
+	}
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright 2026 Stackify
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stackify.log.log4j2;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Locale;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.stackify.api.LogMsgGroup;
+import com.stackify.api.common.proto.LogMsgGroupConverter;
+
+/**
+ * Encoding of the batches sent by the agent_socket_nio transport (format appender attribute): protobuf (the default,
+ * as sent by the agent_socket transport), JSON, or one of Jackson's binary formats, Smile and CBOR.
+ * <p>
+ * The binary formats need jackson-dataformat-smile or jackson-dataformat-cbor on the classpath. Both are optional
+ * dependencies, and their factories are loaded by name so that applications without them still load this class.
+ * Each format has one configured ObjectWriter, shared by all sends.
+ */
+final class BatchFormat {
+
+	/**
+	 * protobuf format name
+	 */
+	static final String PROTOBUF = "protobuf";
+
+	/**
+	 * JSON format name
+	 */
+	static final String JSON = "json";
+
+	/**
+	 * Smile format name
+	 */
+	static final String SMILE = "smile";
+
+	/**
+	 * CBOR format name
+	 */
+	static final String CBOR = "cbor";
+
+	/**
+	 * The protobuf format
+	 */
+	static final BatchFormat PROTOBUF_FORMAT = new BatchFormat(PROTOBUF, "application/x-protobuf", null);
+
+	/**
+	 * Format name
+	 */
+	private final String name;
+
+	/**
+	 * HTTP Content-Type of encoded batches
+	 */
+	private final String contentType;
+
+	/**
+	 * Batch writer (null for protobuf)
+	 */
+	private final ObjectWriter writer;
+
+	/**
+	 * Constructor
+	 * @param name Format name
+	 * @param contentType HTTP Content-Type of encoded batches
+	 * @param writer Batch writer (null for protobuf)
+	 */
+	private BatchFormat(final String name, final String contentType, final ObjectWriter writer) {
+		this.name = name;
+		this.contentType = contentType;
+		this.writer = writer;
+	}
+
+	/**
+	 * Finds a format
+	 * @param name Format name (case insensitive): protobuf, json, smile or cbor, or null for protobuf
+	 * @return The format
+	 * @throws IllegalArgumentException if there is no such format, or its Jackson module is not on the classpath
+	 */
+	static BatchFormat forName(final String name) {
+		String key = (name != null) ? name.trim().toLowerCase(Locale.ENGLISH) : PROTOBUF;
+
+		if (key.isEmpty() || PROTOBUF.equals(key)) {
+			return PROTOBUF_FORMAT;
+		}
+
+		if (JSON.equals(key)) {
+			return new BatchFormat(JSON, "application/json", writer(new JsonFactory()));
+		}
+
+		if (SMILE.equals(key)) {
+			return new BatchFormat(SMILE, "application/x-jackson-smile", writer(factory("com.fasterxml.jackson.dataformat.smile.SmileFactory",
+					"jackson-dataformat-smile")));
+		}
+
+		if (CBOR.equals(key)) {
+			return new BatchFormat(CBOR, "application/cbor", writer(factory("com.fasterxml.jackson.dataformat.cbor.CBORFactory",
+					"jackson-dataformat-cbor")));
+		}
+
+		throw new IllegalArgumentException("Invalid format: " + name);
+	}
+
+	/**
+	 * @return Format name
+	 */
+	String getName() {
+		return name;
+	}
+
+	/**
+	 * @return HTTP Content-Type of encoded batches
+	 */
+	String getContentType() {
+		return contentType;
+	}
+
+	/**
+	 * @return True for protobuf
+	 */
+	boolean isProtobuf() {
+		return writer == null;
+	}
+
+	/**
+	 * Encodes a batch
+	 * @param group The batch (already masked)
+	 * @param out Where the encoded batch is written
+	 * @throws IOException if the batch cannot be encoded
+	 */
+	void write(final LogMsgGroup group, final OutputStream out) throws IOException {
+		if (writer == null) {
+			LogMsgGroupConverter.convert(group).writeTo(out);
+		} else {
+			writer.writeValue(out, group);
+		}
+	}
+
+	/**
+	 * @param factory Jackson factory of the format
+	 * @return Batch writer for the format
+	 */
+	private static ObjectWriter writer(final JsonFactory factory) {
+		return new ObjectMapper(factory).writerFor(LogMsgGroup.class);
+	}
+
+	/**
+	 * Creates a Jackson factory by class name
+	 * @param className Factory class name
+	 * @param module Jackson module holding the class
+	 * @return The factory
+	 * @throws IllegalArgumentException if the module is not on the classpath
+	 */
+	private static JsonFactory factory(final String className, final String module) {
+		try {
+			return (JsonFactory) Class.forName(className, true, BatchFormat.class.getClassLoader()).getDeclaredConstructor().newInstance();
+		} catch (ClassNotFoundException e) {
+			throw new IllegalArgumentException("The " + module + " module is needed for this format", e);
+		} catch (ReflectiveOperationException e) {
+			throw new IllegalArgumentException("Unable to create " + className, e);
+		} catch (LinkageError e) {
+			throw new IllegalArgumentException("Unable to load " + className + ", check the " + module + " version", e);
+		}
+	}
+}
@@ -0,0 +1,301 @@
+/*
+ * Copyright 2026 Stackify
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stackify.log.log4j2;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.apache.logging.log4j.status.StatusLogger;
+
+import com.stackify.api.LogMsg;
+import com.stackify.api.LogMsgGroup;
+import com.stackify.api.common.log.LogTransport;
+
+/**
+ * Log transport that regroups the batches of the Stackify API into batches sized by a BatchController.
+ * <p>
+ * The Stackify API hands over batches of at most 100 messages every one to five seconds. Their messages are queued
+ * here and a sender thread sends them on in batches of the controller's size, waiting up to the controller's linger
+ * time for a partial batch to fill up. A message that arrives after the queue has been idle for longer than the
+ * longest linger time is sent without waiting, so an idle application gets no added latency. Messages of batches
+ * with different application details are never sent in the same batch.
+ * <p>
+ * A batch the delegate fails to send is retried (as the Stackify API does) and then discarded. When the queue is
+ * full, the Stackify API background thread waits for room.
+ */
+final class BatchingLogTransport implements LogTransport, Closeable {
+
+	/**
+	 * Most messages queued
+	 */
+	private static final int QUEUE_CAPACITY = 10000;
+
+	/**
+	 * Sender thread idle wait
+	 */
+	private static final long IDLE_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+	/**
+	 * Retries of a batch that fails to send
+	 */
+	private static final int MAX_RETRIES = 3;
+
+	/**
+	 * First wait before a retry (doubled after each retry)
+	 */
+	private static final long RETRY_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+	/**
+	 * How long close waits for the queued messages to be sent (milliseconds)
+	 */
+	private static final long CLOSE_TIMEOUT_MILLIS = 10000;
+
+	/**
+	 * The real transport
+	 */
+	private final LogTransport delegate;
+
+	/**
+	 * Batch size and linger time
+	 */
+	private final BatchController controller;
+
+	/**
+	 * Queued messages
+	 */
+	private final BlockingQueue<Queued> queue = new ArrayBlockingQueue<Queued>(QUEUE_CAPACITY);
+
+	/**
+	 * Sender thread
+	 */
+	private final Thread senderThread;
+
+	/**
+	 * Application details of the last batch handed over, shared by the messages of batches with the same details
+	 */
+	private LogMsgGroup lastDetails;
+
+	/**
+	 * Message taken from the queue but not sent with the previous batch, which had other application details
+	 */
+	private Queued carried;
+
+	/**
+	 * True until closed
+	 */
+	private volatile boolean running = true;
+
+	/**
+	 * Constructor
+	 * @param delegate The real transport
+	 * @param controller Batch size and linger time
+	 */
+	BatchingLogTransport(final LogTransport delegate, final BatchController controller) {
+		this.delegate = delegate;
+		this.controller = controller;
+		this.senderThread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				while (running || !queue.isEmpty() || (carried != null)) {
+					sendBatch();
+				}
+			}
+		}, "Stackify_LogBatchSender");
+		this.senderThread.setDaemon(true);
+	}
+
+	/**
+	 * Starts sending
+	 */
+	void start() {
+		senderThread.start();
+	}
+
+	/**
+	 * Queues the messages of a batch, waiting for room when the queue is full
+	 * @see com.stackify.api.common.log.LogTransport#send(com.stackify.api.LogMsgGroup)
+	 */
+	@Override
+	public void send(final LogMsgGroup group) throws Exception {
+		if ((group.getMsgs() == null) || group.getMsgs().isEmpty()) {
+			return;
+		}
+
+		if (!running) {
+			delegate.send(group);
+			return;
+		}
+
+		LogMsgGroup details;
+
+		synchronized (this) {
+			details = group.toBuilder().msgs(null).build();
+
+			if (details.equals(lastDetails)) {
+				details = lastDetails;
+			} else {
+				lastDetails = details;
+			}
+		}
+
+		for (LogMsg msg : group.getMsgs()) {
+			Queued queued = new Queued(msg, details);
+
+			while (!queue.offer(queued, 100, TimeUnit.MILLISECONDS)) {
+				if (!senderThread.isAlive()) {
+					throw new IllegalStateException("Batch sender is not running");
+				}
+			}
+		}
+	}
+
+	/**
+	 * Waits for a batch, sends it, and adapts the batch size and linger time
+	 */
+	private void sendBatch() {
+		Queued first = carried;
+		carried = null;
+
+		long idleNanos = 0;
+
+		if (first == null) {
+			long start = System.nanoTime();
+
+			try {
+				first = queue.poll(IDLE_NANOS, TimeUnit.NANOSECONDS);
+			} catch (InterruptedException e) {
+				first = queue.poll();
+			}
+
+			if (first == null) {
+				return;
+			}
+
+			idleNanos = System.nanoTime() - start;
+		}
+
+		int batchSize = controller.getBatchSize();
+		long lingerNanos = (idleNanos > controller.getMaxLingerNanos()) || !running ? 0 : controller.getLingerNanos();
+		long deadline = System.nanoTime() + lingerNanos;
+
+		List<LogMsg> msgs = new ArrayList<LogMsg>(batchSize);
+		msgs.add(first.msg);
+
+		while (msgs.size() < batchSize) {
+			Queued next = queue.poll();
+
+			if (next == null) {
+				long remaining = deadline - System.nanoTime();
+
+				if (remaining <= 0) {
+					break;
+				}
+
+				try {
+					next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+				} catch (InterruptedException e) {
+					break;
+				}
+
+				if (next == null) {
+					break;
+				}
+			}
+
+			if (next.details != first.details) {
+				carried = next;
+				break;
+			}
+
+			msgs.add(next.msg);
+		}
+
+		LogMsgGroup group = first.details.toBuilder().msgs(msgs).build();
+
+		long retryNanos = RETRY_NANOS;
+
+		for (int attempt = 0; ; ++attempt) {
+			long start = System.nanoTime();
+
+			try {
+				delegate.send(group);
+				controller.onSent(msgs.size(), System.nanoTime() - start, !queue.isEmpty() || (carried != null));
+				return;
+			} catch (Exception e) {
+				controller.onFailed();
+
+				if ((attempt == MAX_RETRIES) || !running) {
+					StatusLogger.getLogger().error("Unable to send {} log messages to Stackify", msgs.size(), e);
+					return;
+				}
+
+				LockSupport.parkNanos(retryNanos);
+				retryNanos *= 2;
+			}
+		}
+	}
+
+	/**
+	 * Sends the queued messages without lingering and stops the sender
+	 * @see java.io.Closeable#close()
+	 */
+	@Override
+	public void close() {
+		running = false;
+		LockSupport.unpark(senderThread);
+
+		try {
+			senderThread.join(CLOSE_TIMEOUT_MILLIS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+
+		if (senderThread.isAlive()) {
+			StatusLogger.getLogger().warn("Stackify_LogBatchSender did not finish within {} ms, {} log messages left", CLOSE_TIMEOUT_MILLIS, queue.size());
+		}
+	}
+
+	/**
+	 * A queued message
+	 */
+	private static final class Queued {
+
+		/**
+		 * The message
+		 */
+		private final LogMsg msg;
+
+		/**
+		 * Application details of its batch
+		 */
+		private final LogMsgGroup details;
+
+		/**
+		 * Constructor
+		 * @param msg The message
+		 * @param details Application details of its batch
+		 */
+		private Queued(final LogMsg msg, final LogMsgGroup details) {
+			this.msg = msg;
+			this.details = details;
+		}
+	}
+}
@@ -0,0 +1,487 @@
+/*
+ * Copyright 2026 Stackify
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stackify.log.log4j2;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import org.apache.logging.log4j.status.StatusLogger;
+
+import com.stackify.api.common.mask.Masker;
+
+/**
+ * Masker that skips the regex passes that cannot match a message.
+ * <p>
+ * The masks are compiled into a program whenever they change. A single scan of the message checks what each built-in
+ * mask needs to match (a run of 12 or more digits for credit cards, the digit shape of an SSN, an '@' for emails, and
+ * so on), and the custom masks are tried together as one alternation. Masks that cannot match are skipped, and the
+ * others are applied exactly as {@link Masker#mask(String, String)} applies them, in the same order, so the result is
+ * identical. Messages that nothing can match are returned without running any regex.
+ * <p>
+ * Masks must be changed through this class (not through the map returned by {@link #getMaskPatterns()}).
+ */
+final class CompiledMasker extends Masker {
+
+	/**
+	 * Scan flag: the message has a digit
+	 */
+	private static final long DIGIT = 1L << 32;
+
+	/**
+	 * Scan flag: the message has an SSN shaped digit sequence
+	 */
+	private static final long SSN = 1L << 33;
+
+	/**
+	 * Scan flag: the message has at least three '.'
+	 */
+	private static final long DOTS = 1L << 34;
+
+	/**
+	 * Scan flag: the message has at least four '-'
+	 */
+	private static final long DASHES = 1L << 35;
+
+	/**
+	 * Scan flag: the message has an '@'
+	 */
+	private static final long AT = 1L << 36;
+
+	/**
+	 * Compiled masks (replaced when the masks change)
+	 */
+	private volatile Program program = Program.EMPTY;
+
+	/**
+	 * @see com.stackify.api.common.mask.Masker#addMask(java.lang.String)
+	 */
+	@Override
+	public void addMask(final String mask) {
+		super.addMask(mask);
+		compile();
+	}
+
+	/**
+	 * @see com.stackify.api.common.mask.Masker#removeMask(java.lang.String)
+	 */
+	@Override
+	public void removeMask(final String mask) {
+		super.removeMask(mask);
+		compile();
+	}
+
+	/**
+	 * @see com.stackify.api.common.mask.Masker#clearMasks()
+	 */
+	@Override
+	public void clearMasks() {
+		super.clearMasks();
+		compile();
+	}
+
+	/**
+	 * Masks a message. Mask strings that could themselves form part of a match (anything other than a single
+	 * character that is not a letter, digit, '-', '.' or '@') are handled by {@link Masker#mask(String, String)}.
+	 * @see com.stackify.api.common.mask.Masker#mask(java.lang.String, java.lang.String)
+	 */
+	@Override
+	public String mask(final String text, final String maskString) {
+		if ((text == null) || !isInert(maskString)) {
+			return super.mask(text, maskString);
+		}
+
+		Program current = program;
+
+		if (current.rules.length == 0) {
+			return text;
+		}
+
+		try {
+			long scan = scan(text);
+			String masked = text;
+			boolean changed = false;
+			int customMatches = -1;
+
+			for (Rule rule : current.rules) {
+				if (rule.kind == Kind.CUSTOM) {
+
+					// masking only writes mask characters, which a custom mask may match, so the combined check on the
+					// original message only holds until something is masked
+
+					if (!changed && (current.custom != null)) {
+						if (customMatches < 0) {
+							customMatches = current.custom.matcher(text).find() ? 1 : 0;
+						}
+
+						if (customMatches == 0) {
+							continue;
+						}
+					}
+				} else if (!rule.mayMatch(scan)) {
+					continue;
+				}
+
+				String next = apply(rule.pattern, masked, maskString.charAt(0));
+				changed |= (next != masked);
+				masked = next;
+			}
+
+			return masked;
+		} catch (Throwable t) {
+			StatusLogger.getLogger().warn("Unable to mask message", t);
+			return text;
+		}
+	}
+
+	/**
+	 * Applies one mask the way {@link Masker#mask(String, String)} does: every match found in the message as it was
+	 * before this mask is replaced, wherever the matched text occurs, by as many mask characters
+	 * @param pattern The mask pattern
+	 * @param text The message
+	 * @param maskChar The mask character
+	 * @return The masked message (the same instance if nothing matched)
+	 */
+	private static String apply(final Pattern pattern, final String text, final char maskChar) {
+		String masked = text;
+		Matcher matcher = pattern.matcher(text);
+
+		while (matcher.find()) {
+			String match = matcher.group();
+			char[] mask = new char[match.length()];
+			Arrays.fill(mask, maskChar);
+			masked = masked.replace(match, new String(mask));
+		}
+
+		return masked;
+	}
+
+	/**
+	 * Scans a message once for what the built-in masks need in order to match
+	 * @param text The message
+	 * @return Longest run of digits (low 32 bits) and scan flags
+	 */
+	static long scan(final String text) {
+		int length = text.length();
+		int run = 0;
+		int maxRun = 0;
+		int dots = 0;
+		int dashes = 0;
+		long flags = 0;
+
+		for (int i = 0; i < length; ++i) {
+			char c = text.charAt(i);
+
+			if ((c >= '0') && (c <= '9')) {
+				++run;
+				continue;
+			}
+
+			if (maxRun < run) {
+				maxRun = run;
+			}
+
+			if (c == '-') {
+				++dashes;
+
+				// ddd-dd-dddd, the first group may be the tail of a longer run
+
+				if ((3 <= run) && isSsnTail(text, i)) {
+					flags |= SSN;
+				}
+			} else if (c == '.') {
+				++dots;
+			} else if (c == '@') {
+				flags |= AT;
+			}
+
+			run = 0;
+		}
+
+		if (maxRun < run) {
+			maxRun = run;
+		}
+
+		if (0 < maxRun) {
+			flags |= DIGIT;
+		}
+
+		if (3 <= dots) {
+			flags |= DOTS;
+		}
+
+		if (4 <= dashes) {
+			flags |= DASHES;
+		}
+
+		return flags | maxRun;
+	}
+
+	/**
+	 * Checks for "dd-dddd" after a dash
+	 * @param text The message
+	 * @param dash Index of the dash
+	 * @return True if the dash is followed by two digits, a dash and four digits
+	 */
+	private static boolean isSsnTail(final String text, final int dash) {
+		if (text.length() < dash + 8) {
+			return false;
+		}
+
+		return isDigit(text.charAt(dash + 1)) && isDigit(text.charAt(dash + 2)) && (text.charAt(dash + 3) == '-')
+				&& isDigit(text.charAt(dash + 4)) && isDigit(text.charAt(dash + 5)) && isDigit(text.charAt(dash + 6))
+				&& isDigit(text.charAt(dash + 7));
+	}
+
+	/**
+	 * @param c A character
+	 * @return True if it is an ASCII digit
+	 */
+	private static boolean isDigit(final char c) {
+		return (c >= '0') && (c <= '9');
+	}
+
+	/**
+	 * Checks that masking with a mask string cannot create what a built-in mask needs to match
+	 * @param maskString The mask string
+	 * @return True if it is a single character other than a letter, digit, '-', '.' or '@'
+	 */
+	private static boolean isInert(final String maskString) {
+		if ((maskString == null) || (maskString.length() != 1)) {
+			return false;
+		}
+
+		char c = maskString.charAt(0);
+		return !Character.isLetterOrDigit(c) && (c != '-') && (c != '.') && (c != '@');
+	}
+
+	/**
+	 * Recompiles the masks, in the order {@link Masker#mask(String, String)} applies them
+	 */
+	private synchronized void compile() {
+		List<Rule> rules = new ArrayList<Rule>();
+		StringBuilder custom = new StringBuilder();
+		boolean combinable = true;
+
+		for (Map.Entry<String, Pattern> entry : getMaskPatterns().entrySet()) {
+			Rule rule = Rule.of(entry.getKey(), entry.getValue());
+			rules.add(rule);
+
+			if (rule.kind == Kind.CUSTOM) {
+				combinable &= isCombinable(entry.getKey());
+
+				if (0 < custom.length()) {
+					custom.append('|');
+				}
+
+				custom.append("(?:").append(entry.getKey()).append(')');
+			}
+		}
+
+		Pattern combined = null;
+
+		if (combinable && (0 < custom.length())) {
+			try {
+				combined = Pattern.compile(custom.toString());
+			} catch (PatternSyntaxException e) {
+				combined = null;
+			}
+		}
+
+		program = new Program(rules.toArray(new Rule[rules.size()]), combined);
+	}
+
+	/**
+	 * Checks that a custom mask keeps its meaning inside an alternation
+	 * @param regex The mask regex
+	 * @return False if it uses back references, whose group numbers would change, or quotes or comments, which could
+	 *         run past the end of its alternative
+	 */
+	private static boolean isCombinable(final String regex) {
+		if (regex.indexOf('#') >= 0) {
+			return false;
+		}
+
+		for (int i = 0; i < regex.length() - 1; ++i) {
+			if (regex.charAt(i) == '\\') {
+				char next = regex.charAt(i + 1);
+
+				if (Character.isDigit(next) || (next == 'k') || (next == 'Q')) {
+					return false;
+				}
+
+				++i;
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * What a mask needs in order to match
+	 */
+	private enum Kind {
+
+		/**
+		 * A run of digits (minDigitRun long)
+		 */
+		DIGIT_RUN,
+
+		/**
+		 * An SSN shaped digit sequence
+		 */
+		SSN,
+
+		/**
+		 * Digits and at least three '.'
+		 */
+		IPV4,
+
+		/**
+		 * At least four '-'
+		 */
+		UUID,
+
+		/**
+		 * An '@'
+		 */
+		EMAIL,
+
+		/**
+		 * A custom mask, which may match anything
+		 */
+		CUSTOM
+	}
+
+	/**
+	 * A compiled mask
+	 */
+	private static final class Rule {
+
+		/**
+		 * The mask pattern
+		 */
+		final Pattern pattern;
+
+		/**
+		 * What the mask needs in order to match
+		 */
+		final Kind kind;
+
+		/**
+		 * Shortest run of digits the mask matches (DIGIT_RUN)
+		 */
+		final int minDigitRun;
+
+		/**
+		 * Constructor
+		 * @param pattern The mask pattern
+		 * @param kind What the mask needs in order to match
+		 * @param minDigitRun Shortest run of digits the mask matches (DIGIT_RUN)
+		 */
+		Rule(final Pattern pattern, final Kind kind, final int minDigitRun) {
+			this.pattern = pattern;
+			this.kind = kind;
+			this.minDigitRun = minDigitRun;
+		}
+
+		/**
+		 * Compiles a mask, recognizing the built-in ones by their regex
+		 * @param regex The mask regex
+		 * @param pattern The mask pattern
+		 * @return The rule
+		 */
+		static Rule of(final String regex, final Pattern pattern) {
+			if (MASK_CC_VISA_REGEX.equals(regex) || MASK_CC_DISCOVER_REGEX.equals(regex) || MASK_CC_MASTERCARD_REGEX.equals(regex)) {
+				return new Rule(pattern, Kind.DIGIT_RUN, 16);
+			} else if (MASK_CC_AMEX_REGEX.equals(regex)) {
+				return new Rule(pattern, Kind.DIGIT_RUN, 15);
+			} else if (MASK_CC_DINERS_REGEX.equals(regex)) {
+				return new Rule(pattern, Kind.DIGIT_RUN, 12);
+			} else if (MASK_NUMERIC_REGEX.equals(regex)) {
+				return new Rule(pattern, Kind.DIGIT_RUN, 1);
+			} else if (MASK_SSN_REGEX.equals(regex)) {
+				return new Rule(pattern, Kind.SSN, 0);
+			} else if (MASK_IPV4_REGEX.equals(regex)) {
+				return new Rule(pattern, Kind.IPV4, 0);
+			} else if (MASK_UUID_REGEX.equals(regex)) {
+				return new Rule(pattern, Kind.UUID, 0);
+			} else if (MASK_EMAIL_REGEX.equals(regex)) {
+				return new Rule(pattern, Kind.EMAIL, 0);
+			}
+
+			return new Rule(pattern, Kind.CUSTOM, 0);
+		}
+
+		/**
+		 * Checks the scan of a message for what the mask needs. The check holds for the message after other masks
+		 * have been applied, because masking never creates digits, '-', '.' or '@'.
+		 * @param scan The scan of the original message
+		 * @return False if the mask cannot match
+		 */
+		boolean mayMatch(final long scan) {
+			switch (kind) {
+				case DIGIT_RUN:
+					return minDigitRun <= (int) scan;
+				case SSN:
+					return (scan & SSN) != 0;
+				case IPV4:
+					return ((scan & DIGIT) != 0) && ((scan & DOTS) != 0);
+				case UUID:
+					return (scan & DASHES) != 0;
+				case EMAIL:
+					return (scan & AT) != 0;
+				default:
+					return true;
+			}
+		}
+	}
+
+	/**
+	 * Compiled masks
+	 */
+	private static final class Program {
+
+		/**
+		 * No masks
+		 */
+		static final Program EMPTY = new Program(new Rule[0], null);
+
+		/**
+		 * Masks, in the order they are applied
+		 */
+		final Rule[] rules;
+
+		/**
+		 * Alternation of the custom masks (null if there are none, or they cannot be combined)
+		 */
+		final Pattern custom;
+
+		/**
+		 * Constructor
+		 * @param rules Masks, in the order they are applied
+		 * @param custom Alternation of the custom masks
+		 */
+		Program(final Rule[] rules, final Pattern custom) {
+			this.rules = rules;
+			this.custom = custom;
+		}
+	}
+}
@@ -0,0 +1,265 @@
+/*
+ * Copyright 2026 Stackify
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stackify.log.log4j2;
+
+import org.apache.logging.log4j.ThreadContext.ContextStack;
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.util.ReadOnlyStringMap;
+import org.apache.logging.log4j.util.StringBuilders;
+import org.apache.logging.log4j.util.TriConsumer;
+
+/**
+ * Streams an event's MDC and NDC straight into a JSON object without building intermediate maps.
+ * <p>
+ * The JSON is written into a per-thread StringBuilder that is reused across events, so the only allocation per event
+ * is the resulting String. Values of keys with field masks are masked as they are written, before JSON escaping.
+ */
+final class ContextDataEncoder {
+
+	/**
+	 * Key used for the top of the NDC
+	 */
+	static final String NDC_KEY = "NDC";
+
+	/**
+	 * Largest buffer kept for reuse by a thread
+	 */
+	private static final int MAX_RETAINED_CAPACITY = 8192;
+
+	/**
+	 * Per-thread buffer
+	 */
+	private static final ThreadLocal<StringBuilder> BUFFER = new ThreadLocal<StringBuilder>() {
+		@Override
+		protected StringBuilder initialValue() {
+			return new StringBuilder(512);
+		}
+	};
+
+	/**
+	 * Writes one MDC entry
+	 */
+	private static final TriConsumer<String, Object, EncoderState> WRITE_ENTRY = new TriConsumer<String, Object, EncoderState>() {
+		@Override
+		public void accept(final String key, final Object value, final EncoderState state) {
+			if (state.skipNdcKey && NDC_KEY.equals(key)) {
+				return;
+			}
+
+			writeEntry(state.buffer, key, value, state.masker);
+		}
+	};
+
+	/**
+	 * Per-thread state handed to the MDC walk
+	 */
+	private static final ThreadLocal<EncoderState> STATE = new ThreadLocal<EncoderState>() {
+		@Override
+		protected EncoderState initialValue() {
+			return new EncoderState();
+		}
+	};
+
+	/**
+	 * Hidden constructor
+	 */
+	private ContextDataEncoder() {
+	}
+
+	/**
+	 * Encodes the event's MDC and NDC as a JSON object
+	 * @param event The logging event
+	 * @return The JSON object, or null if the event has no MDC or NDC
+	 */
+	static String encode(final LogEvent event) {
+		return encode(event, null);
+	}
+
+	/**
+	 * Encodes the event's MDC and NDC as a JSON object, masking values as they are written
+	 * @param event The logging event
+	 * @param masker Field masks (or null)
+	 * @return The JSON object, or null if the event has no MDC or NDC
+	 */
+	static String encode(final LogEvent event, final FieldMasker masker) {
+		StringBuilder buffer = BUFFER.get();
+		int start = buffer.length();
+
+		try {
+			if (!encodeTo(event, buffer, masker)) {
+				return null;
+			}
+
+			return buffer.substring(start);
+		} finally {
+			buffer.setLength(start);
+
+			if (start == 0) {
+				StringBuilders.trimToMaxSize(buffer, MAX_RETAINED_CAPACITY);
+			}
+		}
+	}
+
+	/**
+	 * Appends the event's MDC and NDC as a JSON object
+	 * @param event The logging event
+	 * @param buffer Where to append the JSON
+	 * @return True if anything was appended, false if the event has no MDC or NDC
+	 */
+	static boolean encodeTo(final LogEvent event, final StringBuilder buffer) {
+		return encodeTo(event, buffer, null);
+	}
+
+	/**
+	 * Appends the event's MDC and NDC as a JSON object, masking values as they are written
+	 * @param event The logging event
+	 * @param buffer Where to append the JSON
+	 * @param masker Field masks (or null)
+	 * @return True if anything was appended, false if the event has no MDC or NDC
+	 */
+	static boolean encodeTo(final LogEvent event, final StringBuilder buffer, final FieldMasker masker) {
+		FieldMasker valueMasker = ((masker != null) && masker.hasValueMasks()) ? masker : null;
+
+		int start = buffer.length();
+
+		buffer.append('{');
+
+		String ndc = getNdc(event);
+
+		ReadOnlyStringMap mdc = event.getContextData();
+
+		if ((mdc != null) && !mdc.isEmpty()) {
+			EncoderState state = STATE.get();
+			StringBuilder outerBuffer = state.buffer;
+			boolean outerSkipNdcKey = state.skipNdcKey;
+			FieldMasker outerMasker = state.masker;
+
+			state.buffer = buffer;
+			state.skipNdcKey = (ndc != null);
+			state.masker = valueMasker;
+
+			try {
+				mdc.forEach(WRITE_ENTRY, state);
+			} finally {
+				state.buffer = outerBuffer;
+				state.skipNdcKey = outerSkipNdcKey;
+				state.masker = outerMasker;
+			}
+		}
+
+		if (ndc != null) {
+			writeEntry(buffer, NDC_KEY, ndc, valueMasker);
+		}
+
+		if (buffer.length() == start + 1) {
+			buffer.setLength(start);
+			return false;
+		}
+
+		buffer.append('}');
+		return true;
+	}
+
+	/**
+	 * Gets the top of the event's NDC
+	 * @param event The logging event
+	 * @return The top of the NDC, or null if it is absent or empty
+	 */
+	static String getNdc(final LogEvent event) {
+		ContextStack contextStack = event.getContextStack();
+
+		if (contextStack != null) {
+			String ndc = contextStack.peek();
+
+			if ((ndc != null) && !ndc.isEmpty()) {
+				return ndc;
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * Appends a "key":"value" pair, preceded by a comma unless it is the first one in the object
+	 * @param buffer The buffer
+	 * @param key The key
+	 * @param value The value
+	 * @param masker Field masks with value masks (or null)
+	 */
+	private static void writeEntry(final StringBuilder buffer, final String key, final Object value, final FieldMasker masker) {
+		if (buffer.charAt(buffer.length() - 1) != '{') {
+			buffer.append(',');
+		}
+
+		writeString(buffer, key);
+		buffer.append(':');
+
+		if (value == null) {
+			buffer.append("null");
+		} else {
+			buffer.append('"');
+			int start = buffer.length();
+			StringBuilders.appendValue(buffer, value);
+
+			if ((masker != null) && masker.masksKey(key)) {
+				String raw = buffer.substring(start);
+				String masked = masker.maskValue(key, raw);
+
+				if (!masked.equals(raw)) {
+					buffer.setLength(start);
+					buffer.append(masked);
+				}
+			}
+
+			StringBuilders.escapeJson(buffer, start);
+			buffer.append('"');
+		}
+	}
+
+	/**
+	 * Appends a quoted, escaped JSON string
+	 * @param buffer The buffer
+	 * @param value The string
+	 */
+	private static void writeString(final StringBuilder buffer, final String value) {
+		buffer.append('"');
+		int start = buffer.length();
+		buffer.append(value);
+		StringBuilders.escapeJson(buffer, start);
+		buffer.append('"');
+	}
+
+	/**
+	 * Mutable state reused by a thread while walking the MDC
+	 */
+	private static final class EncoderState {
+
+		/**
+		 * Buffer being written
+		 */
+		private StringBuilder buffer;
+
+		/**
+		 * True if an MDC entry named NDC should be skipped in favor of the NDC itself
+		 */
+		private boolean skipNdcKey;
+
+		/**
+		 * Field masks with value masks (or null)
+		 */
+		private FieldMasker masker;
+	}
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright 2026 Stackify
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stackify.log.log4j2;
+
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.message.Message;
+import org.apache.logging.log4j.util.StringBuilderFormattable;
+import org.apache.logging.log4j.util.StringBuilders;
+
+import com.stackify.api.common.util.Preconditions;
+
+/**
+ * Per-event state shared by the LogEventAdapter accessors while one event is converted.
+ * <p>
+ * Holds the event along with the request context captured when it was appended.
+ * <p>
+ * The formatted message is computed the first time it is asked for and reused after that, so an error event formats
+ * its message once for both the StackifyError and the LogMsg. A context belongs to a single conversion and is not
+ * thread-safe.
+ */
+public class ConversionContext {
+
+	/**
+	 * Largest buffer kept for reuse by a thread
+	 */
+	private static final int MAX_RETAINED_CAPACITY = 8192;
+
+	/**
+	 * Per-thread buffer used to format messages
+	 */
+	private static final ThreadLocal<StringBuilder> BUFFER = new ThreadLocal<StringBuilder>() {
+		@Override
+		protected StringBuilder initialValue() {
+			return new StringBuilder(512);
+		}
+	};
+
+	/**
+	 * The logging event
+	 */
+	private final LogEvent event;
+
+	/**
+	 * Request context captured when the event was appended
+	 */
+	private final EventContext eventContext;
+
+	/**
+	 * True once the message has been formatted
+	 */
+	private boolean messageFormatted;
+
+	/**
+	 * The formatted message
+	 */
+	private String message;
+
+	/**
+	 * Constructor, capturing the current thread's full request context
+	 * @param event The logging event
+	 */
+	public ConversionContext(final LogEvent event) {
+		this(event, EventContext.capture(true));
+	}
+
+	/**
+	 * Constructor
+	 * @param event The logging event
+	 * @param eventContext Request context captured when the event was appended
+	 */
+	public ConversionContext(final LogEvent event, final EventContext eventContext) {
+		Preconditions.checkNotNull(event);
+		Preconditions.checkNotNull(eventContext);
+		this.event = event;
+		this.eventContext = eventContext;
+	}
+
+	/**
+	 * @return The logging event
+	 */
+	public LogEvent getEvent() {
+		return event;
+	}
+
+	/**
+	 * @return Request context captured when the event was appended
+	 */
+	public EventContext getEventContext() {
+		return eventContext;
+	}
+
+	/**
+	 * Gets the formatted message, formatting it on first use
+	 * @return The formatted message, or null if the event has no message
+	 */
+	public String getMessage() {
+		if (!messageFormatted) {
+			message = format(event.getMessage());
+			messageFormatted = true;
+		}
+
+		return message;
+	}
+
+	/**
+	 * Formats a message, going through the per-thread buffer when the message can format itself into one
+	 * @param message The message
+	 * @return The formatted message, or null if there is no message
+	 */
+	static String format(final Message message) {
+		if (message == null) {
+			return null;
+		}
+
+		if (message instanceof StringBuilderFormattable) {
+
+			// a nested call (e.g. from a parameter's toString) appends after the caller's content and
+			// restores the buffer to where it found it
+
+			StringBuilder buffer = BUFFER.get();
+			int start = buffer.length();
+
+			try {
+				((StringBuilderFormattable) message).formatTo(buffer);
+				return buffer.substring(start);
+			} finally {
+				buffer.setLength(start);
+
+				if (start == 0) {
+					StringBuilders.trimToMaxSize(buffer, MAX_RETAINED_CAPACITY);
+				}
+			}
+		}
+
+		return message.getFormattedMessage();
+	}
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2026 Stackify
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stackify.log.log4j2;
+
+import com.stackify.api.LogMsg;
+import com.stackify.api.StackifyError;
+import com.stackify.api.common.log.EventAdapter;
+
+/**
+ * EventAdapter over conversion contexts, used by the appender's LogAppender so that each event's message is formatted
+ * once and its request context captured once. It delegates to the public LogEventAdapter, which keeps adapting plain
+ * LogEvents.
+ */
+final class ConversionContextAdapter implements EventAdapter<ConversionContext> {
+
+	/**
+	 * Adapter for the events
+	 */
+	private final LogEventAdapter adapter;
+
+	/**
+	 * Constructor
+	 * @param adapter Adapter for the events
+	 */
+	ConversionContextAdapter(final LogEventAdapter adapter) {
+		this.adapter = adapter;
+	}
+
+	/**
+	 * @see com.stackify.api.common.log.EventAdapter#getThrowable(java.lang.Object)
+	 */
+	@Override
+	public Throwable getThrowable(final ConversionContext context) {
+		return adapter.getThrowable(context.getEvent());
+	}
+
+	/**
+	 * @see com.stackify.api.common.log.EventAdapter#getStackifyError(java.lang.Object, java.lang.Throwable)
+	 */
+	@Override
+	public StackifyError getStackifyError(final ConversionContext context, final Throwable exception) {
+		return adapter.getStackifyError(context, exception);
+	}
+
+	/**
+	 * @see com.stackify.api.common.log.EventAdapter#getLogMsg(java.lang.Object, com.stackify.api.StackifyError)
+	 */
+	@Override
+	public LogMsg getLogMsg(final ConversionContext context, final StackifyError error) {
+		return adapter.getLogMsg(context, error);
+	}
+
+	/**
+	 * @see com.stackify.api.common.log.EventAdapter#isErrorLevel(java.lang.Object)
+	 */
+	@Override
+	public boolean isErrorLevel(final ConversionContext context) {
+		return adapter.isErrorLevel(context.getEvent());
+	}
+
+	/**
+	 * @see com.stackify.api.common.log.EventAdapter#getClassName(java.lang.Object)
+	 */
+	@Override
+	public String getClassName(final ConversionContext context) {
+		return adapter.getClassName(context.getEvent());
+	}
+}
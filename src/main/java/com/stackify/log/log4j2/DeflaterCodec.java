@@ -0,0 +1,165 @@
+/*
+ * Copyright 2026 Stackify
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stackify.log.log4j2;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * The built in gzip and deflate (zlib) codecs.
+ * <p>
+ * Deflaters hold native memory and take time to set up, so they are pooled and reset between payloads rather than
+ * created for each one. Output is deflated straight into the payload buffer. The gzip header and trailer are written
+ * here around raw deflate output, since GZIPOutputStream cannot reuse a deflater.
+ */
+final class DeflaterCodec implements PayloadCodec {
+
+	/**
+	 * gzip codec name
+	 */
+	static final String GZIP = "gzip";
+
+	/**
+	 * deflate codec name
+	 */
+	static final String DEFLATE = "deflate";
+
+	/**
+	 * gzip header: magic, deflate method, no flags, no time, no extra flags, unknown OS
+	 */
+	private static final byte[] GZIP_HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+
+	/**
+	 * Length of the gzip trailer (CRC-32 and input size)
+	 */
+	private static final int GZIP_TRAILER_LENGTH = 8;
+
+	/**
+	 * Room made in the output buffer before each deflate call
+	 */
+	private static final int MIN_ROOM = 512;
+
+	/**
+	 * Most idle deflaters kept for reuse
+	 */
+	private static final int MAX_IDLE = 8;
+
+	/**
+	 * True for gzip, false for deflate
+	 */
+	private final boolean gzip;
+
+	/**
+	 * Compression level (0-9, or -1 for the default)
+	 */
+	private final int level;
+
+	/**
+	 * Idle deflaters
+	 */
+	private final ArrayBlockingQueue<Deflater> idle = new ArrayBlockingQueue<Deflater>(MAX_IDLE);
+
+	/**
+	 * Constructor
+	 * @param gzip True for gzip, false for deflate
+	 * @param level Compression level (0-9, or -1 for the default)
+	 */
+	DeflaterCodec(final boolean gzip, final int level) {
+		if ((level < Deflater.DEFAULT_COMPRESSION) || (Deflater.BEST_COMPRESSION < level)) {
+			throw new IllegalArgumentException("Invalid compression level: " + level);
+		}
+
+		this.gzip = gzip;
+		this.level = level;
+	}
+
+	/**
+	 * @see com.stackify.log.log4j2.PayloadCodec#getName()
+	 */
+	@Override
+	public String getName() {
+		return gzip ? GZIP : DEFLATE;
+	}
+
+	/**
+	 * @see com.stackify.log.log4j2.PayloadCodec#getContentEncoding()
+	 */
+	@Override
+	public String getContentEncoding() {
+		return getName();
+	}
+
+	/**
+	 * @see com.stackify.log.log4j2.PayloadCodec#encode(byte[], int, int, com.stackify.log.log4j2.PayloadBuffer)
+	 */
+	@Override
+	public void encode(final byte[] payload, final int offset, final int length, final PayloadBuffer out) {
+		Deflater deflater = idle.poll();
+
+		if (deflater == null) {
+			deflater = new Deflater(level, gzip);
+		}
+
+		try {
+			if (gzip) {
+				out.write(GZIP_HEADER, 0, GZIP_HEADER.length);
+			}
+
+			deflater.setInput(payload, offset, length);
+			deflater.finish();
+
+			// deflated output is rarely larger than the input plus a few bytes per block
+
+			out.reserve(length / 2 + MIN_ROOM);
+
+			while (!deflater.finished()) {
+				byte[] buf = out.reserve(MIN_ROOM);
+				out.advance(deflater.deflate(buf, out.size(), buf.length - out.size()));
+			}
+
+			if (gzip) {
+				CRC32 crc = new CRC32();
+				crc.update(payload, offset, length);
+
+				byte[] buf = out.reserve(GZIP_TRAILER_LENGTH);
+				int end = out.size();
+				putIntLE(buf, end, (int) crc.getValue());
+				putIntLE(buf, end + 4, length);
+				out.advance(GZIP_TRAILER_LENGTH);
+			}
+		} finally {
+			deflater.reset();
+
+			if (!idle.offer(deflater)) {
+				deflater.end();
+			}
+		}
+	}
+
+	/**
+	 * Writes a little endian int
+	 * @param buf The buffer
+	 * @param index Where to write
+	 * @param value The value
+	 */
+	private static void putIntLE(final byte[] buf, final int index, final int value) {
+		buf[index] = (byte) value;
+		buf[index + 1] = (byte) (value >>> 8);
+		buf[index + 2] = (byte) (value >>> 16);
+		buf[index + 3] = (byte) (value >>> 24);
+	}
+}
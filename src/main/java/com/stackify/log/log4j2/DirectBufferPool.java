@@ -0,0 +1,93 @@
+/*
+ * Copyright 2026 Stackify
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stackify.log.log4j2;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * Bounded pool of direct byte buffers of one size.
+ * <p>
+ * Direct buffers are expensive to allocate and are only freed by the garbage collector, so they are reused. A request
+ * for more than the pooled size gets a one-off buffer of its own, which is not pooled when released.
+ */
+final class DirectBufferPool {
+
+	/**
+	 * Capacity of the pooled buffers
+	 */
+	private final int bufferSize;
+
+	/**
+	 * Idle buffers
+	 */
+	private final ArrayBlockingQueue<ByteBuffer> idle;
+
+	/**
+	 * Constructor
+	 * @param bufferSize Capacity of the pooled buffers
+	 * @param maxIdle Most idle buffers kept for reuse
+	 */
+	DirectBufferPool(final int bufferSize, final int maxIdle) {
+		this.bufferSize = bufferSize;
+		this.idle = new ArrayBlockingQueue<ByteBuffer>(Math.max(1, maxIdle));
+	}
+
+	/**
+	 * @return Capacity of the pooled buffers
+	 */
+	int getBufferSize() {
+		return bufferSize;
+	}
+
+	/**
+	 * @return Number of idle buffers
+	 */
+	int getIdleCount() {
+		return idle.size();
+	}
+
+	/**
+	 * Gets a cleared buffer
+	 * @param minCapacity Minimum capacity needed
+	 * @return A pooled buffer, or a one-off buffer if the capacity needed exceeds the pooled size
+	 */
+	ByteBuffer acquire(final int minCapacity) {
+		if (bufferSize < minCapacity) {
+			return ByteBuffer.allocateDirect(minCapacity);
+		}
+
+		ByteBuffer buffer = idle.poll();
+
+		if (buffer == null) {
+			return ByteBuffer.allocateDirect(bufferSize);
+		}
+
+		buffer.clear();
+		return buffer;
+	}
+
+	/**
+	 * Hands a buffer back for reuse. One-off buffers, and buffers beyond the idle bound, are left to the garbage
+	 * collector.
+	 * @param buffer The buffer (may be null)
+	 */
+	void release(final ByteBuffer buffer) {
+		if ((buffer != null) && (buffer.capacity() == bufferSize) && buffer.isDirect()) {
+			idle.offer(buffer);
+		}
+	}
+}
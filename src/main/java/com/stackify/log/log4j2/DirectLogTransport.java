@@ -0,0 +1,192 @@
+/*
+ * Copyright 2026 Stackify
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stackify.log.log4j2;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.Proxy;
+import java.net.URL;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stackify.api.LogMsgGroup;
+import com.stackify.api.common.ApiConfiguration;
+import com.stackify.api.common.http.HttpException;
+import com.stackify.api.common.http.HttpProxy;
+import com.stackify.api.common.log.LogTransport;
+import com.stackify.api.common.log.LogTransportPreProcessor;
+import com.stackify.api.common.mask.Masker;
+
+/**
+ * Sends log batches to the Stackify API (direct transport), compressed with the configured codec, from several
+ * threads at once if needed.
+ * <p>
+ * Each batch is the request the direct transport of the Stackify API sends, JSON posted to /Log/Save. The body is
+ * serialized and compressed into pooled buffers before the request is opened, so that it is written with the request
+ * head in one go, and responses are read to the end, so that the JVM keeps the connections alive and reuses them.
+ * There is no connection pool of its own: the JVM keeps at most http.maxConnections (5 by default) idle connections
+ * per host, so with more batches in flight than that, the extra connections are closed after each request and
+ * reopened for the next one.
+ */
+final class DirectLogTransport implements LogTransport {
+
+	/**
+	 * Path batches are posted to
+	 */
+	private static final String PATH = "/Log/Save";
+
+	/**
+	 * Connect timeout (milliseconds), as in the Stackify API
+	 */
+	private static final int CONNECT_TIMEOUT = 5000;
+
+	/**
+	 * Read timeout (milliseconds), as in the Stackify API
+	 */
+	private static final int READ_TIMEOUT = 15000;
+
+	/**
+	 * URL batches are posted to
+	 */
+	private final URL url;
+
+	/**
+	 * API key
+	 */
+	private final String apiKey;
+
+	/**
+	 * Proxy (Proxy.NO_PROXY for none)
+	 */
+	private final Proxy proxy;
+
+	/**
+	 * Masks messages and tags JSON messages before sending
+	 */
+	private final LogTransportPreProcessor preProcessor;
+
+	/**
+	 * Compresses batches
+	 */
+	private final PayloadCompressor compressor;
+
+	/**
+	 * Batch serializer
+	 */
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	/**
+	 * Constructor
+	 * @param apiConfig API configuration
+	 * @param masker Masker
+	 * @param skipJson Mark messages w/ JSON w/ #SKIPJSON
+	 * @param compressor Compresses batches
+	 * @throws IOException if the API URL is invalid
+	 */
+	DirectLogTransport(final ApiConfiguration apiConfig, final Masker masker, final boolean skipJson, final PayloadCompressor compressor)
+			throws IOException {
+		this.url = new URL(apiConfig.getApiUrl() + PATH);
+		this.apiKey = apiConfig.getApiKey();
+		this.proxy = ((apiConfig.getHttpProxyHost() != null) && !apiConfig.getHttpProxyHost().isEmpty() && (apiConfig.getHttpProxyPort() != null)
+				&& !apiConfig.getHttpProxyPort().isEmpty()) ? HttpProxy.build(apiConfig.getHttpProxyHost(), apiConfig.getHttpProxyPort())
+						: HttpProxy.fromSystemProperties();
+		this.preProcessor = new LogTransportPreProcessor(masker, skipJson);
+		this.compressor = compressor;
+	}
+
+	/**
+	 * @see com.stackify.api.common.log.LogTransport#send(com.stackify.api.LogMsgGroup)
+	 */
+	@Override
+	public void send(final LogMsgGroup group) throws Exception {
+		preProcessor.execute(group);
+
+		PayloadBuffer json = compressor.acquire();
+		PayloadBuffer compressed = null;
+
+		try {
+			objectMapper.writeValue(json, group);
+			compressed = compressor.compress(json);
+
+			post((compressed != null) ? compressed : json, (compressed != null) ? compressor.getCodec().getContentEncoding() : null);
+		} finally {
+			compressor.release(json);
+			compressor.release(compressed);
+		}
+	}
+
+	/**
+	 * Posts a batch
+	 * @param body The serialized batch
+	 * @param contentEncoding Content-Encoding of the body (null if not encoded)
+	 * @throws IOException if the batch cannot be sent
+	 * @throws HttpException if the Stackify API rejects the batch
+	 */
+	private void post(final PayloadBuffer body, final String contentEncoding) throws IOException, HttpException {
+		HttpURLConnection connection = (HttpURLConnection) url.openConnection(proxy);
+		connection.setDoInput(true);
+		connection.setDoOutput(true);
+		connection.setRequestMethod("POST");
+		connection.setRequestProperty("Content-Type", "application/json");
+
+		if (contentEncoding != null) {
+			connection.setRequestProperty("Content-Encoding", contentEncoding);
+		}
+
+		connection.setRequestProperty("X-Stackify-Key", apiKey);
+		connection.setRequestProperty("X-Stackify-PV", "V1");
+		connection.setConnectTimeout(CONNECT_TIMEOUT);
+		connection.setReadTimeout(READ_TIMEOUT);
+
+		OutputStream out = connection.getOutputStream();
+
+		try {
+			out.write(body.array(), 0, body.size());
+		} finally {
+			out.close();
+		}
+
+		int status = connection.getResponseCode();
+
+		drain((status < 400) ? connection.getInputStream() : connection.getErrorStream());
+
+		if (status != HttpURLConnection.HTTP_OK) {
+			throw new HttpException(status);
+		}
+	}
+
+	/**
+	 * Reads a response body to the end and closes it, which returns the connection to the keep-alive cache
+	 * @param in The response body (or null)
+	 * @throws IOException if the body cannot be read
+	 */
+	private static void drain(final InputStream in) throws IOException {
+		if (in == null) {
+			return;
+		}
+
+		try {
+			byte[] buffer = new byte[1024];
+
+			while (in.read(buffer) >= 0) {
+				// skip
+			}
+		} finally {
+			in.close();
+		}
+	}
+}
@@ -0,0 +1,565 @@
+/*
+ * Copyright 2026 Stackify
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stackify.log.log4j2;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+
+import org.apache.logging.log4j.status.StatusLogger;
+
+/**
+ * Append-only log of serialized batches, kept in memory-mapped segment files.
+ * <p>
+ * Each segment starts with a magic number and a version, followed by records framed as
+ * <code>[int length][int crc32][bytes]</code> and terminated by a zero length. Appending is a copy into the mapped
+ * segment; nothing is forced to disk until the spool is closed, so records survive a process crash but not
+ * necessarily a power loss.
+ * <p>
+ * A cursor file remembers the next record to replay. Segments the cursor has moved past are deleted, and when the
+ * spool would exceed its size bound the oldest segment is deleted, unreplayed or not. On open, the segments are
+ * scanned and the end of each one is found from the record framing, so a record torn by a crash is discarded.
+ */
+final class DiskSpool implements Closeable {
+
+	/**
+	 * Segment magic number ("SKSP")
+	 */
+	private static final int MAGIC = 0x534B5350;
+
+	/**
+	 * Segment format version
+	 */
+	private static final int VERSION = 1;
+
+	/**
+	 * Segment header size (magic and version)
+	 */
+	static final int SEGMENT_HEADER = 8;
+
+	/**
+	 * Record header size (length and crc)
+	 */
+	static final int RECORD_HEADER = 8;
+
+	/**
+	 * Size of the zero length that ends the written part of a segment
+	 */
+	private static final int TERMINATOR = 4;
+
+	/**
+	 * Segment file names
+	 */
+	private static final Pattern SEGMENT_NAME = Pattern.compile("spool-(\\d{20})\\.seg");
+
+	/**
+	 * Cursor file name
+	 */
+	private static final String CURSOR_NAME = "cursor";
+
+	/**
+	 * Cursor file size (segment id, offset, crc)
+	 */
+	private static final int CURSOR_SIZE = 16;
+
+	/**
+	 * Spool directory
+	 */
+	private final File dir;
+
+	/**
+	 * Size of each segment file
+	 */
+	private final int segmentBytes;
+
+	/**
+	 * Number of segments kept at most
+	 */
+	private final int maxSegments;
+
+	/**
+	 * Segments, oldest first. The last one is written to.
+	 */
+	private final LinkedList<Segment> segments = new LinkedList<Segment>();
+
+	/**
+	 * Checksum of records and of the cursor
+	 */
+	private final CRC32 crc = new CRC32();
+
+	/**
+	 * Mapped cursor file
+	 */
+	private final MappedByteBuffer cursorBuffer;
+
+	/**
+	 * Channel of the cursor file
+	 */
+	private final FileChannel cursorChannel;
+
+	/**
+	 * Segment of the next record to replay
+	 */
+	private Segment cursorSegment;
+
+	/**
+	 * Offset of the next record to replay
+	 */
+	private int cursorOffset;
+
+	/**
+	 * Records lost to the size bound or to corruption
+	 */
+	private long dropped;
+
+	/**
+	 * Constructor. Opens the spool, recovering any segments and cursor left by a previous run.
+	 * @param dir Spool directory (created if missing)
+	 * @param maxBytes Bound on the total size of the segment files
+	 * @param segmentBytes Size of each segment file
+	 * @throws IOException if the directory or its files cannot be used
+	 */
+	DiskSpool(final File dir, final long maxBytes, final int segmentBytes) throws IOException {
+		if (!dir.isDirectory() && !dir.mkdirs()) {
+			throw new IOException("Unable to create spool directory " + dir);
+		}
+
+		this.dir = dir;
+		this.segmentBytes = Math.max(segmentBytes, SEGMENT_HEADER + RECORD_HEADER + TERMINATOR + 1);
+		this.maxSegments = (int) Math.max(2, Math.min(Integer.MAX_VALUE, maxBytes / this.segmentBytes));
+
+		// recover the segments, oldest first
+
+		List<Long> ids = new ArrayList<Long>();
+		File[] files = dir.listFiles();
+
+		if (files != null) {
+			for (File file : files) {
+				Matcher matcher = SEGMENT_NAME.matcher(file.getName());
+
+				if (matcher.matches()) {
+					ids.add(Long.valueOf(matcher.group(1)));
+				}
+			}
+		}
+
+		Collections.sort(ids);
+
+		for (Long id : ids) {
+			Segment segment = Segment.open(segmentFile(id), id);
+
+			if (segment != null) {
+				segment.recover(crc);
+				segments.add(segment);
+			} else {
+				StatusLogger.getLogger().warn("Discarding unreadable spool segment {}", segmentFile(id));
+				deleteFile(segmentFile(id));
+			}
+		}
+
+		if (segments.isEmpty()) {
+			segments.add(Segment.create(segmentFile(0), 0, this.segmentBytes));
+		}
+
+		// recover the cursor
+
+		RandomAccessFile cursorFile = new RandomAccessFile(new File(dir, CURSOR_NAME), "rw");
+		this.cursorChannel = cursorFile.getChannel();
+		this.cursorBuffer = cursorChannel.map(FileChannel.MapMode.READ_WRITE, 0, CURSOR_SIZE);
+
+		long cursorId = cursorBuffer.getLong(0);
+		int offset = cursorBuffer.getInt(8);
+
+		crc.reset();
+		crc.update(longBytes(cursorId, offset), 0, 12);
+
+		cursorSegment = segments.getFirst();
+		cursorOffset = SEGMENT_HEADER;
+
+		if ((int) crc.getValue() == cursorBuffer.getInt(12)) {
+			for (Segment segment : segments) {
+				if (segment.id == cursorId) {
+					cursorSegment = segment;
+					cursorOffset = Math.max(SEGMENT_HEADER, Math.min(offset, segment.writePosition));
+				}
+			}
+		}
+
+		// segments before the cursor were replayed but not yet deleted
+
+		while (segments.getFirst() != cursorSegment) {
+			segments.removeFirst().delete();
+		}
+
+		writeCursor();
+	}
+
+	/**
+	 * Appends a record
+	 * @param record The record
+	 * @return True if the record was appended, false if it is larger than a segment
+	 * @throws IOException if a new segment cannot be created
+	 */
+	synchronized boolean append(final byte[] record) throws IOException {
+		int size = RECORD_HEADER + record.length;
+
+		if (SEGMENT_HEADER + size + TERMINATOR > segmentBytes) {
+			++dropped;
+			return false;
+		}
+
+		Segment writer = segments.getLast();
+
+		if (writer.writePosition + size + TERMINATOR > writer.buffer.capacity()) {
+			writer = roll();
+		}
+
+		crc.reset();
+		crc.update(record, 0, record.length);
+
+		int position = writer.writePosition;
+		ByteBuffer buffer = writer.buffer.duplicate();
+
+		buffer.putInt(position + 4, (int) crc.getValue());
+		buffer.position(position + RECORD_HEADER);
+		buffer.put(record);
+		buffer.putInt(position + size, 0);
+
+		// the length goes last, it is what makes the record visible to a recovery scan
+
+		buffer.putInt(position, record.length);
+
+		writer.writePosition = position + size;
+		++writer.records;
+
+		return true;
+	}
+
+	/**
+	 * Reads the next record to replay, without moving the cursor
+	 * @return The record, or null if everything was replayed
+	 */
+	synchronized byte[] peek() {
+		while (true) {
+			if (cursorOffset < cursorSegment.writePosition) {
+				ByteBuffer buffer = cursorSegment.buffer.duplicate();
+				int length = buffer.getInt(cursorOffset);
+				int expected = buffer.getInt(cursorOffset + 4);
+
+				byte[] record = new byte[length];
+				buffer.position(cursorOffset + RECORD_HEADER);
+				buffer.get(record);
+
+				crc.reset();
+				crc.update(record, 0, record.length);
+
+				if ((int) crc.getValue() == expected) {
+					return record;
+				}
+
+				// corrupted after recovery (the file was modified underneath us), skip the rest of the segment
+
+				StatusLogger.getLogger().warn("Skipping corrupted spool segment {}", cursorSegment.file);
+				dropped += cursorSegment.records;
+				cursorSegment.writePosition = cursorOffset;
+
+				if (cursorSegment == segments.getLast()) {
+					return null;
+				}
+			}
+
+			if (cursorSegment == segments.getLast()) {
+				return null;
+			}
+
+			// the segment was fully replayed
+
+			segments.removeFirst().delete();
+			cursorSegment = segments.getFirst();
+			cursorOffset = SEGMENT_HEADER;
+			writeCursor();
+		}
+	}
+
+	/**
+	 * Moves the cursor past the record returned by the last peek
+	 */
+	synchronized void advance() {
+		if (cursorOffset < cursorSegment.writePosition) {
+			cursorOffset += RECORD_HEADER + cursorSegment.buffer.getInt(cursorOffset);
+			--cursorSegment.records;
+			writeCursor();
+		}
+	}
+
+	/**
+	 * @return True if every record was replayed
+	 */
+	synchronized boolean isEmpty() {
+		return (cursorSegment == segments.getLast()) && (cursorOffset >= cursorSegment.writePosition);
+	}
+
+	/**
+	 * @return Records lost to the size bound or to corruption
+	 */
+	synchronized long getDropped() {
+		return dropped;
+	}
+
+	/**
+	 * @return Number of segment files
+	 */
+	synchronized int getSegmentCount() {
+		return segments.size();
+	}
+
+	/**
+	 * Forces the segments and the cursor to disk and closes their files
+	 * @see java.io.Closeable#close()
+	 */
+	@Override
+	public synchronized void close() throws IOException {
+		for (Segment segment : segments) {
+			segment.buffer.force();
+			segment.channel.close();
+		}
+
+		cursorBuffer.force();
+		cursorChannel.close();
+	}
+
+	/**
+	 * Starts a new segment, deleting the oldest one if the spool is at its size bound
+	 * @return The new segment
+	 * @throws IOException if the segment cannot be created
+	 */
+	private Segment roll() throws IOException {
+		while (segments.size() >= maxSegments) {
+			Segment oldest = segments.removeFirst();
+
+			if (oldest == cursorSegment) {
+				dropped += oldest.records;
+				cursorSegment = segments.getFirst();
+				cursorOffset = SEGMENT_HEADER;
+				writeCursor();
+			}
+
+			oldest.delete();
+		}
+
+		long id = segments.getLast().id + 1;
+		Segment segment = Segment.create(segmentFile(id), id, segmentBytes);
+		segments.add(segment);
+
+		return segment;
+	}
+
+	/**
+	 * Saves the cursor
+	 */
+	private void writeCursor() {
+		crc.reset();
+		crc.update(longBytes(cursorSegment.id, cursorOffset), 0, 12);
+
+		cursorBuffer.putLong(0, cursorSegment.id);
+		cursorBuffer.putInt(8, cursorOffset);
+		cursorBuffer.putInt(12, (int) crc.getValue());
+	}
+
+	/**
+	 * @param id Segment id
+	 * @return Segment file
+	 */
+	private File segmentFile(final long id) {
+		return new File(dir, String.format("spool-%020d.seg", id));
+	}
+
+	/**
+	 * @param id Segment id
+	 * @param offset Offset
+	 * @return The cursor bytes covered by its crc
+	 */
+	private static byte[] longBytes(final long id, final int offset) {
+		return ByteBuffer.allocate(12).putLong(id).putInt(offset).array();
+	}
+
+	/**
+	 * Deletes a file, logging a failure
+	 * @param file The file
+	 */
+	private static void deleteFile(final File file) {
+		if (file.exists() && !file.delete()) {
+			StatusLogger.getLogger().warn("Unable to delete spool file {}", file);
+		}
+	}
+
+	/**
+	 * A mapped segment file
+	 */
+	private static final class Segment {
+
+		/**
+		 * Segment id
+		 */
+		private final long id;
+
+		/**
+		 * Segment file
+		 */
+		private final File file;
+
+		/**
+		 * Segment file channel
+		 */
+		private final FileChannel channel;
+
+		/**
+		 * Mapped segment
+		 */
+		private final MappedByteBuffer buffer;
+
+		/**
+		 * End of the written records
+		 */
+		private int writePosition = SEGMENT_HEADER;
+
+		/**
+		 * Records written and not replayed (approximate, used for drop accounting)
+		 */
+		private long records;
+
+		/**
+		 * Constructor
+		 * @param file Segment file
+		 * @param id Segment id
+		 * @param channel Segment file channel
+		 * @param buffer Mapped segment
+		 */
+		private Segment(final File file, final long id, final FileChannel channel, final MappedByteBuffer buffer) {
+			this.file = file;
+			this.id = id;
+			this.channel = channel;
+			this.buffer = buffer;
+		}
+
+		/**
+		 * Creates a new segment file
+		 * @param file Segment file
+		 * @param id Segment id
+		 * @param size Segment size
+		 * @return The segment
+		 * @throws IOException if the file cannot be created
+		 */
+		static Segment create(final File file, final long id, final int size) throws IOException {
+			FileChannel channel = new RandomAccessFile(file, "rw").getChannel();
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+
+			buffer.putInt(0, MAGIC);
+			buffer.putInt(4, VERSION);
+			buffer.putInt(SEGMENT_HEADER, 0);
+
+			return new Segment(file, id, channel, buffer);
+		}
+
+		/**
+		 * Opens an existing segment file
+		 * @param file Segment file
+		 * @param id Segment id
+		 * @return The segment, or null if the file is not a valid segment
+		 * @throws IOException if the file cannot be opened
+		 */
+		static Segment open(final File file, final long id) throws IOException {
+			FileChannel channel = new RandomAccessFile(file, "rw").getChannel();
+			long size = channel.size();
+
+			if ((size < SEGMENT_HEADER + TERMINATOR) || (size > Integer.MAX_VALUE)) {
+				channel.close();
+				return null;
+			}
+
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+
+			if ((buffer.getInt(0) != MAGIC) || (buffer.getInt(4) != VERSION)) {
+				channel.close();
+				return null;
+			}
+
+			return new Segment(file, id, channel, buffer);
+		}
+
+		/**
+		 * Finds the end of the valid records
+		 * @param crc Checksum to use
+		 */
+		void recover(final CRC32 crc) {
+			int capacity = buffer.capacity();
+			int position = SEGMENT_HEADER;
+			ByteBuffer view = buffer.duplicate();
+
+			while (position + RECORD_HEADER <= capacity) {
+				int length = view.getInt(position);
+
+				if ((length <= 0) || (length > capacity - position - RECORD_HEADER)) {
+					break;
+				}
+
+				byte[] record = new byte[length];
+				view.position(position + RECORD_HEADER);
+				view.get(record);
+
+				crc.reset();
+				crc.update(record, 0, length);
+
+				if ((int) crc.getValue() != view.getInt(position + 4)) {
+					break;
+				}
+
+				position += RECORD_HEADER + length;
+				++records;
+			}
+
+			writePosition = position;
+
+			if (position + TERMINATOR <= capacity) {
+				buffer.putInt(position, 0);
+			}
+		}
+
+		/**
+		 * Closes and deletes the segment file
+		 */
+		void delete() {
+			try {
+				channel.close();
+			} catch (IOException e) {
+				StatusLogger.getLogger().warn("Unable to close spool segment {}", file, e);
+			}
+
+			deleteFile(file);
+		}
+	}
+}
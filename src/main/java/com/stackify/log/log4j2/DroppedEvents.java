@@ -0,0 +1,130 @@
+/*
+ * Copyright 2026 Stackify
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stackify.log.log4j2;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.core.impl.Log4jLogEvent;
+import org.apache.logging.log4j.message.SimpleMessage;
+import org.apache.logging.log4j.spi.StandardLevel;
+import org.apache.logging.log4j.util.SortedArrayStringMap;
+
+/**
+ * Counts dropped events per level.
+ * <p>
+ * Counters are striped (LongAdder) so that threads dropping events during an outage do not contend on a single
+ * counter. The counts since the last report are turned into a synthetic WARN event that is sent like any other.
+ */
+final class DroppedEvents {
+
+	/**
+	 * Logger name of the synthetic report events
+	 */
+	static final String REPORT_LOGGER = StackifyLogAppender.class.getName();
+
+	/**
+	 * Counts since the last report, indexed by StandardLevel ordinal
+	 */
+	private final LongAdder[] counts = new LongAdder[StandardLevel.values().length];
+
+	/**
+	 * Count since the dispatcher was created
+	 */
+	private final LongAdder total = new LongAdder();
+
+	/**
+	 * Constructor
+	 */
+	DroppedEvents() {
+		for (int i = 0; i < counts.length; ++i) {
+			counts[i] = new LongAdder();
+		}
+	}
+
+	/**
+	 * Counts a dropped event
+	 * @param level The event level (null is counted as INFO)
+	 */
+	void increment(final Level level) {
+		StandardLevel standardLevel = (level != null) ? level.getStandardLevel() : StandardLevel.INFO;
+		counts[standardLevel.ordinal()].increment();
+		total.increment();
+	}
+
+	/**
+	 * @return Number of events dropped since the dispatcher was created
+	 */
+	long getTotal() {
+		return total.sum();
+	}
+
+	/**
+	 * Builds the report event for the drops counted since the last report and resets the counts
+	 * @param intervalMillis Time covered by the report (milliseconds)
+	 * @return The report event, or null if nothing was dropped
+	 */
+	LogEvent drainReport(final long intervalMillis) {
+		long sum = 0;
+		long[] snapshot = new long[counts.length];
+
+		for (int i = 0; i < counts.length; ++i) {
+			snapshot[i] = counts[i].sumThenReset();
+			sum += snapshot[i];
+		}
+
+		if (sum == 0) {
+			return null;
+		}
+
+		StringBuilder message = new StringBuilder("Stackify log appender dropped ")
+				.append(sum)
+				.append(" events in the last ")
+				.append(Math.max(1, intervalMillis / 1000))
+				.append("s (");
+
+		SortedArrayStringMap contextData = new SortedArrayStringMap();
+		contextData.putValue("droppedTotal", Long.toString(sum));
+
+		boolean first = true;
+
+		for (StandardLevel standardLevel : StandardLevel.values()) {
+			long count = snapshot[standardLevel.ordinal()];
+
+			if (count > 0) {
+				if (!first) {
+					message.append(", ");
+				}
+
+				message.append(standardLevel.name()).append('=').append(count);
+				contextData.putValue("dropped." + standardLevel.name(), Long.toString(count));
+				first = false;
+			}
+		}
+
+		message.append(')');
+
+		return Log4jLogEvent.newBuilder()
+				.setLoggerName(REPORT_LOGGER)
+				.setLevel(Level.WARN)
+				.setMessage(new SimpleMessage(message.toString()))
+				.setContextData(contextData)
+				.setThreadName(Thread.currentThread().getName())
+				.setTimeMillis(System.currentTimeMillis())
+				.build();
+	}
+}
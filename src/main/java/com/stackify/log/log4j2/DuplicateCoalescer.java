@@ -0,0 +1,436 @@
+/*
+ * Copyright 2026 Stackify
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stackify.log.log4j2;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.core.impl.Log4jLogEvent;
+import org.apache.logging.log4j.message.Message;
+import org.apache.logging.log4j.message.SimpleMessage;
+import org.apache.logging.log4j.util.SortedArrayStringMap;
+
+/**
+ * Coalesces consecutive duplicate events into one event with a repeat count.
+ * <p>
+ * Events are duplicates when they have the same level, logger and message pattern (Message.getFormat(), so nothing is
+ * formatted to compare them) and follow each other within the window, either on the same thread or across all
+ * threads. For events that include location information, the source location (the srcMethod and srcLine sent to
+ * Stackify) must match too. The location is not asked of other events, since log4j would find it with a stack walk
+ * for each duplicate that is only counted. The first event of a run is sent as usual. The duplicates after it are only counted, and when the run ends
+ * (a different event, a pause longer than the window, or the appender stopping), a single event is sent with the
+ * first duplicate's message, "(repeated N times)" and a repeatCount property. Runs that pause longer than the window
+ * are also ended by sweep, which the appender calls periodically. Events with a throwable are never coalesced.
+ */
+final class DuplicateCoalescer {
+
+	/**
+	 * No coalescing
+	 */
+	static final String MODE_OFF = "off";
+
+	/**
+	 * Coalesce duplicates logged by the same thread
+	 */
+	static final String MODE_THREAD = "thread";
+
+	/**
+	 * Coalesce duplicates logged by any thread
+	 */
+	static final String MODE_GLOBAL = "global";
+
+	/**
+	 * Default window (milliseconds)
+	 */
+	static final long DEFAULT_WINDOW = 1000;
+
+	/**
+	 * Property with the number of coalesced duplicates
+	 */
+	static final String REPEAT_COUNT_KEY = "repeatCount";
+
+	/**
+	 * Receives the repeat events
+	 */
+	interface Sink {
+
+		/**
+		 * Sends a repeat event
+		 * @param event The event
+		 * @param eventContext Request context of the duplicates
+		 */
+		void send(LogEvent event, EventContext eventContext);
+	}
+
+	/**
+	 * Longest pause between duplicates (milliseconds)
+	 */
+	private final long windowMillis;
+
+	/**
+	 * Receives the repeat events
+	 */
+	private final Sink sink;
+
+	/**
+	 * The run shared by all threads (null when coalescing per thread)
+	 */
+	private final Run globalRun;
+
+	/**
+	 * Run of the current thread (null when coalescing globally)
+	 */
+	private final ThreadLocal<Run> threadRun;
+
+	/**
+	 * Runs of all threads, for sweeping (empty when coalescing globally)
+	 */
+	private final Set<Run> threadRuns = Collections.newSetFromMap(new ConcurrentHashMap<Run, Boolean>());
+
+	/**
+	 * When runs are next checked for a pause longer than the window
+	 */
+	private volatile long nextSweep;
+
+	/**
+	 * Constructor
+	 * @param mode MODE_THREAD or MODE_GLOBAL
+	 * @param windowMillis Longest pause between duplicates (milliseconds)
+	 * @param sink Receives the repeat events
+	 */
+	DuplicateCoalescer(final String mode, final long windowMillis, final Sink sink) {
+		if (windowMillis <= 0) {
+			throw new IllegalArgumentException("Coalesce window must be positive: " + windowMillis);
+		}
+
+		if (MODE_GLOBAL.equalsIgnoreCase(mode)) {
+			this.globalRun = new Run();
+			this.threadRun = null;
+		} else if (MODE_THREAD.equalsIgnoreCase(mode)) {
+			this.globalRun = null;
+			this.threadRun = new ThreadLocal<Run>();
+		} else {
+			throw new IllegalArgumentException("Unknown coalesce mode: " + mode);
+		}
+
+		this.windowMillis = windowMillis;
+		this.sink = sink;
+		this.nextSweep = System.currentTimeMillis() + windowMillis;
+	}
+
+	/**
+	 * Offers an event, sending the repeat event of a run it ends
+	 * @param event The event
+	 * @return True if the event should be sent, false if it was coalesced
+	 */
+	boolean offer(final LogEvent event) {
+		long time = event.getTimeMillis();
+
+		if (nextSweep <= time) {
+			sweep(time);
+		}
+
+		Message message = event.getMessage();
+		String format = ((event.getThrown() == null) && (message != null)) ? message.getFormat() : null;
+
+		Repeat repeat;
+
+		while (true) {
+			Run run = (globalRun != null) ? globalRun : getThreadRun();
+
+			synchronized (run) {
+				if (run.retired) {
+					continue;
+				}
+
+				if ((format != null) && run.matches(event, format, windowMillis)) {
+					run.count(event);
+					return false;
+				}
+
+				repeat = run.restart(event, format);
+				break;
+			}
+		}
+
+		if (repeat != null) {
+			sink.send(repeat.event, repeat.eventContext);
+		}
+
+		return true;
+	}
+
+	/**
+	 * Ends every run, sending their repeat events
+	 */
+	void flush() {
+		sweep(Long.MAX_VALUE);
+	}
+
+	/**
+	 * Ends the runs that paused longer than the window if they are due for a check, so that their repeat events are not
+	 * held until the next event
+	 * @param now Current time (milliseconds)
+	 */
+	void sweepIfDue(final long now) {
+		if (nextSweep <= now) {
+			sweep(now);
+		}
+	}
+
+	/**
+	 * Ends the runs that paused longer than the window, sending their repeat events
+	 * @param now Current time (milliseconds), or Long.MAX_VALUE to end every run
+	 */
+	private void sweep(final long now) {
+		nextSweep = (now == Long.MAX_VALUE) ? Long.MAX_VALUE : now + windowMillis;
+
+		List<Repeat> repeats = new ArrayList<Repeat>();
+
+		if (globalRun != null) {
+			synchronized (globalRun) {
+				if (globalRun.isPaused(now, windowMillis)) {
+					addRepeat(repeats, globalRun.restart(null, null));
+				}
+			}
+		} else {
+			for (Run run : threadRuns) {
+				synchronized (run) {
+					if (run.isIdle(now, windowMillis)) {
+						addRepeat(repeats, run.restart(null, null));
+						run.retired = true;
+						threadRuns.remove(run);
+					}
+				}
+			}
+		}
+
+		for (Repeat repeat : repeats) {
+			sink.send(repeat.event, repeat.eventContext);
+		}
+	}
+
+	/**
+	 * @param repeats The repeat events to send
+	 * @param repeat A repeat event (or null)
+	 */
+	private static void addRepeat(final List<Repeat> repeats, final Repeat repeat) {
+		if (repeat != null) {
+			repeats.add(repeat);
+		}
+	}
+
+	/**
+	 * @return The run of the current thread, created if it has none or its run was retired
+	 */
+	private Run getThreadRun() {
+		Run run = threadRun.get();
+
+		if ((run == null) || run.retired) {
+			run = new Run();
+			threadRun.set(run);
+			threadRuns.add(run);
+		}
+
+		return run;
+	}
+
+	/**
+	 * Consecutive duplicates
+	 */
+	private static final class Run {
+
+		/**
+		 * Level of the run's events (null when there is no run)
+		 */
+		private Level level;
+
+		/**
+		 * Logger name of the run's events
+		 */
+		private String loggerName;
+
+		/**
+		 * Message pattern of the run's events
+		 */
+		private String format;
+
+		/**
+		 * Source location of the run's events (null if unknown)
+		 */
+		private StackTraceElement source;
+
+		/**
+		 * Time of the last event of the run
+		 */
+		private long last;
+
+		/**
+		 * Number of duplicates after the first event
+		 */
+		private long count;
+
+		/**
+		 * Copy of the first duplicate (null until there is one)
+		 */
+		private LogEvent firstDuplicate;
+
+		/**
+		 * Request context of the first duplicate
+		 */
+		private EventContext eventContext;
+
+		/**
+		 * True once the run was swept and removed (per thread runs only)
+		 */
+		private boolean retired;
+
+		/**
+		 * @param event The event
+		 * @param eventFormat The event's message pattern
+		 * @param windowMillis Longest pause between duplicates
+		 * @return True if the event continues the run
+		 */
+		private boolean matches(final LogEvent event, final String eventFormat, final long windowMillis) {
+			return (level != null)
+					&& (event.getTimeMillis() - last <= windowMillis)
+					&& (level == event.getLevel())
+					&& eventFormat.equals(format)
+					&& same(loggerName, event.getLoggerName())
+					&& same(source, location(event));
+		}
+
+		/**
+		 * Counts a duplicate, copying it if it is the first one
+		 * @param event The duplicate
+		 */
+		private void count(final LogEvent event) {
+			if (count == 0) {
+				firstDuplicate = event.toImmutable();
+				eventContext = EventContext.capture((level != null) && level.isMoreSpecificThan(Level.ERROR));
+			}
+
+			++count;
+			last = Math.max(last, event.getTimeMillis());
+		}
+
+		/**
+		 * @param now Current time (milliseconds)
+		 * @param windowMillis Longest pause between duplicates
+		 * @return True if the run has not seen an event for longer than the window
+		 */
+		private boolean isPaused(final long now, final long windowMillis) {
+			return (level != null) && (windowMillis < now - last);
+		}
+
+		/**
+		 * @param now Current time (milliseconds)
+		 * @param windowMillis Longest pause between duplicates
+		 * @return True if there is no run, or it is paused
+		 */
+		private boolean isIdle(final long now, final long windowMillis) {
+			return (level == null) || isPaused(now, windowMillis);
+		}
+
+		/**
+		 * Ends the run and starts a new one
+		 * @param event First event of the new run (or null)
+		 * @param eventFormat Its message pattern (null if it cannot start a run)
+		 * @return The repeat event of the ended run, or null if it had no duplicates
+		 */
+		private Repeat restart(final LogEvent event, final String eventFormat) {
+			Repeat repeat = (count > 0) ? new Repeat(firstDuplicate, count, last, eventContext) : null;
+
+			boolean starts = (event != null) && (eventFormat != null);
+
+			level = starts ? event.getLevel() : null;
+			loggerName = starts ? event.getLoggerName() : null;
+			format = starts ? eventFormat : null;
+			source = starts ? location(event) : null;
+			last = starts ? event.getTimeMillis() : 0;
+			count = 0;
+			firstDuplicate = null;
+			eventContext = null;
+
+			return repeat;
+		}
+
+		/**
+		 * @param event The event
+		 * @return The event's source location, or null if the event does not include location information
+		 */
+		private static StackTraceElement location(final LogEvent event) {
+			return event.isIncludeLocation() ? event.getSource() : null;
+		}
+
+		/**
+		 * @param a An object (or null)
+		 * @param b An object (or null)
+		 * @return True if both are null or equal
+		 */
+		private static boolean same(final Object a, final Object b) {
+			return (a == null) ? (b == null) : a.equals(b);
+		}
+	}
+
+	/**
+	 * A repeat event with its request context
+	 */
+	private static final class Repeat {
+
+		/**
+		 * The repeat event
+		 */
+		private final LogEvent event;
+
+		/**
+		 * Request context of the duplicates
+		 */
+		private final EventContext eventContext;
+
+		/**
+		 * Constructor
+		 * @param firstDuplicate Copy of the first duplicate
+		 * @param count Number of duplicates
+		 * @param last Time of the last duplicate
+		 * @param eventContext Request context of the first duplicate
+		 */
+		private Repeat(final LogEvent firstDuplicate, final long count, final long last, final EventContext eventContext) {
+			SortedArrayStringMap contextData = new SortedArrayStringMap(firstDuplicate.getContextData());
+			contextData.putValue(REPEAT_COUNT_KEY, Long.toString(count));
+
+			String message = firstDuplicate.getMessage().getFormattedMessage() + " (repeated " + count + ((count == 1) ? " time)" : " times)");
+
+			this.event = Log4jLogEvent.newBuilder()
+					.setLoggerName(firstDuplicate.getLoggerName())
+					.setLoggerFqcn(firstDuplicate.getLoggerFqcn())
+					.setLevel(firstDuplicate.getLevel())
+					.setMessage(new SimpleMessage(message))
+					.setContextData(contextData)
+					.setContextStack(firstDuplicate.getContextStack())
+					.setThreadName(firstDuplicate.getThreadName())
+					.setSource(firstDuplicate.getSource())
+					.setTimeMillis(last)
+					.build();
+			this.eventContext = (eventContext != null) ? eventContext : EventContext.EMPTY;
+		}
+	}
+}
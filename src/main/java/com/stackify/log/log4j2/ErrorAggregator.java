@@ -0,0 +1,500 @@
+/*
+ * Copyright 2026 Stackify
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stackify.log.log4j2;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.core.impl.Log4jLogEvent;
+import org.apache.logging.log4j.message.Message;
+import org.apache.logging.log4j.message.SimpleMessage;
+import org.apache.logging.log4j.util.SortedArrayStringMap;
+
+/**
+ * Aggregates storms of identical errors.
+ * <p>
+ * Error events (with a throwable, or logged at error level or above) are grouped by fingerprint: the class and stack
+ * trace of every throwable in the causal chain, or the logger, level and message pattern of errors without a
+ * throwable. Within a window that starts with the first occurrence of a fingerprint, the first occurrences are sent in
+ * full and the rest are counted instead of being converted and sent. When the window is over, a single WARN summary
+ * event reports the occurrence count, the first and last timestamps, and a sample of distinct messages. The message
+ * masks are applied to the sample before it is added to the summary's context data.
+ */
+final class ErrorAggregator {
+
+	/**
+	 * Default number of occurrences sent in full per window
+	 */
+	static final int DEFAULT_LIMIT = 10;
+
+	/**
+	 * Number of distinct messages kept as a sample
+	 */
+	static final int MAX_SAMPLES = 5;
+
+	/**
+	 * Number of aggregated occurrences whose message is considered for the sample
+	 */
+	private static final int SAMPLE_ATTEMPTS = 100;
+
+	/**
+	 * Largest number of fingerprints tracked at once, errors with other fingerprints are sent in full
+	 */
+	private static final int MAX_WINDOWS = 1024;
+
+	/**
+	 * Window length (milliseconds)
+	 */
+	private final long windowMillis;
+
+	/**
+	 * Occurrences sent in full per window
+	 */
+	private final int limit;
+
+	/**
+	 * Masks applied to the sample messages (or null)
+	 */
+	private final FieldMasker fieldMasker;
+
+	/**
+	 * Open windows by fingerprint
+	 */
+	private final Map<Fingerprint, Window> windows = new ConcurrentHashMap<Fingerprint, Window>();
+
+	/**
+	 * Summaries of closed windows, waiting for the next sweep
+	 */
+	private final List<LogEvent> pending = new ArrayList<LogEvent>();
+
+	/**
+	 * When the windows are next checked for expiry
+	 */
+	private volatile long nextSweep;
+
+	/**
+	 * Constructor
+	 * @param windowMillis Window length (milliseconds)
+	 * @param limit Occurrences sent in full per window
+	 */
+	ErrorAggregator(final long windowMillis, final int limit) {
+		this(windowMillis, limit, null);
+	}
+
+	/**
+	 * Constructor
+	 * @param windowMillis Window length (milliseconds)
+	 * @param limit Occurrences sent in full per window
+	 * @param fieldMasker Masks applied to the sample messages (or null)
+	 */
+	ErrorAggregator(final long windowMillis, final int limit, final FieldMasker fieldMasker) {
+		if (windowMillis <= 0) {
+			throw new IllegalArgumentException("Error aggregation window must be positive: " + windowMillis);
+		}
+
+		this.windowMillis = windowMillis;
+		this.limit = Math.max(0, limit);
+		this.fieldMasker = fieldMasker;
+		this.nextSweep = System.currentTimeMillis() + windowMillis;
+	}
+
+	/**
+	 * Records an event
+	 * @param context The event
+	 * @return True if the event should be sent, false if it was aggregated
+	 */
+	boolean record(final ConversionContext context) {
+		LogEvent event = context.getEvent();
+
+		if (!LogEventAdapter.isError(event)) {
+			return true;
+		}
+
+		Fingerprint fingerprint = Fingerprint.of(event);
+		long time = event.getTimeMillis();
+
+		while (true) {
+			Window window = windows.get(fingerprint);
+
+			if (window == null) {
+				if (MAX_WINDOWS <= windows.size()) {
+					return true;
+				}
+
+				Window created = new Window(fingerprint.describe(), event.getLoggerName(), time);
+				window = windows.putIfAbsent(fingerprint, created);
+
+				if (window == null) {
+					window = created;
+				}
+			}
+
+			int result = window.record(time, context, limit, time - windowMillis);
+
+			if (result != Window.CLOSED) {
+				return result == Window.SEND;
+			}
+
+			// the window is over: keep its summary for the next sweep and start a new one
+
+			windows.remove(fingerprint, window);
+			closed(window);
+		}
+	}
+
+	/**
+	 * Checks if the windows are due for a sweep
+	 * @param now Current time (milliseconds)
+	 * @return True if drainSummaries should be called
+	 */
+	boolean isSweepDue(final long now) {
+		return nextSweep <= now;
+	}
+
+	/**
+	 * Closes the windows that are over and builds their summaries
+	 * @param now Current time (milliseconds), or Long.MAX_VALUE to close every window
+	 * @return The summary events, possibly empty
+	 */
+	List<LogEvent> drainSummaries(final long now) {
+		nextSweep = (now == Long.MAX_VALUE) ? Long.MAX_VALUE : now + windowMillis;
+
+		for (Iterator<Window> it = windows.values().iterator(); it.hasNext(); ) {
+			Window window = it.next();
+
+			if (window.closeIfStartedBefore(now - windowMillis + 1)) {
+				it.remove();
+				closed(window);
+			}
+		}
+
+		List<LogEvent> summaries;
+
+		synchronized (pending) {
+			if (pending.isEmpty()) {
+				return Collections.emptyList();
+			}
+
+			summaries = new ArrayList<LogEvent>(pending);
+			pending.clear();
+		}
+
+		return summaries;
+	}
+
+	/**
+	 * Keeps the summary of a closed window, if any of its occurrences were aggregated
+	 * @param window The closed window
+	 */
+	private void closed(final Window window) {
+		LogEvent summary = window.summarize(fieldMasker);
+
+		if (summary != null) {
+			synchronized (pending) {
+				pending.add(summary);
+			}
+
+			nextSweep = 0;
+		}
+	}
+
+
+	/**
+	 * Identifies errors that are aggregated together
+	 */
+	private static final class Fingerprint {
+
+		/**
+		 * Classes of the throwable and its causes, or the logger name, level and message pattern
+		 */
+		private final Object[] parts;
+
+		/**
+		 * Stack traces of the throwable and its causes (empty without a throwable)
+		 */
+		private final StackTraceElement[][] stacks;
+
+		/**
+		 * Hash of the parts and stacks
+		 */
+		private final int hash;
+
+		/**
+		 * Constructor
+		 * @param parts Classes of the throwable and its causes, or the logger name, level and message pattern
+		 * @param stacks Stack traces of the throwable and its causes
+		 */
+		private Fingerprint(final Object[] parts, final StackTraceElement[][] stacks) {
+			this.parts = parts;
+			this.stacks = stacks;
+			this.hash = 31 * Arrays.hashCode(parts) + Arrays.deepHashCode(stacks);
+		}
+
+		/**
+		 * Fingerprints an error event
+		 * @param event The event
+		 * @return The fingerprint
+		 */
+		private static Fingerprint of(final LogEvent event) {
+			Throwable thrown = event.getThrown();
+
+			if (thrown == null) {
+				Message message = event.getMessage();
+				String pattern = (message != null) ? message.getFormat() : null;
+				return new Fingerprint(new Object[] {event.getLoggerName(), event.getLevel(), pattern}, new StackTraceElement[0][]);
+			}
+
+			List<Throwable> chain = new ArrayList<Throwable>();
+
+			for (Throwable cause = thrown; (cause != null) && !chain.contains(cause); cause = cause.getCause()) {
+				chain.add(cause);
+			}
+
+			Object[] classes = new Object[chain.size()];
+			StackTraceElement[][] stacks = new StackTraceElement[chain.size()][];
+
+			for (int i = 0; i < classes.length; ++i) {
+				classes[i] = chain.get(i).getClass();
+				stacks[i] = chain.get(i).getStackTrace();
+			}
+
+			return new Fingerprint(classes, stacks);
+		}
+
+		/**
+		 * @return What the aggregated errors are, for the summary message
+		 */
+		private String describe() {
+			if (stacks.length == 0) {
+				return "\"" + parts[2] + "\"";
+			}
+
+			StringBuilder description = new StringBuilder(((Class<?>) parts[0]).getName());
+
+			if (0 < stacks[0].length) {
+				description.append(" at ").append(stacks[0][0]);
+			}
+
+			return description.toString();
+		}
+
+		/**
+		 * @see java.lang.Object#hashCode()
+		 */
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		/**
+		 * @see java.lang.Object#equals(java.lang.Object)
+		 */
+		@Override
+		public boolean equals(final Object obj) {
+			if (this == obj) {
+				return true;
+			}
+
+			if (!(obj instanceof Fingerprint)) {
+				return false;
+			}
+
+			Fingerprint other = (Fingerprint) obj;
+			return (hash == other.hash) && Arrays.equals(parts, other.parts) && Arrays.deepEquals(stacks, other.stacks);
+		}
+	}
+
+	/**
+	 * Occurrences of one fingerprint within a window
+	 */
+	private static final class Window {
+
+		/**
+		 * Record result: send the event
+		 */
+		private static final int SEND = 0;
+
+		/**
+		 * Record result: the event was aggregated
+		 */
+		private static final int AGGREGATED = 1;
+
+		/**
+		 * Record result: the window is over, record in a new one
+		 */
+		private static final int CLOSED = 2;
+
+		/**
+		 * What the aggregated errors are
+		 */
+		private final String description;
+
+		/**
+		 * Logger name of the first occurrence
+		 */
+		private final String loggerName;
+
+		/**
+		 * Time of the first occurrence
+		 */
+		private final long first;
+
+		/**
+		 * Time of the last occurrence
+		 */
+		private long last;
+
+		/**
+		 * Number of occurrences
+		 */
+		private long count;
+
+		/**
+		 * Number of occurrences that were not sent
+		 */
+		private long aggregated;
+
+		/**
+		 * Distinct messages of aggregated occurrences
+		 */
+		private final List<String> samples = new ArrayList<String>(MAX_SAMPLES);
+
+		/**
+		 * True once the window is over
+		 */
+		private boolean closed;
+
+		/**
+		 * True once the summary was built
+		 */
+		private boolean summarized;
+
+		/**
+		 * Constructor
+		 * @param description What the aggregated errors are
+		 * @param loggerName Logger name of the first occurrence
+		 * @param first Time of the first occurrence
+		 */
+		private Window(final String description, final String loggerName, final long first) {
+			this.description = description;
+			this.loggerName = loggerName;
+			this.first = first;
+			this.last = first;
+		}
+
+		/**
+		 * Records an occurrence
+		 * @param time Time of the occurrence
+		 * @param context The event
+		 * @param limit Occurrences sent in full per window
+		 * @param expiredBefore Windows that started before this time are over
+		 * @return SEND, AGGREGATED or CLOSED
+		 */
+		private synchronized int record(final long time, final ConversionContext context, final int limit, final long expiredBefore) {
+			if (closed || (first <= expiredBefore)) {
+				closed = true;
+				return CLOSED;
+			}
+
+			++count;
+			last = Math.max(last, time);
+
+			if (count <= limit) {
+				return SEND;
+			}
+
+			++aggregated;
+
+			if ((samples.size() < MAX_SAMPLES) && (aggregated <= SAMPLE_ATTEMPTS)) {
+				String message = context.getMessage();
+
+				if (!samples.contains(message)) {
+					samples.add(message);
+				}
+			}
+
+			return AGGREGATED;
+		}
+
+		/**
+		 * Closes the window if it started before a time
+		 * @param time The time
+		 * @return True if the window is closed
+		 */
+		private synchronized boolean closeIfStartedBefore(final long time) {
+			if (first < time) {
+				closed = true;
+			}
+
+			return closed;
+		}
+
+		/**
+		 * Builds the summary of a closed window, once
+		 * @param fieldMasker Masks applied to the sample messages (or null)
+		 * @return The summary event, or null if every occurrence was sent or the summary was already built
+		 */
+		private synchronized LogEvent summarize(final FieldMasker fieldMasker) {
+			if (summarized || (aggregated == 0)) {
+				return null;
+			}
+
+			summarized = true;
+
+			StringBuilder message = new StringBuilder("Stackify log appender aggregated ")
+					.append(aggregated)
+					.append(" of ")
+					.append(count)
+					.append(" occurrences of ")
+					.append(description)
+					.append(" in ")
+					.append(Math.max(1, (last - first) / 1000))
+					.append("s");
+
+			SortedArrayStringMap contextData = new SortedArrayStringMap();
+			contextData.putValue("aggregated.count", Long.toString(count));
+			contextData.putValue("aggregated.suppressed", Long.toString(aggregated));
+			contextData.putValue("aggregated.first", Long.toString(first));
+			contextData.putValue("aggregated.last", Long.toString(last));
+
+			if (!samples.isEmpty()) {
+				message.append(", sample messages:");
+
+				for (int i = 0; i < samples.size(); ++i) {
+					String sample = (fieldMasker != null) ? fieldMasker.maskMessage(samples.get(i)) : samples.get(i);
+					message.append(' ').append('[').append(sample).append(']');
+					contextData.putValue("aggregated.sample." + i, sample);
+				}
+			}
+
+			return Log4jLogEvent.newBuilder()
+					.setLoggerName((loggerName != null) ? loggerName : DroppedEvents.REPORT_LOGGER)
+					.setLevel(Level.WARN)
+					.setMessage(new SimpleMessage(message.toString()))
+					.setContextData(contextData)
+					.setThreadName(Thread.currentThread().getName())
+					.setTimeMillis(System.currentTimeMillis())
+					.build();
+		}
+	}
+}
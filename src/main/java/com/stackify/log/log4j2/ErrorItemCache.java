@@ -0,0 +1,309 @@
+/*
+ * Copyright 2026 Stackify
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stackify.log.log4j2;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.stackify.api.ErrorItem;
+import com.stackify.api.TraceFrame;
+import com.stackify.api.common.lang.StackTraceElements;
+
+/**
+ * Converts throwables to error items like Throwables.toErrorItem, reusing the converted stack of throwables seen
+ * before.
+ * <p>
+ * Each throwable in the causal chain is fingerprinted by its class and stack trace. The error type, source method and
+ * trace frames of a fingerprint are converted once and kept in a bounded LRU cache. Later throwables with the same
+ * fingerprint only get a new message and new ErrorItem objects sharing the cached (unmodifiable) frame list. Entries
+ * keep the stack trace they were built from, so a hash collision is never mistaken for a hit.
+ */
+final class ErrorItemCache {
+
+	/**
+	 * Suggested number of cached stacks
+	 */
+	static final int DEFAULT_MAX_ENTRIES = 256;
+
+	/**
+	 * Cached stacks, least recently used first
+	 */
+	private final Map<Fingerprint, ConvertedStack> entries;
+
+	/**
+	 * Lookups that reused a cached stack
+	 */
+	private final LongAdder hits = new LongAdder();
+
+	/**
+	 * Lookups that converted the stack
+	 */
+	private final LongAdder misses = new LongAdder();
+
+	/**
+	 * Constructor
+	 * @param maxEntries Number of stacks to keep
+	 */
+	ErrorItemCache(final int maxEntries) {
+		if (maxEntries <= 0) {
+			throw new IllegalArgumentException("Error cache size must be positive: " + maxEntries);
+		}
+
+		this.entries = new LinkedHashMap<Fingerprint, ConvertedStack>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(final Map.Entry<Fingerprint, ConvertedStack> eldest) {
+				return maxEntries < size();
+			}
+		};
+	}
+
+	/**
+	 * Converts a throwable and its causes to an error item chain
+	 * @param message The log message (or null)
+	 * @param exception The throwable
+	 * @return The error item, equal to what Throwables.toErrorItem(message, exception) builds
+	 */
+	ErrorItem toErrorItem(final String message, final Throwable exception) {
+		List<Throwable> chain = getCausalChain(exception);
+
+		ErrorItem innerError = null;
+
+		for (int i = chain.size() - 1; 0 <= i; --i) {
+			Throwable throwable = chain.get(i);
+			ConvertedStack stack = getStack(throwable);
+
+			ErrorItem.Builder builder = ErrorItem.newBuilder();
+			builder.message(toErrorItemMessage((i == 0) ? message : null, throwable.getMessage()));
+			builder.errorType(stack.errorType);
+			builder.sourceMethod(stack.sourceMethod);
+			builder.stackTrace(stack.frames);
+			builder.innerError(innerError);
+
+			innerError = builder.build();
+		}
+
+		return innerError;
+	}
+
+	/**
+	 * @return Lookups that reused a cached stack
+	 */
+	long getHits() {
+		return hits.sum();
+	}
+
+	/**
+	 * @return Lookups that converted the stack
+	 */
+	long getMisses() {
+		return misses.sum();
+	}
+
+	/**
+	 * @return Fraction of lookups that reused a cached stack, or zero before the first lookup
+	 */
+	double getHitRate() {
+		long hitCount = hits.sum();
+		long lookups = hitCount + misses.sum();
+		return (lookups == 0) ? 0.0 : (double) hitCount / lookups;
+	}
+
+	/**
+	 * @return Number of cached stacks
+	 */
+	synchronized int size() {
+		return entries.size();
+	}
+
+	/**
+	 * Gets the converted stack of a throwable, converting and caching it on a miss
+	 * @param throwable The throwable
+	 * @return The converted stack
+	 */
+	private ConvertedStack getStack(final Throwable throwable) {
+		Fingerprint fingerprint = new Fingerprint(throwable.getClass(), throwable.getStackTrace());
+
+		ConvertedStack stack;
+
+		synchronized (this) {
+			stack = entries.get(fingerprint);
+		}
+
+		if (stack != null) {
+			hits.increment();
+			return stack;
+		}
+
+		misses.increment();
+
+		stack = new ConvertedStack(throwable.getClass().getCanonicalName(), fingerprint.frames);
+
+		synchronized (this) {
+			entries.put(fingerprint, stack);
+		}
+
+		return stack;
+	}
+
+	/**
+	 * Same as Throwables.getCausalChain
+	 * @param exception The throwable
+	 * @return The throwable followed by its causes
+	 */
+	private static List<Throwable> getCausalChain(final Throwable exception) {
+		if (exception == null) {
+			throw new NullPointerException("Throwable is null");
+		}
+
+		List<Throwable> chain = new ArrayList<Throwable>();
+		chain.add(exception);
+
+		for (Throwable cause = exception.getCause(); (cause != null) && !chain.contains(cause); cause = cause.getCause()) {
+			chain.add(cause);
+		}
+
+		return chain;
+	}
+
+	/**
+	 * Same as the message built by Throwables.toErrorItem
+	 * @param logMessage The log message (or null)
+	 * @param throwableMessage The throwable's message (or null)
+	 * @return The error item message
+	 */
+	private static String toErrorItemMessage(final String logMessage, final String throwableMessage) {
+		StringBuilder sb = new StringBuilder();
+
+		if ((throwableMessage != null) && !throwableMessage.isEmpty()) {
+			sb.append(throwableMessage);
+
+			if ((logMessage != null) && !logMessage.isEmpty()) {
+				sb.append(" (").append(logMessage).append(")");
+			}
+		} else {
+			sb.append(logMessage);
+		}
+
+		return sb.toString();
+	}
+
+	/**
+	 * Class and stack trace of a throwable
+	 */
+	private static final class Fingerprint {
+
+		/**
+		 * Throwable class
+		 */
+		private final Class<?> type;
+
+		/**
+		 * Stack trace
+		 */
+		private final StackTraceElement[] frames;
+
+		/**
+		 * Hash of the class and every frame
+		 */
+		private final int hash;
+
+		/**
+		 * Constructor
+		 * @param type Throwable class
+		 * @param frames Stack trace (or null)
+		 */
+		private Fingerprint(final Class<?> type, final StackTraceElement[] frames) {
+			this.type = type;
+			this.frames = frames;
+			this.hash = 31 * type.hashCode() + Arrays.hashCode(frames);
+		}
+
+		/**
+		 * @see java.lang.Object#hashCode()
+		 */
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		/**
+		 * @see java.lang.Object#equals(java.lang.Object)
+		 */
+		@Override
+		public boolean equals(final Object obj) {
+			if (this == obj) {
+				return true;
+			}
+
+			if (!(obj instanceof Fingerprint)) {
+				return false;
+			}
+
+			Fingerprint other = (Fingerprint) obj;
+			return (hash == other.hash) && (type == other.type) && Arrays.equals(frames, other.frames);
+		}
+	}
+
+	/**
+	 * The parts of an error item that only depend on the fingerprint
+	 */
+	private static final class ConvertedStack {
+
+		/**
+		 * Canonical name of the throwable class
+		 */
+		private final String errorType;
+
+		/**
+		 * Class and method of the top frame (or null)
+		 */
+		private final String sourceMethod;
+
+		/**
+		 * Converted frames (unmodifiable)
+		 */
+		private final List<TraceFrame> frames;
+
+		/**
+		 * Constructor
+		 * @param errorType Canonical name of the throwable class
+		 * @param stackTrace Stack trace (or null)
+		 */
+		private ConvertedStack(final String errorType, final StackTraceElement[] stackTrace) {
+			List<TraceFrame> converted = new ArrayList<TraceFrame>((stackTrace != null) ? stackTrace.length : 0);
+			String source = null;
+
+			if ((stackTrace != null) && (0 < stackTrace.length)) {
+				source = stackTrace[0].getClassName() + "." + stackTrace[0].getMethodName();
+
+				for (StackTraceElement element : stackTrace) {
+					converted.add(StackTraceElements.toTraceFrame(element));
+				}
+			}
+
+			this.errorType = errorType;
+			this.sourceMethod = source;
+			this.frames = Collections.unmodifiableList(converted);
+		}
+	}
+}
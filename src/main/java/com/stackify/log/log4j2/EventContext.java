@@ -0,0 +1,116 @@
+/*
+ * Copyright 2026 Stackify
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stackify.log.log4j2;
+
+import com.stackify.api.WebRequestDetail;
+import com.stackify.api.common.log.APMLogData;
+import com.stackify.api.common.log.ServletLogContext;
+
+/**
+ * Immutable snapshot of the APM (or servlet) request context of the thread that logged an event.
+ * <p>
+ * The context is read from its thread locals once, when the event is appended, so the event can be converted later
+ * or on another thread without losing the request it belongs to.
+ */
+public final class EventContext {
+
+	/**
+	 * Context with no transaction, user or web request
+	 */
+	public static final EventContext EMPTY = new EventContext(null, null, null);
+
+	/**
+	 * Transaction id
+	 */
+	private final String transactionId;
+
+	/**
+	 * User name
+	 */
+	private final String user;
+
+	/**
+	 * Web request detail
+	 */
+	private final WebRequestDetail webRequest;
+
+	/**
+	 * Constructor
+	 * @param transactionId Transaction id (or null)
+	 * @param user User name (or null)
+	 * @param webRequest Web request detail (or null)
+	 */
+	public EventContext(final String transactionId, final String user, final WebRequestDetail webRequest) {
+		this.transactionId = transactionId;
+		this.user = user;
+		this.webRequest = webRequest;
+	}
+
+	/**
+	 * Captures the current thread's request context
+	 * @param includeRequest True to also capture the user and web request, which are only reported on errors and
+	 *                       are more expensive to read
+	 * @return The captured context
+	 */
+	public static EventContext capture(final boolean includeRequest) {
+		String transactionId;
+		String user = null;
+		WebRequestDetail webRequest = null;
+
+		if (APMLogData.isLinked()) {
+			transactionId = APMLogData.getTransactionId();
+
+			if (includeRequest) {
+				user = APMLogData.getUser();
+				webRequest = APMLogData.getWebRequest();
+			}
+		} else {
+			transactionId = ServletLogContext.getTransactionId();
+
+			if (includeRequest) {
+				user = ServletLogContext.getUser();
+				webRequest = ServletLogContext.getWebRequest();
+			}
+		}
+
+		if ((transactionId == null) && (user == null) && (webRequest == null)) {
+			return EMPTY;
+		}
+
+		return new EventContext(transactionId, user, webRequest);
+	}
+
+	/**
+	 * @return The transaction id (or null)
+	 */
+	public String getTransactionId() {
+		return transactionId;
+	}
+
+	/**
+	 * @return The user name (or null)
+	 */
+	public String getUser() {
+		return user;
+	}
+
+	/**
+	 * @return The web request detail (or null)
+	 */
+	public WebRequestDetail getWebRequest() {
+		return webRequest;
+	}
+}
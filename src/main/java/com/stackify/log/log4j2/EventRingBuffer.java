@@ -0,0 +1,240 @@
+/*
+ * Copyright 2026 Stackify
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stackify.log.log4j2;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.core.impl.MutableLogEvent;
+import org.apache.logging.log4j.core.util.Integers;
+
+/**
+ * Bounded multi-producer, multi-consumer ring of preallocated event slots.
+ * <p>
+ * Each slot owns a MutableLogEvent that appended events are copied into, so publishing an event does not allocate.
+ * Every slot carries a sequence number that tells producers and consumers whose turn it is: a producer may fill slot
+ * <code>i</code> at position <code>p</code> when its sequence is <code>p</code>, a consumer may take it when the
+ * sequence is <code>p + 1</code>, and releasing it moves the sequence to <code>p + capacity</code>.
+ * <p>
+ * A claimed slot must always be published, and a taken slot must always be released.
+ */
+final class EventRingBuffer {
+
+	/**
+	 * Slots
+	 */
+	private final Slot[] slots;
+
+	/**
+	 * Slot sequences
+	 */
+	private final AtomicLongArray sequences;
+
+	/**
+	 * Index mask (capacity - 1)
+	 */
+	private final int mask;
+
+	/**
+	 * Next position to claim
+	 */
+	private final AtomicLong tail = new AtomicLong();
+
+	/**
+	 * Next position to take
+	 */
+	private final AtomicLong head = new AtomicLong();
+
+	/**
+	 * Constructor
+	 * @param requestedCapacity Number of slots, rounded up to a power of two
+	 */
+	EventRingBuffer(final int requestedCapacity) {
+		int capacity = Integers.ceilingNextPowerOfTwo(Math.max(2, requestedCapacity));
+
+		this.slots = new Slot[capacity];
+		this.sequences = new AtomicLongArray(capacity);
+		this.mask = capacity - 1;
+
+		for (int i = 0; i < capacity; ++i) {
+			slots[i] = new Slot();
+			sequences.set(i, i);
+		}
+	}
+
+	/**
+	 * @return Number of slots
+	 */
+	int capacity() {
+		return slots.length;
+	}
+
+	/**
+	 * @return Approximate number of events waiting to be taken
+	 */
+	int size() {
+		long size = tail.get() - head.get();
+		return (int) Math.max(0, Math.min(size, slots.length));
+	}
+
+	/**
+	 * @return True if no event is waiting to be taken
+	 */
+	boolean isEmpty() {
+		return tail.get() <= head.get();
+	}
+
+	/**
+	 * Claims a free slot for writing
+	 * @return The slot, or null if the ring is full
+	 */
+	Slot tryClaim() {
+		long position = tail.get();
+
+		while (true) {
+			int index = (int) (position & mask);
+			long difference = sequences.get(index) - position;
+
+			if (difference == 0) {
+				if (tail.compareAndSet(position, position + 1)) {
+					Slot slot = slots[index];
+					slot.position = position;
+					return slot;
+				}
+
+				position = tail.get();
+			} else if (difference < 0) {
+				return null;
+			} else {
+				position = tail.get();
+			}
+		}
+	}
+
+	/**
+	 * Makes a claimed slot visible to consumers
+	 * @param slot The claimed slot
+	 */
+	void publish(final Slot slot) {
+		sequences.lazySet((int) (slot.position & mask), slot.position + 1);
+	}
+
+	/**
+	 * Takes the oldest published slot
+	 * @return The slot, or null if there is nothing to take
+	 */
+	Slot tryTake() {
+		long position = head.get();
+
+		while (true) {
+			int index = (int) (position & mask);
+			long difference = sequences.get(index) - (position + 1);
+
+			if (difference == 0) {
+				if (head.compareAndSet(position, position + 1)) {
+					Slot slot = slots[index];
+					slot.position = position;
+					return slot;
+				}
+
+				position = head.get();
+			} else if (difference < 0) {
+				return null;
+			} else {
+				position = head.get();
+			}
+		}
+	}
+
+	/**
+	 * Takes the oldest published slot, but only if the ring is full of published slots. The taken slot is then the
+	 * one the next claim needs, so releasing it makes room immediately. Slots still held by consumers cannot be
+	 * evicted.
+	 * @return The slot, or null if the ring has free or taken slots
+	 */
+	Slot tryEvict() {
+		long position = head.get();
+
+		if (tail.get() - position < slots.length) {
+			return null;
+		}
+
+		int index = (int) (position & mask);
+
+		if ((sequences.get(index) == position + 1) && head.compareAndSet(position, position + 1)) {
+			Slot slot = slots[index];
+			slot.position = position;
+			return slot;
+		}
+
+		return null;
+	}
+
+	/**
+	 * Clears a taken slot and hands it back to producers
+	 * @param slot The taken slot
+	 */
+	void release(final Slot slot) {
+		slot.clear();
+		sequences.lazySet((int) (slot.position & mask), slot.position + slots.length);
+	}
+
+	/**
+	 * A preallocated ring slot
+	 */
+	static final class Slot {
+
+		/**
+		 * Copy of the appended event
+		 */
+		final MutableLogEvent event = new MutableLogEvent();
+
+		/**
+		 * Request context captured when the event was appended
+		 */
+		EventContext eventContext;
+
+		/**
+		 * Ring position the slot was claimed or taken at
+		 */
+		long position;
+
+		/**
+		 * Estimated serialized size of the event (bytes)
+		 */
+		int size;
+
+		/**
+		 * Copies an event into the slot
+		 * @param source The appended event
+		 * @param context Request context captured when the event was appended
+		 */
+		void set(final LogEvent source, final EventContext context) {
+			event.initFrom(source);
+			eventContext = context;
+		}
+
+		/**
+		 * Drops references held by the slot
+		 */
+		void clear() {
+			event.clear();
+			eventContext = null;
+			size = 0;
+		}
+	}
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright 2026 Stackify
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stackify.log.log4j2;
+
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.message.Message;
+import org.apache.logging.log4j.message.ParameterConsumer;
+import org.apache.logging.log4j.message.ParameterVisitable;
+import org.apache.logging.log4j.util.ReadOnlyStringMap;
+
+/**
+ * Estimates the serialized size of the LogMsg an event will become, without formatting or serializing it.
+ * <p>
+ * The estimate counts characters of the message pattern and its CharSequence parameters, the context data and the
+ * exception chain, plus fixed overheads for everything else. It is meant for memory budgeting, not for exact sizes.
+ */
+final class EventSizeEstimator {
+
+	/**
+	 * Fields every LogMsg carries (level, timestamps, thread, source, JSON punctuation)
+	 */
+	static final int EVENT_OVERHEAD = 256;
+
+	/**
+	 * Assumed size of a parameter that is not a CharSequence
+	 */
+	private static final int PARAMETER_SIZE = 16;
+
+	/**
+	 * Assumed size of a context data entry
+	 */
+	private static final int CONTEXT_ENTRY_SIZE = 48;
+
+	/**
+	 * Overhead of a StackifyError and each error item in its chain
+	 */
+	private static final int ERROR_OVERHEAD = 512;
+
+	/**
+	 * Assumed size of a serialized trace frame
+	 */
+	private static final int TRACE_FRAME_SIZE = 96;
+
+	/**
+	 * Causes followed at most
+	 */
+	private static final int MAX_CAUSES = 16;
+
+	/**
+	 * Per-thread running total used while visiting parameters
+	 */
+	private static final ThreadLocal<long[]> PARAMETER_TOTAL = new ThreadLocal<long[]>() {
+		@Override
+		protected long[] initialValue() {
+			return new long[1];
+		}
+	};
+
+	/**
+	 * Adds a parameter's size to the running total
+	 */
+	private static final ParameterConsumer<long[]> ADD_PARAMETER = new ParameterConsumer<long[]>() {
+		@Override
+		public void accept(final Object parameter, final int index, final long[] total) {
+			total[0] += parameterSize(parameter);
+		}
+	};
+
+	/**
+	 * Hidden constructor
+	 */
+	private EventSizeEstimator() {
+	}
+
+	/**
+	 * Estimates the serialized size of an event
+	 * @param event The event
+	 * @return The estimated size in bytes
+	 */
+	static int estimate(final LogEvent event) {
+		long size = EVENT_OVERHEAD;
+
+		Message message = event.getMessage();
+
+		if (message != null) {
+			String format = message.getFormat();
+			size += (format != null) ? format.length() : 0;
+
+			// reusable messages expose their parameters without copying them
+
+			if (message instanceof ParameterVisitable) {
+				long[] total = PARAMETER_TOTAL.get();
+				total[0] = 0;
+				((ParameterVisitable) message).forEachParameter(ADD_PARAMETER, total);
+				size += total[0];
+			} else {
+				Object[] parameters = message.getParameters();
+
+				if (parameters != null) {
+					for (Object parameter : parameters) {
+						size += parameterSize(parameter);
+					}
+				}
+			}
+		}
+
+		ReadOnlyStringMap contextData = event.getContextData();
+
+		if (contextData != null) {
+			size += contextData.size() * CONTEXT_ENTRY_SIZE;
+		}
+
+		Throwable thrown = event.getThrown();
+
+		for (int i = 0; (thrown != null) && (i < MAX_CAUSES); ++i) {
+			String thrownMessage = thrown.getMessage();
+			size += ERROR_OVERHEAD + ((thrownMessage != null) ? thrownMessage.length() : 0);
+			size += (long) thrown.getStackTrace().length * TRACE_FRAME_SIZE;
+			thrown = thrown.getCause();
+		}
+
+		return (int) Math.min(size, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * @param parameter A message parameter
+	 * @return Its estimated size
+	 */
+	private static int parameterSize(final Object parameter) {
+		return (parameter instanceof CharSequence) ? ((CharSequence) parameter).length() : PARAMETER_SIZE;
+	}
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright 2026 Stackify
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stackify.log.log4j2;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Masks limited to the log message or to MDC/NDC values, applied while events are converted.
+ * <p>
+ * Each scope gets its own CompiledMasker, and MDC values are only scanned when their key has masks, so protecting a
+ * couple of context keys does not mean scanning every message and every value. Masks are added while the appender
+ * starts, before the masker is handed to the LogEventAdapter, and are not changed afterwards.
+ */
+final class FieldMasker {
+
+	/**
+	 * Masks for individual MDC keys
+	 */
+	private final Map<String, CompiledMasker> keyMaskers = new HashMap<String, CompiledMasker>();
+
+	/**
+	 * Masks for every MDC value (or null)
+	 */
+	private CompiledMasker mdcMasker;
+
+	/**
+	 * Masks for the log message (or null)
+	 */
+	private CompiledMasker messageMasker;
+
+	/**
+	 * Adds a mask for the value of one MDC key
+	 * @param key The MDC key (NDC for the top of the NDC)
+	 * @param mask A regex or a built-in mask
+	 */
+	void addKeyMask(final String key, final String mask) {
+		CompiledMasker masker = keyMaskers.get(key);
+
+		if (masker == null) {
+			masker = new CompiledMasker();
+			keyMaskers.put(key, masker);
+		}
+
+		masker.addMask(mask);
+	}
+
+	/**
+	 * Adds a mask for every MDC value
+	 * @param mask A regex or a built-in mask
+	 */
+	void addMdcMask(final String mask) {
+		if (mdcMasker == null) {
+			mdcMasker = new CompiledMasker();
+		}
+
+		mdcMasker.addMask(mask);
+	}
+
+	/**
+	 * Adds a mask for the log message
+	 * @param mask A regex or a built-in mask
+	 */
+	void addMessageMask(final String mask) {
+		if (messageMasker == null) {
+			messageMasker = new CompiledMasker();
+		}
+
+		messageMasker.addMask(mask);
+	}
+
+	/**
+	 * @return True if no masks were added
+	 */
+	boolean isEmpty() {
+		return (messageMasker == null) && !hasValueMasks();
+	}
+
+	/**
+	 * @return True if any MDC value may be masked
+	 */
+	boolean hasValueMasks() {
+		return (mdcMasker != null) || !keyMaskers.isEmpty();
+	}
+
+	/**
+	 * @param key The MDC key
+	 * @return True if the key's value may be masked
+	 */
+	boolean masksKey(final String key) {
+		return (mdcMasker != null) || keyMaskers.containsKey(key);
+	}
+
+	/**
+	 * Masks an MDC value
+	 * @param key The MDC key
+	 * @param value The value (or null)
+	 * @return The masked value
+	 */
+	String maskValue(final String key, final String value) {
+		if (value == null) {
+			return null;
+		}
+
+		String masked = value;
+
+		CompiledMasker keyMasker = keyMaskers.get(key);
+
+		if (keyMasker != null) {
+			masked = keyMasker.mask(masked);
+		}
+
+		if (mdcMasker != null) {
+			masked = mdcMasker.mask(masked);
+		}
+
+		return masked;
+	}
+
+	/**
+	 * Masks the log message
+	 * @param message The message (or null)
+	 * @return The masked message
+	 */
+	String maskMessage(final String message) {
+		if ((messageMasker == null) || (message == null)) {
+			return message;
+		}
+
+		return messageMasker.mask(message);
+	}
+}
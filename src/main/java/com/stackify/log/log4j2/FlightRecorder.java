@@ -0,0 +1,427 @@
+/*
+ * Copyright 2026 Stackify
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stackify.log.log4j2;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.core.LogEvent;
+
+/**
+ * Keeps the low level events of each transaction in memory, and sends them only if the transaction fails.
+ * <p>
+ * Events less severe than the recorder level are held in a per-transaction ring instead of being sent. When an error
+ * (an event with a throwable, or logged at error level or above) occurs in the transaction, its ring is sent ahead of
+ * the error. Nothing marks the end of a transaction, so the rings of transactions without an event for the idle time
+ * are discarded, as the transaction is assumed to have ended cleanly; the rings left when the appender stops are
+ * discarded too. Low level events outside a transaction are sent as usual.
+ * <p>
+ * Each ring is capped in estimated bytes, dropping its oldest events, and the total of all rings is capped by
+ * discarding the rings of the oldest transactions. Discarded events are counted.
+ */
+final class FlightRecorder {
+
+	/**
+	 * Default cap on the estimated size of a transaction's ring (bytes)
+	 */
+	static final int DEFAULT_TRANSACTION_BYTES = 64 * 1024;
+
+	/**
+	 * Default cap on the estimated size of all rings (bytes)
+	 */
+	static final long DEFAULT_MAX_BYTES = 8L * 1024 * 1024;
+
+	/**
+	 * Default idle time after which a transaction is assumed to have ended (milliseconds)
+	 */
+	static final long DEFAULT_IDLE_MILLIS = 60000;
+
+	/**
+	 * Receives the events of failed transactions
+	 */
+	interface Sink {
+
+		/**
+		 * Sends a recorded event
+		 * @param event The event
+		 * @param eventContext Its request context
+		 */
+		void send(LogEvent event, EventContext eventContext);
+	}
+
+	/**
+	 * Events less severe than this level are recorded
+	 */
+	private final Level level;
+
+	/**
+	 * Cap on the estimated size of a transaction's ring
+	 */
+	private final int transactionBytes;
+
+	/**
+	 * Cap on the estimated size of all rings
+	 */
+	private final long maxBytes;
+
+	/**
+	 * Idle time after which a transaction is assumed to have ended
+	 */
+	private final long idleMillis;
+
+	/**
+	 * Receives the events of failed transactions
+	 */
+	private final Sink sink;
+
+	/**
+	 * Rings by transaction id
+	 */
+	private final ConcurrentMap<String, Ring> rings = new ConcurrentHashMap<String, Ring>();
+
+	/**
+	 * Rings in the order they were created, for evicting the oldest
+	 */
+	private final Queue<Ring> creationOrder = new ConcurrentLinkedQueue<Ring>();
+
+	/**
+	 * Estimated size of all rings
+	 */
+	private final AtomicLong totalBytes = new AtomicLong();
+
+	/**
+	 * Number of recorded events discarded (not sent)
+	 */
+	private final LongAdder discarded = new LongAdder();
+
+	/**
+	 * When rings are next checked for idle transactions
+	 */
+	private volatile long nextSweep;
+
+	/**
+	 * Constructor
+	 * @param level Events less severe than this level are recorded
+	 * @param transactionBytes Cap on the estimated size of a transaction's ring
+	 * @param maxBytes Cap on the estimated size of all rings
+	 * @param idleMillis Idle time after which a transaction is assumed to have ended
+	 * @param sink Receives the events of failed transactions
+	 */
+	FlightRecorder(final Level level, final int transactionBytes, final long maxBytes, final long idleMillis, final Sink sink) {
+		if ((transactionBytes <= 0) || (maxBytes <= 0) || (idleMillis <= 0)) {
+			throw new IllegalArgumentException("Flight recorder caps and idle time must be positive");
+		}
+
+		this.level = level;
+		this.transactionBytes = transactionBytes;
+		this.maxBytes = maxBytes;
+		this.idleMillis = idleMillis;
+		this.sink = sink;
+		this.nextSweep = System.currentTimeMillis() + idleMillis;
+	}
+
+	/**
+	 * Offers an event, recording it or sending the recorded events of its transaction if it is an error
+	 * @param event The event
+	 * @param eventContext Its request context
+	 * @return True if the event should be sent, false if it was recorded
+	 */
+	boolean offer(final LogEvent event, final EventContext eventContext) {
+		long now = event.getTimeMillis();
+
+		if (nextSweep <= now) {
+			sweep(now);
+		}
+
+		String transactionId = eventContext.getTransactionId();
+		Level eventLevel = event.getLevel();
+
+		boolean low = (event.getThrown() == null) && (eventLevel != null) && eventLevel.isLessSpecificThan(level) && !eventLevel.equals(level);
+
+		if (low && (transactionId != null)) {
+			record(transactionId, event, eventContext, now);
+			return false;
+		}
+
+		if ((transactionId != null) && LogEventAdapter.isError(event)) {
+			Ring ring = rings.remove(transactionId);
+
+			if (ring != null) {
+				for (Recorded recorded : ring.close()) {
+					sink.send(recorded.event, recorded.eventContext);
+				}
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Discards every ring
+	 * @return Number of recorded events discarded
+	 */
+	long clear() {
+		long before = discarded.sum();
+		sweep(Long.MAX_VALUE);
+		return discarded.sum() - before;
+	}
+
+	/**
+	 * @return Number of recorded events discarded since the recorder was created
+	 */
+	long getDiscarded() {
+		return discarded.sum();
+	}
+
+	/**
+	 * @return Estimated size of all rings
+	 */
+	long getTotalBytes() {
+		return totalBytes.get();
+	}
+
+	/**
+	 * @return Number of transactions with a ring
+	 */
+	int getTransactionCount() {
+		return rings.size();
+	}
+
+	/**
+	 * Records a low level event in its transaction's ring
+	 * @param transactionId The transaction id
+	 * @param event The event
+	 * @param eventContext Its request context
+	 * @param now Current time (milliseconds)
+	 */
+	private void record(final String transactionId, final LogEvent event, final EventContext eventContext, final long now) {
+		int size = EventSizeEstimator.estimate(event);
+
+		if (transactionBytes < size) {
+			discarded.increment();
+			return;
+		}
+
+		Recorded recorded = new Recorded(event.toImmutable(), eventContext, size);
+
+		while (true) {
+			Ring ring = rings.get(transactionId);
+
+			if (ring == null) {
+				Ring created = new Ring(transactionId);
+				ring = rings.putIfAbsent(transactionId, created);
+
+				if (ring == null) {
+					ring = created;
+					creationOrder.add(created);
+				}
+			}
+
+			if (ring.add(recorded, now)) {
+				break;
+			}
+
+			// the ring was closed by an error or a sweep, retry with a new one
+
+			rings.remove(transactionId, ring);
+		}
+
+		while (maxBytes < totalBytes.get()) {
+			Ring oldest = creationOrder.poll();
+
+			if (oldest == null) {
+				break;
+			}
+
+			rings.remove(oldest.transactionId, oldest);
+			oldest.discard();
+		}
+	}
+
+	/**
+	 * Discards the rings of idle transactions
+	 * @param now Current time (milliseconds), or Long.MAX_VALUE to discard every ring
+	 */
+	private void sweep(final long now) {
+		nextSweep = (now == Long.MAX_VALUE) ? Long.MAX_VALUE : now + idleMillis / 2;
+
+		for (Iterator<Ring> it = rings.values().iterator(); it.hasNext(); ) {
+			Ring ring = it.next();
+
+			if (ring.closeIfIdleSince(now - idleMillis)) {
+				it.remove();
+			}
+		}
+
+		for (Iterator<Ring> it = creationOrder.iterator(); it.hasNext(); ) {
+			if (it.next().isClosed()) {
+				it.remove();
+			}
+		}
+	}
+
+
+	/**
+	 * A recorded event
+	 */
+	private static final class Recorded {
+
+		/**
+		 * Immutable copy of the event
+		 */
+		private final LogEvent event;
+
+		/**
+		 * Its request context
+		 */
+		private final EventContext eventContext;
+
+		/**
+		 * Its estimated size
+		 */
+		private final int size;
+
+		/**
+		 * Constructor
+		 * @param event Immutable copy of the event
+		 * @param eventContext Its request context
+		 * @param size Its estimated size
+		 */
+		private Recorded(final LogEvent event, final EventContext eventContext, final int size) {
+			this.event = event;
+			this.eventContext = eventContext;
+			this.size = size;
+		}
+	}
+
+	/**
+	 * The recorded events of one transaction
+	 */
+	private final class Ring {
+
+		/**
+		 * The transaction id
+		 */
+		private final String transactionId;
+
+		/**
+		 * Recorded events, oldest first
+		 */
+		private final ArrayDeque<Recorded> events = new ArrayDeque<Recorded>();
+
+		/**
+		 * Estimated size of the events
+		 */
+		private int bytes;
+
+		/**
+		 * Time of the last recorded event
+		 */
+		private long lastActivity;
+
+		/**
+		 * True once the ring was sent or discarded
+		 */
+		private boolean closed;
+
+		/**
+		 * Constructor
+		 * @param transactionId The transaction id
+		 */
+		private Ring(final String transactionId) {
+			this.transactionId = transactionId;
+		}
+
+		/**
+		 * Adds an event, dropping the oldest ones beyond the transaction cap
+		 * @param recorded The event
+		 * @param now Current time (milliseconds)
+		 * @return False if the ring is closed
+		 */
+		private synchronized boolean add(final Recorded recorded, final long now) {
+			if (closed) {
+				return false;
+			}
+
+			events.addLast(recorded);
+			bytes += recorded.size;
+			long delta = recorded.size;
+
+			while (transactionBytes < bytes) {
+				Recorded dropped = events.removeFirst();
+				bytes -= dropped.size;
+				delta -= dropped.size;
+				discarded.increment();
+			}
+
+			totalBytes.addAndGet(delta);
+			lastActivity = Math.max(lastActivity, now);
+			return true;
+		}
+
+		/**
+		 * Closes the ring
+		 * @return Its events, oldest first (empty if it was already closed)
+		 */
+		private synchronized ArrayDeque<Recorded> close() {
+			if (closed) {
+				return new ArrayDeque<Recorded>(0);
+			}
+
+			closed = true;
+			totalBytes.addAndGet(-bytes);
+			bytes = 0;
+
+			ArrayDeque<Recorded> recorded = new ArrayDeque<Recorded>(events);
+			events.clear();
+			return recorded;
+		}
+
+		/**
+		 * Closes the ring without sending its events
+		 */
+		private synchronized void discard() {
+			discarded.add(close().size());
+		}
+
+		/**
+		 * Closes the ring without sending its events if its last event is older than a time
+		 * @param time The time
+		 * @return True if the ring is closed
+		 */
+		private synchronized boolean closeIfIdleSince(final long time) {
+			if (!closed && (lastActivity <= time)) {
+				discard();
+			}
+
+			return closed;
+		}
+
+		/**
+		 * @return True once the ring was sent or discarded
+		 */
+		private synchronized boolean isClosed() {
+			return closed;
+		}
+	}
+}
@@ -0,0 +1,220 @@
+/*
+ * Copyright 2026 Stackify
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stackify.log.log4j2;
+
+import java.io.Closeable;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.apache.logging.log4j.status.StatusLogger;
+
+import com.stackify.api.LogMsgGroup;
+import com.stackify.api.common.log.LogTransport;
+
+/**
+ * Log transport that keeps several batches in flight at once.
+ * <p>
+ * Batches are queued in the order they are handed over, and a pool of sender threads sends them through the delegate
+ * concurrently, so that throughput is not capped at one round trip per batch. Batches sent at once may reach the
+ * Stackify API in any order; the messages carry their own timestamps.
+ * <p>
+ * A batch the delegate fails to send is retried (as the Stackify API does) and then discarded. When the queue is
+ * full, the Stackify API background thread waits for room. Closing sends the queued batches before stopping.
+ */
+final class InFlightLogTransport implements LogTransport, Closeable {
+
+	/**
+	 * Queued batches per sender thread
+	 */
+	private static final int QUEUE_PER_SENDER = 2;
+
+	/**
+	 * Sender thread idle wait
+	 */
+	private static final long IDLE_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+	/**
+	 * Retries of a batch that fails to send
+	 */
+	private static final int MAX_RETRIES = 3;
+
+	/**
+	 * First wait before a retry (doubled after each retry)
+	 */
+	private static final long RETRY_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+	/**
+	 * How long close waits for the queued batches to be sent (milliseconds)
+	 */
+	private static final long CLOSE_TIMEOUT_MILLIS = 10000;
+
+	/**
+	 * Queued after the last batch, once per sender thread, to stop the senders
+	 */
+	private static final LogMsgGroup STOP = LogMsgGroup.newBuilder().build();
+
+	/**
+	 * The real transport
+	 */
+	private final LogTransport delegate;
+
+	/**
+	 * Queued batches
+	 */
+	private final BlockingQueue<LogMsgGroup> queue;
+
+	/**
+	 * Sender threads
+	 */
+	private final Thread[] senderThreads;
+
+	/**
+	 * True until closed
+	 */
+	private volatile boolean running = true;
+
+	/**
+	 * Constructor
+	 * @param delegate The real transport (called from several threads at once)
+	 * @param maxInFlight Number of sender threads, and so of batches sent at once
+	 */
+	InFlightLogTransport(final LogTransport delegate, final int maxInFlight) {
+		if (maxInFlight <= 0) {
+			throw new IllegalArgumentException("Invalid number of in-flight batches: " + maxInFlight);
+		}
+
+		this.delegate = delegate;
+		this.queue = new ArrayBlockingQueue<LogMsgGroup>(QUEUE_PER_SENDER * maxInFlight);
+		this.senderThreads = new Thread[maxInFlight];
+
+		Runnable sender = new Runnable() {
+			@Override
+			public void run() {
+				while (sendNext()) {
+					// next batch
+				}
+			}
+		};
+
+		for (int i = 0; i < maxInFlight; ++i) {
+			senderThreads[i] = new Thread(sender, "Stackify_LogSender-" + i);
+			senderThreads[i].setDaemon(true);
+		}
+	}
+
+	/**
+	 * Starts sending
+	 */
+	void start() {
+		for (Thread senderThread : senderThreads) {
+			senderThread.start();
+		}
+	}
+
+	/**
+	 * Queues a batch, waiting for room when the queue is full
+	 * @see com.stackify.api.common.log.LogTransport#send(com.stackify.api.LogMsgGroup)
+	 */
+	@Override
+	public synchronized void send(final LogMsgGroup group) throws Exception {
+		if (!running) {
+			delegate.send(group);
+			return;
+		}
+
+		while (!queue.offer(group, 100, TimeUnit.MILLISECONDS)) {
+			if (!senderThreads[0].isAlive()) {
+				throw new IllegalStateException("Batch senders are not running");
+			}
+		}
+	}
+
+	/**
+	 * Waits for a batch and sends it
+	 * @return False once the sender is stopped
+	 */
+	private boolean sendNext() {
+		LogMsgGroup next;
+
+		try {
+			next = queue.poll(IDLE_NANOS, TimeUnit.NANOSECONDS);
+		} catch (InterruptedException e) {
+			next = queue.poll();
+		}
+
+		if (next == STOP) {
+			return false;
+		}
+
+		if (next == null) {
+			return true;
+		}
+
+		long retryNanos = RETRY_NANOS;
+
+		for (int attempt = 0; ; ++attempt) {
+			try {
+				delegate.send(next);
+
+				return true;
+			} catch (Exception e) {
+				if ((attempt == MAX_RETRIES) || !running) {
+					StatusLogger.getLogger().error("Unable to send {} log messages to Stackify", next.getMsgs().size(), e);
+					return true;
+				}
+
+				LockSupport.parkNanos(retryNanos);
+				retryNanos *= 2;
+			}
+		}
+	}
+
+	/**
+	 * Sends the queued batches and stops the senders
+	 * @see java.io.Closeable#close()
+	 */
+	@Override
+	public void close() {
+		synchronized (this) {
+			running = false;
+		}
+
+		long deadline = System.currentTimeMillis() + CLOSE_TIMEOUT_MILLIS;
+
+		try {
+			for (int i = 0; i < senderThreads.length; ++i) {
+				if (!queue.offer(STOP, Math.max(1, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS)) {
+					break;
+				}
+			}
+
+			for (Thread senderThread : senderThreads) {
+				senderThread.join(Math.max(1, deadline - System.currentTimeMillis()));
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+
+		for (Thread senderThread : senderThreads) {
+			if (senderThread.isAlive()) {
+				StatusLogger.getLogger().warn("Stackify_LogSender did not finish within {} ms", CLOSE_TIMEOUT_MILLIS);
+				break;
+			}
+		}
+	}
+}
@@ -15,24 +15,20 @@
  */
 package com.stackify.log.log4j2;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.stackify.api.EnvironmentDetail;
+import com.stackify.api.ErrorItem;
 import com.stackify.api.LogMsg;
 import com.stackify.api.StackifyError;
 import com.stackify.api.WebRequestDetail;
 import com.stackify.api.common.lang.Throwables;
-import com.stackify.api.common.log.APMLogData;
 import com.stackify.api.common.log.EventAdapter;
-import com.stackify.api.common.log.ServletLogContext;
-import com.stackify.api.common.util.Maps;
 import com.stackify.api.common.util.Preconditions;
 import org.apache.logging.log4j.Level;
-import org.apache.logging.log4j.ThreadContext.ContextStack;
 import org.apache.logging.log4j.core.LogEvent;
-import org.apache.logging.log4j.message.Message;
+import org.apache.logging.log4j.util.BiConsumer;
+import org.apache.logging.log4j.util.ReadOnlyStringMap;
 
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.Map;
 
 /**
@@ -45,19 +41,79 @@ public class LogEventAdapter implements EventAdapter<LogEvent> {
 	 * Environment detail
 	 */
 	private final EnvironmentDetail envDetail;
-	
+
+	/**
+	 * Server variables snapshot
+	 */
+	private final ServerVariables serverVariables;
+
 	/**
-	 * JSON converter
+	 * Cap on the UTF-8 size of log messages (bytes), or zero for no cap
 	 */
-	private final ObjectMapper json = new ObjectMapper();
+	private final int maxMessageBytes;
+
+	/**
+	 * Cap on the estimated serialized size of exception traces (bytes), or zero for no cap
+	 */
+	private final int maxTraceBytes;
+
+	/**
+	 * Masks limited to the message or to MDC/NDC values (or null)
+	 */
+	private final FieldMasker fieldMasker;
+
+	/**
+	 * Cache of converted exception stacks (or null)
+	 */
+	private final ErrorItemCache errorCache;
 	
 	/**
 	 * Constructor
 	 * @param envDetail Environment detail
 	 */
 	public LogEventAdapter(final EnvironmentDetail envDetail) {
+		this(envDetail, new ServerVariables());
+	}
+
+	/**
+	 * Constructor
+	 * @param envDetail Environment detail
+	 * @param serverVariables Server variables snapshot
+	 */
+	public LogEventAdapter(final EnvironmentDetail envDetail, final ServerVariables serverVariables) {
+		this(envDetail, serverVariables, 0, 0);
+	}
+
+	/**
+	 * Constructor
+	 * @param envDetail Environment detail
+	 * @param serverVariables Server variables snapshot
+	 * @param maxMessageBytes Cap on the UTF-8 size of log messages, or zero for no cap
+	 * @param maxTraceBytes Cap on the estimated serialized size of exception traces, or zero for no cap
+	 */
+	public LogEventAdapter(final EnvironmentDetail envDetail, final ServerVariables serverVariables, final int maxMessageBytes, final int maxTraceBytes) {
+		this(envDetail, serverVariables, maxMessageBytes, maxTraceBytes, null, null);
+	}
+
+	/**
+	 * Constructor
+	 * @param envDetail Environment detail
+	 * @param serverVariables Server variables snapshot
+	 * @param maxMessageBytes Cap on the UTF-8 size of log messages, or zero for no cap
+	 * @param maxTraceBytes Cap on the estimated serialized size of exception traces, or zero for no cap
+	 * @param fieldMasker Masks limited to the message or to MDC/NDC values (or null)
+	 * @param errorCache Cache of converted exception stacks (or null)
+	 */
+	LogEventAdapter(final EnvironmentDetail envDetail, final ServerVariables serverVariables, final int maxMessageBytes, final int maxTraceBytes,
+			final FieldMasker fieldMasker, final ErrorItemCache errorCache) {
 		Preconditions.checkNotNull(envDetail);
+		Preconditions.checkNotNull(serverVariables);
 		this.envDetail = envDetail;
+		this.serverVariables = serverVariables;
+		this.maxMessageBytes = maxMessageBytes;
+		this.maxTraceBytes = maxTraceBytes;
+		this.fieldMasker = ((fieldMasker != null) && !fieldMasker.isEmpty()) ? fieldMasker : null;
+		this.errorCache = errorCache;
 	}
 	
 	/**
@@ -73,13 +129,29 @@ public class LogEventAdapter implements EventAdapter<LogEvent> {
 	 */
 	@Override
 	public StackifyError getStackifyError(final LogEvent event, final Throwable exception) {
+		return getStackifyError(new ConversionContext(event), exception);
+	}
+
+	/**
+	 * Builds the StackifyError for an event, from the message formatted once for its conversion
+	 * @param context The conversion context
+	 * @param exception The throwable (or null)
+	 * @return The StackifyError
+	 */
+	StackifyError getStackifyError(final ConversionContext context, final Throwable exception) {
+		
+		LogEvent event = context.getEvent();
 		
 		StackifyError.Builder builder = StackifyError.newBuilder();
 		builder.environmentDetail(envDetail);		
 		builder.occurredEpochMillis(event.getTimeMillis());
 		
+		String message = getMaskedMessage(context);
+
 		if (exception != null) {
-			builder.error(Throwables.toErrorItem(getMessage(event), exception));
+			ErrorItem errorItem = (errorCache != null) ? errorCache.toErrorItem(message, exception) : Throwables.toErrorItem(message, exception);
+			Truncation.truncate(errorItem, maxTraceBytes);
+			builder.error(errorItem);
 		} else {
 			String className = null;
 			String methodName = null;
@@ -97,22 +169,24 @@ public class LogEventAdapter implements EventAdapter<LogEvent> {
 				}
 			}
 			
-			builder.error(Throwables.toErrorItem(getMessage(event), className, methodName, lineNumber));
+			builder.error(Throwables.toErrorItem(message, className, methodName, lineNumber));
 		}
 		
-		String user = APMLogData.isLinked() ? APMLogData.getUser() : ServletLogContext.getUser();
+		EventContext eventContext = context.getEventContext();
+		
+		String user = eventContext.getUser();
 		
 		if (user != null) {
 			builder.userName(user);
 		}
 		
-		WebRequestDetail webRequest = APMLogData.isLinked() ? APMLogData.getWebRequest() : ServletLogContext.getWebRequest();
+		WebRequestDetail webRequest = eventContext.getWebRequest();
 		
 		if (webRequest != null) {
 			builder.webRequestDetail(webRequest);
 		}
 		
-		builder.serverVariables(Maps.fromProperties(System.getProperties()));
+		builder.serverVariables(serverVariables.get());
 		
 		return builder.build();
 	}
@@ -122,19 +196,27 @@ public class LogEventAdapter implements EventAdapter<LogEvent> {
 	 */
 	@Override
 	public LogMsg getLogMsg(final LogEvent event, final StackifyError error) {
+		return getLogMsg(new ConversionContext(event), error);
+	}
+
+	/**
+	 * Builds the LogMsg for an event, from the message formatted once for its conversion
+	 * @param context The conversion context
+	 * @param error The StackifyError (or null)
+	 * @return The LogMsg
+	 */
+	LogMsg getLogMsg(final ConversionContext context, final StackifyError error) {
+		
+		LogEvent event = context.getEvent();
 		
 		LogMsg.Builder builder = LogMsg.newBuilder();
 		
-		builder.msg(getMessage(event));
+		builder.msg(getMaskedMessage(context));
 
-		Map<String, String> props = getProperties(event);
+		String data = ContextDataEncoder.encode(event, fieldMasker);
 		
-		if (!props.isEmpty()) {
-			try {
-				builder.data(json.writeValueAsString(props));
-			} catch (Exception e) {
-				// do nothing
-			}
+		if (data != null) {
+			builder.data(data);
 		}
 				
 		builder.ex(error);
@@ -142,7 +224,7 @@ public class LogEventAdapter implements EventAdapter<LogEvent> {
 		builder.epochMs(event.getTimeMillis());
 		builder.level(event.getLevel().toString().toLowerCase());
 
-		String transactionId = APMLogData.isLinked() ? APMLogData.getTransactionId() : ServletLogContext.getTransactionId();
+		String transactionId = context.getEventContext().getTransactionId();
 		
 		if (transactionId != null) {
 			builder.transId(transactionId);
@@ -162,20 +244,29 @@ public class LogEventAdapter implements EventAdapter<LogEvent> {
 		return builder.build();
 	}
 
+	/**
+	 * Gets the message with the message masks applied, then truncated (masking first so a cut cannot leave a partial
+	 * match unmasked)
+	 * @param context The conversion context
+	 * @return The message
+	 */
+	private String getMaskedMessage(final ConversionContext context) {
+		String message = context.getMessage();
+
+		if (fieldMasker != null) {
+			message = fieldMasker.maskMessage(message);
+		}
+
+		return Truncation.truncate(message, maxMessageBytes);
+	}
+
 	/**
 	 * Gets the log message from the event
 	 * @param event The event
 	 * @return The log message
 	 */
 	public String getMessage(final LogEvent event) {
-		
-		Message message = event.getMessage();
-		
-		if (message != null) {
-			return message.getFormattedMessage();
-		}
-		
-		return null;
+		return ConversionContext.format(event.getMessage());
 	}
 	
 	/**
@@ -185,37 +276,28 @@ public class LogEventAdapter implements EventAdapter<LogEvent> {
 	 */
 	public Map<String, String> getProperties(final LogEvent event) {
 		
-		Map<String, String> properties = new HashMap<String, String>();
+		final Map<String, String> properties = new HashMap<String, String>();
 		
 		// unload the MDC
 		
-		Map<String, String> mdc = event.getContextMap();
+		ReadOnlyStringMap mdc = event.getContextData();
 		
 		if (mdc != null) {
-		    Iterator<Map.Entry<String, String>> mdcIterator = mdc.entrySet().iterator();
-		    
-		    while (mdcIterator.hasNext()) {
-		        Map.Entry<String, String> entryPair = (Map.Entry<String, String>) mdcIterator.next();
-		        
-		        String key = entryPair.getKey();
-		        String value = entryPair.getValue();
-		        
-		        properties.put(key, value != null ? value.toString() : null);
-		    }
+			mdc.forEach(new BiConsumer<String, Object>() {
+				@Override
+				public void accept(final String key, final Object value) {
+					String text = (value != null) ? value.toString() : null;
+					properties.put(key, (fieldMasker != null) ? fieldMasker.maskValue(key, text) : text);
+				}
+			});
 		}
 		
 		// unload the NDC
 		
-		ContextStack contextStack = event.getContextStack();
+		String ndc = ContextDataEncoder.getNdc(event);
 		
-		if (contextStack != null) {
-			String ndc = contextStack.peek();
-			
-			if (ndc != null) {
-				if (!ndc.isEmpty()) {
-					properties.put("NDC", ndc);
-				}
-			}
+		if (ndc != null) {
+			properties.put(ContextDataEncoder.NDC_KEY, (fieldMasker != null) ? fieldMasker.maskValue(ContextDataEncoder.NDC_KEY, ndc) : ndc);
 		}
 		
 		// return the properties
@@ -231,6 +313,15 @@ public class LogEventAdapter implements EventAdapter<LogEvent> {
 		return event.getLevel().isMoreSpecificThan(Level.ERROR);
 	}
 
+	/**
+	 * Checks if the event will be reported as an error
+	 * @param event The event
+	 * @return True if it has a throwable or is logged at error level or above
+	 */
+	static boolean isError(final LogEvent event) {
+		return (event.getThrown() != null) || ((event.getLevel() != null) && event.getLevel().isMoreSpecificThan(Level.ERROR));
+	}
+
 	/**
 	 * @see com.stackify.api.common.log.EventAdapter#getClassName(java.lang.Object)
 	 */
@@ -1,5 +1,7 @@
 package com.stackify.log.log4j2;
 
+import java.util.Locale;
+
 import lombok.Getter;
 import lombok.ToString;
 import org.apache.logging.log4j.core.AbstractLifeCycle;
@@ -14,6 +16,8 @@ import org.apache.logging.log4j.core.config.plugins.PluginValue;
  * Defines a Mask.
  * Enabled can be to true or false.
  * Value can be set to a regex or a built-in mask (CREDITCARD, SSN or IP)
+ * Key can name an MDC key the mask is limited to.
+ * Scope can be set to all (the default), message or mdc.
  *
  * @author Darin Howard
  */
@@ -21,22 +25,71 @@ import org.apache.logging.log4j.core.config.plugins.PluginValue;
 @Plugin(name = "Mask", category = Node.CATEGORY, elementType = Filter.ELEMENT_TYPE, printObject = true)
 public class Mask extends AbstractLifeCycle {
 
+    /**
+     * Mask the message and the MDC/NDC data
+     */
+    public static final String SCOPE_ALL = "all";
+
+    /**
+     * Mask the log message only
+     */
+    public static final String SCOPE_MESSAGE = "message";
+
+    /**
+     * Mask MDC/NDC values only (all of them, or the one named by the key)
+     */
+    public static final String SCOPE_MDC = "mdc";
+
     @Getter
     private String value;
 
     @Getter
     private boolean enabled;
 
+    @Getter
+    private String key;
+
+    @Getter
+    private String scope;
+
     @PluginFactory
     public static Mask create(@PluginValue("value") final String value,
-                              @PluginAttribute("enabled") final String enabled) {
-        return new Mask(value, enabled != null && Boolean.parseBoolean(enabled));
+                              @PluginAttribute("enabled") final String enabled,
+                              @PluginAttribute("key") final String key,
+                              @PluginAttribute("scope") final String scope) {
+        return new Mask(value, enabled != null && Boolean.parseBoolean(enabled), key, scope);
+    }
+
+    public static Mask create(final String value,
+                              final String enabled) {
+        return create(value, enabled, null, null);
     }
 
     public Mask(final String value,
                 final boolean enabled) {
+        this(value, enabled, null, null);
+    }
+
+    public Mask(final String value,
+                final boolean enabled,
+                final String key,
+                final String scope) {
         this.value = value;
         this.enabled = enabled;
+        this.key = (key != null && !key.trim().isEmpty()) ? key.trim() : null;
+
+        if (scope != null && !scope.trim().isEmpty()) {
+            this.scope = scope.trim().toLowerCase(Locale.ENGLISH);
+        } else {
+            this.scope = (this.key != null) ? SCOPE_MDC : SCOPE_ALL;
+        }
+    }
+
+    /**
+     * @return True if the mask is limited to the message or to MDC/NDC values
+     */
+    public boolean isScoped() {
+        return !SCOPE_ALL.equals(scope) || key != null;
     }
 
 }
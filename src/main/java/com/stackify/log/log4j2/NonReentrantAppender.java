@@ -16,6 +16,8 @@
 package com.stackify.log.log4j2;
 
 import java.io.Serializable;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 import org.apache.logging.log4j.core.Filter;
 import org.apache.logging.log4j.core.Layout;
@@ -24,6 +26,11 @@ import org.apache.logging.log4j.core.appender.AbstractAppender;
 
 /**
  * Log4j appender that guards against reentering the same instance of the log4j appender
+ * <p>
+ * A thread appending claims a slot of a small table picked from its thread id, and a thread that finds itself in its
+ * slot is reentering. This does not allocate nor touch the thread's ThreadLocal map, which matters with many short
+ * lived (e.g. virtual) threads. A thread whose slot is held by another thread falls back to a depth counter in a
+ * ThreadLocal, which is checked only while some thread is using it.
  * 
  * @author Eric Martin
  */
@@ -33,16 +40,31 @@ public abstract class NonReentrantAppender extends AbstractAppender {
 	 * Serial version UID
 	 */
 	private static final long serialVersionUID = -2891154307901596455L;
-	
+
+	/**
+	 * Number of owner slots (a power of two)
+	 */
+	private static final int SLOTS = 256;
+
+	/**
+	 * Thread appending in each slot (null if none)
+	 */
+	private final AtomicReferenceArray<Thread> owners = new AtomicReferenceArray<Thread>(SLOTS);
+
+	/**
+	 * Append depth of the threads whose slot was held by another thread
+	 */
+	private final ThreadLocal<int[]> fallback = new ThreadLocal<int[]>() {
+		@Override
+		protected int[] initialValue() {
+			return new int[1];
+		}
+	};
+
 	/**
-	 * Guard against re-entering an appender from the same appender
+	 * Number of threads appending with the fallback depth counter
 	 */
-    private final ThreadLocal<Boolean> guard =
-        new ThreadLocal<Boolean>() {
-            @Override protected Boolean initialValue() {
-                return Boolean.FALSE;
-        }
-    };
+	private final AtomicInteger fallbackThreads = new AtomicInteger();
 
 	/**
 	 * Constructor
@@ -59,25 +81,38 @@ public abstract class NonReentrantAppender extends AbstractAppender {
 	 */
 	@Override
 	public void append(final LogEvent event) {
-		
-		if (guard == null) {
+		Thread current = Thread.currentThread();
+		int slot = slot(current.getId());
+		Thread owner = owners.get(slot);
+
+		if (owner == current) {
 			return;
 		}
-		
-		if (guard.get() == null) {
+
+		if ((0 < fallbackThreads.get()) && (0 < fallback.get()[0])) {
 			return;
 		}
-		
-		if (guard.get().equals(Boolean.TRUE)) {
+
+		if ((owner == null) && owners.compareAndSet(slot, null, current)) {
+			try {
+				subAppend(event);
+			} finally {
+				owners.lazySet(slot, null);
+			}
+
 			return;
 		}
 
+		int[] depth = fallback.get();
+		fallbackThreads.incrementAndGet();
+		++depth[0];
+
 		try {
-			guard.set(Boolean.TRUE);
 			subAppend(event);
 		} finally {
-			guard.remove();
-		}	
+			--depth[0];
+			fallbackThreads.decrementAndGet();
+		}
 	}
 
 	/**
@@ -85,4 +120,13 @@ public abstract class NonReentrantAppender extends AbstractAppender {
 	 * @param event The logging event
 	 */
 	protected abstract void subAppend(final LogEvent event);
+
+	/**
+	 * @param threadId A thread id
+	 * @return The thread's owner slot
+	 */
+	private static int slot(final long threadId) {
+		int hash = (int) (threadId ^ (threadId >>> 32)) * 0x9E3779B9;
+		return hash >>> (Integer.SIZE - Integer.numberOfTrailingZeros(SLOTS));
+	}
 }
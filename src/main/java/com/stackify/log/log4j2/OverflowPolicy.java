@@ -0,0 +1,92 @@
+/*
+ * Copyright 2026 Stackify
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stackify.log.log4j2;
+
+import java.util.Locale;
+
+/**
+ * What an application thread does when the async ring buffer is full (overflowPolicy appender attribute)
+ */
+public enum OverflowPolicy {
+
+	/**
+	 * Wait until a consumer frees a slot
+	 */
+	BLOCK("block"),
+
+	/**
+	 * Wait up to overflowTimeout milliseconds for a free slot, then drop the event being appended
+	 */
+	BLOCK_WITH_TIMEOUT("block-with-timeout"),
+
+	/**
+	 * Drop the event being appended
+	 */
+	DROP_NEWEST("drop-newest"),
+
+	/**
+	 * Drop the oldest queued event to make room for the event being appended. If the slot needed is still being
+	 * converted, wait up to overflowTimeout milliseconds for it, then drop the event being appended.
+	 */
+	DROP_OLDEST("drop-oldest"),
+
+	/**
+	 * Drop the event being appended if it is less severe than overflowLevel, otherwise wait for a free slot
+	 */
+	DROP_BELOW_LEVEL("drop-below-level");
+
+	/**
+	 * Configuration name
+	 */
+	private final String configName;
+
+	/**
+	 * Constructor
+	 * @param configName Configuration name
+	 */
+	OverflowPolicy(final String configName) {
+		this.configName = configName;
+	}
+
+	/**
+	 * @return The configuration name
+	 */
+	public String getConfigName() {
+		return configName;
+	}
+
+	/**
+	 * Parses a configuration value
+	 * @param value The value (case insensitive), or null for the default
+	 * @return The overflow policy
+	 * @throws IllegalArgumentException if the value is not recognized
+	 */
+	public static OverflowPolicy fromString(final String value) {
+		if ((value == null) || value.trim().isEmpty()) {
+			return BLOCK;
+		}
+
+		String name = value.trim().toLowerCase(Locale.ENGLISH);
+
+		for (OverflowPolicy policy : values()) {
+			if (policy.configName.equals(name)) {
+				return policy;
+			}
+		}
+
+		throw new IllegalArgumentException("Invalid overflow policy: " + value);
+	}
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2026 Stackify
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stackify.log.log4j2;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+
+/**
+ * Growable byte buffer that serialized and encoded payloads are written to. Buffers are pooled, so that sending a
+ * batch does not allocate a buffer of its size, and the bytes can be written into directly.
+ */
+public final class PayloadBuffer extends ByteArrayOutputStream {
+
+	/**
+	 * Constructor
+	 * @param capacity Initial capacity
+	 */
+	PayloadBuffer(final int capacity) {
+		super(capacity);
+	}
+
+	/**
+	 * @return The backing array, holding size() bytes from index 0 (valid until the buffer is written to again)
+	 */
+	public byte[] array() {
+		return buf;
+	}
+
+	/**
+	 * Makes room for bytes to be written into the backing array directly
+	 * @param length Number of bytes
+	 * @return The backing array, with room for length bytes from index size()
+	 */
+	public byte[] reserve(final int length) {
+		if (buf.length - count < length) {
+			buf = Arrays.copyOf(buf, Math.max(2 * buf.length, count + length));
+		}
+
+		return buf;
+	}
+
+	/**
+	 * Counts bytes written into the backing array directly
+	 * @param length Number of bytes
+	 */
+	public void advance(final int length) {
+		if ((length < 0) || (buf.length - count < length)) {
+			throw new IndexOutOfBoundsException("Cannot advance " + length + " bytes past " + count + " of " + buf.length);
+		}
+
+		count += length;
+	}
+
+	/**
+	 * @return Capacity of the backing array
+	 */
+	int capacity() {
+		return buf.length;
+	}
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2026 Stackify
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stackify.log.log4j2;
+
+import java.io.IOException;
+
+/**
+ * Compresses serialized log batches before they are sent (compression appender attribute).
+ * <p>
+ * The appender has gzip and deflate codecs built in. Other codecs are found with java.util.ServiceLoader: list the
+ * implementing class in META-INF/services/com.stackify.log.log4j2.PayloadCodec and set compression to its name. The
+ * receiving end must accept the codec's content encoding. Codecs are called from several threads at once.
+ */
+public interface PayloadCodec {
+
+	/**
+	 * @return Name of the codec in the compression attribute (case insensitive)
+	 */
+	String getName();
+
+	/**
+	 * @return HTTP Content-Encoding of encoded payloads
+	 */
+	String getContentEncoding();
+
+	/**
+	 * Encodes a payload
+	 * @param payload Payload bytes
+	 * @param offset Offset of the payload
+	 * @param length Length of the payload
+	 * @param out Buffer the encoded payload is appended to
+	 * @throws IOException if the payload cannot be encoded
+	 */
+	void encode(byte[] payload, int offset, int length, PayloadBuffer out) throws IOException;
+}
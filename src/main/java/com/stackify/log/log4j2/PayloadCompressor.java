@@ -0,0 +1,165 @@
+/*
+ * Copyright 2026 Stackify
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stackify.log.log4j2;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.ServiceLoader;
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * Compresses serialized batches with the configured codec, leaving batches below a size threshold as they are, and
+ * pools the buffers batches are serialized and compressed into.
+ */
+final class PayloadCompressor {
+
+	/**
+	 * Configuration name for no compression
+	 */
+	static final String NONE = "none";
+
+	/**
+	 * Default size below which batches are not compressed (bytes)
+	 */
+	static final int DEFAULT_THRESHOLD = 1024;
+
+	/**
+	 * Initial capacity of the pooled buffers
+	 */
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	/**
+	 * Buffers that grew larger than this are not pooled
+	 */
+	private static final int MAX_POOLED_SIZE = 4 * 1024 * 1024;
+
+	/**
+	 * Most idle buffers kept for reuse
+	 */
+	private static final int MAX_IDLE = 8;
+
+	/**
+	 * The codec (null for no compression)
+	 */
+	private final PayloadCodec codec;
+
+	/**
+	 * Size below which batches are not compressed (bytes)
+	 */
+	private final int threshold;
+
+	/**
+	 * Idle buffers
+	 */
+	private final ArrayBlockingQueue<PayloadBuffer> idle = new ArrayBlockingQueue<PayloadBuffer>(MAX_IDLE);
+
+	/**
+	 * Constructor
+	 * @param codec The codec (null for no compression)
+	 * @param threshold Size below which batches are not compressed (bytes)
+	 */
+	PayloadCompressor(final PayloadCodec codec, final int threshold) {
+		this.codec = codec;
+		this.threshold = Math.max(0, threshold);
+	}
+
+	/**
+	 * Finds a codec
+	 * @param name Codec name (case insensitive): none, gzip, deflate, or the name of a codec found by ServiceLoader
+	 * @param level Compression level of the built in codecs (0-9, or -1 for the default)
+	 * @return The codec, or null for none
+	 * @throws IllegalArgumentException if there is no such codec
+	 */
+	static PayloadCodec codec(final String name, final int level) {
+		String key = (name != null) ? name.trim().toLowerCase(Locale.ENGLISH) : NONE;
+
+		if (key.isEmpty() || NONE.equals(key)) {
+			return null;
+		}
+
+		if (DeflaterCodec.GZIP.equals(key)) {
+			return new DeflaterCodec(true, level);
+		}
+
+		if (DeflaterCodec.DEFLATE.equals(key)) {
+			return new DeflaterCodec(false, level);
+		}
+
+		for (PayloadCodec codec : ServiceLoader.load(PayloadCodec.class)) {
+			if (key.equalsIgnoreCase(codec.getName())) {
+				return codec;
+			}
+		}
+
+		throw new IllegalArgumentException("Invalid compression: " + name);
+	}
+
+	/**
+	 * @return The codec (null for no compression)
+	 */
+	PayloadCodec getCodec() {
+		return codec;
+	}
+
+	/**
+	 * @return A pooled buffer, empty
+	 */
+	PayloadBuffer acquire() {
+		PayloadBuffer buffer = idle.poll();
+
+		if (buffer == null) {
+			return new PayloadBuffer(BUFFER_SIZE);
+		}
+
+		buffer.reset();
+		return buffer;
+	}
+
+	/**
+	 * Hands a buffer back for reuse
+	 * @param buffer The buffer (may be null)
+	 */
+	void release(final PayloadBuffer buffer) {
+		if ((buffer != null) && (buffer.capacity() <= MAX_POOLED_SIZE)) {
+			idle.offer(buffer);
+		}
+	}
+
+	/**
+	 * Compresses a serialized batch
+	 * @param payload The serialized batch
+	 * @return The compressed batch in a pooled buffer (to be released), or null if the batch is to be sent as is
+	 * @throws IOException if the batch cannot be compressed
+	 */
+	PayloadBuffer compress(final PayloadBuffer payload) throws IOException {
+		if ((codec == null) || (payload.size() < threshold)) {
+			return null;
+		}
+
+		PayloadBuffer encoded = acquire();
+
+		try {
+			codec.encode(payload.array(), 0, payload.size(), encoded);
+			return encoded;
+		} catch (IOException e) {
+			release(encoded);
+			throw e;
+		} catch (RuntimeException e) {
+			release(encoded);
+			throw e;
+		}
+	}
+}
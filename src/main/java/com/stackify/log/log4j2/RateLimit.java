@@ -0,0 +1,62 @@
+/*
+ * Copyright 2026 Stackify
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stackify.log.log4j2;
+
+import lombok.Getter;
+import lombok.ToString;
+import org.apache.logging.log4j.core.AbstractLifeCycle;
+import org.apache.logging.log4j.core.Filter;
+import org.apache.logging.log4j.core.config.Node;
+import org.apache.logging.log4j.core.config.plugins.Plugin;
+import org.apache.logging.log4j.core.config.plugins.PluginAttribute;
+import org.apache.logging.log4j.core.config.plugins.PluginFactory;
+
+/**
+ * Defines a RateLimit.
+ * Logger is the logger (or class name prefix) limited, with its descendants (all loggers if not set).
+ * Rate is the number of events sent per second.
+ * Burst is the number of events that can be sent at once after a quiet period (the rate, at least one, if not set).
+ * Errors (events with a throwable, or logged at error level or above) are never limited and take no tokens.
+ */
+@ToString
+@Plugin(name = "RateLimit", category = Node.CATEGORY, elementType = Filter.ELEMENT_TYPE, printObject = true)
+public class RateLimit extends AbstractLifeCycle {
+
+    @Getter
+    private String logger;
+
+    @Getter
+    private double rate;
+
+    @Getter
+    private long burst;
+
+    @PluginFactory
+    public static RateLimit create(@PluginAttribute("logger") final String logger,
+                                   @PluginAttribute("rate") final double rate,
+                                   @PluginAttribute("burst") final long burst) {
+        return new RateLimit(logger, rate, burst);
+    }
+
+    public RateLimit(final String logger,
+                     final double rate,
+                     final long burst) {
+        this.logger = (logger != null && !logger.trim().isEmpty()) ? logger.trim() : null;
+        this.rate = Math.max(0.0, rate);
+        this.burst = (burst > 0) ? burst : Math.max(1, (long) Math.ceil(this.rate));
+    }
+
+}
@@ -0,0 +1,372 @@
+/*
+ * Copyright 2026 Stackify
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stackify.log.log4j2;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.core.impl.Log4jLogEvent;
+import org.apache.logging.log4j.message.SimpleMessage;
+import org.apache.logging.log4j.util.SortedArrayStringMap;
+
+/**
+ * Limits the rate of events per logger name prefix.
+ * <p>
+ * The limits are held in a trie of logger name segments built once from the configuration, and the buckets on the
+ * path of each logger name are cached so that most checks do not walk the trie. An event is sent if every bucket on
+ * its path has a token, the most specific first: a limit on com.acme caps the whole package, and a limit on
+ * com.acme.db caps that subtree further. The tokens taken before an empty bucket is found are returned, so a throttled
+ * event does not use up the budget of the more specific limits.
+ * <p>
+ * Buckets are lock-free: each holds the time its tokens are next all spent (the generic cell rate algorithm), so taking
+ * a token is one compare-and-set and a throttled check is a single read. Throttled events are counted per limit and
+ * reported periodically as a synthetic WARN event.
+ */
+final class RateLimiter {
+
+	/**
+	 * Most logger names whose buckets are cached
+	 */
+	private static final int MAX_CACHED_LOGGERS = 4096;
+
+	/**
+	 * Name of the limit on all loggers in reports
+	 */
+	private static final String ROOT_NAME = "root";
+
+	/**
+	 * Buckets of a logger without limits
+	 */
+	private static final Bucket[] NO_BUCKETS = new Bucket[0];
+
+	/**
+	 * Root of the trie
+	 */
+	private final TrieNode root = new TrieNode();
+
+	/**
+	 * Every bucket, in configuration order
+	 */
+	private final List<Bucket> buckets = new ArrayList<Bucket>();
+
+	/**
+	 * Buckets on the path of each logger name, the most specific first
+	 */
+	private final ConcurrentMap<String, Bucket[]> resolved = new ConcurrentHashMap<String, Bucket[]>();
+
+	/**
+	 * Count of throttled events since the limiter was created
+	 */
+	private final LongAdder total = new LongAdder();
+
+	/**
+	 * How often throttled events are reported (milliseconds)
+	 */
+	private final long reportIntervalMillis;
+
+	/**
+	 * When throttled events are next reported
+	 */
+	private final AtomicLong nextReport;
+
+	/**
+	 * When throttled events were last reported
+	 */
+	private volatile long lastReport;
+
+	/**
+	 * Constructor
+	 * @param rateLimits The limits
+	 * @param reportIntervalMillis How often throttled events are reported (milliseconds)
+	 */
+	RateLimiter(final RateLimit[] rateLimits, final long reportIntervalMillis) {
+		long startNanos = System.nanoTime();
+
+		for (RateLimit rateLimit : rateLimits) {
+			TrieNode node = root;
+
+			if (rateLimit.getLogger() != null) {
+				for (String segment : rateLimit.getLogger().split("\\.")) {
+					node = node.child(segment);
+				}
+			}
+
+			Bucket bucket = new Bucket((rateLimit.getLogger() != null) ? rateLimit.getLogger() : ROOT_NAME, rateLimit.getRate(), rateLimit.getBurst(),
+					startNanos);
+
+			if (node.bucket != null) {
+				buckets.remove(node.bucket);
+			}
+
+			node.bucket = bucket;
+			buckets.add(bucket);
+		}
+
+		this.reportIntervalMillis = reportIntervalMillis;
+		this.lastReport = System.currentTimeMillis();
+		this.nextReport = new AtomicLong(lastReport + reportIntervalMillis);
+	}
+
+	/**
+	 * Takes a token for an event
+	 * @param loggerName The event's logger name (or null)
+	 * @param nowNanos Current System.nanoTime()
+	 * @return True if the event should be sent, false if it was throttled
+	 */
+	boolean tryAcquire(final String loggerName, final long nowNanos) {
+		String name = (loggerName != null) ? loggerName : "";
+
+		Bucket[] path = resolved.get(name);
+
+		if (path == null) {
+			path = resolve(name);
+
+			if (resolved.size() < MAX_CACHED_LOGGERS) {
+				resolved.putIfAbsent(name, path);
+			}
+		}
+
+		for (int i = 0; i < path.length; ++i) {
+			if (!path[i].tryAcquire(nowNanos)) {
+				for (int j = 0; j < i; ++j) {
+					path[j].release();
+				}
+
+				path[i].throttled.increment();
+				total.increment();
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * @return Number of events throttled since the limiter was created
+	 */
+	long getTotal() {
+		return total.sum();
+	}
+
+	/**
+	 * Builds the report event if one is due, for a single caller
+	 * @param nowMillis Current time (milliseconds)
+	 * @return The report event, or null if none is due or nothing was throttled
+	 */
+	LogEvent pollReport(final long nowMillis) {
+		long due = nextReport.get();
+
+		if ((nowMillis < due) || !nextReport.compareAndSet(due, nowMillis + reportIntervalMillis)) {
+			return null;
+		}
+
+		return drainReport(nowMillis);
+	}
+
+	/**
+	 * Builds the report event for the events throttled since the last report and resets the counts
+	 * @param nowMillis Current time (milliseconds)
+	 * @return The report event, or null if nothing was throttled
+	 */
+	LogEvent drainReport(final long nowMillis) {
+		long intervalMillis = nowMillis - lastReport;
+		lastReport = nowMillis;
+
+		long sum = 0;
+		StringBuilder counts = new StringBuilder();
+		SortedArrayStringMap contextData = new SortedArrayStringMap();
+
+		for (Bucket bucket : buckets) {
+			long count = bucket.throttled.sumThenReset();
+
+			if (count > 0) {
+				if (sum > 0) {
+					counts.append(", ");
+				}
+
+				counts.append(bucket.name).append('=').append(count);
+				contextData.putValue("throttled." + bucket.name, Long.toString(count));
+				sum += count;
+			}
+		}
+
+		if (sum == 0) {
+			return null;
+		}
+
+		contextData.putValue("throttledTotal", Long.toString(sum));
+
+		String message = "Stackify log appender throttled " + sum + " events in the last " + Math.max(1, intervalMillis / 1000) + "s (" + counts + ")";
+
+		return Log4jLogEvent.newBuilder()
+				.setLoggerName(DroppedEvents.REPORT_LOGGER)
+				.setLevel(Level.WARN)
+				.setMessage(new SimpleMessage(message))
+				.setContextData(contextData)
+				.setThreadName(Thread.currentThread().getName())
+				.setTimeMillis(nowMillis)
+				.build();
+	}
+
+	/**
+	 * Walks the trie along a logger name
+	 * @param loggerName The logger name
+	 * @return The buckets on its path, the most specific first
+	 */
+	private Bucket[] resolve(final String loggerName) {
+		List<Bucket> path = new ArrayList<Bucket>();
+		TrieNode node = root;
+
+		if (node.bucket != null) {
+			path.add(node.bucket);
+		}
+
+		int start = 0;
+
+		while ((node != null) && !loggerName.isEmpty() && (start <= loggerName.length())) {
+			int end = loggerName.indexOf('.', start);
+
+			if (end < 0) {
+				end = loggerName.length();
+			}
+
+			node = node.children.get(loggerName.substring(start, end));
+
+			if ((node != null) && (node.bucket != null)) {
+				path.add(0, node.bucket);
+			}
+
+			start = end + 1;
+		}
+
+		return path.isEmpty() ? NO_BUCKETS : path.toArray(new Bucket[path.size()]);
+	}
+
+	/**
+	 * A node of the logger name trie
+	 */
+	private static final class TrieNode {
+
+		/**
+		 * Children by logger name segment
+		 */
+		private final Map<String, TrieNode> children = new HashMap<String, TrieNode>();
+
+		/**
+		 * Limit of the node's prefix (null if none)
+		 */
+		private Bucket bucket;
+
+		/**
+		 * @param segment A logger name segment
+		 * @return The child for the segment, created if needed
+		 */
+		private TrieNode child(final String segment) {
+			TrieNode child = children.get(segment);
+
+			if (child == null) {
+				child = new TrieNode();
+				children.put(segment, child);
+			}
+
+			return child;
+		}
+	}
+
+	/**
+	 * A lock-free token bucket
+	 */
+	private static final class Bucket {
+
+		/**
+		 * Logger name prefix of the limit
+		 */
+		private final String name;
+
+		/**
+		 * Time between two tokens (nanoseconds), or zero if no event is allowed
+		 */
+		private final long intervalNanos;
+
+		/**
+		 * How far ahead of the current time tokens can be spent (nanoseconds)
+		 */
+		private final long toleranceNanos;
+
+		/**
+		 * Time at which every token is spent (nanoseconds)
+		 */
+		private final AtomicLong spentUntil;
+
+		/**
+		 * Throttled events since the last report
+		 */
+		private final LongAdder throttled = new LongAdder();
+
+		/**
+		 * Constructor
+		 * @param name Logger name prefix of the limit
+		 * @param rate Tokens per second
+		 * @param burst Most tokens available at once
+		 * @param startNanos Current System.nanoTime()
+		 */
+		private Bucket(final String name, final double rate, final long burst, final long startNanos) {
+			this.name = name;
+			this.intervalNanos = (rate > 0) ? Math.max(1, Math.round(1e9 / rate)) : 0;
+			this.toleranceNanos = (long) Math.min(Long.MAX_VALUE / 4, (double) burst * intervalNanos);
+			this.spentUntil = new AtomicLong(startNanos);
+		}
+
+		/**
+		 * Takes a token
+		 * @param nowNanos Current System.nanoTime()
+		 * @return True if a token was available
+		 */
+		private boolean tryAcquire(final long nowNanos) {
+			if (intervalNanos == 0) {
+				return false;
+			}
+
+			while (true) {
+				long current = spentUntil.get();
+				long next = ((current - nowNanos < 0) ? nowNanos : current) + intervalNanos;
+
+				if (toleranceNanos < next - nowNanos) {
+					return false;
+				}
+
+				if (spentUntil.compareAndSet(current, next)) {
+					return true;
+				}
+			}
+		}
+
+		/**
+		 * Returns a token taken by tryAcquire
+		 */
+		private void release() {
+			spentUntil.addAndGet(-intervalNanos);
+		}
+	}
+}
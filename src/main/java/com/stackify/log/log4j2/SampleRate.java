@@ -0,0 +1,77 @@
+/*
+ * Copyright 2026 Stackify
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stackify.log.log4j2;
+
+import java.util.Locale;
+
+import lombok.Getter;
+import lombok.ToString;
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.core.AbstractLifeCycle;
+import org.apache.logging.log4j.core.Filter;
+import org.apache.logging.log4j.core.config.Node;
+import org.apache.logging.log4j.core.config.plugins.Plugin;
+import org.apache.logging.log4j.core.config.plugins.PluginAttribute;
+import org.apache.logging.log4j.core.config.plugins.PluginFactory;
+import org.apache.logging.log4j.status.StatusLogger;
+
+/**
+ * Defines a SampleRate.
+ * Rate is the fraction of events sent, from 0 to 1.
+ * Level limits the rate to events of that level (any level if not set). A SampleRate with an unknown level is
+ * rejected, so that a misspelled level does not apply the rate to every level.
+ * Logger limits the rate to a logger and its descendants (all loggers if not set).
+ */
+@ToString
+@Plugin(name = "SampleRate", category = Node.CATEGORY, elementType = Filter.ELEMENT_TYPE, printObject = true)
+public class SampleRate extends AbstractLifeCycle {
+
+    @Getter
+    private Level level;
+
+    @Getter
+    private String logger;
+
+    @Getter
+    private double rate;
+
+    @PluginFactory
+    public static SampleRate create(@PluginAttribute("level") final String level,
+                                    @PluginAttribute("logger") final String logger,
+                                    @PluginAttribute(value = "rate", defaultDouble = 1.0) final double rate) {
+        Level sampledLevel = null;
+
+        if (level != null && !level.trim().isEmpty()) {
+            sampledLevel = Level.getLevel(level.trim().toUpperCase(Locale.ENGLISH));
+
+            if (sampledLevel == null) {
+                StatusLogger.getLogger().error("Ignoring Stackify SampleRate for logger {}: unknown level {}", logger, level);
+                return null;
+            }
+        }
+
+        return new SampleRate(sampledLevel, logger, rate);
+    }
+
+    public SampleRate(final Level level,
+                      final String logger,
+                      final double rate) {
+        this.level = level;
+        this.logger = (logger != null && !logger.trim().isEmpty()) ? logger.trim() : null;
+        this.rate = Math.max(0.0, Math.min(1.0, rate));
+    }
+
+}
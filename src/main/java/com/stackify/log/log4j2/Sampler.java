@@ -0,0 +1,283 @@
+/*
+ * Copyright 2026 Stackify
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stackify.log.log4j2;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.core.LogEvent;
+
+/**
+ * Samples events by level and logger before any conversion work is done.
+ * <p>
+ * The rate of an event comes from the rule with the longest logger prefix matching its logger ("com.acme" matches
+ * com.acme and com.acme.db, not com.acmedb), a rule limited to the event's level winning over one for any level, and
+ * the default rate when no rule matches. Events of a transaction are sampled by a hash of the transaction id, so a
+ * sampled transaction keeps all of its events at a given rate and every event of a lower rate. Other events are
+ * sampled at random. Errors (an event with a throwable, or logged at error level or above) are always sent.
+ */
+final class Sampler {
+
+	/**
+	 * Most logger names whose resolved rates are cached
+	 */
+	private static final int MAX_CACHED_LOGGERS = 4096;
+
+	/**
+	 * Rate of events matching no rule
+	 */
+	private final double defaultRate;
+
+	/**
+	 * The rules, by logger prefix (the empty string for rules on all loggers)
+	 */
+	private final Map<String, Rates> rules = new HashMap<String, Rates>();
+
+	/**
+	 * Rules matching each logger name, the longest prefixes first
+	 */
+	private final ConcurrentMap<String, Rates[]> resolved = new ConcurrentHashMap<String, Rates[]>();
+
+	/**
+	 * Number of sampled (non error) events
+	 */
+	private final LongAdder offered = new LongAdder();
+
+	/**
+	 * Number of sampled events that were sent
+	 */
+	private final LongAdder kept = new LongAdder();
+
+	/**
+	 * Constructor
+	 * @param defaultRate Rate of events matching no rule
+	 * @param sampleRates The rules (may be null)
+	 */
+	Sampler(final double defaultRate, final SampleRate[] sampleRates) {
+		this.defaultRate = Math.max(0.0, Math.min(1.0, defaultRate));
+
+		if (sampleRates != null) {
+			for (SampleRate sampleRate : sampleRates) {
+				String prefix = (sampleRate.getLogger() != null) ? sampleRate.getLogger() : "";
+
+				Rates rates = rules.get(prefix);
+
+				if (rates == null) {
+					rates = new Rates();
+					rules.put(prefix, rates);
+				}
+
+				rates.set(sampleRate.getLevel(), sampleRate.getRate());
+			}
+		}
+	}
+
+	/**
+	 * Decides if an event is sent
+	 * @param event The event
+	 * @param transactionId Id of the event's transaction (or null)
+	 * @return True if the event should be sent, false if it was sampled out
+	 */
+	boolean sample(final LogEvent event, final String transactionId) {
+		if (LogEventAdapter.isError(event)) {
+			return true;
+		}
+
+		Level level = event.getLevel();
+
+		double rate = getRate(event.getLoggerName(), level);
+
+		offered.increment();
+
+		boolean keep;
+
+		if (1.0 <= rate) {
+			keep = true;
+		} else if (rate <= 0.0) {
+			keep = false;
+		} else if (transactionId != null) {
+			keep = hash(transactionId) < rate;
+		} else {
+			keep = ThreadLocalRandom.current().nextDouble() < rate;
+		}
+
+		if (keep) {
+			kept.increment();
+		}
+
+		return keep;
+	}
+
+	/**
+	 * @return Fraction of sampled (non error) events that were sent, or one if none were sampled yet
+	 */
+	double getEffectiveRate() {
+		long offeredCount = offered.sum();
+		return (offeredCount == 0) ? 1.0 : (double) kept.sum() / offeredCount;
+	}
+
+	/**
+	 * @return Number of events that were sampled out
+	 */
+	long getSampledOut() {
+		return offered.sum() - kept.sum();
+	}
+
+	/**
+	 * Gets the rate of a logger and level
+	 * @param loggerName The logger name (or null)
+	 * @param level The level (or null)
+	 * @return The rate
+	 */
+	double getRate(final String loggerName, final Level level) {
+		String name = (loggerName != null) ? loggerName : "";
+
+		Rates[] chain = resolved.get(name);
+
+		if (chain == null) {
+			chain = resolve(name);
+
+			if (resolved.size() < MAX_CACHED_LOGGERS) {
+				resolved.putIfAbsent(name, chain);
+			}
+		}
+
+		for (Rates rates : chain) {
+			double rate = rates.get(level);
+
+			if (!Double.isNaN(rate)) {
+				return rate;
+			}
+		}
+
+		return defaultRate;
+	}
+
+	/**
+	 * Finds the rules matching a logger
+	 * @param loggerName The logger name
+	 * @return The rules, the longest prefixes first
+	 */
+	private Rates[] resolve(final String loggerName) {
+		List<Rates> chain = new ArrayList<Rates>();
+
+		addRule(chain, loggerName);
+
+		for (int i = loggerName.lastIndexOf('.'); 0 <= i; i = loggerName.lastIndexOf('.', i - 1)) {
+			addRule(chain, loggerName.substring(0, i));
+		}
+
+		if (!loggerName.isEmpty()) {
+			addRule(chain, "");
+		}
+
+		return chain.toArray(new Rates[chain.size()]);
+	}
+
+	/**
+	 * @param chain The rules matching a logger
+	 * @param prefix A prefix of the logger name
+	 */
+	private void addRule(final List<Rates> chain, final String prefix) {
+		Rates rates = rules.get(prefix);
+
+		if (rates != null) {
+			chain.add(rates);
+		}
+	}
+
+	/**
+	 * Maps a transaction id to a uniform value
+	 * @param transactionId The transaction id
+	 * @return A value in [0, 1)
+	 */
+	static double hash(final String transactionId) {
+		int h = transactionId.hashCode();
+
+		// murmur3 finalizer, so that similar ids spread over the whole range
+
+		h ^= h >>> 16;
+		h *= 0x85ebca6b;
+		h ^= h >>> 13;
+		h *= 0xc2b2ae35;
+		h ^= h >>> 16;
+
+		return (h & 0xFFFFFFFFL) / 4294967296.0;
+	}
+
+	/**
+	 * The rates of a rule: rates by level, with a rate for the other levels
+	 */
+	private static final class Rates {
+
+		/**
+		 * Levels with their own rate
+		 */
+		private final List<Level> levels = new ArrayList<Level>(2);
+
+		/**
+		 * Rates of the levels, in the same order
+		 */
+		private final List<Double> levelRates = new ArrayList<Double>(2);
+
+		/**
+		 * Rate of the other levels (NaN if not set)
+		 */
+		private double anyLevel = Double.NaN;
+
+		/**
+		 * Sets a rate
+		 * @param level The level, or null for the other levels
+		 * @param rate The rate
+		 */
+		private void set(final Level level, final double rate) {
+			if (level == null) {
+				anyLevel = rate;
+				return;
+			}
+
+			int i = levels.indexOf(level);
+
+			if (0 <= i) {
+				levelRates.set(i, rate);
+			} else {
+				levels.add(level);
+				levelRates.add(rate);
+			}
+		}
+
+		/**
+		 * @param level The level (or null)
+		 * @return The rate of the level, or NaN if the rule does not apply to it
+		 */
+		private double get(final Level level) {
+			for (int i = 0; i < levels.size(); ++i) {
+				if (levels.get(i) == level) {
+					return levelRates.get(i);
+				}
+			}
+
+			return anyLevel;
+		}
+	}
+}
@@ -0,0 +1,221 @@
+/*
+ * Copyright 2026 Stackify
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stackify.log.log4j2;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Cached, immutable snapshot of the system properties reported as server variables on errors.
+ * <p>
+ * The snapshot is rebuilt only when the system properties are replaced or change size, or when the refresh interval
+ * has elapsed. Names can be filtered with comma separated include and exclude lists. An entry ending in
+ * <code>*</code> matches by prefix, any other entry matches the exact name.
+ */
+public class ServerVariables {
+
+	/**
+	 * Default refresh interval (one minute)
+	 */
+	public static final long DEFAULT_REFRESH_INTERVAL = 60000L;
+
+	/**
+	 * Refresh interval in milliseconds, zero or less to refresh on change only
+	 */
+	private final long refreshInterval;
+
+	/**
+	 * Names (or prefixes) to include, empty for all
+	 */
+	private final String[] include;
+
+	/**
+	 * Names (or prefixes) to exclude
+	 */
+	private final String[] exclude;
+
+	/**
+	 * Current snapshot
+	 */
+	private volatile Snapshot snapshot;
+
+	/**
+	 * Constructor with the default refresh interval and no filtering
+	 */
+	public ServerVariables() {
+		this(DEFAULT_REFRESH_INTERVAL, null, null);
+	}
+
+	/**
+	 * Constructor
+	 * @param refreshInterval Refresh interval in milliseconds, zero or less to refresh on change only
+	 * @param include Comma separated names to include (null for all)
+	 * @param exclude Comma separated names to exclude (null for none)
+	 */
+	public ServerVariables(final long refreshInterval, final String include, final String exclude) {
+		this.refreshInterval = refreshInterval;
+		this.include = split(include);
+		this.exclude = split(exclude);
+	}
+
+	/**
+	 * Gets the server variables, rebuilding the snapshot only if the system properties changed or it expired
+	 * @return Unmodifiable map of server variables
+	 */
+	public Map<String, String> get() {
+		Properties properties = System.getProperties();
+		long now = System.currentTimeMillis();
+
+		Snapshot current = snapshot;
+
+		if ((current == null) || current.isStale(properties, now, refreshInterval)) {
+			current = new Snapshot(properties, properties.size(), now, filter(properties));
+			snapshot = current;
+		}
+
+		return current.variables;
+	}
+
+	/**
+	 * Copies the matching properties into an unmodifiable map
+	 * @param properties The system properties
+	 * @return Unmodifiable map of matching properties
+	 */
+	private Map<String, String> filter(final Properties properties) {
+		Map<String, String> variables = new HashMap<String, String>();
+
+		for (String name : properties.stringPropertyNames()) {
+			if (isIncluded(name)) {
+				variables.put(name, properties.getProperty(name));
+			}
+		}
+
+		return Collections.unmodifiableMap(variables);
+	}
+
+	/**
+	 * Checks a property name against the include and exclude lists
+	 * @param name The property name
+	 * @return True if the property should be reported
+	 */
+	boolean isIncluded(final String name) {
+		if ((include.length > 0) && !matches(include, name)) {
+			return false;
+		}
+
+		return !matches(exclude, name);
+	}
+
+	/**
+	 * Checks a name against a list of names and prefixes
+	 * @param entries Names, or prefixes ending in *
+	 * @param name The name
+	 * @return True if any entry matches
+	 */
+	private static boolean matches(final String[] entries, final String name) {
+		for (String entry : entries) {
+			if (entry.endsWith("*")) {
+				if (name.startsWith(entry.substring(0, entry.length() - 1))) {
+					return true;
+				}
+			} else if (entry.equals(name)) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * Splits a comma separated list, dropping blank entries
+	 * @param value The list
+	 * @return The entries
+	 */
+	private static String[] split(final String value) {
+		List<String> entries = new ArrayList<String>();
+
+		if (value != null) {
+			for (String entry : value.split(",")) {
+				String trimmed = entry.trim();
+
+				if (!trimmed.isEmpty()) {
+					entries.add(trimmed);
+				}
+			}
+		}
+
+		return entries.toArray(new String[entries.size()]);
+	}
+
+	/**
+	 * Immutable snapshot along with what it was built from
+	 */
+	private static final class Snapshot {
+
+		/**
+		 * The system properties instance the snapshot was built from
+		 */
+		private final Properties source;
+
+		/**
+		 * Number of system properties when the snapshot was built
+		 */
+		private final int size;
+
+		/**
+		 * Time the snapshot was built
+		 */
+		private final long created;
+
+		/**
+		 * The server variables
+		 */
+		private final Map<String, String> variables;
+
+		/**
+		 * Constructor
+		 * @param source The system properties
+		 * @param size Number of system properties
+		 * @param created Time the snapshot was built
+		 * @param variables The server variables
+		 */
+		private Snapshot(final Properties source, final int size, final long created, final Map<String, String> variables) {
+			this.source = source;
+			this.size = size;
+			this.created = created;
+			this.variables = variables;
+		}
+
+		/**
+		 * Checks if the snapshot should be rebuilt
+		 * @param properties The current system properties
+		 * @param now The current time
+		 * @param refreshInterval Refresh interval in milliseconds
+		 * @return True if the snapshot should be rebuilt
+		 */
+		private boolean isStale(final Properties properties, final long now, final long refreshInterval) {
+			if ((properties != source) || (properties.size() != size)) {
+				return true;
+			}
+
+			return (0 < refreshInterval) && (refreshInterval <= now - created);
+		}
+	}
+}
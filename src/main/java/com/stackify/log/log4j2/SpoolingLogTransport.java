@@ -0,0 +1,210 @@
+/*
+ * Copyright 2026 Stackify
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stackify.log.log4j2;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.apache.logging.log4j.status.StatusLogger;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stackify.api.LogMsgGroup;
+import com.stackify.api.common.log.LogTransport;
+import com.stackify.api.common.log.LogTransportPreProcessor;
+import com.stackify.api.common.mask.Masker;
+
+/**
+ * Log transport that spools batches to disk while the real transport is failing.
+ * <p>
+ * A batch the delegate fails to send is masked, serialized and appended to the spool instead of being retried in
+ * memory. While the spool holds anything, new batches are appended to it as well, so batches are delivered in order.
+ * A background thread replays the spool through the delegate, backing off while it keeps failing. Batches left in
+ * the spool when the application stops are replayed after the next start.
+ */
+final class SpoolingLogTransport implements LogTransport, Closeable {
+
+	/**
+	 * Replay thread idle wait
+	 */
+	private static final long IDLE_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+	/**
+	 * First back off after a failed replay
+	 */
+	private static final long MIN_BACKOFF_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+	/**
+	 * Longest back off after failed replays
+	 */
+	private static final long MAX_BACKOFF_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+	/**
+	 * The real transport
+	 */
+	private final LogTransport delegate;
+
+	/**
+	 * The spool
+	 */
+	private final DiskSpool spool;
+
+	/**
+	 * Masks batches before they are written to disk
+	 */
+	private final LogTransportPreProcessor preProcessor;
+
+	/**
+	 * Batch serializer
+	 */
+	private final ObjectMapper objectMapper;
+
+	/**
+	 * Replay thread
+	 */
+	private final Thread replayThread;
+
+	/**
+	 * True until closed
+	 */
+	private volatile boolean running = true;
+
+	/**
+	 * Constructor
+	 * @param delegate The real transport
+	 * @param spool The spool
+	 * @param masker Masker applied before batches are written to disk
+	 */
+	SpoolingLogTransport(final LogTransport delegate, final DiskSpool spool, final Masker masker) {
+		this.delegate = delegate;
+		this.spool = spool;
+		this.preProcessor = new LogTransportPreProcessor(masker, false);
+		this.objectMapper = new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+		this.replayThread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				replay();
+			}
+		}, "Stackify_LogSpoolReplay");
+		this.replayThread.setDaemon(true);
+	}
+
+	/**
+	 * Starts replaying the spool
+	 */
+	void start() {
+		replayThread.start();
+	}
+
+	/**
+	 * @see com.stackify.api.common.log.LogTransport#send(com.stackify.api.LogMsgGroup)
+	 */
+	@Override
+	public void send(final LogMsgGroup group) throws Exception {
+		if (!spool.isEmpty()) {
+			spool(group, null);
+			return;
+		}
+
+		try {
+			delegate.send(group);
+		} catch (Exception e) {
+			spool(group, e);
+		}
+	}
+
+	/**
+	 * Appends a batch to the spool
+	 * @param group The batch
+	 * @param failure Why the batch was not sent (or null if it was not attempted)
+	 * @throws Exception the failure, if the batch cannot be spooled
+	 */
+	private void spool(final LogMsgGroup group, final Exception failure) throws Exception {
+		try {
+			preProcessor.execute(group);
+
+			if (spool.append(objectMapper.writeValueAsBytes(group))) {
+				LockSupport.unpark(replayThread);
+				return;
+			}
+
+			StatusLogger.getLogger().warn("Batch of {} log messages is larger than a spool segment", group.getMsgs().size());
+		} catch (IOException e) {
+			StatusLogger.getLogger().error("Unable to spool log messages", e);
+		}
+
+		if (failure != null) {
+			throw failure;
+		}
+
+		delegate.send(group);
+	}
+
+	/**
+	 * Replays the spool through the delegate until closed
+	 */
+	private void replay() {
+		long backoff = MIN_BACKOFF_NANOS;
+
+		while (running) {
+			byte[] record = spool.peek();
+
+			if (record == null) {
+				LockSupport.parkNanos(IDLE_NANOS);
+				continue;
+			}
+
+			LogMsgGroup group;
+
+			try {
+				group = objectMapper.readValue(record, LogMsgGroup.class);
+			} catch (IOException e) {
+				StatusLogger.getLogger().error("Discarding unreadable spooled batch", e);
+				spool.advance();
+				continue;
+			}
+
+			try {
+				delegate.send(group);
+				spool.advance();
+				backoff = MIN_BACKOFF_NANOS;
+			} catch (Exception e) {
+				LockSupport.parkNanos(backoff);
+				backoff = Math.min(backoff * 2, MAX_BACKOFF_NANOS);
+			}
+		}
+	}
+
+	/**
+	 * Stops replaying and closes the spool. Batches not yet replayed stay on disk.
+	 * @see java.io.Closeable#close()
+	 */
+	@Override
+	public void close() throws IOException {
+		running = false;
+		LockSupport.unpark(replayThread);
+
+		try {
+			replayThread.join(TimeUnit.SECONDS.toMillis(5));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+
+		spool.close();
+	}
+}
@@ -21,15 +21,25 @@ import com.stackify.api.common.ApiConfigurations;
 import com.stackify.api.common.log.LogAppender;
 import com.stackify.api.common.mask.Masker;
 import lombok.Getter;
+import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.core.Filter;
 import org.apache.logging.log4j.core.LogEvent;
 import org.apache.logging.log4j.core.config.plugins.Plugin;
-import org.apache.logging.log4j.core.config.plugins.PluginAttribute;
+import org.apache.logging.log4j.core.config.plugins.PluginBuilderAttribute;
+import org.apache.logging.log4j.core.config.plugins.PluginBuilderFactory;
 import org.apache.logging.log4j.core.config.plugins.PluginElement;
-import org.apache.logging.log4j.core.config.plugins.PluginFactory;
+import org.apache.logging.log4j.core.config.plugins.validation.constraints.Required;
+import org.apache.logging.log4j.status.StatusLogger;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.File;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Deflater;
+
 /**
  * Log4j 2.x logger appender for sending logs to Stackify.
  * <p>
@@ -66,6 +76,51 @@ public class StackifyLogAppender extends NonReentrantAppender {
      */
     private static final long serialVersionUID = -6565668877549998441L;
 
+    /**
+     * Default number of async ring buffer slots
+     */
+    private static final int DEFAULT_RING_SIZE = 8192;
+
+    /**
+     * Default number of async error lane slots
+     */
+    private static final int DEFAULT_ERROR_RING_SIZE = 1024;
+
+    /**
+     * Default wait of the block-with-timeout overflow policy (milliseconds)
+     */
+    private static final long DEFAULT_OVERFLOW_TIMEOUT = 100;
+
+    /**
+     * Default interval between dropped event reports (milliseconds)
+     */
+    private static final long DEFAULT_DROP_REPORT_INTERVAL = 60000;
+
+    /**
+     * Default cap on the estimated size of the events in the async ring buffer (32 MB)
+     */
+    private static final long DEFAULT_MAX_QUEUE_BYTES = 32L * 1024 * 1024;
+
+    /**
+     * Default bound on the total size of the spool files (256 MB)
+     */
+    private static final long DEFAULT_SPOOL_MAX_BYTES = 256L * 1024 * 1024;
+
+    /**
+     * Default size of each spool segment file (16 MB)
+     */
+    private static final int DEFAULT_SPOOL_SEGMENT_BYTES = 16 * 1024 * 1024;
+
+    /**
+     * How long stop() waits for the async consumers to drain (milliseconds)
+     */
+    private static final long DISPATCHER_STOP_TIMEOUT = 5000;
+
+    /**
+     * How often pending summaries are checked while no events arrive (milliseconds)
+     */
+    private static final long SWEEP_INTERVAL = 1000;
+
     /**
      * API URL (Appender configuration parameter)
      */
@@ -107,16 +162,324 @@ public class StackifyLogAppender extends NonReentrantAppender {
     @Getter
     private final String transport;
 
+    /**
+     * Comma separated system property names (or prefixes ending in *) reported as server variables
+     */
+    @Getter
+    private final String serverVariablesInclude;
+
+    /**
+     * Comma separated system property names (or prefixes ending in *) never reported as server variables
+     */
+    @Getter
+    private final String serverVariablesExclude;
+
+    /**
+     * How often (milliseconds) the server variables snapshot is rebuilt when the system properties have not changed
+     */
+    @Getter
+    private final long serverVariablesRefreshInterval;
+
+    /**
+     * Convert events on background threads instead of the calling thread
+     */
+    @Getter
+    private final boolean async;
+
+    /**
+     * Number of preallocated async ring buffer slots (rounded up to a power of two)
+     */
+    @Getter
+    private final int ringSize;
+
+    /**
+     * How async consumer threads wait for events
+     */
+    @Getter
+    private final WaitStrategy waitStrategy;
+
+    /**
+     * What the calling thread does when the async ring buffer is full
+     */
+    @Getter
+    private final OverflowPolicy overflowPolicy;
+
+    /**
+     * How long the block-with-timeout overflow policy waits for a free slot (milliseconds)
+     */
+    @Getter
+    private final long overflowTimeout;
+
+    /**
+     * Least severe level the drop-below-level overflow policy keeps when the async ring buffer is full
+     */
+    @Getter
+    private final Level overflowLevel;
+
+    /**
+     * How often dropped events are reported (milliseconds)
+     */
+    @Getter
+    private final long dropReportInterval;
+
+    /**
+     * Number of async consumer threads
+     */
+    @Getter
+    private final int asyncThreads;
+
+    /**
+     * Cap on the estimated size of the events in the async ring buffer (bytes), or zero for no cap
+     */
+    @Getter
+    private final long maxQueueBytes;
+
+    /**
+     * Number of async ring buffer slots reserved for errors (rounded up to a power of two), or zero to queue errors
+     * with the other events
+     */
+    @Getter
+    private final int errorRingSize;
+
+    /**
+     * What the calling thread does when the async error slots are full
+     */
+    @Getter
+    private final OverflowPolicy errorOverflowPolicy;
+
+    /**
+     * Directory batches are spooled to while sending fails (null for no spool)
+     */
+    @Getter
+    private final String spoolDir;
+
+    /**
+     * Bound on the total size of the spool files (bytes)
+     */
+    @Getter
+    private final long spoolMaxBytes;
+
+    /**
+     * Size of each spool segment file (bytes)
+     */
+    @Getter
+    private final int spoolSegmentBytes;
+
+    /**
+     * True to adapt the size and linger time of the batches sent to the measured send latency
+     */
+    @Getter
+    private final boolean adaptiveBatching;
+
+    /**
+     * Smallest adaptive batch size
+     */
+    @Getter
+    private final int batchMinSize;
+
+    /**
+     * Largest adaptive batch size
+     */
+    @Getter
+    private final int batchMaxSize;
+
+    /**
+     * Shortest time a partial batch waits for more messages (milliseconds)
+     */
+    @Getter
+    private final long batchMinLinger;
+
+    /**
+     * Longest time a partial batch waits for more messages (milliseconds)
+     */
+    @Getter
+    private final long batchMaxLinger;
+
+    /**
+     * Sends slower than this shrink the adaptive batch size (milliseconds)
+     */
+    @Getter
+    private final long batchTargetLatency;
+
+    /**
+     * Number of batches the direct transport sends at once (connections are only all reused if the
+     * http.maxConnections system property is at least as large)
+     */
+    @Getter
+    private final int maxInFlightBatches;
+
+    /**
+     * Batch compression codec (none, gzip, deflate, or a PayloadCodec name), or null for the transport's default
+     */
+    @Getter
+    private final String compression;
+
+    /**
+     * Compression level of the gzip and deflate codecs (0-9, or -1 for the default)
+     */
+    @Getter
+    private final int compressionLevel;
+
+    /**
+     * Size below which batches are not compressed (bytes)
+     */
+    @Getter
+    private final int compressionThreshold;
+
+    /**
+     * Encoding of the batches sent by the agent_socket_nio transport (protobuf, json, smile, cbor)
+     */
+    @Getter
+    private final String format;
+
+    /**
+     * Cap on the UTF-8 size of log messages (bytes), or zero for no cap
+     */
+    @Getter
+    private final int maxMessageBytes;
+
+    /**
+     * Cap on the estimated serialized size of exception traces (bytes), or zero for no cap
+     */
+    @Getter
+    private final int maxTraceBytes;
+
+    /**
+     * Number of converted exception stacks kept for reuse, or zero to convert every exception
+     */
+    @Getter
+    private final int errorCacheSize;
+
+    /**
+     * Error aggregation window (milliseconds), or zero to send every error
+     */
+    @Getter
+    private final long errorAggregationWindow;
+
+    /**
+     * Occurrences of an error sent in full per aggregation window
+     */
+    @Getter
+    private final int errorAggregationLimit;
+
+    /**
+     * Consecutive duplicate coalescing (off, thread, global)
+     */
+    @Getter
+    private final String coalesceDuplicates;
+
+    /**
+     * Longest pause between coalesced duplicates (milliseconds)
+     */
+    @Getter
+    private final long coalesceWindow;
+
+    /**
+     * Events less severe than this level are buffered per transaction and sent only if the transaction fails, or null
+     * to send every event
+     */
+    @Getter
+    private final Level flightRecorderLevel;
+
+    /**
+     * Cap on the estimated size of a transaction's buffered events (bytes)
+     */
+    @Getter
+    private final int flightRecorderTransactionBytes;
+
+    /**
+     * Cap on the estimated size of all buffered events (bytes)
+     */
+    @Getter
+    private final long flightRecorderMaxBytes;
+
+    /**
+     * Idle time after which a transaction's buffered events are discarded (milliseconds). Nothing marks the end of a
+     * transaction, so one that has logged nothing for this long is assumed to have ended cleanly; a transaction that
+     * fails after a longer pause is sent without the events buffered before the pause.
+     */
+    @Getter
+    private final long flightRecorderIdle;
+
+    /**
+     * Fraction of (non error) events sent when no sample rate matches them
+     */
+    @Getter
+    private final double sampleRate;
+
+    /**
+     * Sample rates by level and logger prefix
+     */
+    @Getter
+    private final SampleRate[] sampleRates;
+
+    /**
+     * Rate limits by logger name prefix
+     */
+    @Getter
+    private final RateLimit[] rateLimits;
+
+    /**
+     * How often throttled events are reported (milliseconds)
+     */
+    @Getter
+    private final long rateLimitReportInterval;
+
     /**
      * Generic log appender
      */
-    private LogAppender<LogEvent> logAppender;
+    private TransportLogAppender logAppender;
 
     /**
 	 * The logger
 	 */
 	private static final Logger LOGGER = LoggerFactory.getLogger(StackifyLogAppender.class);
 
+    /**
+     * Cache of converted exception stacks (null when disabled)
+     */
+    private ErrorItemCache errorCache;
+
+    /**
+     * Consecutive duplicate coalescing (null when disabled)
+     */
+    private DuplicateCoalescer coalescer;
+
+    /**
+     * Transaction flight recorder (null when disabled)
+     */
+    private FlightRecorder flightRecorder;
+
+    /**
+     * Level and logger sampling (null when every event is sent)
+     */
+    private Sampler sampler;
+
+    /**
+     * Per logger rate limiting (null when no limit is set)
+     */
+    private RateLimiter rateLimiter;
+
+    /**
+     * Async dispatcher (null when the appender converts events on the calling thread)
+     */
+    private AsyncEventDispatcher dispatcher;
+
+    /**
+     * Sends pending summaries and repeat events while no events arrive (null when nothing is aggregated or coalesced)
+     */
+    private ScheduledExecutorService sweeper;
+
+    /**
+     * Creates a builder for the appender
+     *
+     * @return Builder
+     */
+    @PluginBuilderFactory
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
     /**
      * Factory method for the appender
      *
@@ -131,18 +494,19 @@ public class StackifyLogAppender extends NonReentrantAppender {
      * @param masks       Masks
      * @param transport   (direct, agent_socket)
      * @return StackifyLogAppender
+     * @deprecated Use {@link #newBuilder()}
      */
-    @PluginFactory
-    public static StackifyLogAppender createAppender(@PluginAttribute("name") final String name,
-                                                     @PluginElement("filters") final Filter filter,
-                                                     @PluginAttribute("apiUrl") final String apiUrl,
-                                                     @PluginAttribute("apiKey") final String apiKey,
-                                                     @PluginAttribute("application") final String application,
-                                                     @PluginAttribute("environment") final String environment,
-                                                     @PluginAttribute("skipJson") final String skipJson,
-                                                     @PluginAttribute("maskEnabled") final String maskEnabled,
-                                                     @PluginElement("mask") final Mask[] masks,
-                                                     @PluginAttribute("transport") final String transport) {
+    @Deprecated
+    public static StackifyLogAppender createAppender(final String name,
+                                                     final Filter filter,
+                                                     final String apiUrl,
+                                                     final String apiKey,
+                                                     final String application,
+                                                     final String environment,
+                                                     final String skipJson,
+                                                     final String maskEnabled,
+                                                     final Mask[] masks,
+                                                     final String transport) {
         return new StackifyLogAppender(name,
                 filter,
                 apiUrl,
@@ -155,6 +519,35 @@ public class StackifyLogAppender extends NonReentrantAppender {
                 transport);
     }
 
+    /**
+     * Adds a mask limited to the message or to MDC/NDC values
+     *
+     * @param fieldMasker The field masks
+     * @param mask        The mask
+     */
+    private static void addFieldMask(final FieldMasker fieldMasker, final Mask mask) {
+        if (!Mask.SCOPE_ALL.equals(mask.getScope()) && !Mask.SCOPE_MDC.equals(mask.getScope()) && !Mask.SCOPE_MESSAGE.equals(mask.getScope())) {
+            StatusLogger.getLogger().warn("Ignoring Stackify mask {}: unknown scope {}", mask.getValue(), mask.getScope());
+            return;
+        }
+
+        if (!mask.isEnabled()) {
+            return;
+        }
+
+        if (mask.getKey() != null) {
+            if (Mask.SCOPE_MDC.equals(mask.getScope())) {
+                fieldMasker.addKeyMask(mask.getKey(), mask.getValue());
+            } else {
+                StatusLogger.getLogger().warn("Ignoring Stackify mask {}: key {} requires scope {}", mask.getValue(), mask.getKey(), Mask.SCOPE_MDC);
+            }
+        } else if (Mask.SCOPE_MDC.equals(mask.getScope())) {
+            fieldMasker.addMdcMask(mask.getValue());
+        } else {
+            fieldMasker.addMessageMask(mask.getValue());
+        }
+    }
+
     /**
      * Constructor.
      *
@@ -168,7 +561,9 @@ public class StackifyLogAppender extends NonReentrantAppender {
      * @param maskEnabled Mask Enabled
      * @param masks       Masks
      * @param transport   (direct, agent_socket)
+     * @deprecated Use {@link #StackifyLogAppender(Builder)}
      */
+    @Deprecated
     protected StackifyLogAppender(final String name,
                                   final Filter filter,
                                   final String apiUrl,
@@ -179,16 +574,79 @@ public class StackifyLogAppender extends NonReentrantAppender {
                                   final boolean maskEnabled,
                                   final Mask[] masks,
                                   final String transport) {
-        super(name, filter, null);
-
-        this.apiUrl = (apiUrl != null) ? apiUrl : DEFAULT_API_URL;
-        this.apiKey = apiKey;
-        this.application = application;
-        this.environment = environment;
-        this.skipJson = skipJson;
-        this.maskEnabled = maskEnabled;
-        this.masks = masks;
-        this.transport = transport;
+        this(newBuilder()
+                .setName(name)
+                .setFilter(filter)
+                .setApiUrl(apiUrl)
+                .setApiKey(apiKey)
+                .setApplication(application)
+                .setEnvironment(environment)
+                .setSkipJson(skipJson)
+                .setMaskEnabled(maskEnabled)
+                .setMasks(masks)
+                .setTransport(transport));
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param builder The appender configuration
+     */
+    protected StackifyLogAppender(final Builder builder) {
+        super(builder.name, builder.filter, null);
+
+        this.apiUrl = (builder.apiUrl != null) ? builder.apiUrl : DEFAULT_API_URL;
+        this.apiKey = builder.apiKey;
+        this.application = builder.application;
+        this.environment = builder.environment;
+        this.skipJson = builder.skipJson;
+        this.maskEnabled = builder.maskEnabled;
+        this.masks = builder.masks;
+        this.transport = builder.transport;
+        this.serverVariablesInclude = builder.serverVariablesInclude;
+        this.serverVariablesExclude = builder.serverVariablesExclude;
+        this.serverVariablesRefreshInterval = builder.serverVariablesRefreshInterval;
+        this.async = builder.async;
+        this.ringSize = builder.ringSize;
+        this.waitStrategy = WaitStrategy.fromString(builder.waitStrategy);
+        this.overflowPolicy = OverflowPolicy.fromString(builder.overflowPolicy);
+        this.overflowTimeout = builder.overflowTimeout;
+        this.overflowLevel = Level.toLevel(builder.overflowLevel, Level.WARN);
+        this.dropReportInterval = builder.dropReportInterval;
+        this.asyncThreads = builder.asyncThreads;
+        this.maxQueueBytes = builder.maxQueueBytes;
+        this.errorRingSize = builder.errorRingSize;
+        this.errorOverflowPolicy = OverflowPolicy.fromString(builder.errorOverflowPolicy);
+        this.spoolDir = builder.spoolDir;
+        this.spoolMaxBytes = builder.spoolMaxBytes;
+        this.spoolSegmentBytes = builder.spoolSegmentBytes;
+        this.adaptiveBatching = builder.adaptiveBatching;
+        this.batchMinSize = builder.batchMinSize;
+        this.batchMaxSize = builder.batchMaxSize;
+        this.batchMinLinger = builder.batchMinLinger;
+        this.batchMaxLinger = builder.batchMaxLinger;
+        this.batchTargetLatency = builder.batchTargetLatency;
+        this.maxInFlightBatches = builder.maxInFlightBatches;
+        this.compression = ((builder.compression != null) && !builder.compression.trim().isEmpty()) ? builder.compression.trim() : null;
+        this.compressionLevel = builder.compressionLevel;
+        this.compressionThreshold = builder.compressionThreshold;
+        this.format = builder.format;
+        this.maxMessageBytes = builder.maxMessageBytes;
+        this.maxTraceBytes = builder.maxTraceBytes;
+        this.errorCacheSize = builder.errorCacheSize;
+        this.errorAggregationWindow = builder.errorAggregationWindow;
+        this.errorAggregationLimit = builder.errorAggregationLimit;
+        this.coalesceDuplicates = (builder.coalesceDuplicates != null) ? builder.coalesceDuplicates.trim() : DuplicateCoalescer.MODE_OFF;
+        this.coalesceWindow = builder.coalesceWindow;
+        this.flightRecorderLevel = ((builder.flightRecorderLevel != null) && !builder.flightRecorderLevel.trim().isEmpty()
+                && !"off".equalsIgnoreCase(builder.flightRecorderLevel.trim())) ? Level.toLevel(builder.flightRecorderLevel.trim(), Level.INFO) : null;
+        this.flightRecorderTransactionBytes = builder.flightRecorderTransactionBytes;
+        this.flightRecorderMaxBytes = builder.flightRecorderMaxBytes;
+        this.flightRecorderIdle = builder.flightRecorderIdle;
+        this.sampleRate = builder.sampleRate;
+        this.sampleRates = builder.sampleRates;
+        this.rateLimits = builder.rateLimits;
+        this.rateLimitReportInterval = builder.rateLimitReportInterval;
     }
 
     /**
@@ -210,8 +668,9 @@ public class StackifyLogAppender extends NonReentrantAppender {
 
             // setup masker
 
-            Masker masker = new Masker();
-            ;
+            Masker masker = new CompiledMasker();
+            FieldMasker fieldMasker = new FieldMasker();
+
             if (maskEnabled) {
 
                 // set default maks
@@ -220,41 +679,245 @@ public class StackifyLogAppender extends NonReentrantAppender {
 
                 if (masks != null && masks.length > 0) {
                     for (Mask mask : masks) {
-                        if (mask.isEnabled()) {
+                        if (mask.isScoped()) {
+                            addFieldMask(fieldMasker, mask);
+                        } else if (mask.isEnabled()) {
                             masker.addMask(mask.getValue());
                         } else {
                             masker.removeMask(mask.getValue());
                         }
                     }
                 }
+            } else if (masks != null && masks.length > 0) {
+                StatusLogger.getLogger().warn("Ignoring {} Stackify masks: maskEnabled is false", masks.length);
             }
 
+            // setup the server variables snapshot
+
+            ServerVariables serverVariables = new ServerVariables(serverVariablesRefreshInterval, serverVariablesInclude, serverVariablesExclude);
+
             // build the log appender
 
             try {
-                this.logAppender = new LogAppender<LogEvent>(clientName, new LogEventAdapter(apiConfig.getEnvDetail()), masker, skipJson);
-                this.logAppender.activate(apiConfig);
-            } catch (Exception e) {
-                error("Exception starting the Stackify_LogBackgroundService", e);
-            }
-        }
-    }
+                this.errorCache = (errorCacheSize > 0) ? new ErrorItemCache(errorCacheSize) : null;
 
-    /**
-     * @see com.stackify.log.log4j2.NonReentrantAppender#subAppend(org.apache.logging.log4j.core.LogEvent)
-     */
+                ConversionContextAdapter eventAdapter = new ConversionContextAdapter(new LogEventAdapter(apiConfig.getEnvDetail(), serverVariables,
+                        maxMessageBytes, maxTraceBytes, fieldMasker, errorCache));
+
+                File spool = ((spoolDir != null) && !spoolDir.trim().isEmpty()) ? new File(spoolDir.trim()) : null;
+
+                ErrorAggregator errorAggregator = (errorAggregationWindow > 0)
+                        ? new ErrorAggregator(errorAggregationWindow, errorAggregationLimit, fieldMasker) : null;
+
+                BatchController batchController = adaptiveBatching
+                        ? new BatchController(batchMinSize, batchMaxSize, batchMinLinger, batchMaxLinger, batchTargetLatency) : null;
+
+                PayloadCompressor compressor = (compression != null)
+                        ? new PayloadCompressor(PayloadCompressor.codec(compression, compressionLevel), compressionThreshold) : null;
+
+                this.logAppender = new TransportLogAppender(clientName, eventAdapter, masker, skipJson, spool, spoolMaxBytes, spoolSegmentBytes,
+                        errorAggregator, batchController, maxInFlightBatches, compressor, BatchFormat.forName(format));
+
+                this.logAppender.activate(apiConfig);
+
+                if (async) {
+                    final LogAppender<ConversionContext> target = this.logAppender;
+
+                    this.dispatcher = new AsyncEventDispatcher("Stackify_LogAsyncDispatcher-" + getName(), ringSize, asyncThreads, waitStrategy, overflowPolicy,
+                            overflowTimeout, overflowLevel, dropReportInterval, maxQueueBytes, errorRingSize, errorOverflowPolicy,
+                            new AsyncEventDispatcher.Handler() {
+                                @Override
+                                public void handle(final ConversionContext context) {
+                                    try {
+                                        target.append(context);
+                                    } catch (Exception e) {
+                                        error("Exception appending event to Stackify Log Appender", context.getEvent(), e);
+                                    }
+                                }
+                            });
+                    this.dispatcher.start();
+                }
+
+                if ((sampleRate < 1.0) || ((sampleRates != null) && (sampleRates.length > 0))) {
+                    this.sampler = new Sampler(sampleRate, sampleRates);
+                }
+
+                if ((rateLimits != null) && (rateLimits.length > 0)) {
+                    this.rateLimiter = new RateLimiter(rateLimits, rateLimitReportInterval);
+                }
+
+                if (flightRecorderLevel != null) {
+                    this.flightRecorder = new FlightRecorder(flightRecorderLevel, flightRecorderTransactionBytes, flightRecorderMaxBytes, flightRecorderIdle,
+                            new FlightRecorder.Sink() {
+                                @Override
+                                public void send(final LogEvent event, final EventContext eventContext) {
+                                    StackifyLogAppender.this.send(event, eventContext);
+                                }
+                            });
+                }
+
+                if (!DuplicateCoalescer.MODE_OFF.equalsIgnoreCase(coalesceDuplicates)) {
+                    this.coalescer = new DuplicateCoalescer(coalesceDuplicates, coalesceWindow, new DuplicateCoalescer.Sink() {
+                        @Override
+                        public void send(final LogEvent event, final EventContext eventContext) {
+                            route(event, eventContext);
+                        }
+                    });
+                }
+
+                if ((errorAggregator != null) || (coalescer != null) || (rateLimiter != null)) {
+                    this.sweeper = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+                        @Override
+                        public Thread newThread(final Runnable runnable) {
+                            Thread thread = new Thread(runnable, "Stackify_LogSweeper-" + getName());
+                            thread.setDaemon(true);
+                            return thread;
+                        }
+                    });
+                    this.sweeper.scheduleWithFixedDelay(new Runnable() {
+                        @Override
+                        public void run() {
+                            sweep();
+                        }
+                    }, SWEEP_INTERVAL, SWEEP_INTERVAL, TimeUnit.MILLISECONDS);
+                }
+            } catch (Exception e) {
+                error("Exception starting the Stackify_LogBackgroundService", e);
+            }
+        }
+    }
+
+    /**
+     * @see com.stackify.log.log4j2.NonReentrantAppender#subAppend(org.apache.logging.log4j.core.LogEvent)
+     */
     @Override
     protected void subAppend(final LogEvent event) {
         try {
             if (LOGGER.isDebugEnabled()) {
                 LOGGER.debug("#Log #Appender Logging message: {}", event);
             }
-            this.logAppender.append(event);
+            boolean error = LogEventAdapter.isError(event);
+            EventContext eventContext = EventContext.capture(error);
+            if ((sampler != null) && !sampler.sample(event, eventContext.getTransactionId())) {
+                return;
+            }
+            if ((rateLimiter != null) && !error && !rateLimiter.tryAcquire(event.getLoggerName(), System.nanoTime())) {
+                return;
+            }
+            if ((coalescer != null) && !coalescer.offer(event)) {
+                return;
+            }
+            route(event, eventContext);
         } catch (Exception e) {
             error("Exception appending event to Stackify Log Appender", event, e);
         }
     }
 
+    /**
+     * Passes an event through the transaction flight recorder, sending it unless it was buffered
+     *
+     * @param event        The logging event
+     * @param eventContext Request context of the event
+     */
+    private void route(final LogEvent event, final EventContext eventContext) {
+        if ((flightRecorder == null) || flightRecorder.offer(event, eventContext)) {
+            send(event, eventContext);
+        }
+    }
+
+    /**
+     * Sends an event to the async dispatcher, or converts it on the calling thread
+     *
+     * @param event        The logging event
+     * @param eventContext Request context of the event
+     */
+    private void send(final LogEvent event, final EventContext eventContext) {
+        if (dispatcher != null) {
+            dispatcher.publish(event, eventContext);
+        } else {
+            this.logAppender.append(new ConversionContext(event, eventContext));
+        }
+    }
+
+    /**
+     * Sends the summaries, repeat events and throttle report that are due, from the sweeper thread
+     */
+    private void sweep() {
+        try {
+            long now = System.currentTimeMillis();
+
+            if (coalescer != null) {
+                coalescer.sweepIfDue(now);
+            }
+
+            if (rateLimiter != null) {
+                LogEvent report = rateLimiter.pollReport(now);
+
+                if (report != null) {
+                    send(report, EventContext.EMPTY);
+                }
+            }
+
+            this.logAppender.sweep(now);
+        } catch (Exception e) {
+            error("Exception sending summaries to Stackify Log Appender", e);
+        }
+    }
+
+    /**
+     * Gets the hit rate of the exception stack cache
+     *
+     * @return Fraction of converted throwables (causes included) that reused a cached stack, or zero if the cache is
+     * disabled or nothing was converted yet
+     */
+    public double getErrorCacheHitRate() {
+        ErrorItemCache cache = errorCache;
+        return (cache != null) ? cache.getHitRate() : 0.0;
+    }
+
+    /**
+     * Gets the effective sample rate
+     *
+     * @return Fraction of the (non error) events subject to sampling that were sent, or one if sampling is disabled or
+     * nothing was sampled yet
+     */
+    public double getEffectiveSampleRate() {
+        Sampler current = sampler;
+        return (current != null) ? current.getEffectiveRate() : 1.0;
+    }
+
+    /**
+     * Gets the number of sampled out events
+     *
+     * @return Number of events that were not sent because of sampling
+     */
+    public long getSampledOutCount() {
+        Sampler current = sampler;
+        return (current != null) ? current.getSampledOut() : 0;
+    }
+
+    /**
+     * Gets the number of events discarded by the flight recorder
+     *
+     * @return Number of buffered events that were not sent because their transaction did not fail (or is assumed not
+     * to have failed), or did not fit the buffer caps
+     */
+    public long getFlightRecorderDiscardedCount() {
+        FlightRecorder current = flightRecorder;
+        return (current != null) ? current.getDiscarded() : 0;
+    }
+
+    /**
+     * Gets the number of throttled events
+     *
+     * @return Number of events that were not sent because of a rate limit
+     */
+    public long getThrottledCount() {
+        RateLimiter current = rateLimiter;
+        return (current != null) ? current.getTotal() : 0;
+    }
+
+
     /**
      * @see org.apache.logging.log4j.core.filter.AbstractFilterable#stop()
      */
@@ -262,10 +925,498 @@ public class StackifyLogAppender extends NonReentrantAppender {
     public void stop() {
         super.stop();
 
+        if (sweeper != null) {
+            sweeper.shutdown();
+
+            try {
+                sweeper.awaitTermination(SWEEP_INTERVAL, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        if (coalescer != null) {
+            try {
+                coalescer.flush();
+            } catch (Exception e) {
+                error("Exception sending coalesced duplicates to Stackify Log Appender", e);
+            }
+        }
+
+        if (flightRecorder != null) {
+            long discarded = flightRecorder.clear();
+
+            if (discarded > 0) {
+                StatusLogger.getLogger().info("Stackify flight recorder discarded {} buffered events of unfinished transactions on stop", discarded);
+            }
+        }
+
+        if (rateLimiter != null) {
+            try {
+                LogEvent report = rateLimiter.drainReport(System.currentTimeMillis());
+                if (report != null) {
+                    send(report, EventContext.EMPTY);
+                }
+            } catch (Exception e) {
+                error("Exception reporting throttled events to Stackify Log Appender", e);
+            }
+        }
+
+        if (dispatcher != null) {
+            dispatcher.stop(DISPATCHER_STOP_TIMEOUT);
+        }
+
         try {
             this.logAppender.close();
         } catch (Exception e) {
             error("Exception closing Stackify Log Appender", e);
         }
     }
+
+    /**
+     * Builds StackifyLogAppender instances from the appender configuration
+     */
+    public static class Builder implements org.apache.logging.log4j.core.util.Builder<StackifyLogAppender> {
+
+        @PluginBuilderAttribute
+        @Required(message = "No name provided for StackifyLogAppender")
+        private String name;
+
+        @PluginElement("filters")
+        private Filter filter;
+
+        @PluginBuilderAttribute
+        private String apiUrl;
+
+        @PluginBuilderAttribute
+        private String apiKey;
+
+        @PluginBuilderAttribute
+        private String application;
+
+        @PluginBuilderAttribute
+        private String environment;
+
+        @PluginBuilderAttribute
+        private boolean skipJson;
+
+        @PluginBuilderAttribute
+        private boolean maskEnabled;
+
+        @PluginElement("mask")
+        private Mask[] masks;
+
+        @PluginBuilderAttribute
+        private String transport;
+
+        @PluginBuilderAttribute
+        private String serverVariablesInclude;
+
+        @PluginBuilderAttribute
+        private String serverVariablesExclude;
+
+        @PluginBuilderAttribute
+        private long serverVariablesRefreshInterval = ServerVariables.DEFAULT_REFRESH_INTERVAL;
+
+        @PluginBuilderAttribute
+        private boolean async;
+
+        @PluginBuilderAttribute
+        private int ringSize = DEFAULT_RING_SIZE;
+
+        @PluginBuilderAttribute
+        private String waitStrategy;
+
+        @PluginBuilderAttribute
+        private String overflowPolicy;
+
+        @PluginBuilderAttribute
+        private long overflowTimeout = DEFAULT_OVERFLOW_TIMEOUT;
+
+        @PluginBuilderAttribute
+        private String overflowLevel;
+
+        @PluginBuilderAttribute
+        private long dropReportInterval = DEFAULT_DROP_REPORT_INTERVAL;
+
+        @PluginBuilderAttribute
+        private int asyncThreads = 1;
+
+        @PluginBuilderAttribute
+        private long maxQueueBytes = DEFAULT_MAX_QUEUE_BYTES;
+
+        @PluginBuilderAttribute
+        private int errorRingSize = DEFAULT_ERROR_RING_SIZE;
+
+        @PluginBuilderAttribute
+        private String errorOverflowPolicy;
+
+        @PluginBuilderAttribute
+        private String spoolDir;
+
+        @PluginBuilderAttribute
+        private long spoolMaxBytes = DEFAULT_SPOOL_MAX_BYTES;
+
+        @PluginBuilderAttribute
+        private int spoolSegmentBytes = DEFAULT_SPOOL_SEGMENT_BYTES;
+
+        @PluginBuilderAttribute
+        private boolean adaptiveBatching;
+
+        @PluginBuilderAttribute
+        private int batchMinSize = BatchController.DEFAULT_MIN_SIZE;
+
+        @PluginBuilderAttribute
+        private int batchMaxSize = BatchController.DEFAULT_MAX_SIZE;
+
+        @PluginBuilderAttribute
+        private long batchMinLinger = BatchController.DEFAULT_MIN_LINGER;
+
+        @PluginBuilderAttribute
+        private long batchMaxLinger = BatchController.DEFAULT_MAX_LINGER;
+
+        @PluginBuilderAttribute
+        private long batchTargetLatency = BatchController.DEFAULT_TARGET_LATENCY;
+
+        @PluginBuilderAttribute
+        private int maxInFlightBatches = 1;
+
+        @PluginBuilderAttribute
+        private String compression;
+
+        @PluginBuilderAttribute
+        private int compressionLevel = Deflater.DEFAULT_COMPRESSION;
+
+        @PluginBuilderAttribute
+        private int compressionThreshold = PayloadCompressor.DEFAULT_THRESHOLD;
+
+        @PluginBuilderAttribute
+        private String format;
+
+        @PluginBuilderAttribute
+        private int maxMessageBytes;
+
+        @PluginBuilderAttribute
+        private int maxTraceBytes;
+
+        @PluginBuilderAttribute
+        private int errorCacheSize;
+
+        @PluginBuilderAttribute
+        private long errorAggregationWindow;
+
+        @PluginBuilderAttribute
+        private int errorAggregationLimit = ErrorAggregator.DEFAULT_LIMIT;
+
+        @PluginBuilderAttribute
+        private String coalesceDuplicates = DuplicateCoalescer.MODE_OFF;
+
+        @PluginBuilderAttribute
+        private long coalesceWindow = DuplicateCoalescer.DEFAULT_WINDOW;
+
+        @PluginBuilderAttribute
+        private String flightRecorderLevel;
+
+        @PluginBuilderAttribute
+        private int flightRecorderTransactionBytes = FlightRecorder.DEFAULT_TRANSACTION_BYTES;
+
+        @PluginBuilderAttribute
+        private long flightRecorderMaxBytes = FlightRecorder.DEFAULT_MAX_BYTES;
+
+        @PluginBuilderAttribute
+        private long flightRecorderIdle = FlightRecorder.DEFAULT_IDLE_MILLIS;
+
+        @PluginBuilderAttribute
+        private double sampleRate = 1.0;
+
+        @PluginElement("sampleRate")
+        private SampleRate[] sampleRates;
+
+        @PluginElement("rateLimit")
+        private RateLimit[] rateLimits;
+
+        @PluginBuilderAttribute
+        private long rateLimitReportInterval = DEFAULT_DROP_REPORT_INTERVAL;
+
+        public Builder setName(final String name) {
+            this.name = name;
+            return this;
+        }
+
+        public Builder setFilter(final Filter filter) {
+            this.filter = filter;
+            return this;
+        }
+
+        public Builder setApiUrl(final String apiUrl) {
+            this.apiUrl = apiUrl;
+            return this;
+        }
+
+        public Builder setApiKey(final String apiKey) {
+            this.apiKey = apiKey;
+            return this;
+        }
+
+        public Builder setApplication(final String application) {
+            this.application = application;
+            return this;
+        }
+
+        public Builder setEnvironment(final String environment) {
+            this.environment = environment;
+            return this;
+        }
+
+        public Builder setSkipJson(final boolean skipJson) {
+            this.skipJson = skipJson;
+            return this;
+        }
+
+        public Builder setMaskEnabled(final boolean maskEnabled) {
+            this.maskEnabled = maskEnabled;
+            return this;
+        }
+
+        public Builder setMasks(final Mask[] masks) {
+            this.masks = masks;
+            return this;
+        }
+
+        public Builder setTransport(final String transport) {
+            this.transport = transport;
+            return this;
+        }
+
+        public Builder setServerVariablesInclude(final String serverVariablesInclude) {
+            this.serverVariablesInclude = serverVariablesInclude;
+            return this;
+        }
+
+        public Builder setServerVariablesExclude(final String serverVariablesExclude) {
+            this.serverVariablesExclude = serverVariablesExclude;
+            return this;
+        }
+
+        public Builder setServerVariablesRefreshInterval(final long serverVariablesRefreshInterval) {
+            this.serverVariablesRefreshInterval = serverVariablesRefreshInterval;
+            return this;
+        }
+
+        public Builder setAsync(final boolean async) {
+            this.async = async;
+            return this;
+        }
+
+        public Builder setRingSize(final int ringSize) {
+            this.ringSize = ringSize;
+            return this;
+        }
+
+        public Builder setWaitStrategy(final String waitStrategy) {
+            this.waitStrategy = waitStrategy;
+            return this;
+        }
+
+        public Builder setOverflowPolicy(final String overflowPolicy) {
+            this.overflowPolicy = overflowPolicy;
+            return this;
+        }
+
+        public Builder setOverflowTimeout(final long overflowTimeout) {
+            this.overflowTimeout = overflowTimeout;
+            return this;
+        }
+
+        public Builder setOverflowLevel(final String overflowLevel) {
+            this.overflowLevel = overflowLevel;
+            return this;
+        }
+
+        public Builder setDropReportInterval(final long dropReportInterval) {
+            this.dropReportInterval = dropReportInterval;
+            return this;
+        }
+
+        public Builder setAsyncThreads(final int asyncThreads) {
+            this.asyncThreads = asyncThreads;
+            return this;
+        }
+
+        public Builder setMaxQueueBytes(final long maxQueueBytes) {
+            this.maxQueueBytes = maxQueueBytes;
+            return this;
+        }
+
+        public Builder setErrorRingSize(final int errorRingSize) {
+            this.errorRingSize = errorRingSize;
+            return this;
+        }
+
+        public Builder setErrorOverflowPolicy(final String errorOverflowPolicy) {
+            this.errorOverflowPolicy = errorOverflowPolicy;
+            return this;
+        }
+
+        public Builder setSpoolDir(final String spoolDir) {
+            this.spoolDir = spoolDir;
+            return this;
+        }
+
+        public Builder setSpoolMaxBytes(final long spoolMaxBytes) {
+            this.spoolMaxBytes = spoolMaxBytes;
+            return this;
+        }
+
+        public Builder setSpoolSegmentBytes(final int spoolSegmentBytes) {
+            this.spoolSegmentBytes = spoolSegmentBytes;
+            return this;
+        }
+
+        public Builder setAdaptiveBatching(final boolean adaptiveBatching) {
+            this.adaptiveBatching = adaptiveBatching;
+            return this;
+        }
+
+        public Builder setBatchMinSize(final int batchMinSize) {
+            this.batchMinSize = batchMinSize;
+            return this;
+        }
+
+        public Builder setBatchMaxSize(final int batchMaxSize) {
+            this.batchMaxSize = batchMaxSize;
+            return this;
+        }
+
+        public Builder setBatchMinLinger(final long batchMinLinger) {
+            this.batchMinLinger = batchMinLinger;
+            return this;
+        }
+
+        public Builder setBatchMaxLinger(final long batchMaxLinger) {
+            this.batchMaxLinger = batchMaxLinger;
+            return this;
+        }
+
+        public Builder setBatchTargetLatency(final long batchTargetLatency) {
+            this.batchTargetLatency = batchTargetLatency;
+            return this;
+        }
+
+        public Builder setMaxInFlightBatches(final int maxInFlightBatches) {
+            this.maxInFlightBatches = maxInFlightBatches;
+            return this;
+        }
+
+        public Builder setCompression(final String compression) {
+            this.compression = compression;
+            return this;
+        }
+
+        public Builder setCompressionLevel(final int compressionLevel) {
+            this.compressionLevel = compressionLevel;
+            return this;
+        }
+
+        public Builder setCompressionThreshold(final int compressionThreshold) {
+            this.compressionThreshold = compressionThreshold;
+            return this;
+        }
+
+        public Builder setFormat(final String format) {
+            this.format = format;
+            return this;
+        }
+
+        public Builder setMaxMessageBytes(final int maxMessageBytes) {
+            this.maxMessageBytes = maxMessageBytes;
+            return this;
+        }
+
+        public Builder setMaxTraceBytes(final int maxTraceBytes) {
+            this.maxTraceBytes = maxTraceBytes;
+            return this;
+        }
+
+        public Builder setErrorCacheSize(final int errorCacheSize) {
+            this.errorCacheSize = errorCacheSize;
+            return this;
+        }
+
+        public Builder setErrorAggregationWindow(final long errorAggregationWindow) {
+            this.errorAggregationWindow = errorAggregationWindow;
+            return this;
+        }
+
+        public Builder setErrorAggregationLimit(final int errorAggregationLimit) {
+            this.errorAggregationLimit = errorAggregationLimit;
+            return this;
+        }
+
+        public Builder setCoalesceDuplicates(final String coalesceDuplicates) {
+            this.coalesceDuplicates = coalesceDuplicates;
+            return this;
+        }
+
+        public Builder setCoalesceWindow(final long coalesceWindow) {
+            this.coalesceWindow = coalesceWindow;
+            return this;
+        }
+
+        public Builder setFlightRecorderLevel(final String flightRecorderLevel) {
+            this.flightRecorderLevel = flightRecorderLevel;
+            return this;
+        }
+
+        public Builder setFlightRecorderTransactionBytes(final int flightRecorderTransactionBytes) {
+            this.flightRecorderTransactionBytes = flightRecorderTransactionBytes;
+            return this;
+        }
+
+        public Builder setFlightRecorderMaxBytes(final long flightRecorderMaxBytes) {
+            this.flightRecorderMaxBytes = flightRecorderMaxBytes;
+            return this;
+        }
+
+        public Builder setFlightRecorderIdle(final long flightRecorderIdle) {
+            this.flightRecorderIdle = flightRecorderIdle;
+            return this;
+        }
+
+        public Builder setSampleRate(final double sampleRate) {
+            this.sampleRate = sampleRate;
+            return this;
+        }
+
+        public Builder setSampleRates(final SampleRate[] sampleRates) {
+            this.sampleRates = sampleRates;
+            return this;
+        }
+
+        public Builder setRateLimits(final RateLimit[] rateLimits) {
+            this.rateLimits = rateLimits;
+            return this;
+        }
+
+        public Builder setRateLimitReportInterval(final long rateLimitReportInterval) {
+            this.rateLimitReportInterval = rateLimitReportInterval;
+            return this;
+        }
+
+        /**
+         * @see org.apache.logging.log4j.core.util.Builder#build()
+         * @throws IllegalArgumentException if the compression codec cannot be found, the compression level is
+         * invalid, or the format is unknown or its Jackson module is missing
+         */
+        @Override
+        public StackifyLogAppender build() {
+
+            // fail here rather than on start, where the log appender would be left unset
+
+            PayloadCompressor.codec(compression, compressionLevel);
+            BatchFormat.forName(format);
+
+            return new StackifyLogAppender(this);
+        }
+    }
 }
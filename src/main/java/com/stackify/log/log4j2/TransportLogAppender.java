@@ -0,0 +1,351 @@
+/*
+ * Copyright 2026 Stackify
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stackify.log.log4j2;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.zip.Deflater;
+
+import org.apache.logging.log4j.core.LogEvent;
+
+import org.apache.logging.log4j.status.StatusLogger;
+
+import com.stackify.api.common.ApiConfiguration;
+import com.stackify.api.common.log.EventAdapter;
+import com.stackify.api.common.log.LogAppender;
+import com.stackify.api.common.log.LogTransport;
+import com.stackify.api.common.mask.Masker;
+
+/**
+ * LogAppender that adds the transports of this appender to the ones of the Stackify API: the agent_socket_nio
+ * transport, several batches in flight at once for the direct transport, the disk spool wrapped around whichever
+ * transport is configured, and adaptive batching in front of them. Storms of identical errors can be aggregated
+ * before they are converted.
+ */
+class TransportLogAppender extends LogAppender<ConversionContext> {
+
+	/**
+	 * Masker (also used by the transports)
+	 */
+	private final Masker masker;
+
+	/**
+	 * Mark messages w/ JSON w/ #SKIPJSON
+	 */
+	private final boolean skipJson;
+
+	/**
+	 * Spool directory (null for no spool)
+	 */
+	private final File spoolDir;
+
+	/**
+	 * Bound on the total size of the spool files
+	 */
+	private final long spoolMaxBytes;
+
+	/**
+	 * Size of each spool segment file
+	 */
+	private final int spoolSegmentBytes;
+
+	/**
+	 * Error storm aggregation (null when disabled)
+	 */
+	private final ErrorAggregator errorAggregator;
+
+	/**
+	 * Adaptive batch size and linger time (null when batching is not adaptive)
+	 */
+	private final BatchController batchController;
+
+	/**
+	 * Number of batches sent at once by the direct transport
+	 */
+	private final int maxInFlightBatches;
+
+	/**
+	 * Compresses batches sent by the direct and agent_socket_nio transports (null if compression is not configured)
+	 */
+	private final PayloadCompressor compressor;
+
+	/**
+	 * Encoding of the batches sent by the agent_socket_nio transport
+	 */
+	private final BatchFormat format;
+
+	/**
+	 * The agent channel transport (null unless activated with the agent_socket_nio transport)
+	 */
+	private AgentChannelLogTransport channelTransport;
+
+	/**
+	 * The spooling transport (null until activated, or if there is no spool)
+	 */
+	private SpoolingLogTransport spoolingTransport;
+
+	/**
+	 * The batching transport (null until activated, or if batching is not adaptive)
+	 */
+	private BatchingLogTransport batchingTransport;
+
+	/**
+	 * The in-flight transport (null until activated, or if batches are sent one at a time)
+	 */
+	private InFlightLogTransport inFlightTransport;
+
+	/**
+	 * Constructor
+	 * @param logger Logger project name
+	 * @param eventAdapter Adapter for logging framework events
+	 * @param masker Masker
+	 * @param skipJson Mark messages w/ JSON w/ #SKIPJSON
+	 * @param spoolDir Spool directory (null for no spool)
+	 * @param spoolMaxBytes Bound on the total size of the spool files
+	 * @param spoolSegmentBytes Size of each spool segment file
+	 * @param errorAggregator Error storm aggregation (null when disabled)
+	 * @param batchController Adaptive batch size and linger time (null when batching is not adaptive)
+	 * @param maxInFlightBatches Number of batches sent at once by the direct transport
+	 * @param compressor Compresses batches sent by the direct and agent_socket_nio transports (null if compression is
+	 * not configured)
+	 * @param format Encoding of the batches sent by the agent_socket_nio transport
+	 */
+	TransportLogAppender(final String logger,
+						 final EventAdapter<ConversionContext> eventAdapter,
+						 final Masker masker,
+						 final boolean skipJson,
+						 final File spoolDir,
+						 final long spoolMaxBytes,
+						 final int spoolSegmentBytes,
+						 final ErrorAggregator errorAggregator,
+						 final BatchController batchController,
+						 final int maxInFlightBatches,
+						 final PayloadCompressor compressor,
+						 final BatchFormat format) {
+		super(logger, eventAdapter, masker, skipJson);
+		this.masker = masker;
+		this.skipJson = skipJson;
+		this.spoolDir = spoolDir;
+		this.spoolMaxBytes = spoolMaxBytes;
+		this.spoolSegmentBytes = spoolSegmentBytes;
+		this.errorAggregator = errorAggregator;
+		this.batchController = batchController;
+		this.maxInFlightBatches = maxInFlightBatches;
+		this.compressor = compressor;
+		this.format = format;
+	}
+
+	/**
+	 * Sends the event unless it is aggregated, along with the summaries of aggregation windows that are over
+	 * @see com.stackify.api.common.log.LogAppender#append(java.lang.Object)
+	 */
+	@Override
+	public void append(final ConversionContext context) {
+		if (errorAggregator == null) {
+			super.append(context);
+			return;
+		}
+
+		long now = System.currentTimeMillis();
+
+		if (errorAggregator.isSweepDue(now)) {
+			appendSummaries(errorAggregator.drainSummaries(now));
+		}
+
+		if (errorAggregator.record(context)) {
+			super.append(context);
+		}
+	}
+
+	/**
+	 * Sends the summaries of the aggregation windows that are over, so that they are not held until the next event
+	 * @param now Current time (milliseconds)
+	 */
+	void sweep(final long now) {
+		if ((errorAggregator != null) && errorAggregator.isSweepDue(now)) {
+			appendSummaries(errorAggregator.drainSummaries(now));
+		}
+	}
+
+	/**
+	 * Sends aggregation summaries
+	 * @param summaries The summary events
+	 */
+	private void appendSummaries(final List<LogEvent> summaries) {
+		for (LogEvent summary : summaries) {
+			super.append(new ConversionContext(summary, EventContext.EMPTY));
+		}
+	}
+
+	/**
+	 * Creates the configured transport, wrapped with the spool if there is one, with several batches in flight if
+	 * they are sent by a transport that can do so, and with adaptive batching if it is enabled
+	 * @see com.stackify.api.common.log.LogAppender#getLogTransport(com.stackify.api.common.ApiConfiguration)
+	 */
+	@Override
+	protected LogTransport getLogTransport(final ApiConfiguration apiConfig) {
+		LogTransport transport = createSpoolingTransport(apiConfig);
+
+		if (inFlight(apiConfig)) {
+			int keepAlive = keepAliveConnections();
+
+			if (keepAlive < maxInFlightBatches) {
+				StatusLogger.getLogger().warn("maxInFlightBatches {} is more than the {} connections the JVM keeps alive per host,"
+						+ " raise the http.maxConnections system property to reuse them all", maxInFlightBatches, keepAlive);
+			}
+
+			inFlightTransport = new InFlightLogTransport(transport, maxInFlightBatches);
+			inFlightTransport.start();
+			transport = inFlightTransport;
+		}
+
+		if (batchController == null) {
+			return transport;
+		}
+
+		batchingTransport = new BatchingLogTransport(transport, batchController);
+		batchingTransport.start();
+		return batchingTransport;
+	}
+
+	/**
+	 * @return Number of idle connections the JVM keeps alive per host (the http.maxConnections system property, 5 if
+	 * it is not set or not positive)
+	 */
+	private static int keepAliveConnections() {
+		int keepAlive = Integer.getInteger("http.maxConnections", 5);
+		return (0 < keepAlive) ? keepAlive : 5;
+	}
+
+	/**
+	 * Creates the configured transport, wrapped with the spool if there is one. If the spool cannot be opened, logs
+	 * are sent without it.
+	 * @param apiConfig API configuration
+	 * @return The transport
+	 */
+	private LogTransport createSpoolingTransport(final ApiConfiguration apiConfig) {
+		LogTransport delegate = createTransport(apiConfig);
+
+		if (spoolDir == null) {
+			return delegate;
+		}
+
+		try {
+			spoolingTransport = new SpoolingLogTransport(delegate, new DiskSpool(spoolDir, spoolMaxBytes, spoolSegmentBytes), masker);
+			spoolingTransport.start();
+			return spoolingTransport;
+		} catch (IOException e) {
+			StatusLogger.getLogger().error("Unable to open spool directory {}, sending without a spool", spoolDir, e);
+			return delegate;
+		}
+	}
+
+	/**
+	 * @param apiConfig API configuration
+	 * @return True if several batches are sent at once (direct transport only)
+	 */
+	private boolean inFlight(final ApiConfiguration apiConfig) {
+		return (1 < maxInFlightBatches) && ApiConfiguration.TRANSPORT_DIRECT.equalsIgnoreCase(apiConfig.getTransport());
+	}
+
+	/**
+	 * Creates the configured transport. The direct transport is the appender's own when several batches are sent at
+	 * once or compression is configured (gzip by default, as in the Stackify API). The agent_socket_nio transport falls
+	 * back to agent_socket on JVMs without Unix domain socket channels.
+	 * @param apiConfig API configuration
+	 * @return The transport
+	 */
+	private LogTransport createTransport(final ApiConfiguration apiConfig) {
+		if (inFlight(apiConfig) || ((compressor != null) && ApiConfiguration.TRANSPORT_DIRECT.equalsIgnoreCase(apiConfig.getTransport()))) {
+			try {
+				return new DirectLogTransport(apiConfig, masker, skipJson,
+						(compressor != null) ? compressor : new PayloadCompressor(new DeflaterCodec(true, Deflater.DEFAULT_COMPRESSION), 0));
+			} catch (IOException e) {
+				StatusLogger.getLogger().error("Unable to use the appender's direct transport, sending with the Stackify API's", e);
+				return super.getLogTransport(apiConfig);
+			}
+		}
+
+		if (!AgentChannelLogTransport.TRANSPORT.equalsIgnoreCase(apiConfig.getTransport())) {
+			if (!format.isProtobuf()) {
+				StatusLogger.getLogger().warn("The {} format is only used by the {} transport", format.getName(), AgentChannelLogTransport.TRANSPORT);
+			}
+
+			return super.getLogTransport(apiConfig);
+		}
+
+		if (AgentChannelLogTransport.isUnixSocketSupported()) {
+			try {
+				channelTransport = new AgentChannelLogTransport(AgentChannelLogTransport.unixSocketConnector(apiConfig.getAgentSocketPath()),
+						masker, skipJson, AgentChannelLogTransport.DEFAULT_TIMEOUT_MILLIS, format, compressor);
+				return channelTransport;
+			} catch (IOException e) {
+				StatusLogger.getLogger().error("Unable to use the {} transport, sending with the {} transport", AgentChannelLogTransport.TRANSPORT,
+						ApiConfiguration.TRANSPORT_AGENT_SOCKET, e);
+			}
+		} else {
+			StatusLogger.getLogger().warn("The {} transport needs Java 16 or later, sending with the {} transport", AgentChannelLogTransport.TRANSPORT,
+					ApiConfiguration.TRANSPORT_AGENT_SOCKET);
+		}
+
+		return super.getLogTransport(apiConfig.toBuilder().transport(ApiConfiguration.TRANSPORT_AGENT_SOCKET).build());
+	}
+
+	/**
+	 * Sends the pending aggregation summaries and flushes the queued logs, then sends the batched and in-flight logs
+	 * and closes the spool and the agent connections
+	 * @see com.stackify.api.common.log.LogAppender#close()
+	 */
+	@Override
+	public void close() throws IOException {
+		try {
+			if (errorAggregator != null) {
+				appendSummaries(errorAggregator.drainSummaries(Long.MAX_VALUE));
+			}
+
+			super.close();
+		} finally {
+			try {
+				if (batchingTransport != null) {
+					batchingTransport.close();
+				}
+
+				if (inFlightTransport != null) {
+					inFlightTransport.close();
+				}
+			} finally {
+				closeSpoolAndChannel();
+			}
+		}
+	}
+
+	/**
+	 * Closes the spool and the agent connections
+	 * @throws IOException
+	 */
+	private void closeSpoolAndChannel() throws IOException {
+		try {
+			if (spoolingTransport != null) {
+				spoolingTransport.close();
+			}
+		} finally {
+			if (channelTransport != null) {
+				channelTransport.close();
+			}
+		}
+	}
+}
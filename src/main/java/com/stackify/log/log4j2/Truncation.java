@@ -0,0 +1,152 @@
+/*
+ * Copyright 2026 Stackify
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stackify.log.log4j2;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.stackify.api.ErrorItem;
+import com.stackify.api.TraceFrame;
+
+/**
+ * Caps the size of messages and exception traces before they are masked and serialized
+ */
+final class Truncation {
+
+	/**
+	 * Appended to truncated messages
+	 */
+	static final String SUFFIX = "...[truncated]";
+
+	/**
+	 * Approximate serialized overhead of an error item (field names, punctuation)
+	 */
+	private static final int ERROR_ITEM_OVERHEAD = 64;
+
+	/**
+	 * Approximate serialized overhead of a trace frame
+	 */
+	private static final int TRACE_FRAME_OVERHEAD = 48;
+
+	/**
+	 * Hidden constructor
+	 */
+	private Truncation() {
+	}
+
+	/**
+	 * Truncates a string so that its UTF-8 encoding, including the suffix, fits in a byte cap
+	 * @param value The string (or null)
+	 * @param maxBytes The cap, or zero (or less) for no cap
+	 * @return The string, or its truncated copy
+	 */
+	static String truncate(final String value, final int maxBytes) {
+
+		// a char never takes more than 3 bytes, so short strings need no counting
+
+		if ((maxBytes <= 0) || (value == null) || (value.length() <= maxBytes / 3)) {
+			return value;
+		}
+
+		int budget = Math.max(0, maxBytes - SUFFIX.length());
+		int bytes = 0;
+		int cut = -1;
+
+		for (int i = 0; i < value.length(); ++i) {
+			char c = value.charAt(i);
+			int width;
+
+			if (c < 0x80) {
+				width = 1;
+			} else if (c < 0x800) {
+				width = 2;
+			} else if (Character.isHighSurrogate(c) && (i + 1 < value.length()) && Character.isLowSurrogate(value.charAt(i + 1))) {
+				width = 4;
+			} else {
+				width = 3;
+			}
+
+			if ((cut < 0) && (bytes + width > budget)) {
+				cut = i;
+			}
+
+			bytes += width;
+
+			if (bytes > maxBytes) {
+				return value.substring(0, cut) + SUFFIX;
+			}
+
+			if (width == 4) {
+				++i;
+			}
+		}
+
+		return value;
+	}
+
+	/**
+	 * Shortens an error item chain so that its estimated serialized size fits in a byte cap. Frames past the cap are
+	 * dropped, along with any inner errors after them, and messages are truncated to what is left of the cap.
+	 * @param error The error item (or null), modified in place
+	 * @param maxBytes The cap, or zero (or less) for no cap
+	 */
+	static void truncate(final ErrorItem error, final int maxBytes) {
+		if (maxBytes <= 0) {
+			return;
+		}
+
+		int remaining = maxBytes;
+
+		for (ErrorItem item = error; item != null; item = item.getInnerError()) {
+			remaining -= ERROR_ITEM_OVERHEAD + length(item.getErrorType()) + length(item.getSourceMethod());
+
+			String message = item.getMessage();
+
+			if (message != null) {
+				String truncated = truncate(message, Math.max(SUFFIX.length(), remaining));
+				item.setMessage(truncated);
+				remaining -= truncated.length();
+			}
+
+			List<TraceFrame> frames = item.getStackTrace();
+
+			if (frames != null) {
+				for (int i = 0; i < frames.size(); ++i) {
+					TraceFrame frame = frames.get(i);
+					remaining -= TRACE_FRAME_OVERHEAD + length(frame.getCodeFileName()) + length(frame.getMethod());
+
+					if (remaining < 0) {
+						item.setStackTrace(new ArrayList<TraceFrame>(frames.subList(0, i)));
+						break;
+					}
+				}
+			}
+
+			if (remaining < 0) {
+				item.setInnerError(null);
+				return;
+			}
+		}
+	}
+
+	/**
+	 * @param value The string (or null)
+	 * @return Its length, or zero for null
+	 */
+	private static int length(final String value) {
+		return (value != null) ? value.length() : 0;
+	}
+}
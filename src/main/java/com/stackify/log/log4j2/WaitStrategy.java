@@ -0,0 +1,53 @@
+/*
+ * Copyright 2026 Stackify
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stackify.log.log4j2;
+
+import java.util.Locale;
+
+/**
+ * How async consumer threads wait for events when the ring buffer is empty (waitStrategy appender attribute)
+ */
+public enum WaitStrategy {
+
+	/**
+	 * Spin briefly, then park for short intervals. Low latency with little idle CPU.
+	 */
+	SLEEP,
+
+	/**
+	 * Spin briefly, then yield. Lowest latency, but a consumer keeps a core busy while idle.
+	 */
+	YIELD,
+
+	/**
+	 * Block on a condition that producers signal. No idle CPU, at the cost of a signal per wake up.
+	 */
+	BLOCK;
+
+	/**
+	 * Parses a configuration value
+	 * @param value The value (case insensitive), or null for the default
+	 * @return The wait strategy
+	 * @throws IllegalArgumentException if the value is not recognized
+	 */
+	public static WaitStrategy fromString(final String value) {
+		if ((value == null) || value.trim().isEmpty()) {
+			return SLEEP;
+		}
+
+		return valueOf(value.trim().toUpperCase(Locale.ENGLISH));
+	}
+}
@@ -0,0 +1,668 @@
+/*
+ * Copyright 2026 Stackify
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stackify.log.log4j2;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ProtocolFamily;
+import java.net.SocketAddress;
+import java.net.SocketTimeoutException;
+import java.net.StandardProtocolFamily;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stackify.api.LogMsg;
+import com.stackify.api.LogMsgGroup;
+import com.stackify.api.common.mask.Masker;
+import com.stackify.api.common.proto.StackifyProto;
+
+/**
+ * AgentChannelLogTransport JUnit Test
+ */
+public class AgentChannelLogTransportTest {
+
+	/**
+	 * Socket directory
+	 */
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	/**
+	 * Stand-in agent (closed after each test)
+	 */
+	private AgentStandIn agent;
+
+	/**
+	 * Stops the stand-in agent
+	 * @throws Exception
+	 */
+	@After
+	public void tearDown() throws Exception {
+		if (agent != null) {
+			agent.close();
+		}
+	}
+
+	/**
+	 * testSend
+	 * @throws Exception
+	 */
+	@Test
+	public void testSend() throws Exception {
+		agent = AgentStandIn.tcp("HTTP/1.1 200 OK\r\nContent-Length: 2\r\n\r\nOK", false);
+
+		Masker masker = new Masker();
+		masker.addMask(Masker.MASK_SSN);
+
+		AgentChannelLogTransport transport = new AgentChannelLogTransport(agent.connector(), masker, false, 5000, BatchFormat.PROTOBUF_FORMAT, null);
+		transport.send(group(3, "ssn 123-45-6789"));
+		transport.close();
+
+		Assert.assertEquals(1, agent.requests.size());
+
+		Request request = agent.requests.get(0);
+		Assert.assertEquals("POST /log HTTP/1.1", request.lines[0]);
+		Assert.assertEquals("application/x-protobuf", request.header("Content-Type"));
+		Assert.assertEquals(String.valueOf(request.body.length), request.header("Content-Length"));
+
+		StackifyProto.LogGroup logGroup = StackifyProto.LogGroup.parseFrom(request.body);
+		Assert.assertEquals("app", logGroup.getApplicationName());
+		Assert.assertEquals("env", logGroup.getEnvironment());
+		Assert.assertEquals(3, logGroup.getLogsCount());
+		Assert.assertEquals("ssn *********** 0", logGroup.getLogs(0).getMessage());
+		Assert.assertEquals("ssn *********** 2", logGroup.getLogs(2).getMessage());
+	}
+
+	/**
+	 * testSendCompressed
+	 * @throws Exception
+	 */
+	@Test
+	public void testSendCompressed() throws Exception {
+		agent = AgentStandIn.tcp("HTTP/1.1 200 OK\r\nContent-Length: 2\r\n\r\nOK", false);
+
+		AgentChannelLogTransport transport = new AgentChannelLogTransport(agent.connector(), new Masker(), false, 5000, BatchFormat.PROTOBUF_FORMAT,
+				new PayloadCompressor(new DeflaterCodec(true, -1), 200));
+		transport.send(group(1, "short"));
+		transport.send(group(50, "a message repeated in every log entry of the batch"));
+		transport.close();
+
+		Assert.assertEquals(2, agent.requests.size());
+		Assert.assertNull(agent.requests.get(0).header("Content-Encoding"));
+		Assert.assertEquals(1, StackifyProto.LogGroup.parseFrom(agent.requests.get(0).body).getLogsCount());
+
+		Request request = agent.requests.get(1);
+		Assert.assertEquals("gzip", request.header("Content-Encoding"));
+		Assert.assertEquals(String.valueOf(request.body.length), request.header("Content-Length"));
+
+		StackifyProto.LogGroup logGroup = StackifyProto.LogGroup.parseFrom(new GZIPInputStream(new ByteArrayInputStream(request.body)));
+		Assert.assertEquals(50, logGroup.getLogsCount());
+		Assert.assertTrue(request.body.length < logGroup.getSerializedSize() / 2);
+	}
+
+	/**
+	 * testSendJson
+	 * @throws Exception
+	 */
+	@Test
+	public void testSendJson() throws Exception {
+		agent = AgentStandIn.tcp("HTTP/1.1 200 OK\r\nContent-Length: 2\r\n\r\nOK", false);
+
+		Masker masker = new Masker();
+		masker.addMask(Masker.MASK_SSN);
+
+		AgentChannelLogTransport transport = new AgentChannelLogTransport(agent.connector(), masker, false, 5000, BatchFormat.forName("JSON"), null);
+		transport.send(group(2, "ssn 123-45-6789"));
+		transport.close();
+
+		Request request = agent.requests.get(0);
+		Assert.assertEquals("application/json", request.header("Content-Type"));
+		Assert.assertNull(request.header("Content-Encoding"));
+		Assert.assertEquals(String.valueOf(request.body.length), request.header("Content-Length"));
+
+		LogMsgGroup group = new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
+				.readValue(request.body, LogMsgGroup.class);
+		Assert.assertEquals("app", group.getAppName());
+		Assert.assertEquals(2, group.getMsgs().size());
+		Assert.assertEquals("ssn *********** 1", group.getMsgs().get(1).getMsg());
+	}
+
+	/**
+	 * testFormats
+	 */
+	@Test
+	public void testFormats() {
+		Assert.assertSame(BatchFormat.PROTOBUF_FORMAT, BatchFormat.forName(null));
+		Assert.assertSame(BatchFormat.PROTOBUF_FORMAT, BatchFormat.forName(" Protobuf "));
+
+		try {
+			BatchFormat.forName("xml");
+			Assert.fail();
+		} catch (IllegalArgumentException e) {
+			Assert.assertEquals("Invalid format: xml", e.getMessage());
+		}
+
+		for (String format : new String[] {BatchFormat.SMILE, BatchFormat.CBOR}) {
+			try {
+				Assert.assertEquals(format, BatchFormat.forName(format).getName());
+			} catch (IllegalArgumentException e) {
+				// the module is not on the test classpath
+
+				Assert.assertTrue(e.getMessage(), e.getMessage().endsWith("module is needed for this format"));
+			}
+		}
+	}
+
+	/**
+	 * testConnectionReuse
+	 * @throws Exception
+	 */
+	@Test
+	public void testConnectionReuse() throws Exception {
+		agent = AgentStandIn.tcp("HTTP/1.1 200 OK\r\nContent-Length: 0\r\n\r\n", false);
+
+		AgentChannelLogTransport transport = new AgentChannelLogTransport(agent.connector(), new Masker(), false, 5000, BatchFormat.PROTOBUF_FORMAT, null);
+
+		for (int i = 0; i < 5; ++i) {
+			transport.send(group(1, "msg"));
+		}
+
+		Assert.assertEquals(5, agent.requests.size());
+		Assert.assertEquals(1, agent.accepted.get());
+		Assert.assertEquals(1, transport.getIdleConnectionCount());
+
+		transport.close();
+
+		Assert.assertEquals(0, transport.getIdleConnectionCount());
+	}
+
+	/**
+	 * testConnectionClose
+	 * @throws Exception
+	 */
+	@Test
+	public void testConnectionClose() throws Exception {
+		agent = AgentStandIn.tcp("HTTP/1.1 200 OK\r\nConnection: close\r\nContent-Length: 0\r\n\r\n", true);
+
+		AgentChannelLogTransport transport = new AgentChannelLogTransport(agent.connector(), new Masker(), false, 5000, BatchFormat.PROTOBUF_FORMAT, null);
+
+		for (int i = 0; i < 3; ++i) {
+			transport.send(group(1, "msg"));
+		}
+
+		Assert.assertEquals(3, agent.requests.size());
+		Assert.assertEquals(3, agent.accepted.get());
+		Assert.assertEquals(0, transport.getIdleConnectionCount());
+
+		transport.close();
+	}
+
+	/**
+	 * testStaleConnection
+	 * @throws Exception
+	 */
+	@Test
+	public void testStaleConnection() throws Exception {
+
+		// the agent keeps the connection alive, then drops it
+
+		agent = AgentStandIn.tcp("HTTP/1.1 200 OK\r\nContent-Length: 0\r\n\r\n", true);
+
+		AgentChannelLogTransport transport = new AgentChannelLogTransport(agent.connector(), new Masker(), false, 5000, BatchFormat.PROTOBUF_FORMAT, null);
+
+		transport.send(group(1, "first"));
+		Assert.assertEquals(1, transport.getIdleConnectionCount());
+
+		agent.awaitClosed(1);
+
+		transport.send(group(1, "second"));
+
+		Assert.assertEquals(2, agent.requests.size());
+		Assert.assertEquals(2, agent.accepted.get());
+
+		transport.close();
+	}
+
+	/**
+	 * testErrorStatus
+	 * @throws Exception
+	 */
+	@Test
+	public void testErrorStatus() throws Exception {
+		agent = AgentStandIn.tcp("HTTP/1.1 500 Internal Server Error\r\nContent-Length: 5\r\n\r\nerror", false);
+
+		AgentChannelLogTransport transport = new AgentChannelLogTransport(agent.connector(), new Masker(), false, 5000, BatchFormat.PROTOBUF_FORMAT, null);
+
+		try {
+			transport.send(group(1, "msg"));
+			Assert.fail();
+		} catch (IOException e) {
+			Assert.assertTrue(e.getMessage().contains("500"));
+		}
+
+		// the connection is still usable
+
+		Assert.assertEquals(1, transport.getIdleConnectionCount());
+
+		transport.close();
+	}
+
+	/**
+	 * testTimeout
+	 * @throws Exception
+	 */
+	@Test(expected = SocketTimeoutException.class)
+	public void testTimeout() throws Exception {
+		agent = AgentStandIn.tcp(null, false);
+
+		AgentChannelLogTransport transport = new AgentChannelLogTransport(agent.connector(), new Masker(), false, 200, BatchFormat.PROTOBUF_FORMAT, null);
+
+		try {
+			transport.send(group(1, "msg"));
+		} finally {
+			transport.close();
+		}
+	}
+
+	/**
+	 * testClosed
+	 * @throws Exception
+	 */
+	@Test(expected = IOException.class)
+	public void testClosed() throws Exception {
+		agent = AgentStandIn.tcp("HTTP/1.1 200 OK\r\nContent-Length: 0\r\n\r\n", false);
+
+		AgentChannelLogTransport transport = new AgentChannelLogTransport(agent.connector(), new Masker(), false, 5000, BatchFormat.PROTOBUF_FORMAT, null);
+		transport.close();
+		transport.send(group(1, "msg"));
+	}
+
+	/**
+	 * testManyBatches
+	 * @throws Exception
+	 */
+	@Test
+	public void testManyBatches() throws Exception {
+		agent = AgentStandIn.tcp("HTTP/1.1 200 OK\r\nContent-Length: 0\r\n\r\n", false);
+
+		AgentChannelLogTransport transport = new AgentChannelLogTransport(agent.connector(), new Masker(), false, 5000, BatchFormat.PROTOBUF_FORMAT, null);
+
+		int batches = 500;
+		int batchSize = 100;
+
+		for (int i = 0; i < batches; ++i) {
+			transport.send(group(batchSize, "Order A-10293 shipped to customer c-4471 in 187 ms"));
+		}
+
+		transport.close();
+
+		Assert.assertEquals(batches, agent.requests.size());
+		Assert.assertEquals(batchSize, StackifyProto.LogGroup.parseFrom(agent.requests.get(batches - 1).body).getLogsCount());
+		Assert.assertEquals(1, agent.accepted.get());
+	}
+
+	/**
+	 * testUnixSocket
+	 * @throws Exception
+	 */
+	@Test
+	public void testUnixSocket() throws Exception {
+		Assume.assumeTrue(AgentChannelLogTransport.isUnixSocketSupported());
+
+		String path = new File(folder.getRoot(), "stackify.sock").getAbsolutePath();
+		agent = AgentStandIn.unix(path, "HTTP/1.1 200 OK\r\nContent-Length: 0\r\n\r\n");
+
+		AgentChannelLogTransport transport = new AgentChannelLogTransport(AgentChannelLogTransport.unixSocketConnector(path), new Masker(), false, 5000, BatchFormat.PROTOBUF_FORMAT, null);
+		transport.send(group(2, "msg"));
+		transport.send(group(2, "msg"));
+		transport.close();
+
+		Assert.assertEquals(2, agent.requests.size());
+		Assert.assertEquals(1, agent.accepted.get());
+		Assert.assertEquals(2, StackifyProto.LogGroup.parseFrom(agent.requests.get(1).body).getLogsCount());
+	}
+
+	/**
+	 * Creates a batch
+	 * @param size Number of messages
+	 * @param msg Message prefix
+	 * @return The batch
+	 */
+	private static LogMsgGroup group(final int size, final String msg) {
+		List<LogMsg> msgs = new ArrayList<LogMsg>(size);
+
+		for (int i = 0; i < size; ++i) {
+			msgs.add(LogMsg.newBuilder().msg(msg + " " + i).level("info").th("main").epochMs(1L).build());
+		}
+
+		return LogMsgGroup.newBuilder()
+				.env("env")
+				.serverName("host")
+				.appName("app")
+				.appLoc("/opt/app")
+				.logger("test")
+				.platform("java")
+				.msgs(msgs)
+				.build();
+	}
+
+	/**
+	 * A request received by the stand-in agent
+	 */
+	private static final class Request {
+
+		/**
+		 * Request head lines
+		 */
+		final String[] lines;
+
+		/**
+		 * Request body
+		 */
+		final byte[] body;
+
+		/**
+		 * Constructor
+		 * @param lines Request head lines
+		 * @param body Request body
+		 */
+		Request(final String[] lines, final byte[] body) {
+			this.lines = lines;
+			this.body = body;
+		}
+
+		/**
+		 * @param name Header name
+		 * @return Header value, or null
+		 */
+		String header(final String name) {
+			for (String line : lines) {
+				if (line.toLowerCase(Locale.ENGLISH).startsWith(name.toLowerCase(Locale.ENGLISH) + ":")) {
+					return line.substring(name.length() + 1).trim();
+				}
+			}
+
+			return null;
+		}
+	}
+
+	/**
+	 * Stand-in for the Stackify agent, answering each request with a canned response
+	 */
+	private static final class AgentStandIn {
+
+		/**
+		 * Server channel
+		 */
+		private final ServerSocketChannel server;
+
+		/**
+		 * Canned response (null to never respond)
+		 */
+		private final byte[] response;
+
+		/**
+		 * True to close each connection after responding
+		 */
+		private final boolean closeAfterResponse;
+
+		/**
+		 * Requests received
+		 */
+		final List<Request> requests = new CopyOnWriteArrayList<Request>();
+
+		/**
+		 * Number of connections accepted
+		 */
+		final AtomicInteger accepted = new AtomicInteger();
+
+		/**
+		 * Number of connections closed by the agent
+		 */
+		final AtomicInteger closed = new AtomicInteger();
+
+		/**
+		 * Accepting thread
+		 */
+		private final Thread acceptor;
+
+		/**
+		 * Connector used by the transport
+		 */
+		private final AgentChannelLogTransport.Connector connector;
+
+		/**
+		 * Starts a stand-in listening on a loopback TCP port
+		 * @param response Canned response (null to never respond)
+		 * @param closeAfterResponse True to close each connection after responding
+		 * @return The stand-in
+		 * @throws IOException
+		 */
+		static AgentStandIn tcp(final String response, final boolean closeAfterResponse) throws IOException {
+			ServerSocketChannel server = ServerSocketChannel.open();
+			server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+
+			final SocketAddress address = server.getLocalAddress();
+
+			return new AgentStandIn(server, response, closeAfterResponse, new AgentChannelLogTransport.Connector() {
+				@Override
+				public SocketChannel connect() throws IOException {
+					return SocketChannel.open(address);
+				}
+			});
+		}
+
+		/**
+		 * Starts a stand-in listening on a Unix domain socket (Java 16 or later)
+		 * @param path Socket path
+		 * @param response Canned response
+		 * @return The stand-in
+		 * @throws Exception
+		 */
+		static AgentStandIn unix(final String path, final String response) throws Exception {
+			ProtocolFamily unix = StandardProtocolFamily.valueOf("UNIX");
+			ServerSocketChannel server = (ServerSocketChannel) ServerSocketChannel.class.getMethod("open", ProtocolFamily.class).invoke(null, unix);
+			server.bind((SocketAddress) Class.forName("java.net.UnixDomainSocketAddress").getMethod("of", String.class).invoke(null, path));
+
+			return new AgentStandIn(server, response, false, AgentChannelLogTransport.unixSocketConnector(path));
+		}
+
+		/**
+		 * Constructor
+		 * @param server Bound server channel
+		 * @param response Canned response (null to never respond)
+		 * @param closeAfterResponse True to close each connection after responding
+		 * @param connector Connector used by the transport
+		 */
+		private AgentStandIn(final ServerSocketChannel server, final String response, final boolean closeAfterResponse,
+				final AgentChannelLogTransport.Connector connector) {
+			this.server = server;
+			this.response = (response == null) ? null : response.getBytes();
+			this.closeAfterResponse = closeAfterResponse;
+			this.connector = connector;
+			this.acceptor = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					accept();
+				}
+			}, "AgentStandIn");
+			this.acceptor.setDaemon(true);
+			this.acceptor.start();
+		}
+
+		/**
+		 * @return Connector used by the transport
+		 */
+		AgentChannelLogTransport.Connector connector() {
+			return connector;
+		}
+
+		/**
+		 * Waits until a number of connections have been closed by the agent
+		 * @param count Number of connections
+		 * @throws InterruptedException
+		 */
+		void awaitClosed(final int count) throws InterruptedException {
+			long deadline = System.currentTimeMillis() + 5000;
+
+			while ((closed.get() < count) && (System.currentTimeMillis() < deadline)) {
+				Thread.sleep(5);
+			}
+
+			Assert.assertTrue(count <= closed.get());
+		}
+
+		/**
+		 * Accepts connections until closed
+		 */
+		private void accept() {
+			try {
+				while (true) {
+					final SocketChannel channel = server.accept();
+					accepted.incrementAndGet();
+
+					Thread handler = new Thread(new Runnable() {
+						@Override
+						public void run() {
+							serve(channel);
+						}
+					}, "AgentStandIn-Connection");
+					handler.setDaemon(true);
+					handler.start();
+				}
+			} catch (IOException e) {
+				// closed
+			}
+		}
+
+		/**
+		 * Reads requests from a connection and answers them
+		 * @param channel The connection
+		 */
+		private void serve(final SocketChannel channel) {
+			ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+
+			try {
+				while (true) {
+
+					// read the head
+
+					int headEnd;
+
+					while ((headEnd = headEnd(buffer)) < 0) {
+						if (channel.read(buffer) < 0) {
+							return;
+						}
+					}
+
+					String[] lines = new String(buffer.array(), 0, headEnd - 4, "ISO-8859-1").split("\r\n");
+					Request head = new Request(lines, null);
+					int length = Integer.parseInt(head.header("Content-Length"));
+
+					// read the body
+
+					byte[] body = new byte[length];
+					int copied = Math.min(length, buffer.position() - headEnd);
+					System.arraycopy(buffer.array(), headEnd, body, 0, copied);
+
+					ByteBuffer rest = ByteBuffer.wrap(body, copied, length - copied);
+
+					while (rest.hasRemaining()) {
+						if (channel.read(rest) < 0) {
+							return;
+						}
+					}
+
+					// keep what follows the body for the next request
+
+					int next = headEnd + copied;
+					int leftover = buffer.position() - next;
+					System.arraycopy(buffer.array(), next, buffer.array(), 0, leftover);
+					buffer.position(leftover);
+
+					requests.add(new Request(lines, body));
+
+					if (response == null) {
+						continue;
+					}
+
+					ByteBuffer out = ByteBuffer.wrap(response);
+
+					while (out.hasRemaining()) {
+						channel.write(out);
+					}
+
+					if (closeAfterResponse) {
+						return;
+					}
+				}
+			} catch (IOException e) {
+				// connection dropped
+			} finally {
+				try {
+					channel.close();
+				} catch (IOException e) {
+					// ignore
+				}
+
+				closed.incrementAndGet();
+			}
+		}
+
+		/**
+		 * @param buffer Bytes read so far
+		 * @return Length of the head including the blank line, or -1
+		 */
+		private static int headEnd(final ByteBuffer buffer) {
+			byte[] bytes = buffer.array();
+
+			for (int i = 3; i < buffer.position(); ++i) {
+				if ((bytes[i] == '\n') && (bytes[i - 1] == '\r') && (bytes[i - 2] == '\n') && (bytes[i - 3] == '\r')) {
+					return i + 1;
+				}
+			}
+
+			return -1;
+		}
+
+		/**
+		 * Stops accepting connections
+		 * @throws IOException
+		 */
+		void close() throws IOException {
+			server.close();
+		}
+	}
+}
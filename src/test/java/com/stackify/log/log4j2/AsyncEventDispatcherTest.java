@@ -0,0 +1,428 @@
+/*
+ * Copyright 2026 Stackify
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stackify.log.log4j2;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.core.impl.Log4jLogEvent;
+import org.apache.logging.log4j.message.SimpleMessage;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * AsyncEventDispatcher JUnit Test
+ */
+public class AsyncEventDispatcherTest {
+
+	/**
+	 * testHandledOnConsumerThread
+	 */
+	@Test
+	public void testHandledOnConsumerThread() {
+		for (WaitStrategy waitStrategy : WaitStrategy.values()) {
+			final List<String> messages = new CopyOnWriteArrayList<String>();
+			final List<String> threads = new CopyOnWriteArrayList<String>();
+
+			AsyncEventDispatcher dispatcher = newDispatcher(4, waitStrategy, OverflowPolicy.BLOCK, new AsyncEventDispatcher.Handler() {
+				@Override
+				public void handle(final ConversionContext context) {
+					messages.add(context.getMessage());
+					threads.add(Thread.currentThread().getName());
+				}
+			});
+
+			dispatcher.start();
+
+			for (int i = 0; i < 100; ++i) {
+				Assert.assertTrue(dispatcher.publish(newEvent("msg" + i), EventContext.EMPTY));
+			}
+
+			dispatcher.stop(5000);
+
+			Assert.assertEquals(100, messages.size());
+			Assert.assertEquals("msg0", messages.get(0));
+			Assert.assertEquals("msg99", messages.get(99));
+			Assert.assertEquals("test-0", threads.get(0));
+			Assert.assertEquals(0, dispatcher.getDropped());
+		}
+	}
+
+	/**
+	 * testEventContextPassedThrough
+	 */
+	@Test
+	public void testEventContextPassedThrough() {
+		final EventContext eventContext = new EventContext("trans", "user", null);
+		final List<EventContext> contexts = new CopyOnWriteArrayList<EventContext>();
+
+		AsyncEventDispatcher dispatcher = newDispatcher(4, WaitStrategy.SLEEP, OverflowPolicy.BLOCK, new AsyncEventDispatcher.Handler() {
+			@Override
+			public void handle(final ConversionContext context) {
+				contexts.add(context.getEventContext());
+			}
+		});
+
+		dispatcher.start();
+		dispatcher.publish(newEvent("msg"), eventContext);
+		dispatcher.stop(5000);
+
+		Assert.assertEquals(1, contexts.size());
+		Assert.assertSame(eventContext, contexts.get(0));
+	}
+
+	/**
+	 * testDropNewest
+	 * @throws Exception
+	 */
+	@Test
+	public void testDropNewest() throws Exception {
+		final CountDownLatch release = new CountDownLatch(1);
+
+		AsyncEventDispatcher dispatcher = newDispatcher(2, WaitStrategy.SLEEP, OverflowPolicy.DROP_NEWEST, new AsyncEventDispatcher.Handler() {
+			@Override
+			public void handle(final ConversionContext context) {
+				try {
+					release.await(5, TimeUnit.SECONDS);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		});
+
+		dispatcher.start();
+
+		// one event held by the consumer, two in the ring, the rest dropped
+
+		int accepted = 0;
+
+		for (int i = 0; i < 10; ++i) {
+			if (dispatcher.publish(newEvent("msg"), EventContext.EMPTY)) {
+				++accepted;
+			}
+		}
+
+		release.countDown();
+		dispatcher.stop(5000);
+
+		Assert.assertTrue(accepted <= 3);
+		Assert.assertEquals(10 - accepted, dispatcher.getDropped());
+	}
+
+	/**
+	 * testPublishAfterStop
+	 */
+	@Test
+	public void testPublishAfterStop() {
+		AsyncEventDispatcher dispatcher = newDispatcher(2, WaitStrategy.SLEEP, OverflowPolicy.BLOCK, new AsyncEventDispatcher.Handler() {
+			@Override
+			public void handle(final ConversionContext context) {
+			}
+		});
+
+		dispatcher.start();
+		dispatcher.stop(5000);
+
+		Assert.assertFalse(dispatcher.publish(newEvent("msg"), EventContext.EMPTY));
+		Assert.assertEquals(1, dispatcher.getDropped());
+	}
+
+	/**
+	 * testDropOldestInFlight
+	 * @throws Exception
+	 */
+	@Test
+	public void testDropOldestInFlight() throws Exception {
+		final CountDownLatch taken = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		final List<String> messages = new CopyOnWriteArrayList<String>();
+
+		AsyncEventDispatcher dispatcher = newDispatcher(2, WaitStrategy.SLEEP, OverflowPolicy.DROP_OLDEST, new AsyncEventDispatcher.Handler() {
+			@Override
+			public void handle(final ConversionContext context) {
+				messages.add(context.getMessage());
+				taken.countDown();
+
+				try {
+					release.await(5, TimeUnit.SECONDS);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		});
+
+		dispatcher.start();
+
+		// msg0 is held by the consumer in the slot msg2 needs, so msg2 is dropped after the timeout
+
+		dispatcher.publish(newEvent("msg0"), EventContext.EMPTY);
+		Assert.assertTrue(taken.await(5, TimeUnit.SECONDS));
+
+		Assert.assertTrue(dispatcher.publish(newEvent("msg1"), EventContext.EMPTY));
+		Assert.assertFalse(dispatcher.publish(newEvent("msg2"), EventContext.EMPTY));
+
+		release.countDown();
+		dispatcher.stop(5000);
+
+		Assert.assertEquals(Arrays.asList("msg0", "msg1"), messages.subList(0, 2));
+		Assert.assertEquals(1, dispatcher.getDropped());
+	}
+
+	/**
+	 * testBlockWithTimeout
+	 * @throws Exception
+	 */
+	@Test
+	public void testBlockWithTimeout() throws Exception {
+		final CountDownLatch release = new CountDownLatch(1);
+
+		AsyncEventDispatcher dispatcher = newDispatcher(2, WaitStrategy.SLEEP, OverflowPolicy.BLOCK_WITH_TIMEOUT, awaitHandler(release));
+
+		dispatcher.start();
+
+		int accepted = 0;
+
+		for (int i = 0; i < 5; ++i) {
+			if (dispatcher.publish(newEvent("msg"), EventContext.EMPTY)) {
+				++accepted;
+			}
+		}
+
+		release.countDown();
+		dispatcher.stop(5000);
+
+		Assert.assertTrue(accepted <= 3);
+		Assert.assertEquals(5 - accepted, dispatcher.getDropped());
+	}
+
+	/**
+	 * testDropBelowLevel
+	 * @throws Exception
+	 */
+	@Test
+	public void testDropBelowLevel() throws Exception {
+		final CountDownLatch taken = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		final List<Level> levels = new CopyOnWriteArrayList<Level>();
+
+		final AsyncEventDispatcher dispatcher = newDispatcher(2, WaitStrategy.SLEEP, OverflowPolicy.DROP_BELOW_LEVEL, new AsyncEventDispatcher.Handler() {
+			@Override
+			public void handle(final ConversionContext context) {
+				levels.add(context.getEvent().getLevel());
+				taken.countDown();
+
+				try {
+					release.await(5, TimeUnit.SECONDS);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		});
+
+		dispatcher.start();
+
+		dispatcher.publish(newEvent("msg", Level.INFO), EventContext.EMPTY);
+		Assert.assertTrue(taken.await(5, TimeUnit.SECONDS));
+
+		dispatcher.publish(newEvent("msg", Level.INFO), EventContext.EMPTY);
+
+		// the ring is full: INFO is dropped, ERROR waits for a slot
+
+		Assert.assertFalse(dispatcher.publish(newEvent("msg", Level.INFO), EventContext.EMPTY));
+
+		Thread error = new Thread() {
+			@Override
+			public void run() {
+				dispatcher.publish(newEvent("msg", Level.ERROR), EventContext.EMPTY);
+			}
+		};
+		error.start();
+
+		release.countDown();
+		error.join(5000);
+		dispatcher.stop(5000);
+
+		Assert.assertEquals(1, dispatcher.getDropped());
+		Assert.assertTrue(levels.contains(Level.ERROR));
+	}
+
+	/**
+	 * testByteBudget
+	 * @throws Exception
+	 */
+	@Test
+	public void testByteBudget() throws Exception {
+		final CountDownLatch taken = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+
+		int eventSize = EventSizeEstimator.estimate(newEvent("msg"));
+
+		AsyncEventDispatcher dispatcher = new AsyncEventDispatcher("test", 64, 1, WaitStrategy.SLEEP, OverflowPolicy.DROP_NEWEST, 50, Level.WARN, 60000,
+				3 * eventSize, new AsyncEventDispatcher.Handler() {
+					@Override
+					public void handle(final ConversionContext context) {
+						taken.countDown();
+
+						try {
+							release.await(5, TimeUnit.SECONDS);
+						} catch (InterruptedException e) {
+							Thread.currentThread().interrupt();
+						}
+					}
+				});
+
+		dispatcher.start();
+
+		// the event being converted still counts against the budget until it is released
+
+		dispatcher.publish(newEvent("msg"), EventContext.EMPTY);
+		Assert.assertTrue(taken.await(5, TimeUnit.SECONDS));
+
+		Assert.assertTrue(dispatcher.publish(newEvent("msg"), EventContext.EMPTY));
+		Assert.assertTrue(dispatcher.publish(newEvent("msg"), EventContext.EMPTY));
+		Assert.assertFalse(dispatcher.publish(newEvent("msg"), EventContext.EMPTY));
+		Assert.assertEquals(3 * eventSize, dispatcher.getQueuedBytes());
+
+		release.countDown();
+		dispatcher.stop(5000);
+
+		Assert.assertEquals(0, dispatcher.getQueuedBytes());
+		Assert.assertEquals(1, dispatcher.getDropped());
+	}
+
+	/**
+	 * testErrorLane
+	 * @throws Exception
+	 */
+	@Test
+	public void testErrorLane() throws Exception {
+		final CountDownLatch taken = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		final List<String> messages = new CopyOnWriteArrayList<String>();
+
+		AsyncEventDispatcher dispatcher = new AsyncEventDispatcher("test", 2, 1, WaitStrategy.SLEEP, OverflowPolicy.DROP_NEWEST, 50, Level.WARN, 60000,
+				0, 2, OverflowPolicy.DROP_NEWEST, new AsyncEventDispatcher.Handler() {
+					@Override
+					public void handle(final ConversionContext context) {
+						taken.countDown();
+
+						try {
+							release.await(5, TimeUnit.SECONDS);
+						} catch (InterruptedException e) {
+							Thread.currentThread().interrupt();
+						}
+
+						messages.add(context.getEvent().getMessage().getFormattedMessage());
+					}
+				});
+
+		dispatcher.start();
+
+		dispatcher.publish(newEvent("first"), EventContext.EMPTY);
+		Assert.assertTrue(taken.await(5, TimeUnit.SECONDS));
+
+		// the info backlog overflows, the errors still get in and are converted first
+
+		Assert.assertTrue(dispatcher.publish(newEvent("info 1"), EventContext.EMPTY));
+		Assert.assertFalse(dispatcher.publish(newEvent("info 2"), EventContext.EMPTY));
+		Assert.assertTrue(dispatcher.publish(newEvent("error 1", Level.ERROR), EventContext.EMPTY));
+
+		LogEvent withThrowable = Log4jLogEvent.newBuilder()
+				.setLoggerName("test")
+				.setLevel(Level.WARN)
+				.setMessage(new SimpleMessage("error 2"))
+				.setThrown(new IllegalStateException())
+				.build();
+
+		Assert.assertTrue(dispatcher.publish(withThrowable, EventContext.EMPTY));
+		Assert.assertFalse(dispatcher.publish(newEvent("error 3", Level.FATAL), EventContext.EMPTY));
+		Assert.assertEquals(3, dispatcher.getQueueSize());
+		Assert.assertEquals(2, dispatcher.getErrorQueueSize());
+
+		release.countDown();
+		dispatcher.stop(5000);
+
+		Assert.assertEquals(Arrays.asList("first", "error 1", "error 2", "info 1"), messages.subList(0, 4));
+		Assert.assertEquals(2, dispatcher.getDropped());
+	}
+
+	/**
+	 * testDropReport
+	 */
+	@Test
+	public void testDropReport() {
+		final List<ConversionContext> reports = new CopyOnWriteArrayList<ConversionContext>();
+
+		AsyncEventDispatcher dispatcher = newDispatcher(2, WaitStrategy.SLEEP, OverflowPolicy.BLOCK, new AsyncEventDispatcher.Handler() {
+			@Override
+			public void handle(final ConversionContext context) {
+				if (DroppedEvents.REPORT_LOGGER.equals(context.getEvent().getLoggerName())) {
+					reports.add(context);
+				}
+			}
+		});
+
+		dispatcher.start();
+		dispatcher.stop(5000);
+
+		// dropped after stop, reported by the next report
+
+		dispatcher.publish(newEvent("msg", Level.INFO), EventContext.EMPTY);
+		dispatcher.publish(newEvent("msg", Level.DEBUG), EventContext.EMPTY);
+		dispatcher.reportDrops();
+
+		Assert.assertEquals(1, reports.size());
+		Assert.assertEquals(Level.WARN, reports.get(0).getEvent().getLevel());
+		Assert.assertTrue(reports.get(0).getMessage().contains("dropped 2 events"));
+
+		dispatcher.reportDrops();
+
+		Assert.assertEquals(1, reports.size());
+	}
+
+	private static AsyncEventDispatcher newDispatcher(final int ringSize,
+													  final WaitStrategy waitStrategy,
+													  final OverflowPolicy overflowPolicy,
+													  final AsyncEventDispatcher.Handler handler) {
+		return new AsyncEventDispatcher("test", ringSize, 1, waitStrategy, overflowPolicy, 50, Level.WARN, 60000, 0, handler);
+	}
+
+	private static AsyncEventDispatcher.Handler awaitHandler(final CountDownLatch release) {
+		return new AsyncEventDispatcher.Handler() {
+			@Override
+			public void handle(final ConversionContext context) {
+				try {
+					release.await(5, TimeUnit.SECONDS);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		};
+	}
+
+	private static LogEvent newEvent(final String message) {
+		return newEvent(message, Level.INFO);
+	}
+
+	private static LogEvent newEvent(final String message, final Level level) {
+		return Log4jLogEvent.newBuilder().setLoggerName("test").setLevel(level).setMessage(new SimpleMessage(message)).build();
+	}
+}
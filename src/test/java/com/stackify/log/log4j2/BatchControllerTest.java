@@ -0,0 +1,112 @@
+/*
+ * Copyright 2026 Stackify
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stackify.log.log4j2;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * BatchController JUnit Test
+ */
+public class BatchControllerTest {
+
+	/**
+	 * Nanoseconds per millisecond
+	 */
+	private static final long MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+	/**
+	 * testAdditiveIncreaseMultiplicativeDecrease
+	 */
+	@Test
+	public void testAdditiveIncreaseMultiplicativeDecrease() {
+		BatchController controller = new BatchController(100, 500, 0, 1000, 200);
+
+		Assert.assertEquals(100, controller.getBatchSize());
+
+		for (int i = 0; i < 10; ++i) {
+			controller.onSent(controller.getBatchSize(), 10 * MILLI, false);
+		}
+
+		Assert.assertEquals(500, controller.getBatchSize());
+
+		controller.onSent(500, 300 * MILLI, false);
+		Assert.assertEquals(250, controller.getBatchSize());
+
+		controller.onFailed();
+		controller.onFailed();
+		controller.onFailed();
+		Assert.assertEquals(100, controller.getBatchSize());
+	}
+
+	/**
+	 * testLinger
+	 */
+	@Test
+	public void testLinger() {
+		BatchController controller = new BatchController(100, 500, 0, 1000, 1000);
+
+		Assert.assertEquals(0, controller.getLingerNanos());
+
+		// partial batches with more messages waiting linger longer, but not longer than a round trip
+
+		for (int i = 0; i < 20; ++i) {
+			controller.onSent(1, 50 * MILLI, true);
+		}
+
+		Assert.assertEquals(50 * MILLI, controller.getLingerNanos());
+
+		for (int i = 0; i < 20; ++i) {
+			controller.onSent(1, 2000 * MILLI, true);
+		}
+
+		Assert.assertEquals(1000 * MILLI, controller.getLingerNanos());
+
+		// a full batch means there is a backlog
+
+		controller.onSent(100, 10 * MILLI, false);
+		Assert.assertEquals(500 * MILLI, controller.getLingerNanos());
+
+		// a partial batch that leaves nothing waiting means the load is low
+
+		controller.onSent(1, 10 * MILLI, false);
+		Assert.assertEquals(0, controller.getLingerNanos());
+	}
+
+	/**
+	 * testPinned
+	 */
+	@Test
+	public void testPinned() {
+		BatchController controller = new BatchController(200, 200, 50, 50, 1000);
+
+		controller.onSent(200, MILLI, false);
+		controller.onSent(1, 5000 * MILLI, false);
+		controller.onFailed();
+
+		Assert.assertEquals(200, controller.getBatchSize());
+		Assert.assertEquals(50 * MILLI, controller.getLingerNanos());
+
+		try {
+			new BatchController(200, 100, 0, 0, 1000);
+			Assert.fail();
+		} catch (IllegalArgumentException e) {
+			Assert.assertTrue(e.getMessage().startsWith("Invalid batch bounds"));
+		}
+	}
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2026 Stackify
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stackify.log.log4j2;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.stackify.api.LogMsg;
+import com.stackify.api.LogMsgGroup;
+import com.stackify.api.common.log.LogTransport;
+
+/**
+ * BatchingLogTransport JUnit Test
+ */
+public class BatchingLogTransportTest {
+
+	/**
+	 * testRegroup
+	 * @throws Exception
+	 */
+	@Test
+	public void testRegroup() throws Exception {
+		final List<LogMsgGroup> sent = new CopyOnWriteArrayList<LogMsgGroup>();
+
+		LogTransport delegate = new LogTransport() {
+			@Override
+			public void send(final LogMsgGroup group) throws Exception {
+				sent.add(group);
+			}
+		};
+
+		BatchingLogTransport transport = new BatchingLogTransport(delegate, new BatchController(250, 250, 200, 200, 1000));
+
+		// queued before the sender starts, so the batches do not depend on timing
+
+		transport.send(group("app", 0, 100));
+		transport.send(group("app", 100, 100));
+		transport.send(group("app", 200, 100));
+		transport.send(group("other", 300, 10));
+		transport.start();
+		transport.close();
+
+		Assert.assertEquals(3, sent.size());
+		Assert.assertEquals(250, sent.get(0).getMsgs().size());
+		Assert.assertEquals(50, sent.get(1).getMsgs().size());
+		Assert.assertEquals(10, sent.get(2).getMsgs().size());
+
+		Assert.assertEquals("app", sent.get(0).getLogger());
+		Assert.assertEquals("app", sent.get(1).getLogger());
+		Assert.assertEquals("other", sent.get(2).getLogger());
+
+		Assert.assertEquals("0", sent.get(0).getMsgs().get(0).getMsg());
+		Assert.assertEquals("250", sent.get(1).getMsgs().get(0).getMsg());
+		Assert.assertEquals("300", sent.get(2).getMsgs().get(0).getMsg());
+	}
+
+	/**
+	 * testRetry
+	 * @throws Exception
+	 */
+	@Test
+	public void testRetry() throws Exception {
+		final List<Integer> sizes = new CopyOnWriteArrayList<Integer>();
+
+		LogTransport delegate = new LogTransport() {
+			@Override
+			public void send(final LogMsgGroup group) throws Exception {
+				sizes.add(group.getMsgs().size());
+
+				if (sizes.size() == 1) {
+					throw new Exception("unreachable");
+				}
+			}
+		};
+
+		BatchingLogTransport transport = new BatchingLogTransport(delegate, new BatchController(10, 100, 0, 0, 1000));
+
+		transport.send(group("app", 0, 5));
+		transport.start();
+
+		long deadline = System.currentTimeMillis() + 10000;
+
+		while ((sizes.size() < 2) && (System.currentTimeMillis() < deadline)) {
+			Thread.sleep(10);
+		}
+
+		transport.close();
+
+		Assert.assertEquals(2, sizes.size());
+		Assert.assertEquals(Integer.valueOf(5), sizes.get(1));
+	}
+
+	private static LogMsgGroup group(final String logger, final int first, final int count) {
+		List<LogMsg> msgs = new ArrayList<LogMsg>();
+
+		for (int i = first; i < first + count; ++i) {
+			msgs.add(LogMsg.newBuilder().msg(Integer.toString(i)).level("info").epochMs(1L).build());
+		}
+
+		return LogMsgGroup.newBuilder().logger(logger).msgs(msgs).build();
+	}
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright 2026 Stackify
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stackify.log.log4j2;
+
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.stackify.api.common.mask.Masker;
+
+/**
+ * CompiledMasker JUnit Test
+ */
+public class CompiledMaskerTest {
+
+	/**
+	 * Characters the random messages are made of
+	 */
+	private static final String ALPHABET = "0123456789012345678901234567890123456789----...@@ abcdefABCDEFxyz*_#";
+
+	/**
+	 * Messages covering each built-in mask
+	 */
+	private static final String[] MESSAGES = {
+		null,
+		"",
+		"plain message without anything to mask",
+		"card 4111111111111111 and 4111111111111111 again",
+		"amex 371449635398431, diners 30569309025904, discover 6011111111111117, mc 5555555555554444",
+		"ssn 123-45-6789 and 9123-45-67890 and 12-345-6789",
+		"from 10.1.2.3 and 256.1.1.1 and 1.2.3",
+		"id 3F2504E0-4F89-11D3-9A0C-0305E82C3301 and x3F2504E0-4F89-11D3-9A0C-0305E82C3301",
+		"mail jane.doe@example.com or @nobody",
+		"order 10293 took 187 ms",
+		"secret key_42 with ***"
+	};
+
+	/**
+	 * testDefaultMasks
+	 */
+	@Test
+	public void testDefaultMasks() {
+		assertSameAsMasker(Masker.MASK_CREDITCARD, Masker.MASK_SSN);
+	}
+
+	/**
+	 * testAllMasks
+	 */
+	@Test
+	public void testAllMasks() {
+		assertSameAsMasker(Masker.MASKS);
+	}
+
+	/**
+	 * testCustomMasks
+	 */
+	@Test
+	public void testCustomMasks() {
+		assertSameAsMasker(Masker.MASK_CREDITCARD, Masker.MASK_SSN, "\\*+", "(?i)secret", "\\bkey\\w*", "(a)\\1", "\\Qx*\\E");
+	}
+
+	/**
+	 * testRemoveMask
+	 */
+	@Test
+	public void testRemoveMask() {
+		CompiledMasker masker = new CompiledMasker();
+		masker.addMask(Masker.MASK_CREDITCARD);
+		masker.addMask(Masker.MASK_SSN);
+		masker.removeMask(Masker.MASK_SSN);
+
+		Assert.assertEquals("ssn 123-45-6789 ****************", masker.mask("ssn 123-45-6789 4111111111111111"));
+
+		masker.clearMasks();
+
+		Assert.assertFalse(masker.hasMasks());
+		Assert.assertEquals("4111111111111111", masker.mask("4111111111111111"));
+	}
+
+	/**
+	 * testMaskString
+	 */
+	@Test
+	public void testMaskString() {
+		CompiledMasker masker = new CompiledMasker();
+		masker.addMask(Masker.MASK_SSN);
+
+		Assert.assertEquals("ssn XXXX", masker.mask("ssn 123-45-6789", "XXXX"));
+		Assert.assertEquals("ssn ###########", masker.mask("ssn 123-45-6789", "#"));
+	}
+
+	/**
+	 * testScan
+	 */
+	@Test
+	public void testScan() {
+		Assert.assertEquals(0, CompiledMasker.scan("no digits") & 0xFFFFFFFFL);
+		Assert.assertEquals(16, CompiledMasker.scan("card 4111111111111111.") & 0xFFFFFFFFL);
+		Assert.assertEquals(4, CompiledMasker.scan("12-1234-123") & 0xFFFFFFFFL);
+		Assert.assertNotEquals(CompiledMasker.scan("ssn 123-45-6789"), CompiledMasker.scan("ssn 123-45-678"));
+	}
+
+	/**
+	 * Checks that messages are masked exactly as Masker masks them
+	 * @param masks Masks to enable
+	 */
+	private static void assertSameAsMasker(final String... masks) {
+		Masker expected = new Masker();
+		CompiledMasker actual = new CompiledMasker();
+
+		for (String mask : masks) {
+			expected.addMask(mask);
+			actual.addMask(mask);
+		}
+
+		for (String message : MESSAGES) {
+			Assert.assertEquals(expected.mask(message), actual.mask(message));
+		}
+
+		Random random = new Random(42);
+
+		for (int i = 0; i < 20000; ++i) {
+			char[] chars = new char[random.nextInt(48)];
+
+			for (int j = 0; j < chars.length; ++j) {
+				chars[j] = ALPHABET.charAt(random.nextInt(ALPHABET.length()));
+			}
+
+			// sometimes splice in a message that has something to mask
+
+			String message = new String(chars);
+
+			if (random.nextBoolean()) {
+				int cut = random.nextInt(message.length() + 1);
+				message = message.substring(0, cut) + MESSAGES[3 + random.nextInt(MESSAGES.length - 3)] + message.substring(cut);
+			}
+
+			Assert.assertEquals(message, expected.mask(message), actual.mask(message));
+		}
+	}
+}
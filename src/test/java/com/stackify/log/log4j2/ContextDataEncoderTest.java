@@ -0,0 +1,177 @@
+/*
+ * Copyright 2026 Stackify
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stackify.log.log4j2;
+
+import java.util.Collections;
+import java.util.Map;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.core.impl.Log4jLogEvent;
+import org.apache.logging.log4j.message.SimpleMessage;
+import org.apache.logging.log4j.spi.MutableThreadContextStack;
+import org.apache.logging.log4j.util.SortedArrayStringMap;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * ContextDataEncoder JUnit Test
+ */
+public class ContextDataEncoderTest {
+
+	/**
+	 * testEncodeEmpty
+	 */
+	@Test
+	public void testEncodeEmpty() {
+		Assert.assertNull(ContextDataEncoder.encode(newEvent(0, null)));
+		Assert.assertNull(ContextDataEncoder.encode(newEvent(0, "")));
+	}
+
+	/**
+	 * testEncodeMdcAndNdc
+	 */
+	@Test
+	public void testEncodeMdcAndNdc() {
+		Assert.assertEquals("{\"key0\":\"value0\",\"key1\":\"value1\",\"NDC\":\"ndc\"}", ContextDataEncoder.encode(newEvent(2, "ndc")));
+		Assert.assertEquals("{\"NDC\":\"ndc\"}", ContextDataEncoder.encode(newEvent(0, "ndc")));
+	}
+
+	/**
+	 * testEncodeMatchesJackson
+	 * @throws Exception
+	 */
+	@Test
+	public void testEncodeMatchesJackson() throws Exception {
+		SortedArrayStringMap mdc = new SortedArrayStringMap();
+		mdc.putValue("quote", "a \"quoted\" \\ value");
+		mdc.putValue("control", "line1\nline2\t\u0001");
+		mdc.putValue("unicode", "café ☃");
+		mdc.putValue("nullValue", null);
+		mdc.putValue("NDC", "shadowed by the NDC");
+
+		LogEvent event = Log4jLogEvent.newBuilder()
+				.setLevel(Level.INFO)
+				.setMessage(new SimpleMessage("msg"))
+				.setContextData(mdc)
+				.setContextStack(new MutableThreadContextStack(Collections.singletonList("ndc")))
+				.build();
+
+		String json = ContextDataEncoder.encode(event);
+
+		Map<String, String> decoded = new ObjectMapper().readValue(json, new TypeReference<Map<String, String>>() {});
+
+		Assert.assertEquals(5, decoded.size());
+		Assert.assertEquals("a \"quoted\" \\ value", decoded.get("quote"));
+		Assert.assertEquals("line1\nline2\t\u0001", decoded.get("control"));
+		Assert.assertEquals("café ☃", decoded.get("unicode"));
+		Assert.assertTrue(decoded.containsKey("nullValue"));
+		Assert.assertNull(decoded.get("nullValue"));
+		Assert.assertEquals("ndc", decoded.get("NDC"));
+	}
+
+	/**
+	 * testEncodeMasksFields
+	 */
+	@Test
+	public void testEncodeMasksFields() {
+		SortedArrayStringMap mdc = new SortedArrayStringMap();
+		mdc.putValue("card", "4111111111111111");
+		mdc.putValue("order", "4111111111111111");
+		mdc.putValue("token", "ab\"c");
+
+		LogEvent event = Log4jLogEvent.newBuilder()
+				.setLevel(Level.INFO)
+				.setMessage(new SimpleMessage("msg"))
+				.setContextData(mdc)
+				.setContextStack(new MutableThreadContextStack(Collections.singletonList("ssn 123-45-6789")))
+				.build();
+
+		FieldMasker masker = new FieldMasker();
+		masker.addKeyMask("card", "CREDITCARD");
+		masker.addKeyMask("token", ".+");
+		masker.addKeyMask(ContextDataEncoder.NDC_KEY, "SSN");
+
+		Assert.assertEquals("{\"card\":\"****************\",\"order\":\"4111111111111111\",\"token\":\"****\",\"NDC\":\"ssn ***********\"}",
+				ContextDataEncoder.encode(event, masker));
+
+		masker.addMdcMask("\\d");
+
+		Assert.assertEquals("{\"card\":\"****************\",\"order\":\"****************\",\"token\":\"****\",\"NDC\":\"ssn ***********\"}",
+				ContextDataEncoder.encode(event, masker));
+	}
+
+	/**
+	 * testEncodeToIsAllocationFree
+	 */
+	@Test
+	public void testEncodeToIsAllocationFree() {
+		ThreadAllocations.assumeSupported();
+
+		for (int mdcSize : new int[] {5, 20}) {
+			LogEvent event = newEvent(mdcSize, "ndc");
+			StringBuilder buffer = new StringBuilder(4096);
+			int iterations = 20000;
+
+			for (int i = 0; i < iterations; ++i) {
+				buffer.setLength(0);
+				ContextDataEncoder.encodeTo(event, buffer);
+			}
+
+			long before = ThreadAllocations.allocatedBytes();
+
+			for (int i = 0; i < iterations; ++i) {
+				buffer.setLength(0);
+				ContextDataEncoder.encodeTo(event, buffer);
+			}
+
+			long after = ThreadAllocations.allocatedBytes();
+			double bytesPerEvent = (double) (after - before) / iterations;
+
+			Assert.assertTrue("Allocated " + bytesPerEvent + " bytes per event with " + mdcSize + " MDC entries", bytesPerEvent < 1.0);
+		}
+	}
+
+	/**
+	 * Creates an event with MDC entries key0=value0, key1=value1, ...
+	 * @param mdcSize Number of MDC entries
+	 * @param ndc Top of the NDC (or null)
+	 * @return The event
+	 */
+	private static LogEvent newEvent(final int mdcSize, final String ndc) {
+		SortedArrayStringMap mdc = new SortedArrayStringMap();
+
+		for (int i = 0; i < mdcSize; ++i) {
+			mdc.putValue("key" + i, "value" + i);
+		}
+
+		mdc.freeze();
+
+		Log4jLogEvent.Builder builder = Log4jLogEvent.newBuilder()
+				.setLevel(Level.INFO)
+				.setMessage(new SimpleMessage("msg"))
+				.setContextData(mdc);
+
+		if (ndc != null) {
+			builder.setContextStack(new MutableThreadContextStack(Collections.singletonList(ndc)));
+		}
+
+		return builder.build();
+	}
+}
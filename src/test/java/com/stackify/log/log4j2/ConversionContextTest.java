@@ -0,0 +1,85 @@
+/*
+ * Copyright 2026 Stackify
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stackify.log.log4j2;
+
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.message.Message;
+import org.apache.logging.log4j.message.ParameterizedMessage;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+/**
+ * ConversionContext JUnit Test
+ */
+public class ConversionContextTest {
+
+	/**
+	 * testGetMessageFormatsOnce
+	 */
+	@Test
+	public void testGetMessageFormatsOnce() {
+		Message message = Mockito.mock(Message.class);
+		Mockito.when(message.getFormattedMessage()).thenReturn("msg");
+
+		LogEvent event = Mockito.mock(LogEvent.class);
+		Mockito.when(event.getMessage()).thenReturn(message);
+
+		ConversionContext context = new ConversionContext(event);
+
+		Assert.assertSame(event, context.getEvent());
+		Assert.assertEquals("msg", context.getMessage());
+		Assert.assertEquals("msg", context.getMessage());
+
+		Mockito.verify(message, Mockito.times(1)).getFormattedMessage();
+	}
+
+	/**
+	 * testGetMessageWithoutMessage
+	 */
+	@Test
+	public void testGetMessageWithoutMessage() {
+		ConversionContext context = new ConversionContext(Mockito.mock(LogEvent.class));
+
+		Assert.assertNull(context.getMessage());
+	}
+
+	/**
+	 * testFormatStringBuilderFormattable
+	 */
+	@Test
+	public void testFormatStringBuilderFormattable() {
+		ParameterizedMessage message = new ParameterizedMessage("{} and {}", "one", 2);
+
+		Assert.assertEquals(message.getFormattedMessage(), ConversionContext.format(message));
+	}
+
+	/**
+	 * testFormatNested
+	 */
+	@Test
+	public void testFormatNested() {
+		Object nested = new Object() {
+			@Override
+			public String toString() {
+				return ConversionContext.format(new ParameterizedMessage("inner {}", "value"));
+			}
+		};
+
+		Assert.assertEquals("outer [inner value] done", ConversionContext.format(new ParameterizedMessage("outer [{}] done", nested)));
+		Assert.assertEquals("after", ConversionContext.format(new ParameterizedMessage("{}", "after")));
+	}
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2026 Stackify
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stackify.log.log4j2;
+
+import java.nio.ByteBuffer;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * DirectBufferPool JUnit Test
+ */
+public class DirectBufferPoolTest {
+
+	/**
+	 * testReuse
+	 */
+	@Test
+	public void testReuse() {
+		DirectBufferPool pool = new DirectBufferPool(1024, 2);
+
+		ByteBuffer buffer = pool.acquire(100);
+		Assert.assertTrue(buffer.isDirect());
+		Assert.assertEquals(1024, buffer.capacity());
+
+		buffer.put((byte) 1);
+		pool.release(buffer);
+		Assert.assertEquals(1, pool.getIdleCount());
+
+		ByteBuffer reused = pool.acquire(1024);
+		Assert.assertSame(buffer, reused);
+		Assert.assertEquals(0, reused.position());
+		Assert.assertEquals(1024, reused.limit());
+		Assert.assertEquals(0, pool.getIdleCount());
+	}
+
+	/**
+	 * testOversize
+	 */
+	@Test
+	public void testOversize() {
+		DirectBufferPool pool = new DirectBufferPool(1024, 2);
+
+		ByteBuffer buffer = pool.acquire(4096);
+		Assert.assertTrue(buffer.isDirect());
+		Assert.assertEquals(4096, buffer.capacity());
+
+		pool.release(buffer);
+		Assert.assertEquals(0, pool.getIdleCount());
+	}
+
+	/**
+	 * testIdleBound
+	 */
+	@Test
+	public void testIdleBound() {
+		DirectBufferPool pool = new DirectBufferPool(1024, 2);
+
+		ByteBuffer a = pool.acquire(1);
+		ByteBuffer b = pool.acquire(1);
+		ByteBuffer c = pool.acquire(1);
+
+		pool.release(a);
+		pool.release(b);
+		pool.release(c);
+		pool.release(null);
+
+		Assert.assertEquals(2, pool.getIdleCount());
+	}
+}
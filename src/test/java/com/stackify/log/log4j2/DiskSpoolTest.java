@@ -0,0 +1,195 @@
+/*
+ * Copyright 2026 Stackify
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stackify.log.log4j2;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * DiskSpool JUnit Test
+ */
+public class DiskSpoolTest {
+
+	/**
+	 * Spool directory
+	 */
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	/**
+	 * testAppendPeekAdvance
+	 * @throws Exception
+	 */
+	@Test
+	public void testAppendPeekAdvance() throws Exception {
+		DiskSpool spool = new DiskSpool(folder.getRoot(), 1024 * 1024, 4096);
+
+		Assert.assertTrue(spool.isEmpty());
+		Assert.assertNull(spool.peek());
+
+		Assert.assertTrue(spool.append(bytes("one")));
+		Assert.assertTrue(spool.append(bytes("two")));
+
+		Assert.assertFalse(spool.isEmpty());
+		Assert.assertEquals("one", string(spool.peek()));
+		Assert.assertEquals("one", string(spool.peek()));
+
+		spool.advance();
+		Assert.assertEquals("two", string(spool.peek()));
+
+		spool.advance();
+		Assert.assertNull(spool.peek());
+		Assert.assertTrue(spool.isEmpty());
+
+		spool.close();
+	}
+
+	/**
+	 * testSegmentRoll
+	 * @throws Exception
+	 */
+	@Test
+	public void testSegmentRoll() throws Exception {
+		DiskSpool spool = new DiskSpool(folder.getRoot(), 1024 * 1024, 256);
+
+		for (int i = 0; i < 20; ++i) {
+			Assert.assertTrue(spool.append(bytes("record-" + i + "-0123456789012345678901234567890123456789")));
+		}
+
+		Assert.assertTrue(spool.getSegmentCount() > 1);
+
+		for (int i = 0; i < 20; ++i) {
+			Assert.assertEquals("record-" + i + "-0123456789012345678901234567890123456789", string(spool.peek()));
+			spool.advance();
+		}
+
+		// replayed segments are deleted
+
+		Assert.assertNull(spool.peek());
+		Assert.assertEquals(1, spool.getSegmentCount());
+
+		Assert.assertFalse(spool.append(new byte[256]));
+		Assert.assertEquals(1, spool.getDropped());
+
+		spool.close();
+	}
+
+	/**
+	 * testReopen
+	 * @throws Exception
+	 */
+	@Test
+	public void testReopen() throws Exception {
+		DiskSpool spool = new DiskSpool(folder.getRoot(), 1024 * 1024, 4096);
+		spool.append(bytes("one"));
+		spool.append(bytes("two"));
+		spool.append(bytes("three"));
+		spool.peek();
+		spool.advance();
+		spool.close();
+
+		// the cursor survives, replay resumes at the second record
+
+		DiskSpool reopened = new DiskSpool(folder.getRoot(), 1024 * 1024, 4096);
+		Assert.assertEquals("two", string(reopened.peek()));
+
+		reopened.append(bytes("four"));
+		reopened.advance();
+		Assert.assertEquals("three", string(reopened.peek()));
+		reopened.advance();
+		Assert.assertEquals("four", string(reopened.peek()));
+		reopened.close();
+	}
+
+	/**
+	 * testTornRecord
+	 * @throws Exception
+	 */
+	@Test
+	public void testTornRecord() throws Exception {
+		DiskSpool spool = new DiskSpool(folder.getRoot(), 1024 * 1024, 4096);
+		spool.append(bytes("one"));
+		spool.append(bytes("two"));
+		spool.close();
+
+		// corrupt the payload of the second record
+
+		File segment = new File(folder.getRoot(), String.format("spool-%020d.seg", 0));
+		int secondPayload = DiskSpool.SEGMENT_HEADER + DiskSpool.RECORD_HEADER + 3 + DiskSpool.RECORD_HEADER;
+
+		RandomAccessFile file = new RandomAccessFile(segment, "rw");
+
+		try {
+			file.seek(secondPayload);
+			file.write('X');
+		} finally {
+			file.close();
+		}
+
+		DiskSpool reopened = new DiskSpool(folder.getRoot(), 1024 * 1024, 4096);
+		Assert.assertEquals("one", string(reopened.peek()));
+		reopened.advance();
+		Assert.assertNull(reopened.peek());
+
+		// appends continue after the last valid record
+
+		reopened.append(bytes("three"));
+		Assert.assertEquals("three", string(reopened.peek()));
+		reopened.close();
+	}
+
+	/**
+	 * testSizeBound
+	 * @throws Exception
+	 */
+	@Test
+	public void testSizeBound() throws Exception {
+		DiskSpool spool = new DiskSpool(folder.getRoot(), 512, 256);
+
+		for (int i = 0; i < 20; ++i) {
+			spool.append(bytes("record-" + i + "-0123456789012345678901234567890123456789"));
+		}
+
+		Assert.assertEquals(2, spool.getSegmentCount());
+		Assert.assertTrue(spool.getDropped() > 0);
+
+		// the oldest records were dropped, the newest are kept
+
+		String last = null;
+
+		for (byte[] record = spool.peek(); record != null; record = spool.peek()) {
+			last = string(record);
+			spool.advance();
+		}
+
+		Assert.assertEquals("record-19-0123456789012345678901234567890123456789", last);
+		spool.close();
+	}
+
+	private static byte[] bytes(final String value) {
+		return value.getBytes(StandardCharsets.UTF_8);
+	}
+
+	private static String string(final byte[] value) {
+		return new String(value, StandardCharsets.UTF_8);
+	}
+}
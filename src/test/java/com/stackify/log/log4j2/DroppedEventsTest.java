@@ -0,0 +1,58 @@
+/*
+ * Copyright 2026 Stackify
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stackify.log.log4j2;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.core.LogEvent;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * DroppedEvents JUnit Test
+ */
+public class DroppedEventsTest {
+
+	/**
+	 * testDrainReport
+	 */
+	@Test
+	public void testDrainReport() {
+		DroppedEvents dropped = new DroppedEvents();
+
+		Assert.assertNull(dropped.drainReport(60000));
+
+		dropped.increment(Level.ERROR);
+		dropped.increment(Level.INFO);
+		dropped.increment(Level.INFO);
+		dropped.increment(Level.forName("CUSTOM", 450));
+
+		// custom levels are counted under their standard level
+
+		LogEvent report = dropped.drainReport(60000);
+
+		Assert.assertEquals(Level.WARN, report.getLevel());
+		Assert.assertEquals(DroppedEvents.REPORT_LOGGER, report.getLoggerName());
+		Assert.assertEquals("Stackify log appender dropped 4 events in the last 60s (ERROR=1, INFO=3)", report.getMessage().getFormattedMessage());
+		Assert.assertEquals("4", report.getContextData().getValue("droppedTotal"));
+		Assert.assertEquals("3", report.getContextData().getValue("dropped.INFO"));
+		Assert.assertNull(report.getContextData().getValue("dropped.WARN"));
+
+		// counts are reset by the report, the total is not
+
+		Assert.assertNull(dropped.drainReport(60000));
+		Assert.assertEquals(4, dropped.getTotal());
+	}
+}
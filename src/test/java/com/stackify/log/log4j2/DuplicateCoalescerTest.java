@@ -0,0 +1,256 @@
+/*
+ * Copyright 2026 Stackify
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stackify.log.log4j2;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.core.impl.Log4jLogEvent;
+import org.apache.logging.log4j.message.ParameterizedMessage;
+import org.apache.logging.log4j.util.SortedArrayStringMap;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * DuplicateCoalescer JUnit Test
+ */
+public class DuplicateCoalescerTest {
+
+	/**
+	 * Time of the first test event
+	 */
+	private static final long START = System.currentTimeMillis();
+
+	/**
+	 * Repeat events sent by the coalescer
+	 */
+	private final List<LogEvent> repeats = new ArrayList<LogEvent>();
+
+	/**
+	 * Collects the repeat events
+	 */
+	private final DuplicateCoalescer.Sink sink = new DuplicateCoalescer.Sink() {
+		@Override
+		public void send(final LogEvent event, final EventContext eventContext) {
+			repeats.add(event);
+		}
+	};
+
+	/**
+	 * testCoalesce
+	 */
+	@Test
+	public void testCoalesce() {
+		DuplicateCoalescer coalescer = new DuplicateCoalescer(DuplicateCoalescer.MODE_GLOBAL, 1000, sink);
+
+		Assert.assertTrue(coalescer.offer(event(Level.INFO, "Retry {} failed", 1, START)));
+
+		for (int i = 2; i <= 5; ++i) {
+			Assert.assertFalse(coalescer.offer(event(Level.INFO, "Retry {} failed", i, START + i)));
+		}
+
+		Assert.assertTrue(repeats.isEmpty());
+		Assert.assertTrue(coalescer.offer(event(Level.INFO, "Done after {} retries", 5, START + 10)));
+
+		Assert.assertEquals(1, repeats.size());
+		LogEvent repeat = repeats.get(0);
+		Assert.assertEquals("Retry 2 failed (repeated 4 times)", repeat.getMessage().getFormattedMessage());
+		Assert.assertEquals("4", repeat.getContextData().getValue(DuplicateCoalescer.REPEAT_COUNT_KEY));
+		Assert.assertEquals("value", repeat.getContextData().getValue("key"));
+		Assert.assertEquals(Level.INFO, repeat.getLevel());
+		Assert.assertEquals("test", repeat.getLoggerName());
+		Assert.assertEquals(START + 5, repeat.getTimeMillis());
+	}
+
+	/**
+	 * testNotDuplicates
+	 */
+	@Test
+	public void testNotDuplicates() {
+		DuplicateCoalescer coalescer = new DuplicateCoalescer(DuplicateCoalescer.MODE_GLOBAL, 1000, sink);
+
+		Assert.assertTrue(coalescer.offer(event(Level.INFO, "Retry {} failed", 1, START)));
+		Assert.assertTrue(coalescer.offer(event(Level.WARN, "Retry {} failed", 2, START)));
+		Assert.assertTrue(coalescer.offer(event(Level.WARN, "Retry {} failed", 3, START + 1001)));
+
+		LogEvent withThrowable = Log4jLogEvent.newBuilder()
+				.setLoggerName("test")
+				.setLevel(Level.WARN)
+				.setMessage(new ParameterizedMessage("Retry {} failed", 4))
+				.setThrown(new IllegalStateException())
+				.setTimeMillis(START + 1002)
+				.build();
+
+		Assert.assertTrue(coalescer.offer(withThrowable));
+		Assert.assertTrue(coalescer.offer(withThrowable));
+
+		coalescer.flush();
+		Assert.assertTrue(repeats.isEmpty());
+	}
+
+	/**
+	 * testFlush
+	 */
+	@Test
+	public void testFlush() {
+		DuplicateCoalescer coalescer = new DuplicateCoalescer(DuplicateCoalescer.MODE_GLOBAL, 1000, sink);
+
+		Assert.assertTrue(coalescer.offer(event(Level.ERROR, "Retry {} failed", 1, START)));
+		Assert.assertFalse(coalescer.offer(event(Level.ERROR, "Retry {} failed", 2, START)));
+
+		coalescer.flush();
+		Assert.assertEquals(1, repeats.size());
+		Assert.assertEquals("Retry 2 failed (repeated 1 time)", repeats.get(0).getMessage().getFormattedMessage());
+
+		coalescer.flush();
+		Assert.assertEquals(1, repeats.size());
+	}
+
+	/**
+	 * testSourceLocation
+	 */
+	@Test
+	public void testSourceLocation() {
+		DuplicateCoalescer coalescer = new DuplicateCoalescer(DuplicateCoalescer.MODE_GLOBAL, 1000, sink);
+
+		StackTraceElement first = new StackTraceElement("com.acme.Service", "process", "Service.java", 10);
+		StackTraceElement second = new StackTraceElement("com.acme.Service", "process", "Service.java", 20);
+
+		Assert.assertTrue(coalescer.offer(event(Level.INFO, "Retry {} failed", 1, START, first)));
+		Assert.assertTrue(coalescer.offer(event(Level.INFO, "Retry {} failed", 2, START, second)));
+		Assert.assertFalse(coalescer.offer(event(Level.INFO, "Retry {} failed", 3, START, second)));
+
+		coalescer.flush();
+		Assert.assertEquals(1, repeats.size());
+		Assert.assertEquals(second, repeats.get(0).getSource());
+	}
+
+	/**
+	 * testWithoutLocation
+	 */
+	@Test
+	public void testWithoutLocation() {
+		DuplicateCoalescer coalescer = new DuplicateCoalescer(DuplicateCoalescer.MODE_GLOBAL, 1000, sink);
+
+		LogEvent first = Log4jLogEvent.newBuilder()
+				.setLoggerName("test")
+				.setLevel(Level.INFO)
+				.setMessage(new ParameterizedMessage("Retry {} failed", 1))
+				.setTimeMillis(START)
+				.setSource(new StackTraceElement("com.acme.Service", "process", "Service.java", 10))
+				.build();
+
+		LogEvent second = Log4jLogEvent.newBuilder()
+				.setLoggerName("test")
+				.setLevel(Level.INFO)
+				.setMessage(new ParameterizedMessage("Retry {} failed", 2))
+				.setTimeMillis(START)
+				.setSource(new StackTraceElement("com.acme.Service", "process", "Service.java", 20))
+				.build();
+
+		Assert.assertTrue(coalescer.offer(first));
+		Assert.assertFalse(coalescer.offer(second));
+	}
+
+	/**
+	 * testSweepIfDue
+	 */
+	@Test
+	public void testSweepIfDue() {
+		DuplicateCoalescer coalescer = new DuplicateCoalescer(DuplicateCoalescer.MODE_THREAD, 1000, sink);
+		long now = System.currentTimeMillis();
+
+		Assert.assertTrue(coalescer.offer(event(Level.INFO, "Retry {} failed", 1, now)));
+		Assert.assertFalse(coalescer.offer(event(Level.INFO, "Retry {} failed", 2, now)));
+
+		coalescer.sweepIfDue(now + 500);
+		Assert.assertTrue(repeats.isEmpty());
+
+		coalescer.sweepIfDue(now + 2000);
+		Assert.assertEquals(1, repeats.size());
+		Assert.assertEquals("Retry 2 failed (repeated 1 time)", repeats.get(0).getMessage().getFormattedMessage());
+	}
+
+	/**
+	 * testPerThread
+	 * @throws Exception
+	 */
+	@Test
+	public void testPerThread() throws Exception {
+		final DuplicateCoalescer coalescer = new DuplicateCoalescer(DuplicateCoalescer.MODE_THREAD, 1000, sink);
+
+		Assert.assertTrue(coalescer.offer(event(Level.INFO, "Retry {} failed", 1, START)));
+
+		final AtomicBoolean otherThreadSent = new AtomicBoolean();
+
+		Thread other = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				otherThreadSent.set(coalescer.offer(event(Level.INFO, "Retry {} failed", 2, START)));
+			}
+		});
+		other.start();
+		other.join();
+
+		Assert.assertTrue(otherThreadSent.get());
+		Assert.assertFalse(coalescer.offer(event(Level.INFO, "Retry {} failed", 3, START)));
+
+		coalescer.flush();
+		Assert.assertEquals(1, repeats.size());
+		Assert.assertEquals("Retry 3 failed (repeated 1 time)", repeats.get(0).getMessage().getFormattedMessage());
+
+		Assert.assertTrue(coalescer.offer(event(Level.INFO, "Retry {} failed", 4, START)));
+	}
+
+	/**
+	 * Creates an event with a parameterized message and an MDC entry
+	 * @param level The level
+	 * @param pattern The message pattern
+	 * @param param The message parameter
+	 * @param time The event time
+	 * @return The event
+	 */
+	private static LogEvent event(final Level level, final String pattern, final Object param, final long time) {
+		return event(level, pattern, param, time, null);
+	}
+
+	/**
+	 * Creates an event with a parameterized message, an MDC entry and a source location
+	 * @param level The level
+	 * @param pattern The message pattern
+	 * @param param The message parameter
+	 * @param time The event time
+	 * @param source The source location (or null)
+	 * @return The event
+	 */
+	private static LogEvent event(final Level level, final String pattern, final Object param, final long time, final StackTraceElement source) {
+		SortedArrayStringMap mdc = new SortedArrayStringMap();
+		mdc.putValue("key", "value");
+
+		return Log4jLogEvent.newBuilder()
+				.setLoggerName("test")
+				.setLevel(level)
+				.setMessage(new ParameterizedMessage(pattern, param))
+				.setContextData(mdc)
+				.setTimeMillis(time)
+				.setSource(source)
+				.setIncludeLocation(source != null)
+				.build();
+	}
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright 2026 Stackify
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stackify.log.log4j2;
+
+import java.util.List;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.core.impl.Log4jLogEvent;
+import org.apache.logging.log4j.message.Message;
+import org.apache.logging.log4j.message.ParameterizedMessage;
+import org.apache.logging.log4j.message.SimpleMessage;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * ErrorAggregator JUnit Test
+ */
+public class ErrorAggregatorTest {
+
+	/**
+	 * Start of the test windows
+	 */
+	private static final long START = 1000000L;
+
+	/**
+	 * testSendsFirstOccurrences
+	 */
+	@Test
+	public void testSendsFirstOccurrences() {
+		ErrorAggregator aggregator = new ErrorAggregator(60000, 3);
+
+		for (int i = 0; i < 10; ++i) {
+			Assert.assertEquals(i < 3, aggregator.record(error("failure " + i, START + i)));
+		}
+
+		Assert.assertTrue(aggregator.record(context(Level.ERROR, "other", new IllegalStateException("other"), START)));
+		Assert.assertTrue(aggregator.record(context(Level.INFO, "info", null, START)));
+		Assert.assertTrue(aggregator.drainSummaries(START + 100).isEmpty());
+	}
+
+	/**
+	 * testSummary
+	 */
+	@Test
+	public void testSummary() {
+		ErrorAggregator aggregator = new ErrorAggregator(60000, 2);
+
+		for (int i = 0; i < 10; ++i) {
+			aggregator.record(error("failure " + (i % 7), START + i * 1000));
+		}
+
+		List<LogEvent> summaries = aggregator.drainSummaries(START + 60000);
+		Assert.assertEquals(1, summaries.size());
+
+		LogEvent summary = summaries.get(0);
+		Assert.assertEquals(Level.WARN, summary.getLevel());
+		Assert.assertEquals("test", summary.getLoggerName());
+		Assert.assertNull(summary.getThrown());
+		Assert.assertTrue(summary.getMessage().getFormattedMessage(),
+				summary.getMessage().getFormattedMessage().startsWith("Stackify log appender aggregated 8 of 10 occurrences of java.lang.Exception at "));
+		Assert.assertEquals("10", summary.getContextData().getValue("aggregated.count"));
+		Assert.assertEquals("8", summary.getContextData().getValue("aggregated.suppressed"));
+		Assert.assertEquals(Long.toString(START), summary.getContextData().getValue("aggregated.first"));
+		Assert.assertEquals(Long.toString(START + 9000), summary.getContextData().getValue("aggregated.last"));
+		Assert.assertEquals("failure 2", summary.getContextData().getValue("aggregated.sample.0"));
+		Assert.assertEquals("failure 6", summary.getContextData().getValue("aggregated.sample.4"));
+		Assert.assertNull(summary.getContextData().getValue("aggregated.sample.5"));
+
+		Assert.assertTrue(aggregator.drainSummaries(START + 120000).isEmpty());
+	}
+
+	/**
+	 * testSummaryMasksSamples
+	 */
+	@Test
+	public void testSummaryMasksSamples() {
+		FieldMasker masker = new FieldMasker();
+		masker.addMessageMask("SSN");
+
+		ErrorAggregator aggregator = new ErrorAggregator(60000, 1, masker);
+
+		for (int i = 0; i < 5; ++i) {
+			aggregator.record(error("failure for ssn 123-45-678" + i, START + i));
+		}
+
+		List<LogEvent> summaries = aggregator.drainSummaries(START + 60000);
+		Assert.assertEquals(1, summaries.size());
+
+		LogEvent summary = summaries.get(0);
+		Assert.assertEquals("failure for ssn ***********", summary.getContextData().getValue("aggregated.sample.0"));
+		Assert.assertEquals("failure for ssn ***********", summary.getContextData().getValue("aggregated.sample.3"));
+		Assert.assertFalse(summary.getMessage().getFormattedMessage(), summary.getMessage().getFormattedMessage().contains("123-45-678"));
+	}
+
+	/**
+	 * testNewWindow
+	 */
+	@Test
+	public void testNewWindow() {
+		ErrorAggregator aggregator = new ErrorAggregator(1000, 1);
+		Exception failure = new Exception("failure");
+
+		Assert.assertTrue(aggregator.record(context(Level.ERROR, "failure", failure, START)));
+		Assert.assertFalse(aggregator.record(context(Level.ERROR, "failure", failure, START + 999)));
+		Assert.assertTrue(aggregator.record(context(Level.ERROR, "failure", failure, START + 1000)));
+		Assert.assertFalse(aggregator.record(context(Level.ERROR, "failure", failure, START + 1001)));
+
+		Assert.assertTrue(aggregator.isSweepDue(START));
+		Assert.assertEquals(1, aggregator.drainSummaries(START + 1000).size());
+		Assert.assertEquals(1, aggregator.drainSummaries(Long.MAX_VALUE).size());
+		Assert.assertTrue(aggregator.drainSummaries(Long.MAX_VALUE).isEmpty());
+	}
+
+	/**
+	 * testErrorsWithoutThrowable
+	 */
+	@Test
+	public void testErrorsWithoutThrowable() {
+		ErrorAggregator aggregator = new ErrorAggregator(60000, 1);
+
+		Assert.assertTrue(aggregator.record(context(Level.ERROR, new ParameterizedMessage("Order {} failed", 1), null, START)));
+		Assert.assertFalse(aggregator.record(context(Level.ERROR, new ParameterizedMessage("Order {} failed", 2), null, START)));
+		Assert.assertTrue(aggregator.record(context(Level.ERROR, new ParameterizedMessage("Payment {} failed", 3), null, START)));
+		Assert.assertTrue(aggregator.record(context(Level.FATAL, new ParameterizedMessage("Order {} failed", 4), null, START)));
+
+		List<LogEvent> summaries = aggregator.drainSummaries(Long.MAX_VALUE);
+		Assert.assertEquals(1, summaries.size());
+		Assert.assertEquals("Order 2 failed", summaries.get(0).getContextData().getValue("aggregated.sample.0"));
+	}
+
+	/**
+	 * Creates an error event whose exception has the same stack trace whenever it is called from the same line
+	 * @param message The message
+	 * @param time The event time
+	 * @return The event
+	 */
+	private static ConversionContext error(final String message, final long time) {
+		return context(Level.ERROR, message, new Exception(message, new IllegalArgumentException("cause")), time);
+	}
+
+	/**
+	 * Creates an event
+	 * @param level The level
+	 * @param message The message
+	 * @param thrown The throwable (or null)
+	 * @param time The event time
+	 * @return The event
+	 */
+	private static ConversionContext context(final Level level, final Object message, final Throwable thrown, final long time) {
+		LogEvent event = Log4jLogEvent.newBuilder()
+				.setLoggerName("test")
+				.setLevel(level)
+				.setMessage((message instanceof String) ? new SimpleMessage((String) message) : (Message) message)
+				.setThrown(thrown)
+				.setTimeMillis(time)
+				.build();
+
+		return new ConversionContext(event, EventContext.EMPTY);
+	}
+}
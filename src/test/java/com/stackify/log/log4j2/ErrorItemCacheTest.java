@@ -0,0 +1,155 @@
+/*
+ * Copyright 2026 Stackify
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stackify.log.log4j2;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.stackify.api.ErrorItem;
+import com.stackify.api.common.lang.Throwables;
+
+/**
+ * ErrorItemCache JUnit Test
+ */
+public class ErrorItemCacheTest {
+
+	/**
+	 * testSameAsThrowables
+	 */
+	@Test
+	public void testSameAsThrowables() {
+		ErrorItemCache cache = new ErrorItemCache(16);
+
+		RuntimeException stackless = new RuntimeException("no stack");
+		stackless.setStackTrace(new StackTraceElement[0]);
+
+		IllegalStateException cyclic = new IllegalStateException("outer");
+		IllegalArgumentException inner = new IllegalArgumentException("inner", cyclic);
+		cyclic.initCause(inner);
+
+		Throwable[] throwables = {
+			new NullPointerException(),
+			new RuntimeException("outer", new IllegalStateException("middle", new IllegalArgumentException(""))),
+			stackless,
+			cyclic,
+			new Exception() { private static final long serialVersionUID = 1L; }
+		};
+
+		for (int round = 0; round < 2; ++round) {
+			for (Throwable throwable : throwables) {
+				for (String message : new String[] {null, "", "log message"}) {
+					Assert.assertEquals(Throwables.toErrorItem(message, throwable), cache.toErrorItem(message, throwable));
+				}
+			}
+		}
+	}
+
+	/**
+	 * testReusesStack
+	 */
+	@Test
+	public void testReusesStack() {
+		ErrorItemCache cache = new ErrorItemCache(16);
+
+		ErrorItem first = null;
+		ErrorItem last = null;
+
+		for (int i = 0; i < 10; ++i) {
+			ErrorItem item = cache.toErrorItem("attempt " + i, newException("failure " + i));
+
+			if (first == null) {
+				first = item;
+			}
+
+			last = item;
+		}
+
+		Assert.assertEquals("failure 9 (attempt 9)", last.getMessage());
+		Assert.assertEquals("cause", last.getInnerError().getMessage());
+		Assert.assertSame(first.getStackTrace(), last.getStackTrace());
+		Assert.assertSame(first.getInnerError().getStackTrace(), last.getInnerError().getStackTrace());
+		Assert.assertNotSame(first, last);
+
+		Assert.assertEquals(2, cache.getMisses());
+		Assert.assertEquals(18, cache.getHits());
+		Assert.assertEquals(0.9, cache.getHitRate(), 0.0001);
+	}
+
+	/**
+	 * testTruncationLeavesCacheIntact
+	 */
+	@Test
+	public void testTruncationLeavesCacheIntact() {
+		ErrorItemCache cache = new ErrorItemCache(16);
+
+		ErrorItem full = cache.toErrorItem("msg", newException("failure"));
+		int frames = full.getStackTrace().size();
+
+		Truncation.truncate(cache.toErrorItem("msg", newException("failure")), 200);
+
+		ErrorItem again = cache.toErrorItem("msg", newException("failure"));
+		Assert.assertEquals(frames, again.getStackTrace().size());
+		Assert.assertNotNull(again.getInnerError());
+	}
+
+	/**
+	 * testDifferentStacks
+	 */
+	@Test
+	public void testDifferentStacks() {
+		ErrorItemCache cache = new ErrorItemCache(16);
+
+		ErrorItem a = cache.toErrorItem(null, new IllegalStateException("a"));
+		ErrorItem b = cache.toErrorItem(null, new IllegalStateException("b"));
+
+		Assert.assertNotEquals(a.getStackTrace(), b.getStackTrace());
+		Assert.assertEquals(2, cache.getMisses());
+		Assert.assertEquals(0, cache.getHits());
+	}
+
+	/**
+	 * testEviction
+	 */
+	@Test
+	public void testEviction() {
+		ErrorItemCache cache = new ErrorItemCache(2);
+
+		Throwable[] throwables = new Throwable[4];
+
+		for (int i = 0; i < throwables.length; ++i) {
+			throwables[i] = new IllegalStateException(Integer.toString(i));
+			throwables[i].setStackTrace(new StackTraceElement[] {new StackTraceElement("Class" + i, "method", "Class" + i + ".java", i)});
+			cache.toErrorItem(null, throwables[i]);
+		}
+
+		Assert.assertEquals(2, cache.size());
+
+		cache.toErrorItem(null, throwables[3]);
+		cache.toErrorItem(null, throwables[0]);
+
+		Assert.assertEquals(1, cache.getHits());
+		Assert.assertEquals(5, cache.getMisses());
+	}
+
+	/**
+	 * Creates an exception with a cause, with the same stack on every call
+	 * @param message The exception message
+	 * @return The exception
+	 */
+	private static Exception newException(final String message) {
+		return new Exception(message, new IllegalArgumentException("cause"));
+	}
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2026 Stackify
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stackify.log.log4j2;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.message.Message;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import com.stackify.api.EnvironmentDetail;
+import com.stackify.api.LogMsg;
+import com.stackify.api.StackifyError;
+import com.stackify.api.WebRequestDetail;
+import com.stackify.api.common.log.ServletLogContext;
+
+/**
+ * EventContext JUnit Test
+ */
+public class EventContextTest {
+
+	/**
+	 * Clears the servlet context
+	 */
+	@After
+	public void tearDown() {
+		ServletLogContext.clear();
+	}
+
+	/**
+	 * testCaptureEmpty
+	 */
+	@Test
+	public void testCaptureEmpty() {
+		ServletLogContext.clear();
+
+		Assert.assertSame(EventContext.EMPTY, EventContext.capture(true));
+		Assert.assertSame(EventContext.EMPTY, EventContext.capture(false));
+	}
+
+	/**
+	 * testCaptureServletContext
+	 */
+	@Test
+	public void testCaptureServletContext() {
+		ServletLogContext.putTransactionId("trans");
+		ServletLogContext.putUser("user");
+		ServletLogContext.putWebRequest(WebRequestDetail.newBuilder().build());
+
+		EventContext full = EventContext.capture(true);
+
+		Assert.assertEquals("trans", full.getTransactionId());
+		Assert.assertEquals("user", full.getUser());
+		Assert.assertNotNull(full.getWebRequest());
+
+		EventContext partial = EventContext.capture(false);
+
+		Assert.assertEquals("trans", partial.getTransactionId());
+		Assert.assertNull(partial.getUser());
+		Assert.assertNull(partial.getWebRequest());
+	}
+
+	/**
+	 * testConvertOnAnotherThread
+	 * @throws Exception
+	 */
+	@Test
+	public void testConvertOnAnotherThread() throws Exception {
+		ServletLogContext.putTransactionId("trans");
+		ServletLogContext.putUser("user");
+
+		Message message = Mockito.mock(Message.class);
+		Mockito.when(message.getFormattedMessage()).thenReturn("msg");
+
+		LogEvent event = Mockito.mock(LogEvent.class);
+		Mockito.when(event.getMessage()).thenReturn(message);
+		Mockito.when(event.getLevel()).thenReturn(Level.ERROR);
+
+		final ConversionContext context = new ConversionContext(event, EventContext.capture(true));
+		final LogEventAdapter adapter = new LogEventAdapter(Mockito.mock(EnvironmentDetail.class));
+
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+
+		try {
+			LogMsg logMsg = executor.submit(new Callable<LogMsg>() {
+				@Override
+				public LogMsg call() {
+					StackifyError error = adapter.getStackifyError(context, new NullPointerException());
+					return adapter.getLogMsg(context, error);
+				}
+			}).get();
+
+			Assert.assertEquals("trans", logMsg.getTransId());
+			Assert.assertEquals("user", logMsg.getEx().getUserName());
+		} finally {
+			executor.shutdown();
+		}
+	}
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright 2026 Stackify
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stackify.log.log4j2;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.core.impl.Log4jLogEvent;
+import org.apache.logging.log4j.message.SimpleMessage;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * EventRingBuffer JUnit Test
+ */
+public class EventRingBufferTest {
+
+	/**
+	 * testCapacity
+	 */
+	@Test
+	public void testCapacity() {
+		Assert.assertEquals(8, new EventRingBuffer(5).capacity());
+		Assert.assertEquals(2, new EventRingBuffer(0).capacity());
+	}
+
+	/**
+	 * testClaimPublishTake
+	 */
+	@Test
+	public void testClaimPublishTake() {
+		EventRingBuffer ring = new EventRingBuffer(2);
+
+		Assert.assertNull(ring.tryTake());
+
+		publish(ring, "one");
+		publish(ring, "two");
+
+		Assert.assertEquals(2, ring.size());
+		Assert.assertNull(ring.tryClaim());
+
+		EventRingBuffer.Slot slot = ring.tryTake();
+		Assert.assertEquals("one", slot.event.getMessage().getFormattedMessage());
+		Assert.assertSame(EventContext.EMPTY, slot.eventContext);
+
+		// the slot is not reusable until released
+
+		Assert.assertNull(ring.tryClaim());
+		ring.release(slot);
+		Assert.assertNull(slot.eventContext);
+
+		publish(ring, "three");
+
+		Assert.assertEquals("two", take(ring));
+		Assert.assertEquals("three", take(ring));
+		Assert.assertTrue(ring.isEmpty());
+	}
+
+	/**
+	 * testEvict
+	 */
+	@Test
+	public void testEvict() {
+		EventRingBuffer ring = new EventRingBuffer(2);
+
+		publish(ring, "one");
+		Assert.assertNull(ring.tryEvict());
+
+		publish(ring, "two");
+
+		EventRingBuffer.Slot evicted = ring.tryEvict();
+		Assert.assertEquals("one", evicted.event.getMessage().getFormattedMessage());
+		ring.release(evicted);
+
+		publish(ring, "three");
+
+		// the next claim needs the slot of the taken event, which cannot be evicted
+
+		EventRingBuffer.Slot taken = ring.tryTake();
+		Assert.assertEquals("two", taken.event.getMessage().getFormattedMessage());
+		Assert.assertNull(ring.tryEvict());
+		Assert.assertNull(ring.tryClaim());
+		ring.release(taken);
+
+		publish(ring, "four");
+
+		Assert.assertEquals("three", take(ring));
+		Assert.assertEquals("four", take(ring));
+	}
+
+	/**
+	 * testConcurrentProducers
+	 * @throws Exception
+	 */
+	@Test
+	public void testConcurrentProducers() throws Exception {
+		final EventRingBuffer ring = new EventRingBuffer(16);
+		final int perThread = 10000;
+
+		Thread[] producers = new Thread[4];
+
+		for (int i = 0; i < producers.length; ++i) {
+			producers[i] = new Thread() {
+				@Override
+				public void run() {
+					for (int j = 0; j < perThread; ++j) {
+						EventRingBuffer.Slot slot;
+
+						while ((slot = ring.tryClaim()) == null) {
+							Thread.yield();
+						}
+
+						slot.set(newEvent("msg"), EventContext.EMPTY);
+						ring.publish(slot);
+					}
+				}
+			};
+			producers[i].start();
+		}
+
+		int taken = 0;
+
+		while (taken < producers.length * perThread) {
+			EventRingBuffer.Slot slot = ring.tryTake();
+
+			if (slot != null) {
+				Assert.assertEquals("msg", slot.event.getMessage().getFormattedMessage());
+				ring.release(slot);
+				++taken;
+			}
+		}
+
+		for (Thread producer : producers) {
+			producer.join();
+		}
+
+		Assert.assertTrue(ring.isEmpty());
+	}
+
+	private static void publish(final EventRingBuffer ring, final String message) {
+		EventRingBuffer.Slot slot = ring.tryClaim();
+		Assert.assertNotNull(slot);
+		slot.set(newEvent(message), EventContext.EMPTY);
+		ring.publish(slot);
+	}
+
+	private static String take(final EventRingBuffer ring) {
+		EventRingBuffer.Slot slot = ring.tryTake();
+		Assert.assertNotNull(slot);
+
+		try {
+			return slot.event.getMessage().getFormattedMessage();
+		} finally {
+			ring.release(slot);
+		}
+	}
+
+	private static LogEvent newEvent(final String message) {
+		return Log4jLogEvent.newBuilder().setLoggerName("test").setLevel(Level.INFO).setMessage(new SimpleMessage(message)).build();
+	}
+}
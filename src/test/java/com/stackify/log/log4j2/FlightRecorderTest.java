@@ -0,0 +1,182 @@
+/*
+ * Copyright 2026 Stackify
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stackify.log.log4j2;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.core.impl.Log4jLogEvent;
+import org.apache.logging.log4j.message.SimpleMessage;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * FlightRecorder JUnit Test
+ */
+public class FlightRecorderTest {
+
+	/**
+	 * Time of the first test event
+	 */
+	private static final long START = System.currentTimeMillis();
+
+	/**
+	 * Recorded events sent by the recorder
+	 */
+	private final List<LogEvent> sent = new ArrayList<LogEvent>();
+
+	/**
+	 * Collects the recorded events
+	 */
+	private final FlightRecorder.Sink sink = new FlightRecorder.Sink() {
+		@Override
+		public void send(final LogEvent event, final EventContext eventContext) {
+			sent.add(event);
+		}
+	};
+
+	/**
+	 * testFlushOnError
+	 */
+	@Test
+	public void testFlushOnError() {
+		FlightRecorder recorder = new FlightRecorder(Level.INFO, 64 * 1024, 1024 * 1024, 60000, sink);
+
+		Assert.assertFalse(recorder.offer(event(Level.DEBUG, "debug 1", null), context("tx1")));
+		Assert.assertFalse(recorder.offer(event(Level.TRACE, "trace 2", null), context("tx1")));
+		Assert.assertFalse(recorder.offer(event(Level.DEBUG, "other", null), context("tx2")));
+		Assert.assertTrue(recorder.offer(event(Level.INFO, "info", null), context("tx1")));
+		Assert.assertTrue(sent.isEmpty());
+		Assert.assertEquals(2, recorder.getTransactionCount());
+
+		Assert.assertTrue(recorder.offer(event(Level.ERROR, "failed", null), context("tx1")));
+		Assert.assertEquals(2, sent.size());
+		Assert.assertEquals("debug 1", sent.get(0).getMessage().getFormattedMessage());
+		Assert.assertEquals("trace 2", sent.get(1).getMessage().getFormattedMessage());
+		Assert.assertEquals(1, recorder.getTransactionCount());
+
+		Assert.assertTrue(recorder.offer(event(Level.WARN, "failed", new IllegalStateException()), context("tx2")));
+		Assert.assertEquals(3, sent.size());
+		Assert.assertEquals(0, recorder.getTransactionCount());
+		Assert.assertEquals(0, recorder.getTotalBytes());
+	}
+
+	/**
+	 * testOutsideTransaction
+	 */
+	@Test
+	public void testOutsideTransaction() {
+		FlightRecorder recorder = new FlightRecorder(Level.INFO, 64 * 1024, 1024 * 1024, 60000, sink);
+
+		Assert.assertTrue(recorder.offer(event(Level.DEBUG, "debug", null), EventContext.EMPTY));
+		Assert.assertTrue(recorder.offer(event(Level.INFO, "info", null), EventContext.EMPTY));
+		Assert.assertTrue(recorder.offer(event(Level.ERROR, "failed", null), EventContext.EMPTY));
+		Assert.assertTrue(sent.isEmpty());
+		Assert.assertEquals(0, recorder.getTransactionCount());
+	}
+
+	/**
+	 * testCaps
+	 */
+	@Test
+	public void testCaps() {
+		int size = EventSizeEstimator.estimate(event(Level.DEBUG, "debug 0", null));
+		FlightRecorder recorder = new FlightRecorder(Level.INFO, 3 * size, 5 * size, 60000, sink);
+
+		for (int i = 0; i < 5; ++i) {
+			recorder.offer(event(Level.DEBUG, "debug " + i, null), context("tx1"));
+		}
+
+		Assert.assertEquals(3 * size, recorder.getTotalBytes());
+
+		for (int i = 0; i < 3; ++i) {
+			recorder.offer(event(Level.DEBUG, "debug " + i, null), context("tx2"));
+		}
+
+		Assert.assertEquals(1, recorder.getTransactionCount());
+		Assert.assertEquals(3 * size, recorder.getTotalBytes());
+
+		recorder.offer(event(Level.ERROR, "failed", null), context("tx1"));
+		Assert.assertTrue(sent.isEmpty());
+
+		recorder.offer(event(Level.ERROR, "failed", null), context("tx2"));
+		Assert.assertEquals(3, sent.size());
+	}
+
+	/**
+	 * testDiscardIdle
+	 */
+	@Test
+	public void testDiscardIdle() {
+		FlightRecorder recorder = new FlightRecorder(Level.INFO, 64 * 1024, 1024 * 1024, 1000, sink);
+		long base = START + 60000;
+
+		recorder.offer(event(Level.DEBUG, "debug", null, base), context("tx1"));
+		recorder.offer(event(Level.DEBUG, "debug", null, base + 900), context("tx2"));
+		Assert.assertEquals(2, recorder.getTransactionCount());
+
+		recorder.offer(event(Level.INFO, "info", null, base + 1500), EventContext.EMPTY);
+		Assert.assertEquals(1, recorder.getTransactionCount());
+
+		recorder.offer(event(Level.ERROR, "failed", null, base + 1500), context("tx1"));
+		Assert.assertTrue(sent.isEmpty());
+		Assert.assertEquals(1, recorder.getDiscarded());
+
+		Assert.assertEquals(1, recorder.clear());
+		Assert.assertEquals(0, recorder.getTransactionCount());
+		Assert.assertEquals(0, recorder.getTotalBytes());
+		Assert.assertEquals(2, recorder.getDiscarded());
+	}
+
+	/**
+	 * @param transactionId The transaction id
+	 * @return A request context with the transaction id
+	 */
+	private static EventContext context(final String transactionId) {
+		return new EventContext(transactionId, null, null);
+	}
+
+	/**
+	 * Creates an event at the start time
+	 * @param level The level
+	 * @param message The message
+	 * @param thrown The throwable (or null)
+	 * @return The event
+	 */
+	private static LogEvent event(final Level level, final String message, final Throwable thrown) {
+		return event(level, message, thrown, START);
+	}
+
+	/**
+	 * Creates an event
+	 * @param level The level
+	 * @param message The message
+	 * @param thrown The throwable (or null)
+	 * @param time The event time
+	 * @return The event
+	 */
+	private static LogEvent event(final Level level, final String message, final Throwable thrown, final long time) {
+		return Log4jLogEvent.newBuilder()
+				.setLoggerName("test")
+				.setLevel(level)
+				.setMessage(new SimpleMessage(message))
+				.setThrown(thrown)
+				.setTimeMillis(time)
+				.build();
+	}
+}
@@ -0,0 +1,195 @@
+/*
+ * Copyright 2026 Stackify
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stackify.log.log4j2;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stackify.api.LogMsg;
+import com.stackify.api.LogMsgGroup;
+import com.stackify.api.common.ApiConfiguration;
+import com.stackify.api.common.mask.Masker;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * InFlightLogTransport JUnit Test
+ */
+public class InFlightLogTransportTest {
+
+	/**
+	 * Stand-in Stackify API response time (milliseconds)
+	 */
+	private static final long LATENCY = 100;
+
+	/**
+	 * Stand-in Stackify API
+	 */
+	private HttpServer server;
+
+	/**
+	 * Stand-in Stackify API request handlers
+	 */
+	private ExecutorService executor;
+
+	/**
+	 * First message of the batches received
+	 */
+	private final Set<String> received = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+	/**
+	 * Client addresses of the requests received
+	 */
+	private final Set<InetSocketAddress> connections = Collections.newSetFromMap(new ConcurrentHashMap<InetSocketAddress, Boolean>());
+
+	/**
+	 * Starts the stand-in Stackify API
+	 * @throws Exception
+	 */
+	@Before
+	public void setUp() throws Exception {
+		final ObjectMapper objectMapper = new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+		executor = Executors.newCachedThreadPool();
+		server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+		server.setExecutor(executor);
+		server.createContext("/Log/Save", new HttpHandler() {
+			@Override
+			public void handle(final HttpExchange exchange) throws IOException {
+				InputStream in = new GZIPInputStream(exchange.getRequestBody());
+				LogMsgGroup group = objectMapper.readValue(in, LogMsgGroup.class);
+				in.close();
+
+				received.add(group.getMsgs().get(0).getMsg());
+				connections.add(exchange.getRemoteAddress());
+
+				try {
+					Thread.sleep(LATENCY);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+
+				exchange.sendResponseHeaders(200, -1);
+				exchange.close();
+			}
+		});
+		server.start();
+	}
+
+	/**
+	 * Stops the stand-in Stackify API
+	 */
+	@After
+	public void tearDown() {
+		server.stop(0);
+		executor.shutdownNow();
+	}
+
+	/**
+	 * testSendAll
+	 * @throws Exception
+	 */
+	@Test
+	public void testSendAll() throws Exception {
+		InFlightLogTransport transport = new InFlightLogTransport(direct(), 4);
+		transport.start();
+
+		for (int i = 0; i < 12; ++i) {
+			transport.send(group(Integer.toString(i)));
+		}
+
+		transport.close();
+
+		Assert.assertEquals(12, received.size());
+
+		for (int i = 0; i < 12; ++i) {
+			Assert.assertTrue(received.toString(), received.contains(Integer.toString(i)));
+		}
+
+		// connections are kept alive and reused
+
+		Assert.assertTrue(connections.toString(), connections.size() <= 8);
+	}
+
+	/**
+	 * testThroughput
+	 * @throws Exception
+	 */
+	@Test
+	public void testThroughput() throws Exception {
+		long oneAtATime = sendAll(1, 16);
+		long fourAtATime = sendAll(4, 16);
+
+		Assert.assertEquals(16, received.size());
+		// four batches in flight are at least 2.5 times as fast as one (ideally 4 times)
+
+		Assert.assertTrue(oneAtATime + " ms vs " + fourAtATime + " ms", 5 * fourAtATime < 2 * oneAtATime);
+	}
+
+	/**
+	 * Sends batches through an in-flight transport
+	 * @param maxInFlight Number of batches sent at once
+	 * @param count Number of batches
+	 * @return How long sending took (milliseconds)
+	 * @throws Exception
+	 */
+	private long sendAll(final int maxInFlight, final int count) throws Exception {
+		InFlightLogTransport transport = new InFlightLogTransport(direct(), maxInFlight);
+		transport.start();
+
+		long start = System.currentTimeMillis();
+
+		for (int i = 0; i < count; ++i) {
+			transport.send(group(Integer.toString(i)));
+		}
+
+		transport.close();
+
+		return System.currentTimeMillis() - start;
+	}
+
+	private DirectLogTransport direct() throws IOException {
+		ApiConfiguration apiConfig = ApiConfiguration.newBuilder()
+				.apiUrl("http://localhost:" + server.getAddress().getPort())
+				.apiKey("key")
+				.build();
+
+		return new DirectLogTransport(apiConfig, new Masker(), false, new PayloadCompressor(new DeflaterCodec(true, -1), 0));
+	}
+
+	private static LogMsgGroup group(final String msg) {
+		return LogMsgGroup.newBuilder()
+				.logger("test")
+				.msgs(Collections.singletonList(LogMsg.newBuilder().msg(msg).level("info").epochMs(1L).build()))
+				.build();
+	}
+}
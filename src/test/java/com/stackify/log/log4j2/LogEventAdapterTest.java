@@ -23,6 +23,7 @@ import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.ThreadContext.ContextStack;
 import org.apache.logging.log4j.core.LogEvent;
 import org.apache.logging.log4j.message.Message;
+import org.apache.logging.log4j.util.SortedArrayStringMap;
 import org.junit.Assert;
 import org.junit.Test;
 import org.mockito.Mockito;
@@ -63,7 +64,7 @@ public class LogEventAdapterTest {
 		mdcProperties.put("mdc2", "val2");
 		
 		LogEvent event = Mockito.mock(LogEvent.class);
-		Mockito.when(event.getContextMap()).thenReturn(mdcProperties);
+		Mockito.when(event.getContextData()).thenReturn(new SortedArrayStringMap(mdcProperties));
 
 		LogEventAdapter adapter = new LogEventAdapter(Mockito.mock(EnvironmentDetail.class));
 		Map<String, String> properties = adapter.getProperties(event);
@@ -106,7 +107,7 @@ public class LogEventAdapterTest {
 		Mockito.when(contextStack.peek()).thenReturn("ndcContext");
 
 		LogEvent event = Mockito.mock(LogEvent.class);
-		Mockito.when(event.getContextMap()).thenReturn(mdcProperties);
+		Mockito.when(event.getContextData()).thenReturn(new SortedArrayStringMap(mdcProperties));
 		Mockito.when(event.getContextStack()).thenReturn(contextStack);
 
 		LogEventAdapter adapter = new LogEventAdapter(Mockito.mock(EnvironmentDetail.class));
@@ -172,7 +173,7 @@ public class LogEventAdapterTest {
 		Mockito.when(event.getThreadName()).thenReturn(th);
 		Mockito.when(event.getLevel()).thenReturn(Level.DEBUG);
 		Mockito.when(event.getSource()).thenReturn(source);
-		Mockito.when(event.getContextMap()).thenReturn(properties);
+		Mockito.when(event.getContextData()).thenReturn(new SortedArrayStringMap(properties));
 
 		LogEventAdapter adapter = new LogEventAdapter(Mockito.mock(EnvironmentDetail.class));
 		LogMsg logMsg = adapter.getLogMsg(event, ex);
@@ -207,6 +208,109 @@ public class LogEventAdapterTest {
 		Assert.assertNotNull(error);
 	}
 	
+	/**
+	 * testMessageFormattedOnce
+	 */
+	@Test
+	public void testMessageFormattedOnce() {
+		Message message = Mockito.mock(Message.class);
+		Mockito.when(message.getFormattedMessage()).thenReturn("Exception message");
+
+		LogEvent event = Mockito.mock(LogEvent.class);
+		Mockito.when(event.getMessage()).thenReturn(message);
+		Mockito.when(event.getLevel()).thenReturn(Level.ERROR);
+
+		ConversionContext context = new ConversionContext(event);
+
+		LogEventAdapter adapter = new LogEventAdapter(Mockito.mock(EnvironmentDetail.class));
+		StackifyError error = adapter.getStackifyError(context, new NullPointerException());
+		LogMsg logMsg = adapter.getLogMsg(context, error);
+
+		Assert.assertEquals("Exception message", logMsg.getMsg());
+		Mockito.verify(message, Mockito.times(1)).getFormattedMessage();
+	}
+
+	/**
+	 * testTruncation
+	 */
+	@Test
+	public void testTruncation() {
+		Message message = Mockito.mock(Message.class);
+		Mockito.when(message.getFormattedMessage()).thenReturn(new String(new char[1000]).replace('\0', 'm'));
+
+		LogEvent event = Mockito.mock(LogEvent.class);
+		Mockito.when(event.getMessage()).thenReturn(message);
+		Mockito.when(event.getLevel()).thenReturn(Level.ERROR);
+
+		ConversionContext context = new ConversionContext(event);
+
+		LogEventAdapter adapter = new LogEventAdapter(Mockito.mock(EnvironmentDetail.class), new ServerVariables(), 100, 512);
+		StackifyError error = adapter.getStackifyError(context, new RuntimeException(new IllegalStateException()));
+		LogMsg logMsg = adapter.getLogMsg(context, error);
+
+		Assert.assertEquals(100, logMsg.getMsg().length());
+		Assert.assertTrue(logMsg.getMsg().endsWith(Truncation.SUFFIX));
+		Assert.assertNull(error.getError().getInnerError());
+	}
+
+	/**
+	 * testFieldMasks
+	 */
+	@Test
+	public void testFieldMasks() {
+		Message message = Mockito.mock(Message.class);
+		Mockito.when(message.getFormattedMessage()).thenReturn("Login for user jane@example.com with password hunter2");
+
+		Map<String, String> mdc = new HashMap<String, String>();
+		mdc.put("password", "hunter2");
+		mdc.put("user", "jane@example.com");
+
+		LogEvent event = Mockito.mock(LogEvent.class);
+		Mockito.when(event.getMessage()).thenReturn(message);
+		Mockito.when(event.getLevel()).thenReturn(Level.ERROR);
+		Mockito.when(event.getContextData()).thenReturn(new SortedArrayStringMap(mdc));
+
+		FieldMasker masker = new FieldMasker();
+		masker.addKeyMask("password", ".+");
+		masker.addMessageMask("EMAIL");
+
+		ConversionContext context = new ConversionContext(event);
+
+		LogEventAdapter adapter = new LogEventAdapter(Mockito.mock(EnvironmentDetail.class), new ServerVariables(), 0, 0, masker, null);
+		StackifyError error = adapter.getStackifyError(context, null);
+		LogMsg logMsg = adapter.getLogMsg(context, error);
+
+		Assert.assertEquals("Login for user **************** with password hunter2", logMsg.getMsg());
+		Assert.assertEquals("Login for user **************** with password hunter2", error.getError().getMessage());
+		Assert.assertEquals("{\"password\":\"*******\",\"user\":\"jane@example.com\"}", logMsg.getData());
+
+		Map<String, String> properties = adapter.getProperties(event);
+		Assert.assertEquals("*******", properties.get("password"));
+		Assert.assertEquals("jane@example.com", properties.get("user"));
+	}
+
+	/**
+	 * testGetStackifyErrorServerVariables
+	 */
+	@Test
+	public void testGetStackifyErrorServerVariables() {
+		Message message = Mockito.mock(Message.class);
+		Mockito.when(message.getFormattedMessage()).thenReturn("Exception message");
+
+		LogEvent event = Mockito.mock(LogEvent.class);
+		Mockito.when(event.getMessage()).thenReturn(message);
+
+		ServerVariables serverVariables = new ServerVariables(0, "java.version", null);
+
+		LogEventAdapter adapter = new LogEventAdapter(Mockito.mock(EnvironmentDetail.class), serverVariables);
+		StackifyError first = adapter.getStackifyError(event, new NullPointerException());
+		StackifyError second = adapter.getStackifyError(event, new NullPointerException());
+
+		Assert.assertSame(first.getServerVariables(), second.getServerVariables());
+		Assert.assertEquals(1, first.getServerVariables().size());
+		Assert.assertEquals(System.getProperty("java.version"), first.getServerVariables().get("java.version"));
+	}
+
 	/**
 	 * testGetStackifyErrorServletContext
 	 */
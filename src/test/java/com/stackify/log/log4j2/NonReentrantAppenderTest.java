@@ -18,6 +18,9 @@ package com.stackify.log.log4j2;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.core.Filter;
@@ -68,6 +71,95 @@ public class NonReentrantAppenderTest {
 		Assert.assertEquals(event, events.get(0));
 	}
 
+	/**
+	 * testConcurrentReentrantAppend
+	 * @throws Exception
+	 */
+	@Test
+	public void testConcurrentReentrantAppend() throws Exception {
+		// more threads appending at once than owner slots, so some use the fallback depth counter
+
+		final int threadCount = 300;
+		final CountDownLatch inside = new CountDownLatch(threadCount);
+		final AtomicInteger appended = new AtomicInteger();
+
+		final NonReentrantAppender appender = new NonReentrantAppender("NAME", null, null) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected void subAppend(final LogEvent event) {
+				appended.incrementAndGet();
+				inside.countDown();
+
+				try {
+					inside.await(10, TimeUnit.SECONDS);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+
+				append(event);
+			}
+		};
+
+		final LogEvent event = Mockito.mock(LogEvent.class);
+		Thread[] threads = new Thread[threadCount];
+
+		for (int i = 0; i < threadCount; ++i) {
+			threads[i] = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					appender.append(event);
+					appender.append(event);
+				}
+			});
+			threads[i].start();
+		}
+
+		for (Thread thread : threads) {
+			thread.join();
+		}
+
+		Assert.assertEquals(0, inside.getCount());
+		Assert.assertEquals(2 * threadCount, appended.get());
+	}
+
+	/**
+	 * testGarbageFree
+	 */
+	@Test
+	public void testGarbageFree() {
+		ThreadAllocations.assumeSupported();
+
+		final AtomicInteger appended = new AtomicInteger();
+
+		NonReentrantAppender appender = new NonReentrantAppender("NAME", null, null) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected void subAppend(final LogEvent event) {
+				appended.incrementAndGet();
+				append(event);
+			}
+		};
+
+		LogEvent event = Mockito.mock(LogEvent.class);
+
+		for (int i = 0; i < 20000; ++i) {
+			appender.append(event);
+		}
+
+		long before = ThreadAllocations.allocatedBytes();
+
+		for (int i = 0; i < 10000; ++i) {
+			appender.append(event);
+		}
+
+		long allocated = ThreadAllocations.allocatedBytes() - before;
+
+		Assert.assertEquals(30000, appended.get());
+		Assert.assertTrue(allocated + " bytes allocated", allocated < 1024);
+	}
+
 	/**
 	 * TestAppender
 	 */
@@ -0,0 +1,172 @@
+/*
+ * Copyright 2026 Stackify
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stackify.log.log4j2;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * PayloadCompressor JUnit Test
+ */
+public class PayloadCompressorTest {
+
+	/**
+	 * testGzip
+	 * @throws Exception
+	 */
+	@Test
+	public void testGzip() throws Exception {
+		PayloadCompressor compressor = new PayloadCompressor(PayloadCompressor.codec("GZIP", 6), 0);
+		byte[] payload = payload(100);
+
+		// the pooled deflater is reset between payloads
+
+		for (int i = 0; i < 3; ++i) {
+			PayloadBuffer compressed = compressor.compress(buffer(compressor, payload));
+			Assert.assertTrue(compressed.size() < payload.length / 10);
+			Assert.assertArrayEquals(payload, read(new GZIPInputStream(new ByteArrayInputStream(compressed.array(), 0, compressed.size()))));
+			compressor.release(compressed);
+		}
+
+		Assert.assertEquals("gzip", compressor.getCodec().getContentEncoding());
+	}
+
+	/**
+	 * testDeflate
+	 * @throws Exception
+	 */
+	@Test
+	public void testDeflate() throws Exception {
+		PayloadCompressor compressor = new PayloadCompressor(PayloadCompressor.codec("deflate", 1), 0);
+		byte[] payload = payload(1000);
+
+		PayloadBuffer compressed = compressor.compress(buffer(compressor, payload));
+		Assert.assertArrayEquals(payload, read(new InflaterInputStream(new ByteArrayInputStream(compressed.array(), 0, compressed.size()))));
+		Assert.assertEquals("deflate", compressor.getCodec().getContentEncoding());
+
+		// incompressible bytes still round trip
+
+		byte[] random = new byte[100000];
+		new Random(42).nextBytes(random);
+
+		compressed = compressor.compress(buffer(compressor, random));
+		Assert.assertArrayEquals(random, read(new InflaterInputStream(new ByteArrayInputStream(compressed.array(), 0, compressed.size()))));
+	}
+
+	/**
+	 * testThreshold
+	 * @throws Exception
+	 */
+	@Test
+	public void testThreshold() throws Exception {
+		PayloadCompressor compressor = new PayloadCompressor(PayloadCompressor.codec("gzip", -1), 1024);
+
+		Assert.assertNull(compressor.compress(buffer(compressor, new byte[1023])));
+		Assert.assertNotNull(compressor.compress(buffer(compressor, new byte[1024])));
+
+		PayloadCompressor none = new PayloadCompressor(PayloadCompressor.codec("none", -1), 0);
+		Assert.assertNull(none.getCodec());
+		Assert.assertNull(none.compress(buffer(none, payload(10))));
+	}
+
+	/**
+	 * testCodecLookup
+	 * @throws Exception
+	 */
+	@Test
+	public void testCodecLookup() throws Exception {
+		Assert.assertNull(PayloadCompressor.codec(null, -1));
+		Assert.assertNull(PayloadCompressor.codec(" ", -1));
+
+		PayloadCodec codec = PayloadCompressor.codec("copy", -1);
+		Assert.assertTrue(codec instanceof CopyCodec);
+
+		PayloadCompressor compressor = new PayloadCompressor(codec, 0);
+		PayloadBuffer encoded = compressor.compress(buffer(compressor, payload(1)));
+		Assert.assertEquals(payload(1).length, encoded.size());
+
+		try {
+			PayloadCompressor.codec("zstd", -1);
+			Assert.fail();
+		} catch (IllegalArgumentException e) {
+			Assert.assertEquals("Invalid compression: zstd", e.getMessage());
+		}
+
+		try {
+			PayloadCompressor.codec("gzip", 10);
+			Assert.fail();
+		} catch (IllegalArgumentException e) {
+			Assert.assertEquals("Invalid compression level: 10", e.getMessage());
+		}
+	}
+
+	/**
+	 * Codec registered with ServiceLoader by the test resources
+	 */
+	public static final class CopyCodec implements PayloadCodec {
+
+		@Override
+		public String getName() {
+			return "copy";
+		}
+
+		@Override
+		public String getContentEncoding() {
+			return "identity";
+		}
+
+		@Override
+		public void encode(final byte[] payload, final int offset, final int length, final PayloadBuffer out) {
+			out.write(payload, offset, length);
+		}
+	}
+
+	private static byte[] payload(final int entries) throws IOException {
+		StringBuilder json = new StringBuilder("{\"Logger\":\"com.example.orders.OrderService\",\"Msgs\":[");
+
+		for (int i = 0; i < entries; ++i) {
+			json.append("{\"Msg\":\"Order A-").append(10000 + i).append(" shipped\",\"Th\":\"http-nio-8080-exec-1\",\"Level\":\"info\"},");
+		}
+
+		return json.append("]}").toString().getBytes("UTF-8");
+	}
+
+	private static PayloadBuffer buffer(final PayloadCompressor compressor, final byte[] payload) {
+		PayloadBuffer buffer = compressor.acquire();
+		buffer.write(payload, 0, payload.length);
+		return buffer;
+	}
+
+	private static byte[] read(final InputStream in) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		byte[] buf = new byte[4096];
+		int read;
+
+		while ((read = in.read(buf)) >= 0) {
+			out.write(buf, 0, read);
+		}
+
+		return out.toByteArray();
+	}
+}
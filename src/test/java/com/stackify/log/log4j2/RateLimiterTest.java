@@ -0,0 +1,191 @@
+/*
+ * Copyright 2026 Stackify
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stackify.log.log4j2;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.core.LogEvent;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * RateLimiter JUnit Test
+ */
+public class RateLimiterTest {
+
+	/**
+	 * Nanoseconds per second
+	 */
+	private static final long SECOND = 1000000000L;
+
+	/**
+	 * testBurstAndRefill
+	 */
+	@Test
+	public void testBurstAndRefill() {
+		RateLimiter limiter = new RateLimiter(new RateLimit[] {RateLimit.create("com.acme", 10, 5)}, 60000);
+		long now = System.nanoTime();
+
+		for (int i = 0; i < 5; ++i) {
+			Assert.assertTrue(limiter.tryAcquire("com.acme.Service", now));
+		}
+
+		Assert.assertFalse(limiter.tryAcquire("com.acme.Service", now));
+		Assert.assertFalse(limiter.tryAcquire("com.acme", now));
+		Assert.assertTrue(limiter.tryAcquire("com.acmeother.Service", now));
+		Assert.assertTrue(limiter.tryAcquire(null, now));
+
+		Assert.assertTrue(limiter.tryAcquire("com.acme.Service", now + SECOND / 10));
+		Assert.assertFalse(limiter.tryAcquire("com.acme.Service", now + SECOND / 10));
+
+		for (int i = 0; i < 5; ++i) {
+			Assert.assertTrue(limiter.tryAcquire("com.acme.Service", now + 10 * SECOND));
+		}
+
+		Assert.assertEquals(3, limiter.getTotal());
+	}
+
+	/**
+	 * testHierarchy
+	 */
+	@Test
+	public void testHierarchy() {
+		RateLimiter limiter = new RateLimiter(new RateLimit[] {
+				RateLimit.create(null, 100, 100),
+				RateLimit.create("com.acme", 10, 10),
+				RateLimit.create("com.acme.db", 1, 2)
+		}, 60000);
+		long now = System.nanoTime();
+
+		Assert.assertTrue(limiter.tryAcquire("com.acme.db.Pool", now));
+		Assert.assertTrue(limiter.tryAcquire("com.acme.db.Pool", now));
+		Assert.assertFalse(limiter.tryAcquire("com.acme.db.Pool", now));
+
+		int sent = 0;
+
+		for (int i = 0; i < 20; ++i) {
+			if (limiter.tryAcquire("com.acme.web.Controller", now)) {
+				++sent;
+			}
+		}
+
+		Assert.assertEquals(8, sent);
+
+		sent = 0;
+
+		for (int i = 0; i < 200; ++i) {
+			if (limiter.tryAcquire("org.other.Service", now)) {
+				++sent;
+			}
+		}
+
+		Assert.assertEquals(90, sent);
+		Assert.assertTrue(limiter.tryAcquire("com.acme.db.Pool", now + SECOND));
+	}
+
+	/**
+	 * testThrottledByParent
+	 */
+	@Test
+	public void testThrottledByParent() {
+		RateLimiter limiter = new RateLimiter(new RateLimit[] {RateLimit.create("com.acme", 1, 1), RateLimit.create("com.acme.db", 0.001, 2)}, 60000);
+		long now = System.nanoTime();
+
+		Assert.assertTrue(limiter.tryAcquire("com.acme.db.Pool", now));
+		Assert.assertFalse(limiter.tryAcquire("com.acme.db.Pool", now));
+
+		// the token taken from com.acme.db for the throttled event was returned
+
+		Assert.assertTrue(limiter.tryAcquire("com.acme.db.Pool", now + SECOND));
+		Assert.assertFalse(limiter.tryAcquire("com.acme.db.Pool", now + 3 * SECOND));
+		Assert.assertEquals(2, limiter.getTotal());
+	}
+
+	/**
+	 * testReport
+	 */
+	@Test
+	public void testReport() {
+		RateLimiter limiter = new RateLimiter(new RateLimit[] {RateLimit.create("com.acme", 1, 1), RateLimit.create("org", 0, 0)}, 1000);
+		long now = System.nanoTime();
+		long start = System.currentTimeMillis();
+
+		Assert.assertTrue(limiter.tryAcquire("com.acme.Service", now));
+		Assert.assertFalse(limiter.tryAcquire("com.acme.Service", now));
+		Assert.assertFalse(limiter.tryAcquire("com.acme.Service", now));
+		Assert.assertFalse(limiter.tryAcquire("org.Service", now));
+
+		Assert.assertNull(limiter.pollReport(start - 1));
+
+		LogEvent report = limiter.pollReport(start + 2000);
+		Assert.assertNotNull(report);
+		Assert.assertEquals(Level.WARN, report.getLevel());
+		Assert.assertTrue(report.getMessage().getFormattedMessage(),
+				report.getMessage().getFormattedMessage().startsWith("Stackify log appender throttled 3 events in the last "));
+		Assert.assertEquals("3", report.getContextData().getValue("throttledTotal"));
+		Assert.assertEquals("2", report.getContextData().getValue("throttled.com.acme"));
+		Assert.assertEquals("1", report.getContextData().getValue("throttled.org"));
+
+		Assert.assertNull(limiter.pollReport(start + 2000));
+		Assert.assertNull(limiter.drainReport(start + 5000));
+		Assert.assertEquals(3, limiter.getTotal());
+	}
+
+	/**
+	 * testConcurrent
+	 * @throws Exception
+	 */
+	@Test
+	public void testConcurrent() throws Exception {
+		final RateLimiter limiter = new RateLimiter(new RateLimit[] {RateLimit.create("com.acme", 1, 1000)}, 60000);
+		final long now = System.nanoTime();
+		final AtomicInteger sent = new AtomicInteger();
+		final CountDownLatch start = new CountDownLatch(1);
+
+		Thread[] threads = new Thread[8];
+
+		for (int t = 0; t < threads.length; ++t) {
+			threads[t] = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						start.await();
+					} catch (InterruptedException e) {
+						return;
+					}
+
+					for (int i = 0; i < 1000; ++i) {
+						if (limiter.tryAcquire("com.acme.Service", now)) {
+							sent.incrementAndGet();
+						}
+					}
+				}
+			});
+			threads[t].start();
+		}
+
+		start.countDown();
+
+		for (Thread thread : threads) {
+			thread.join();
+		}
+
+		Assert.assertEquals(1000, sent.get());
+		Assert.assertEquals(7000, limiter.getTotal());
+	}
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2026 Stackify
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stackify.log.log4j2;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.core.impl.Log4jLogEvent;
+import org.apache.logging.log4j.message.SimpleMessage;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Sampler JUnit Test
+ */
+public class SamplerTest {
+
+	/**
+	 * testRateResolution
+	 */
+	@Test
+	public void testRateResolution() {
+		Sampler sampler = new Sampler(0.5, new SampleRate[] {
+				SampleRate.create("DEBUG", null, 0.1),
+				SampleRate.create(null, "com.acme", 0.8),
+				SampleRate.create("DEBUG", "com.acme.db", 0.2),
+				SampleRate.create("info", "com.acme.db", 0.3)
+		});
+
+		Assert.assertEquals(0.5, sampler.getRate("org.other", Level.INFO), 0.0);
+		Assert.assertEquals(0.1, sampler.getRate("org.other", Level.DEBUG), 0.0);
+		Assert.assertEquals(0.5, sampler.getRate(null, Level.WARN), 0.0);
+		Assert.assertEquals(0.8, sampler.getRate("com.acme", Level.DEBUG), 0.0);
+		Assert.assertEquals(0.8, sampler.getRate("com.acme.web.Controller", Level.DEBUG), 0.0);
+		Assert.assertEquals(0.5, sampler.getRate("com.acmedb", Level.INFO), 0.0);
+		Assert.assertEquals(0.2, sampler.getRate("com.acme.db.Pool", Level.DEBUG), 0.0);
+		Assert.assertEquals(0.3, sampler.getRate("com.acme.db.Pool", Level.INFO), 0.0);
+		Assert.assertEquals(0.8, sampler.getRate("com.acme.db.Pool", Level.WARN), 0.0);
+	}
+
+	/**
+	 * testErrorsBypass
+	 */
+	@Test
+	public void testErrorsBypass() {
+		Sampler sampler = new Sampler(0.0, null);
+
+		Assert.assertFalse(sampler.sample(event(Level.WARN, null), null));
+		Assert.assertTrue(sampler.sample(event(Level.ERROR, null), null));
+		Assert.assertTrue(sampler.sample(event(Level.FATAL, null), "tx"));
+		Assert.assertTrue(sampler.sample(event(Level.INFO, new IllegalStateException()), null));
+
+		Assert.assertEquals(0.0, sampler.getEffectiveRate(), 0.0);
+		Assert.assertEquals(1, sampler.getSampledOut());
+	}
+
+	/**
+	 * testConsistentPerTransaction
+	 */
+	@Test
+	public void testConsistentPerTransaction() {
+		Sampler sampler = new Sampler(0.5, new SampleRate[] {SampleRate.create("DEBUG", null, 0.25)});
+
+		int sampledTransactions = 0;
+
+		for (int i = 0; i < 1000; ++i) {
+			String transactionId = "tx-" + i;
+			boolean info = sampler.sample(event(Level.INFO, null), transactionId);
+
+			for (int j = 0; j < 5; ++j) {
+				Assert.assertEquals(info, sampler.sample(event(Level.INFO, null), transactionId));
+			}
+
+			if (sampler.sample(event(Level.DEBUG, null), transactionId)) {
+				Assert.assertTrue(info);
+			}
+
+			if (info) {
+				++sampledTransactions;
+			}
+		}
+
+		Assert.assertTrue(Integer.toString(sampledTransactions), (400 < sampledTransactions) && (sampledTransactions < 600));
+	}
+
+	/**
+	 * testEffectiveRate
+	 */
+	@Test
+	public void testEffectiveRate() {
+		Sampler sampler = new Sampler(0.3, null);
+
+		Assert.assertEquals(1.0, sampler.getEffectiveRate(), 0.0);
+
+		for (int i = 0; i < 10000; ++i) {
+			sampler.sample(event(Level.INFO, null), null);
+		}
+
+		Assert.assertEquals(0.3, sampler.getEffectiveRate(), 0.03);
+		Assert.assertEquals(Math.round(10000 * (1.0 - sampler.getEffectiveRate())), sampler.getSampledOut());
+	}
+
+	/**
+	 * testUnknownLevel
+	 */
+	@Test
+	public void testUnknownLevel() {
+		Assert.assertNull(SampleRate.create("WARNN", null, 0.1));
+		Assert.assertEquals(Level.WARN, SampleRate.create(" warn ", null, 0.1).getLevel());
+		Assert.assertNull(SampleRate.create("", null, 0.1).getLevel());
+	}
+
+	/**
+	 * Creates an event
+	 * @param level The level
+	 * @param thrown The throwable (or null)
+	 * @return The event
+	 */
+	private static LogEvent event(final Level level, final Throwable thrown) {
+		return Log4jLogEvent.newBuilder()
+				.setLoggerName("test")
+				.setLevel(level)
+				.setMessage(new SimpleMessage("message"))
+				.setThrown(thrown)
+				.build();
+	}
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2026 Stackify
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stackify.log.log4j2;
+
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * ServerVariables JUnit Test
+ */
+public class ServerVariablesTest {
+
+	/**
+	 * testGetIsCached
+	 */
+	@Test
+	public void testGetIsCached() {
+		ServerVariables serverVariables = new ServerVariables(0, null, null);
+
+		Map<String, String> first = serverVariables.get();
+		Map<String, String> second = serverVariables.get();
+
+		Assert.assertSame(first, second);
+		Assert.assertEquals(System.getProperty("java.version"), first.get("java.version"));
+	}
+
+	/**
+	 * testGetIsUnmodifiable
+	 */
+	@Test(expected = UnsupportedOperationException.class)
+	public void testGetIsUnmodifiable() {
+		new ServerVariables().get().put("key", "value");
+	}
+
+	/**
+	 * testGetRefreshesOnChange
+	 */
+	@Test
+	public void testGetRefreshesOnChange() {
+		String name = "stackify.test.ServerVariablesTest";
+
+		ServerVariables serverVariables = new ServerVariables(0, null, null);
+
+		Map<String, String> before = serverVariables.get();
+		Assert.assertFalse(before.containsKey(name));
+
+		System.setProperty(name, "value");
+
+		try {
+			Map<String, String> after = serverVariables.get();
+			Assert.assertNotSame(before, after);
+			Assert.assertEquals("value", after.get(name));
+		} finally {
+			System.clearProperty(name);
+		}
+	}
+
+	/**
+	 * testGetRefreshesOnInterval
+	 * @throws Exception
+	 */
+	@Test
+	public void testGetRefreshesOnInterval() throws Exception {
+		ServerVariables serverVariables = new ServerVariables(1, null, null);
+
+		Map<String, String> before = serverVariables.get();
+		Thread.sleep(5);
+		Map<String, String> after = serverVariables.get();
+
+		Assert.assertNotSame(before, after);
+		Assert.assertEquals(before, after);
+	}
+
+	/**
+	 * testIncludeAndExclude
+	 */
+	@Test
+	public void testIncludeAndExclude() {
+		ServerVariables serverVariables = new ServerVariables(0, "java.*, os.name", "java.vendor*");
+
+		Assert.assertTrue(serverVariables.isIncluded("java.version"));
+		Assert.assertTrue(serverVariables.isIncluded("os.name"));
+		Assert.assertFalse(serverVariables.isIncluded("os.arch"));
+		Assert.assertFalse(serverVariables.isIncluded("java.vendor.url"));
+
+		Map<String, String> variables = serverVariables.get();
+
+		Assert.assertTrue(variables.containsKey("java.version"));
+		Assert.assertFalse(variables.containsKey("user.dir"));
+		Assert.assertFalse(variables.containsKey("java.vendor"));
+	}
+}
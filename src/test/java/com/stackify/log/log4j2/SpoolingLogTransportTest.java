@@ -0,0 +1,106 @@
+/*
+ * Copyright 2026 Stackify
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stackify.log.log4j2;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.stackify.api.LogMsg;
+import com.stackify.api.LogMsgGroup;
+import com.stackify.api.common.log.LogTransport;
+import com.stackify.api.common.mask.Masker;
+
+/**
+ * SpoolingLogTransport JUnit Test
+ */
+public class SpoolingLogTransportTest {
+
+	/**
+	 * Spool directory
+	 */
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	/**
+	 * testSpoolAndReplay
+	 * @throws Exception
+	 */
+	@Test
+	public void testSpoolAndReplay() throws Exception {
+		final AtomicBoolean failing = new AtomicBoolean(true);
+		final List<String> sent = new CopyOnWriteArrayList<String>();
+
+		LogTransport delegate = new LogTransport() {
+			@Override
+			public void send(final LogMsgGroup group) throws Exception {
+				if (failing.get()) {
+					throw new Exception("unreachable");
+				}
+
+				sent.add(group.getMsgs().get(0).getMsg());
+			}
+		};
+
+		Masker masker = new Masker();
+		masker.addMask(Masker.MASK_SSN);
+
+		DiskSpool spool = new DiskSpool(folder.getRoot(), 1024 * 1024, 64 * 1024);
+		SpoolingLogTransport transport = new SpoolingLogTransport(delegate, spool, masker);
+
+		// failed batches are spooled, masked, and later batches queue behind them
+
+		transport.send(group("first 123-45-6789"));
+		transport.send(group("second"));
+
+		Assert.assertFalse(spool.isEmpty());
+		Assert.assertTrue(sent.isEmpty());
+
+		failing.set(false);
+		transport.start();
+
+		long deadline = System.currentTimeMillis() + 10000;
+
+		while ((sent.size() < 2) && (System.currentTimeMillis() < deadline)) {
+			Thread.sleep(10);
+		}
+
+		Assert.assertEquals(2, sent.size());
+		Assert.assertFalse(sent.get(0).contains("123-45-6789"));
+		Assert.assertEquals("second", sent.get(1));
+		Assert.assertTrue(spool.isEmpty());
+
+		// with the spool drained, batches go straight to the delegate
+
+		transport.send(group("third"));
+		Assert.assertEquals("third", sent.get(2));
+
+		transport.close();
+	}
+
+	private static LogMsgGroup group(final String msg) {
+		return LogMsgGroup.newBuilder()
+				.logger("test")
+				.msgs(Collections.singletonList(LogMsg.newBuilder().msg(msg).level("info").epochMs(1L).build()))
+				.build();
+	}
+}
@@ -15,14 +15,23 @@
  */
 package com.stackify.log.log4j2;
 
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
 import com.stackify.api.common.ApiConfiguration;
-import com.stackify.api.common.log.LogAppender;
+import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.core.Filter;
 import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.core.impl.Log4jLogEvent;
+import org.apache.logging.log4j.message.SimpleMessage;
 import org.junit.Assert;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 import org.powermock.api.mockito.PowerMockito;
 import org.powermock.core.classloader.annotations.PowerMockIgnore;
 import org.powermock.core.classloader.annotations.PrepareForTest;
@@ -90,8 +99,8 @@ public class StackifyLogAppenderTest {
 	public void testStartAppendStop() throws Exception {
 		StackifyLogAppender appender = StackifyLogAppender.createAppender("STACKIFY", null, null, "key", "app", null, null, null, null, null);
 
-		LogAppender<LogEvent> logAppender = Mockito.mock(LogAppender.class);
-		PowerMockito.whenNew(LogAppender.class).withAnyArguments().thenReturn(logAppender);
+		TransportLogAppender logAppender = Mockito.mock(TransportLogAppender.class);
+		PowerMockito.whenNew(TransportLogAppender.class).withAnyArguments().thenReturn(logAppender);
 
 		appender.start();
 
@@ -100,10 +109,149 @@ public class StackifyLogAppenderTest {
 		LogEvent event = Mockito.mock(LogEvent.class);
 		appender.subAppend(event);
 
-		Mockito.verify(logAppender).append(event);
+		ArgumentCaptor<ConversionContext> context = ArgumentCaptor.forClass(ConversionContext.class);
+		Mockito.verify(logAppender).append(context.capture());
+		Assert.assertSame(event, context.getValue().getEvent());
 
 		appender.stop();
 
 		Mockito.verify(logAppender).close();
 	}
+
+	/**
+	 * testBuilder
+	 */
+	@Test
+	public void testBuilder() {
+		StackifyLogAppender appender = StackifyLogAppender.newBuilder()
+				.setName("STACKIFY")
+				.setApiKey("key")
+				.setApplication("app")
+				.setAsync(true)
+				.setRingSize(1024)
+				.setWaitStrategy("block")
+				.setOverflowPolicy("drop-below-level")
+				.setOverflowLevel("error")
+				.setAsyncThreads(2)
+				.build();
+
+		Assert.assertEquals("STACKIFY", appender.getName());
+		Assert.assertEquals("https://api.stackify.com", appender.getApiUrl());
+		Assert.assertTrue(appender.isAsync());
+		Assert.assertEquals(1024, appender.getRingSize());
+		Assert.assertEquals(WaitStrategy.BLOCK, appender.getWaitStrategy());
+		Assert.assertEquals(OverflowPolicy.DROP_BELOW_LEVEL, appender.getOverflowPolicy());
+		Assert.assertEquals(Level.ERROR, appender.getOverflowLevel());
+		Assert.assertEquals(100, appender.getOverflowTimeout());
+		Assert.assertEquals(60000, appender.getDropReportInterval());
+		Assert.assertEquals(2, appender.getAsyncThreads());
+	}
+
+	/**
+	 * testBuilderUnknownCompression
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testBuilderUnknownCompression() {
+		StackifyLogAppender.newBuilder().setName("STACKIFY").setApiKey("key").setApplication("app").setCompression("lz5").build();
+	}
+
+	/**
+	 * testBuilderUnknownFormat
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testBuilderUnknownFormat() {
+		StackifyLogAppender.newBuilder().setName("STACKIFY").setApiKey("key").setApplication("app").setFormat("xml").build();
+	}
+
+	/**
+	 * testStartAppendStopAsync
+	 * @throws Exception
+	 */
+	@Test
+	public void testStartAppendStopAsync() throws Exception {
+		StackifyLogAppender appender = StackifyLogAppender.newBuilder().setName("STACKIFY").setApiKey("key").setApplication("app").setAsync(true).build();
+
+		TransportLogAppender logAppender = Mockito.mock(TransportLogAppender.class);
+		PowerMockito.whenNew(TransportLogAppender.class).withAnyArguments().thenReturn(logAppender);
+
+		// the slot behind the context is reused once append returns, so read it inside the call
+
+		final List<String> messages = new CopyOnWriteArrayList<String>();
+
+		Mockito.doAnswer(new Answer<Void>() {
+			@Override
+			public Void answer(final InvocationOnMock invocation) {
+				messages.add(((ConversionContext) invocation.getArguments()[0]).getMessage());
+				return null;
+			}
+		}).when(logAppender).append(Mockito.any(ConversionContext.class));
+
+		appender.start();
+
+		LogEvent event = Log4jLogEvent.newBuilder().setLoggerName("test").setLevel(Level.INFO).setMessage(new SimpleMessage("msg")).build();
+		appender.subAppend(event);
+
+		appender.stop();
+
+		Assert.assertEquals(Collections.singletonList("msg"), messages);
+
+		Mockito.verify(logAppender).close();
+	}
+
+	/**
+	 * testSweepWithoutEvents
+	 * @throws Exception
+	 */
+	@Test
+	public void testSweepWithoutEvents() throws Exception {
+		StackifyLogAppender appender = StackifyLogAppender.newBuilder().setName("STACKIFY").setApiKey("key").setApplication("app")
+				.setErrorAggregationWindow(1000).build();
+
+		TransportLogAppender logAppender = Mockito.mock(TransportLogAppender.class);
+		PowerMockito.whenNew(TransportLogAppender.class).withAnyArguments().thenReturn(logAppender);
+
+		appender.start();
+
+		Mockito.verify(logAppender, Mockito.timeout(5000)).sweep(Mockito.anyLong());
+
+		appender.stop();
+
+		Mockito.verify(logAppender).close();
+	}
+
+	/**
+	 * testThrottleReportWithoutEvents
+	 * @throws Exception
+	 */
+	@Test
+	public void testThrottleReportWithoutEvents() throws Exception {
+		StackifyLogAppender appender = StackifyLogAppender.newBuilder().setName("STACKIFY").setApiKey("key").setApplication("app")
+				.setRateLimits(new RateLimit[] {new RateLimit(null, 1, 1)}).setRateLimitReportInterval(100).build();
+
+		TransportLogAppender logAppender = Mockito.mock(TransportLogAppender.class);
+		PowerMockito.whenNew(TransportLogAppender.class).withAnyArguments().thenReturn(logAppender);
+
+		final List<String> messages = new CopyOnWriteArrayList<String>();
+
+		Mockito.doAnswer(new Answer<Void>() {
+			@Override
+			public Void answer(final InvocationOnMock invocation) {
+				messages.add(((ConversionContext) invocation.getArguments()[0]).getMessage());
+				return null;
+			}
+		}).when(logAppender).append(Mockito.any(ConversionContext.class));
+
+		appender.start();
+
+		for (int i = 0; i < 3; ++i) {
+			appender.subAppend(Log4jLogEvent.newBuilder().setLoggerName("test").setLevel(Level.INFO).setMessage(new SimpleMessage("msg")).build());
+		}
+
+		Mockito.verify(logAppender, Mockito.timeout(5000).times(2)).append(Mockito.any(ConversionContext.class));
+
+		appender.stop();
+
+		Assert.assertEquals("msg", messages.get(0));
+		Assert.assertTrue(messages.get(1), messages.get(1).startsWith("Stackify log appender throttled 2 events"));
+	}
 }
@@ -0,0 +1,53 @@
+/*
+ * Copyright 2026 Stackify
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stackify.log.log4j2;
+
+import java.lang.management.ManagementFactory;
+
+import org.junit.Assume;
+
+import com.sun.management.ThreadMXBean;
+
+/**
+ * Measures the bytes allocated by the current thread, for tests of allocation-free paths. Tests are skipped on JVMs
+ * that do not report per-thread allocations.
+ */
+final class ThreadAllocations {
+
+	/**
+	 * Hidden constructor
+	 */
+	private ThreadAllocations() {
+	}
+
+	/**
+	 * Skips the calling test unless the JVM reports the bytes allocated by each thread
+	 */
+	static void assumeSupported() {
+		java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		Assume.assumeTrue(threads instanceof ThreadMXBean);
+
+		ThreadMXBean allocations = (ThreadMXBean) threads;
+		Assume.assumeTrue(allocations.isThreadAllocatedMemorySupported() && allocations.isThreadAllocatedMemoryEnabled());
+	}
+
+	/**
+	 * @return Bytes allocated by the current thread so far
+	 */
+	static long allocatedBytes() {
+		return ((ThreadMXBean) ManagementFactory.getThreadMXBean()).getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+}
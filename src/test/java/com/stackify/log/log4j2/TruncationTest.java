@@ -0,0 +1,92 @@
+/*
+ * Copyright 2026 Stackify
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stackify.log.log4j2;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.stackify.api.ErrorItem;
+import com.stackify.api.common.lang.Throwables;
+
+/**
+ * Truncation JUnit Test
+ */
+public class TruncationTest {
+
+	/**
+	 * testTruncateString
+	 */
+	@Test
+	public void testTruncateString() {
+		Assert.assertNull(Truncation.truncate((String) null, 10));
+		Assert.assertEquals("short", Truncation.truncate("short", 64));
+		Assert.assertEquals(repeat('a', 100), Truncation.truncate(repeat('a', 100), 0));
+		Assert.assertEquals(repeat('a', 100), Truncation.truncate(repeat('a', 100), 100));
+
+		String truncated = Truncation.truncate(repeat('a', 101), 100);
+
+		Assert.assertEquals(100, truncated.length());
+		Assert.assertTrue(truncated.endsWith(Truncation.SUFFIX));
+	}
+
+	/**
+	 * testTruncateMultiByte
+	 */
+	@Test
+	public void testTruncateMultiByte() {
+		String value = repeat('\u00e9', 30) + "\uD83D\uDE00" + repeat('\u00e9', 30);
+
+		for (int max = 20; max < 130; ++max) {
+			String truncated = Truncation.truncate(value, max);
+
+			Assert.assertTrue(truncated.getBytes(StandardCharsets.UTF_8).length <= max);
+			Assert.assertFalse(Character.isHighSurrogate(truncated.charAt(Math.max(0, truncated.length() - Truncation.SUFFIX.length() - 1))));
+		}
+	}
+
+	/**
+	 * testTruncateErrorItem
+	 */
+	@Test
+	public void testTruncateErrorItem() {
+		Exception exception = new RuntimeException("outer", new IllegalStateException(repeat('x', 5000)));
+
+		ErrorItem full = Throwables.toErrorItem(exception);
+		int frames = full.getStackTrace().size();
+
+		Truncation.truncate(full, 0);
+		Assert.assertNotNull(full.getInnerError());
+
+		ErrorItem truncated = Throwables.toErrorItem(exception);
+		Truncation.truncate(truncated, 1024);
+
+		Assert.assertEquals("outer", truncated.getMessage());
+		Assert.assertTrue(truncated.getStackTrace().size() < frames);
+		Assert.assertNull(truncated.getInnerError());
+	}
+
+	private static String repeat(final char c, final int count) {
+		StringBuilder sb = new StringBuilder(count);
+
+		for (int i = 0; i < count; ++i) {
+			sb.append(c);
+		}
+
+		return sb.toString();
+	}
+}